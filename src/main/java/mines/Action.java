@@ -0,0 +1,111 @@
+package mines;
+
+/**
+ * The Action class encodes the moves played on a board as single {@code int} values,
+ * so that bots and solvers can return and store moves without allocating objects.
+ * An action holds the index of a cell in its high bits and the type of the move in its two low bits.
+ */
+public final class Action {
+
+    /**
+     * The value returned when no action is available.
+     */
+    public static final int NONE = -1;
+
+    /**
+     * The type of the action revealing a cell.
+     */
+    public static final int REVEAL = 0;
+
+    /**
+     * The type of the action flagging or unflagging a cell.
+     */
+    public static final int FLAG = 1;
+
+    /**
+     * The type of the action revealing the covered corners of a revealed number whose flags match its number.
+     */
+    public static final int CHORD = 2;
+
+    /**
+     * The number of bits used by the type of an action.
+     */
+    private static final int TYPE_BITS = 2;
+
+    /**
+     * The mask of the bits used by the type of an action.
+     */
+    private static final int TYPE_MASK = (1 << TYPE_BITS) - 1;
+
+    private Action() {
+    }
+
+    /**
+     * Encodes the action revealing a cell.
+     *
+     * @param index the index of the cell
+     * @return the encoded action
+     */
+    public static int reveal(int index) {
+        return index << TYPE_BITS | REVEAL;
+    }
+
+    /**
+     * Encodes the action flagging or unflagging a cell.
+     *
+     * @param index the index of the cell
+     * @return the encoded action
+     */
+    public static int flag(int index) {
+        return index << TYPE_BITS | FLAG;
+    }
+
+    /**
+     * Encodes the action chording a revealed cell.
+     *
+     * @param index the index of the cell
+     * @return the encoded action
+     */
+    public static int chord(int index) {
+        return index << TYPE_BITS | CHORD;
+    }
+
+    /**
+     * Gets the type of an action.
+     *
+     * @param action the encoded action
+     * @return {@link #REVEAL}, {@link #FLAG} or {@link #CHORD}
+     */
+    public static int getType(int action) {
+        return action & TYPE_MASK;
+    }
+
+    /**
+     * Gets the index of the cell of an action.
+     *
+     * @param action the encoded action
+     * @return the index of the cell
+     */
+    public static int getCell(int action) {
+        return action >>> TYPE_BITS;
+    }
+
+    /**
+     * Gets a readable description of an action.
+     *
+     * @param action the encoded action
+     * @return the description of the action
+     */
+    public static String toString(int action) {
+        if (action == NONE)
+            return "none";
+        switch (getType(action)) {
+            case FLAG:
+                return "flag " + getCell(action);
+            case CHORD:
+                return "chord " + getCell(action);
+            default:
+                return "reveal " + getCell(action);
+        }
+    }
+}
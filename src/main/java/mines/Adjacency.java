@@ -0,0 +1,116 @@
+package mines;
+
+/**
+ * The Adjacency class is the compiled neighbourhood of every cell of a board, in compressed sparse rows:
+ * the neighbours of the cell {@code i} are the entries of {@link #getNeighbours()} from
+ * {@code getOffsets()[i]} included to {@code getOffsets()[i + 1]} excluded.
+ * It is built once per topology and board size by {@link Topology#getAdjacency(int, int)},
+ * and shared by all the games of that size. Instances are immutable.
+ */
+public final class Adjacency {
+
+    /**
+     * The position of the first neighbour of every cell, followed by the total number of neighbours.
+     */
+    private final int[] offsets;
+
+    /**
+     * The neighbours of all the cells, cell after cell.
+     */
+    private final int[] neighbours;
+
+    /**
+     * The largest number of neighbours of a cell.
+     */
+    private final int maxDegree;
+
+    /**
+     * Creates a new table.
+     *
+     * @param offsets    the position of the first neighbour of every cell, followed by the number of neighbours
+     * @param neighbours the neighbours of all the cells
+     */
+    Adjacency(int[] offsets, int[] neighbours) {
+        this.offsets = offsets;
+        this.neighbours = neighbours;
+        int max = 0;
+        for (int i = 0; i + 1 < offsets.length; i++)
+            max = Math.max(max, offsets[i + 1] - offsets[i]);
+        maxDegree = max;
+    }
+
+    /**
+     * Gets the number of cells of the board.
+     *
+     * @return the number of cells
+     */
+    public int getCellCount() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * Gets the number of neighbours of a cell.
+     *
+     * @param index the index of the cell
+     * @return the number of neighbours
+     */
+    public int getDegree(int index) {
+        return offsets[index + 1] - offsets[index];
+    }
+
+    /**
+     * Gets the largest number of neighbours of a cell.
+     *
+     * @return the largest degree
+     */
+    public int getMaxDegree() {
+        return maxDegree;
+    }
+
+    /**
+     * Writes the neighbours of a cell in the given array.
+     *
+     * @param index      the index of the cell
+     * @param neighbours the array receiving the indices, of at least {@link #getMaxDegree()} elements
+     * @return the number of neighbours
+     */
+    public int getNeighbours(int index, int[] neighbours) {
+        int start = offsets[index];
+        int count = offsets[index + 1] - start;
+        System.arraycopy(this.neighbours, start, neighbours, 0, count);
+        return count;
+    }
+
+    /**
+     * Checks whether two cells are neighbours.
+     *
+     * @param index the index of the first cell
+     * @param other the index of the second cell
+     * @return true if the second cell is a neighbour of the first one
+     */
+    public boolean isAdjacent(int index, int other) {
+        for (int p = offsets[index]; p < offsets[index + 1]; p++) {
+            if (neighbours[p] == other)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the offsets of the table, for the loops of the engine. The array is shared and must not be changed.
+     *
+     * @return the position of the first neighbour of every cell, followed by the total number of neighbours
+     */
+    int[] getOffsets() {
+        return offsets;
+    }
+
+    /**
+     * Gets the neighbours of the table, for the loops of the engine. The array is shared and must not be changed.
+     *
+     * @return the neighbours of all the cells, cell after cell
+     */
+    int[] getNeighbours() {
+        return neighbours;
+    }
+}
@@ -0,0 +1,208 @@
+package mines;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * The AnsiRenderer class draws a board in a terminal with ANSI escape sequences.
+ * Every cell is drawn as a colored character followed by a space, so that the cells look square.
+ * <p>The renderer remembers the image of every cell on the screen, and a frame only redraws the cells
+ * that changed since the previous one: the cursor is moved to the first cell of every run of changed cells
+ * of a row, and the color is only changed when it differs from the last one written. A frame is built in memory
+ * and written with a single call to the writer, then flushed, so a move on a large board costs a few bytes
+ * and one write over a slow connection.</p>
+ * A renderer is not thread safe, each terminal has its own.
+ */
+public class AnsiRenderer {
+
+    /**
+     * The escape sequence starting a control sequence.
+     */
+    private static final String CSI = "\u001B[";
+
+    /**
+     * The characters of the images, indexed as in {@link Zobrist}.
+     */
+    private static final char[] GLYPHS = {'.', '1', '2', '3', '4', '5', '6', '7', '8', '*', '#', 'F', 'X'};
+
+    /**
+     * The graphic rendition codes of the images, indexed as in {@link Zobrist}.
+     */
+    private static final String[] COLORS = {
+            "0;90", "0;94", "0;32", "0;91", "0;34", "0;31", "0;36", "0;35", "0;37", "1;97;41", "0;37", "1;91", "1;95"
+    };
+
+    /**
+     * The number of terminal columns used by a cell.
+     */
+    private static final int CELL_COLUMNS = 2;
+
+    /**
+     * The writer receiving the frames.
+     */
+    private final Writer out;
+
+    /**
+     * The frame being built.
+     */
+    private final StringBuilder frame = new StringBuilder();
+
+    /**
+     * The image of every cell on the screen, or -1 when it is unknown.
+     */
+    private byte[] shown = new byte[0];
+
+    /**
+     * The number of rows of the board on the screen.
+     */
+    private int rows;
+
+    /**
+     * The number of columns of the board on the screen.
+     */
+    private int columns;
+
+    /**
+     * The status line on the screen.
+     */
+    private String shownStatus = "";
+
+    /**
+     * A boolean flag indicating whether the next frame clears the screen.
+     */
+    private boolean invalid = true;
+
+    /**
+     * The graphic rendition of the last character written, or {@code null} if unknown.
+     */
+    private String color;
+
+    /**
+     * The number of bytes written by the last frame.
+     */
+    @Getter
+    private int lastFrameLength;
+
+    /**
+     * Creates a new renderer.
+     *
+     * @param out the writer receiving the frames, usually a buffered writer on the standard output
+     */
+    public AnsiRenderer(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Draws the visible state of a field, with its mines when the game is over.
+     *
+     * @param field  the field
+     * @param status the text displayed under the board
+     * @return the number of cells redrawn
+     */
+    public int render(MineField field, String status) {
+        BoardConfig config = field.getConfig();
+        return render(config.getRows(), config.getColumns(), field::getImageIndex, status);
+    }
+
+    /**
+     * Draws a board.
+     *
+     * @param rows    the number of rows of the board
+     * @param columns the number of columns of the board
+     * @param images  the function giving the image of a cell from its index, as in {@link Zobrist}
+     * @param status  the text displayed under the board
+     * @return the number of cells redrawn
+     */
+    public int render(int rows, int columns, IntUnaryOperator images, String status) {
+        frame.setLength(0);
+        if (rows != this.rows || columns != this.columns) {
+            this.rows = rows;
+            this.columns = columns;
+            shown = new byte[rows * columns];
+            invalidate();
+        }
+        if (invalid) {
+            frame.append(CSI).append("?25l").append(CSI).append("2J");
+            shownStatus = "";
+            color = null;
+            invalid = false;
+        }
+
+        int redrawn = 0;
+        for (int row = 0; row < rows; row++) {
+            boolean cursorAtCell = false;
+            for (int column = 0; column < columns; column++) {
+                int index = row * columns + column;
+                int image = images.applyAsInt(index);
+                if (shown[index] == image) {
+                    cursorAtCell = false;
+                    continue;
+                }
+                if (!cursorAtCell)
+                    moveTo(row, column * CELL_COLUMNS);
+                setColor(image);
+                frame.append(GLYPHS[image]).append(' ');
+                shown[index] = (byte) image;
+                cursorAtCell = true;
+                redrawn++;
+            }
+        }
+
+        if (!status.equals(shownStatus)) {
+            moveTo(rows + 1, 0);
+            frame.append(CSI).append("0m").append(status).append(CSI).append('K');
+            color = null;
+            shownStatus = status;
+        }
+
+        if (frame.length() > 0) {
+            // the cursor waits under the board, where the commands are typed
+            moveTo(rows + 2, 0);
+            frame.append(CSI).append("0m").append(CSI).append('K');
+            color = null;
+        }
+        lastFrameLength = frame.length();
+        try {
+            out.append(frame);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return redrawn;
+    }
+
+    /**
+     * Forgets the content of the screen, so that the next frame clears it and redraws every cell.
+     */
+    public void invalidate() {
+        Arrays.fill(shown, (byte) -1);
+        invalid = true;
+    }
+
+    /**
+     * Moves the cursor.
+     *
+     * @param row    the row of the screen, from 0
+     * @param column the column of the screen, from 0
+     */
+    private void moveTo(int row, int column) {
+        frame.append(CSI).append(row + 1).append(';').append(column + 1).append('H');
+    }
+
+    /**
+     * Changes the color of the next characters, unless it is already the color of an image.
+     *
+     * @param image the index of the image
+     */
+    private void setColor(int image) {
+        if (COLORS[image].equals(color))
+            return;
+        frame.append(CSI).append(COLORS[image]).append('m');
+        color = COLORS[image];
+    }
+}
@@ -0,0 +1,347 @@
+package mines;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * The BatchRunner class plays scripted games from the command line, for the test pipelines and the fuzzers.
+ * It only uses the {@link MineField} engine, so it starts without loading AWT or Swing.
+ * <p>The commands are read one per line from a file or the standard input: {@code r ROW COLUMN} reveals a cell,
+ * {@code f ROW COLUMN} flags or unflags it and {@code c ROW COLUMN} chords it. Rows and columns start at 0,
+ * and the empty lines and the lines starting with {@code #} are ignored.
+ * The mines are placed on the first reveal, keeping the revealed cell and its corners free of mines,
+ * from the random number generator seeded with the given seed, so a script always plays the same game.</p>
+ * <p>A line is written for every command: the number of the command, the number of cells that changed,
+ * then every changed cell as {@code INDEX:IMAGE} in the order they changed, the image being indexed
+ * as in {@link Zobrist}. A command that cannot be read writes {@code error NUMBER MESSAGE} instead.
+ * The line {@code won} or {@code lost} is written when the game ends, and the commands after it are ignored.
+ * The last line holds the counters of the run.</p>
+ */
+public class BatchRunner {
+
+    /**
+     * The usage of the command line.
+     */
+    private static final String USAGE = "Usage: BatchRunner [beginner|intermediate|expert|ROWSxCOLUMNS/MINES]"
+            + " [--seed SEED] [--topology NAME] [COMMAND_FILE]";
+
+    /**
+     * The pattern of a custom configuration, {@code ROWSxCOLUMNS/MINES}.
+     */
+    private static final Pattern CUSTOM_CONFIG = Pattern.compile("\\d+x\\d+/\\d+");
+
+    /**
+     * The field of the game.
+     */
+    private final MineField field;
+
+    /**
+     * The random number generator placing the mines.
+     */
+    private final Random random;
+
+    /**
+     * The writer receiving the results.
+     */
+    private final Writer out;
+
+    /**
+     * The line being written.
+     */
+    private final StringBuilder line = new StringBuilder();
+
+    /**
+     * A boolean flag indicating whether the mines have been placed, on the first reveal.
+     */
+    private boolean minesPlaced;
+
+    /**
+     * The number of commands read.
+     */
+    private int commands;
+
+    /**
+     * The number of commands which could not be read.
+     */
+    private int errors;
+
+    /**
+     * The number of commands ignored because the game was over.
+     */
+    private int ignored;
+
+    /**
+     * The number of cell changes written.
+     */
+    private long changes;
+
+    /**
+     * Creates a runner.
+     *
+     * @param config   the configuration of the board
+     * @param topology the topology of the board
+     * @param seed     the seed of the mines
+     * @param out      the writer receiving the results
+     */
+    public BatchRunner(BoardConfig config, Topology topology, long seed, Writer out) {
+        field = new MineField(config, topology);
+        random = new Random(seed);
+        this.out = out;
+    }
+
+    /**
+     * Executes a command and writes its result.
+     *
+     * @param command the command
+     */
+    public void execute(String command) {
+        int start = skipSpaces(command, 0);
+        if (start == command.length() || command.charAt(start) == '#')
+            return;
+        commands++;
+        if (field.isWon() || field.isLost()) {
+            ignored++;
+            return;
+        }
+
+        char type = command.charAt(start);
+        int rowStart = skipSpaces(command, start + 1);
+        int rowEnd = skipDigits(command, rowStart);
+        int columnStart = skipSpaces(command, rowEnd);
+        int columnEnd = skipDigits(command, columnStart);
+        BoardConfig config = field.getConfig();
+        if ((type != 'r' && type != 'f' && type != 'c') || start + 1 == rowStart || rowStart == rowEnd
+                || rowEnd == columnStart || columnStart == columnEnd
+                || skipSpaces(command, columnEnd) != command.length()) {
+            error("expected r, f or c followed by a row and a column");
+            return;
+        }
+        int row = parse(command, rowStart, rowEnd);
+        int column = parse(command, columnStart, columnEnd);
+        if (row < 0 || row >= config.getRows() || column < 0 || column >= config.getColumns()) {
+            error("no such cell");
+            return;
+        }
+
+        int index = row * config.getColumns() + column;
+        if (type == 'r' && !minesPlaced && field.getState(index) == MineField.COVERED) {
+            // placing the mines clears the field, so the flags set before are set again
+            int[] flags = field.getFlaggedPositions();
+            field.placeMines(random, index);
+            for (int flag : flags)
+                field.toggleFlag(flag);
+            minesPlaced = true;
+        }
+        field.apply(type == 'f' ? Action.flag(index) : type == 'c' ? Action.chord(index) : Action.reveal(index));
+        writeChanges();
+        if (field.isWon())
+            write("won");
+        else if (field.isLost())
+            write("lost");
+    }
+
+    /**
+     * Executes all the commands of a reader, then writes the counters. The output is flushed whenever
+     * the reader has no more buffered input, so an interactive caller sees every result at once.
+     *
+     * @param in the reader of the commands
+     * @throws IOException if the commands cannot be read or the results cannot be written
+     */
+    public void run(BufferedReader in) throws IOException {
+        String command;
+        while ((command = in.readLine()) != null) {
+            execute(command);
+            if (!in.ready())
+                out.flush();
+        }
+        finish();
+    }
+
+    /**
+     * Writes the counters of the run and flushes the results.
+     */
+    public void finish() {
+        line.setLength(0);
+        line.append("commands ").append(commands).append(" errors ").append(errors).append(" ignored ").append(ignored)
+                .append(" changes ").append(changes).append(" revealed ").append(field.getRevealedCells())
+                .append(" flagged ").append(field.getView().getFlaggedCells())
+                .append(field.isWon() ? " won" : field.isLost() ? " lost" : " playing");
+        write(line);
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Gets the field of the game.
+     *
+     * @return the field
+     */
+    MineField getField() {
+        return field;
+    }
+
+    /**
+     * Writes the number of the last command and the cells it changed, as told by the field,
+     * so the time taken does not depend on the size of the board.
+     */
+    private void writeChanges() {
+        int changed = field.getChangedCount();
+        line.setLength(0);
+        line.append(commands).append(' ').append(changed);
+        for (int i = 0; i < changed; i++) {
+            int index = field.getChangedCell(i);
+            line.append(' ').append(index).append(':').append(field.getImageIndex(index));
+        }
+        changes += changed;
+        write(line);
+    }
+
+    /**
+     * Writes the error of the last command.
+     *
+     * @param message the description of the error
+     */
+    private void error(String message) {
+        errors++;
+        line.setLength(0);
+        line.append("error ").append(commands).append(' ').append(message);
+        write(line);
+    }
+
+    /**
+     * Writes a line of results.
+     *
+     * @param text the line, without its end
+     */
+    private void write(CharSequence text) {
+        try {
+            out.append(text).append('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Skips the spaces of a command.
+     *
+     * @param command the command
+     * @param from    the position to start from
+     * @return the position of the first character which is not a space, or the length of the command
+     */
+    private static int skipSpaces(String command, int from) {
+        while (from < command.length() && Character.isWhitespace(command.charAt(from)))
+            from++;
+        return from;
+    }
+
+    /**
+     * Skips the digits of a command.
+     *
+     * @param command the command
+     * @param from    the position to start from
+     * @return the position of the first character which is not a digit, or the length of the command
+     */
+    private static int skipDigits(String command, int from) {
+        while (from < command.length() && command.charAt(from) >= '0' && command.charAt(from) <= '9')
+            from++;
+        return from;
+    }
+
+    /**
+     * Parses a number of a command, without allocating.
+     *
+     * @param command the command
+     * @param from    the position of the first digit
+     * @param to      the position after the last digit
+     * @return the number, or -1 if it is too large
+     */
+    private static int parse(String command, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            value = value * 10 + command.charAt(i) - '0';
+            if (value > Integer.MAX_VALUE)
+                return -1;
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parses a board configuration: the name of a standard one, or {@code ROWSxCOLUMNS/MINES}.
+     *
+     * @param text the text of the configuration
+     * @return the configuration
+     * @throws IllegalArgumentException if the text is not a valid configuration
+     */
+    static BoardConfig parseConfig(String text) {
+        switch (text) {
+            case "beginner":
+                return BoardConfig.BEGINNER;
+            case "intermediate":
+                return BoardConfig.INTERMEDIATE;
+            case "expert":
+                return BoardConfig.EXPERT;
+            default:
+                int times = text.indexOf('x');
+                int slash = text.indexOf('/');
+                if (times <= 0 || slash <= times)
+                    throw new IllegalArgumentException("Invalid configuration " + text);
+                return new BoardConfig(Integer.parseInt(text.substring(0, times)),
+                        Integer.parseInt(text.substring(times + 1, slash)), Integer.parseInt(text.substring(slash + 1)));
+        }
+    }
+
+    /**
+     * Plays a script from the command line. The arguments are the configuration, an expert board by default,
+     * the seed, 0 by default, the topology, square by default, and the file of the commands,
+     * the standard input by default.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        BoardConfig config = BoardConfig.EXPERT;
+        Topology topology = Topology.SQUARE;
+        long seed = 0;
+        String file = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--seed"))
+                    seed = Long.parseLong(args[++i]);
+                else if (args[i].equals("--topology"))
+                    topology = Topology.forName(args[++i]);
+                else if (args[i].startsWith("--"))
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+                else if (CUSTOM_CONFIG.matcher(args[i]).matches() || args[i].equals("beginner")
+                        || args[i].equals("intermediate") || args[i].equals("expert"))
+                    config = parseConfig(args[i]);
+                else
+                    file = args[i];
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            System.err.println(e.getMessage() == null ? USAGE : e.getMessage() + "\n" + USAGE);
+            System.exit(2);
+            return;
+        }
+
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+        BatchRunner runner = new BatchRunner(config, topology, seed, out);
+        try (InputStream input = file == null ? System.in : new FileInputStream(file);
+             BufferedReader in = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 1 << 16)) {
+            runner.run(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -5,10 +5,20 @@ import lombok.Getter;
 import lombok.Setter;
 
 import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import javax.swing.*;
 
 /**
@@ -35,6 +45,28 @@ public class Board extends JPanel {
      */
     public static final int COLS = 16;
 
+    /**
+     * The configuration of the game board.
+     */
+    static final BoardConfig CONFIG = new BoardConfig(ROWS, COLS, MINES);
+
+    /**
+     * The position of the first corner of every cell in {@link #CORNERS}, from the table of the square topology
+     * shared with the engine, the solvers and the heatmap.
+     */
+    static final int[] CORNER_OFFSETS = Topology.SQUARE.getAdjacency(ROWS, COLS).getOffsets();
+
+    /**
+     * The corners of all the cells, cell after cell, in increasing order of index.
+     */
+    static final int[] CORNERS = Topology.SQUARE.getAdjacency(ROWS, COLS).getNeighbours();
+
+    /**
+     * The index of the cell opened at the start of a game without guessing,
+     * which is the cell at the center of the board.
+     */
+    static final int NO_GUESS_START = (ROWS / 2) * COLS + COLS / 2;
+
     /**
      * A pseudo-random number generator used to randomly place mines on the board.
      * The {@code Random} instance is initialized in the constructor with the
@@ -76,6 +108,13 @@ public class Board extends JPanel {
     @VisibleForTesting
     private boolean inGame;
 
+    /**
+     * A boolean flag indicating whether the board shows the revealed view of a lost game,
+     * where the images of the cells are derived from their state when they are painted.
+     */
+    @Getter
+    private boolean revealed;
+
     /**
      * The number of mines left to be marked by the player.
      */
@@ -121,6 +160,262 @@ public class Board extends JPanel {
      */
     private static final int COVER_FOR_CELL = 10;
 
+    /**
+     * The texts displayed by the statusbar for every number of mines left,
+     * built once so that marking a cell does not build a new string.
+     */
+    private static final String[] MINES_LEFT_TEXTS = new String[MINES + 1];
+
+    static {
+        for (int i = 0; i <= MINES; i++)
+            MINES_LEFT_TEXTS[i] = Integer.toString(i);
+    }
+
+    /**
+     * The stack of cells used to uncover the empty areas without recursion.
+     * Every cell is pushed at most once per game, so it never grows.
+     */
+    private transient int[] revealStack;
+
+    /**
+     * The maximum number of boards generated ahead of time.
+     */
+    static final int POOL_DEPTH = 4;
+
+    /**
+     * The maximum memory in bytes used by the boards generated ahead of time.
+     */
+    static final long POOL_MEMORY_CAP = 1024L * 1024L;
+
+    /**
+     * The estimated memory in bytes used by one cell, including its corners map.
+     */
+    private static final long ESTIMATED_CELL_BYTES = 256;
+
+    /**
+     * The pool of boards generated ahead of time on a background thread in the no guess mode,
+     * used to start a new game without generating a board on the event dispatch thread.
+     * It is {@code null} in the regular mode, where the mines are only placed on the first click.
+     */
+    @Getter
+    @VisibleForTesting
+    private final transient BoardPool<List<ICell>> boardPool;
+
+    /**
+     * A boolean flag indicating whether the boards are generated so that they can be won without guessing.
+     * In this mode every game starts with the cell at the center of the board already opened.
+     */
+    @Getter
+    @VisibleForTesting
+    private final boolean noGuess;
+
+    /**
+     * The generator of the boards that can be won without guessing, or {@code null} in the regular mode.
+     */
+    private final transient NoGuessGenerator noGuessGenerator;
+
+    /**
+     * A boolean flag indicating whether the mines of the current game have been placed.
+     * In the regular mode the mines are placed on the first left click,
+     * so that the first clicked cell and its corners are never mined.
+     */
+    @Getter
+    @VisibleForTesting
+    private boolean minesPlaced;
+
+    /**
+     * The default maximum number of moves that can be undone.
+     */
+    static final int DEFAULT_UNDO_LEVELS = 10_000;
+
+    /**
+     * The history of the current game used to undo and redo the moves,
+     * or {@code null} until undo is enabled, so that playing does not allocate by default.
+     */
+    @Getter
+    @VisibleForTesting
+    private transient BoardHistory history;
+
+    /**
+     * A boolean flag indicating whether the moves can still be undone after the game is over,
+     * so that a losing click can be taken back.
+     */
+    @Getter
+    @Setter
+    @VisibleForTesting
+    private boolean practiceMode;
+
+    /**
+     * The {@link Zobrist} hash of the visible state of the board,
+     * updated on every change of the image displayed by a cell.
+     */
+    @Getter
+    @VisibleForTesting
+    private long visibleHash;
+
+    /**
+     * The unchecked cells touching a checked cell, updated on every change of a cell
+     * so that a hint does not have to scan the board.
+     */
+    @Getter
+    @VisibleForTesting
+    private transient FrontierIndex frontier;
+
+    /**
+     * The counts of the mines, flags and revealed cells of the rectangles of the board,
+     * updated on every change of a cell so that the analytics do not have to scan the board.
+     */
+    @Getter
+    private transient RegionCounts regionCounts;
+
+    /**
+     * A boolean flag indicating whether the cell advised by {@link #hint()} is highlighted on the board.
+     */
+    @Getter
+    private boolean showHints;
+
+    /**
+     * A boolean flag indicating whether the current game has been helped by the hints, the heatmap
+     * or an undone move, in which case its time is not recorded in the leaderboard.
+     */
+    @Getter
+    private boolean assisted;
+
+    /**
+     * The last hint computed, or {@code null}.
+     */
+    private transient Hint cachedHint;
+
+    /**
+     * The {@link Zobrist} hash of the visible state the last hint was computed for.
+     */
+    private long cachedHintHash;
+
+    /**
+     * The modifiers of a click pressing the left and right buttons together, which chords the cell.
+     */
+    private static final int CHORD_BUTTONS = InputEvent.BUTTON1_DOWN_MASK | InputEvent.BUTTON3_DOWN_MASK;
+
+    /**
+     * The smallest size of a cell in pixels.
+     */
+    static final int MIN_CELL_SIZE = 4;
+
+    /**
+     * The largest size of a cell in pixels.
+     */
+    static final int MAX_CELL_SIZE = 64;
+
+    /**
+     * The size in device pixels under which the cells are painted with a flat color instead of their image.
+     */
+    static final int FLAT_RENDER_SIZE = 8;
+
+    /**
+     * The number of zoom levels whose scaled images are kept.
+     */
+    private static final int TILE_CACHE_LEVELS = 4;
+
+    /**
+     * The size of a cell in pixels, changed by zooming with the mouse wheel.
+     */
+    @Getter
+    private int cellSize = Cell.WIDTH;
+
+    /**
+     * The cell images scaled to the last zoom levels.
+     */
+    private final transient TileCache tileCache;
+
+    /**
+     * The colors tinting the covered cells in the heatmap overlay, from the lowest to the highest probability.
+     */
+    private static final Color[] HEAT_COLORS = new Color[11];
+
+    static {
+        for (int i = 0; i < HEAT_COLORS.length; i++)
+            HEAT_COLORS[i] = new Color(255, 0, 0, i * 160 / (HEAT_COLORS.length - 1));
+    }
+
+    /**
+     * The mine probabilities computed in the background for the heatmap overlay,
+     * or {@code null} until the overlay is shown for the first time.
+     */
+    @VisibleForTesting
+    @Getter
+    private transient ProbabilityHeatmap heatmap;
+
+    /**
+     * A boolean flag indicating whether the covered cells are tinted by their probability of being mined.
+     */
+    @Getter
+    private boolean showHeatmap;
+
+    /**
+     * The daily challenge played on this board, or {@code null} outside the challenge mode.
+     * In this mode every game is the board regenerated from the seed of the challenge.
+     */
+    @Getter
+    @VisibleForTesting
+    private final DailyChallenge challenge;
+
+    /**
+     * The stream sending the changes of the board to the local spectators,
+     * or {@code null} until the first spectator is added.
+     */
+    private transient SpectatorStream spectators;
+
+    /**
+     * The memory-mapped file publishing the board to the viewer processes, or {@code null} if it is not shared.
+     */
+    private transient SharedBoardFile sharedFile;
+
+    /**
+     * The checkpointer saving the game in progress, or {@code null} if the checkpoints are disabled.
+     */
+    private transient GameCheckpointer checkpointer;
+
+    /**
+     * The thread recording the times of the won games in the leaderboard,
+     * so that the event dispatch thread never waits for its files.
+     */
+    private static final ExecutorService RECORDER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mines-leaderboard");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The leaderboard receiving the times of the won games, or {@code null}.
+     */
+    private transient Leaderboard leaderboard;
+
+    /**
+     * The name of the player recorded in the leaderboard.
+     */
+    private String player;
+
+    /**
+     * The time in nanoseconds of the first click of the current game.
+     */
+    private long gameStartNanos;
+
+    /**
+     * A boolean flag indicating whether the current game has been clicked, which starts its clock.
+     */
+    @Getter
+    private boolean clockStarted;
+
+    /**
+     * The moves played in the current game of the challenge mode, encoded by the {@link Action} class.
+     */
+    private int[] journal = new int[0];
+
+    /**
+     * The number of moves of the journal.
+     */
+    private int journalSize;
+
     /**
      * The MouseAdapter for the Board panel
      */
@@ -133,30 +428,75 @@ public class Board extends JPanel {
      * @param statusbar The status bar to display the game score.
      */
     public Board(JLabel statusbar) {
+        this(statusbar, false);
+    }
+
+    /**
+     * Constructs a new Board object.
+     *
+     * @param statusbar The status bar to display the game score.
+     * @param noGuess   true to generate boards that can be won without guessing.
+     */
+    public Board(JLabel statusbar, boolean noGuess) {
+        this(statusbar, noGuess, null);
+    }
+
+    /**
+     * Constructs a new Board object playing a daily challenge.
+     *
+     * @param statusbar The status bar to display the game score.
+     * @param challenge The challenge whose board is played in every game.
+     */
+    public Board(JLabel statusbar, DailyChallenge challenge) {
+        this(statusbar, false, challenge);
+    }
+
+    /**
+     * Constructs a new Board object.
+     *
+     * @param statusbar The status bar to display the game score.
+     * @param noGuess   true to generate boards that can be won without guessing.
+     * @param challenge The challenge whose board is played in every game, or {@code null}.
+     */
+    private Board(JLabel statusbar, boolean noGuess, DailyChallenge challenge) {
+        if (challenge != null && !challenge.getConfig().equals(CONFIG))
+            throw new IllegalArgumentException("The challenge must be played on a " + CONFIG + " board");
+
         random = new Random();
         this.statusbar = statusbar;
+        this.noGuess = noGuess;
+        this.challenge = challenge;
+        noGuessGenerator = noGuess ? new NoGuessGenerator() : null;
 
         imagesList =  new Image[NUM_IMAGES];
 
         for (int i = 0; i < NUM_IMAGES; i++) {
             imagesList[i] = new ImageIcon("images/" + (i) + ".gif").getImage();
         }
+        boardPool = noGuess
+                ? new BoardPool<>(this::createNoGuessCells, POOL_DEPTH, POOL_MEMORY_CAP, ESTIMATED_CELL_BYTES * ROWS * COLS)
+                : null;
+        tileCache = new TileCache(imagesList, TILE_CACHE_LEVELS);
+        setPreferredSize(new Dimension(COLS * cellSize, ROWS * cellSize));
         mouseAdapter = new MinesAdapter();
         addMouseListener(mouseAdapter);
+        addMouseWheelListener(mouseAdapter);
+        bindUndoKeys();
+        bindHintKey();
+        bindHeatmapKey();
         initGame();
 
     }
     /**
-     * Initializes the game board by creating all the cells
+     * Initializes the game board by creating all the cells,
+     * or by taking them from the board pool in the no guess mode
      */
     public void initGame(){
         allCells = ROWS * COLS;
-        boardCells = new ArrayList<>(allCells);
-
-        for (int i = 0; i < allCells; i++) {
-            ICell newCell = new Cell(i, imagesList[COVER_FOR_CELL]);
-            boardCells.add(newCell);
-        }
+        revealStack = new int[allCells + 1];
+        frontier = new FrontierIndex(allCells);
+        regionCounts = new RegionCounts(CONFIG);
+        boardCells = noGuess ? boardPool.take() : createCoveredCells();
         repaint();
         newGame();
 
@@ -166,111 +506,951 @@ public class Board extends JPanel {
     }
 
     /**
-     * Starts a new game by setting up the mines.
+     * Starts a new game by resetting the game counters and the statusbar.
+     * The mines are placed on the first left click, except in the no guess mode
+     * where the board comes with its mines and its center cell is opened.
      */
     public void newGame() {
 
         inGame = true;
+        revealed = false;
+        clockStarted = false;
+        assisted = showHints || showHeatmap;
+        minesPlaced = noGuess;
+        visibleHash = 0;
+        frontier.clear();
+        regionCounts.reset(getMinePositions());
+        if (showHeatmap)
+            heatmap.reset();
+        if (spectators != null)
+            spectators.reset();
+        if (sharedFile != null)
+            for (int i = 0; i < allCells; i++)
+                sharedFile.cellChanged(i, COVER_FOR_CELL);
         checkedCells = 0;
         minesLeft = MINES;
 
-        statusbar.setText(Integer.toString(minesLeft));
+        statusbar.setText(getMinesLeftText());
+
+        if (noGuess)
+            uncoverCell(NO_GUESS_START);
 
-        int position;
-        int i = 0;
-        while (i < MINES) {
+        journalSize = 0;
+        if (challenge != null) {
+            placeMines(challenge.newRandom(), challenge.getStartIndex());
+            uncoverCell(challenge.getStartIndex());
+        }
+
+        if (history != null)
+            startHistory();
+        updateHeatmap();
+        if (spectators != null)
+            spectators.publishSnapshot(minesLeft, getSpectatorStatus());
+        if (sharedFile != null)
+            sharedFile.publish(minesLeft, getSpectatorStatus());
+        if (checkpointer != null)
+            checkpointer.reset(i -> getImageIndex(boardCells.get(i)), getMinePositions(), minesLeft, checkedCells,
+                    getSpectatorStatus(), getElapsedMillis());
+
+    }
 
-            position = random.nextInt(allCells);
+    /**
+     * Records the times of the won games in a leaderboard.
+     * The games of the practice mode are not recorded, since their moves can be undone.
+     *
+     * @param leaderboard the leaderboard, or {@code null} to stop recording
+     * @param player      the name of the player
+     */
+    public void setLeaderboard(Leaderboard leaderboard, String player) {
+        this.leaderboard = leaderboard;
+        this.player = player;
+    }
 
-            if(!boardCells.get(position).isMined()){
-                boardCells.get(position).mineTheCell();
-                i++;
-                boardCells.get(position).getCellCorners()
-                        .forEach((corner, integer) ->
-                                boardCells.get(integer).addCornerMineCell()
-                        );
+    /**
+     * Starts the clock of the current game on its first click.
+     */
+    private void startClock() {
+        if (!clockStarted) {
+            gameStartNanos = System.nanoTime();
+            clockStarted = true;
+        }
+    }
+
+    /**
+     * Gets the time played in the current game.
+     *
+     * @return the time in milliseconds since the first click, or -1 if the clock has not started
+     */
+    private long getElapsedMillis() {
+        return clockStarted ? TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - gameStartNanos) : -1;
+    }
+
+    /**
+     * Binds Ctrl+Z to undo and Ctrl+Y to redo while the game window is focused.
+     */
+    private void bindUndoKeys() {
+        InputMap inputMap = getInputMap(WHEN_IN_FOCUSED_WINDOW);
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_Z, InputEvent.CTRL_DOWN_MASK), "undo");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_Y, InputEvent.CTRL_DOWN_MASK), "redo");
+        getActionMap().put("undo", new AbstractAction() {
+            private static final long serialVersionUID = -3061580287164567387L;
+
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                undo();
+            }
+        });
+        getActionMap().put("redo", new AbstractAction() {
+            private static final long serialVersionUID = 2867208151003471822L;
+
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                redo();
+            }
+        });
+    }
+
+    /**
+     * Binds Ctrl+H to showing or hiding the hint overlay.
+     */
+    private void bindHintKey() {
+        getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_H, InputEvent.CTRL_DOWN_MASK), "hint");
+        getActionMap().put("hint", new AbstractAction() {
+            private static final long serialVersionUID = 5317096453416209738L;
+
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                setShowHints(!showHints);
+            }
+        });
+    }
+
+    /**
+     * Shows or hides the hint overlay, highlighting the cell advised by {@link #hint()}.
+     * Showing it assists the current game.
+     *
+     * @param showHints true to show the overlay
+     */
+    public void setShowHints(boolean showHints) {
+        this.showHints = showHints;
+        assisted |= showHints;
+        repaint();
+    }
+
+    /**
+     * Binds Ctrl+P to showing or hiding the heatmap overlay.
+     */
+    private void bindHeatmapKey() {
+        getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_P, InputEvent.CTRL_DOWN_MASK), "heatmap");
+        getActionMap().put("heatmap", new AbstractAction() {
+            private static final long serialVersionUID = -6424707036785815496L;
+
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                setShowHeatmap(!showHeatmap);
+            }
+        });
+    }
+
+    /**
+     * Shows or hides the heatmap overlay, tinting the covered cells by their probability of being mined.
+     * Showing it assists the current game.
+     *
+     * @param showHeatmap true to show the overlay
+     */
+    public void setShowHeatmap(boolean showHeatmap) {
+        if (showHeatmap && !this.showHeatmap) {
+            // the hidden heatmap does not receive the changes, so it starts again from the whole board
+            if (heatmap == null)
+                heatmap = new ProbabilityHeatmap(CONFIG, this::repaint);
+            heatmap.reset();
+            for (int i = 0; i < allCells; i++) {
+                int imageIndex = getImageIndex(boardCells.get(i));
+                if (imageIndex != COVER_FOR_CELL)
+                    heatmap.cellChanged(i, imageIndex);
             }
         }
+        this.showHeatmap = showHeatmap;
+        assisted |= showHeatmap;
+        updateHeatmap();
+        repaint();
+    }
 
+    /**
+     * Commits the cells changed by the last move to the heatmap, if it is shown.
+     * The probabilities are computed in the background and the board is repainted when they are ready.
+     */
+    private void updateHeatmap() {
+        if (showHeatmap)
+            heatmap.commit();
+    }
+
+    /**
+     * Adds a local spectator, which receives a snapshot of the board then the changes of every move.
+     *
+     * @param spectator the spectator
+     */
+    public void addSpectator(SpectatorStream.Subscriber spectator) {
+        if (spectators == null) {
+            spectators = new SpectatorStream(CONFIG);
+            for (int i = 0; i < allCells; i++)
+                spectators.cellChanged(i, getImageIndex(boardCells.get(i)));
+        }
+        spectators.subscribe(spectator, minesLeft, getSpectatorStatus());
+    }
+
+    /**
+     * Removes a local spectator.
+     *
+     * @param spectator the spectator
+     */
+    public void removeSpectator(SpectatorStream.Subscriber spectator) {
+        if (spectators != null)
+            spectators.unsubscribe(spectator);
+    }
+
+    /**
+     * Publishes the visible state of the board in a memory-mapped file, which viewer processes can map
+     * with a {@link SharedBoardViewer}. Every move is written straight into the mapping.
+     *
+     * @param path the path of the file, created if needed
+     */
+    public void shareTo(Path path) {
+        stopSharing();
+        sharedFile = new SharedBoardFile(path, CONFIG);
+        for (int i = 0; i < allCells; i++)
+            sharedFile.cellChanged(i, getImageIndex(boardCells.get(i)));
+        sharedFile.publish(minesLeft, getSpectatorStatus());
+    }
+
+    /**
+     * Stops publishing the board in its memory-mapped file, if it is shared.
+     */
+    public void stopSharing() {
+        if (sharedFile != null)
+            sharedFile.close();
+        sharedFile = null;
+    }
+
+    /**
+     * Saves the game in progress in a directory, in the background, so that it survives a crash.
+     * A game in progress saved there by a previous run, which crashed or exited, is resumed first.
+     * The games of the challenge mode are neither saved nor resumed, since they must be played at once.
+     *
+     * @param directory the directory of the checkpoint and the journal, created if needed
+     */
+    public void enableCheckpoints(Path directory) {
+        disableCheckpoints();
+        if (challenge != null)
+            return;
+        GameCheckpointer.State state = GameCheckpointer.recover(directory, CONFIG);
+        if (state != null && state.getStatus() == SpectatorStream.IN_GAME && state.getMinePositions().length > 0)
+            resume(state);
+        checkpointer = new GameCheckpointer(directory, CONFIG);
+        checkpointer.reset(i -> getImageIndex(boardCells.get(i)), getMinePositions(), minesLeft, checkedCells,
+                getSpectatorStatus(), getElapsedMillis());
+    }
+
+    /**
+     * Writes a last checkpoint of the game in progress and stops saving it, if the checkpoints are enabled.
+     */
+    public void disableCheckpoints() {
+        if (checkpointer != null)
+            checkpointer.close();
+        checkpointer = null;
+    }
+
+    /**
+     * Replaces the current game by a game recovered from a checkpoint.
+     *
+     * @param state the recovered game, in progress
+     */
+    private void resume(GameCheckpointer.State state) {
+        boardCells = createCoveredCells();
+        frontier.clear();
+        regionCounts.reset(state.getMinePositions());
+        visibleHash = 0;
+        if (showHeatmap)
+            heatmap.reset();
+        if (spectators != null)
+            spectators.reset();
+        if (sharedFile != null)
+            for (int i = 0; i < allCells; i++)
+                sharedFile.cellChanged(i, COVER_FOR_CELL);
+        for (int position : state.getMinePositions())
+            mineCell(boardCells, position);
+        byte[] images = state.getImages();
+        for (int i = 0; i < allCells; i++)
+            if (images[i] != COVER_FOR_CELL)
+                setCellImage(i, images[i]);
+
+        inGame = true;
+        revealed = false;
+        // the clock goes on from the time played before the checkpoint
+        clockStarted = state.getElapsedMillis() >= 0;
+        assisted = showHints || showHeatmap;
+        gameStartNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(Math.max(state.getElapsedMillis(), 0));
+        minesPlaced = true;
+        checkedCells = state.getCheckedCells();
+        minesLeft = state.getMinesLeft();
+        journalSize = 0;
+        statusbar.setText(getMinesLeftText());
+        if (history != null)
+            startHistory();
+        repaint();
+        updateHeatmap();
+        if (spectators != null)
+            spectators.publishSnapshot(minesLeft, getSpectatorStatus());
+        if (sharedFile != null)
+            sharedFile.publish(minesLeft, getSpectatorStatus());
+    }
+
+    /**
+     * Gets the positions of the mines of the current game.
+     *
+     * @return the indices of the mined cells, none before the mines are placed
+     */
+    private int[] getMinePositions() {
+        int[] positions = new int[MINES];
+        int count = 0;
+        for (int i = 0; i < allCells && count < positions.length; i++)
+            if (boardCells.get(i).isMined())
+                positions[count++] = i;
+        return Arrays.copyOf(positions, count);
+    }
+
+    /**
+     * Sends the changes of the last move to the spectators, to the shared file and to the checkpointer,
+     * if there are any.
+     */
+    private void publishChanges() {
+        if (spectators != null)
+            spectators.publishDelta(minesLeft, getSpectatorStatus());
+        if (sharedFile != null)
+            sharedFile.publish(minesLeft, getSpectatorStatus());
+        if (checkpointer != null) {
+            checkpointer.commit(minesLeft, checkedCells, getSpectatorStatus(), getElapsedMillis());
+            if (checkpointer.getFailure() != null)
+                abandonCheckpoints();
+        }
+    }
+
+    /**
+     * Stops saving the game after the checkpointer has failed to write it, and tells the player so.
+     */
+    private void abandonCheckpoints() {
+        IOException failure = checkpointer.getFailure();
+        System.err.println("The game cannot be saved: " + failure);
+        statusbar.setText("The game is no longer saved");
+        try {
+            checkpointer.close();
+        } catch (UncheckedIOException e) {
+            // the failure is already reported
+        }
+        checkpointer = null;
+    }
+
+    /**
+     * Gets the status of the game sent to the spectators.
+     *
+     * @return the status, as in {@link SpectatorStream}
+     */
+    private byte getSpectatorStatus() {
+        if (inGame)
+            return SpectatorStream.IN_GAME;
+        return checkedCells == allCells - MINES && minesLeft == 0 ? SpectatorStream.WON : SpectatorStream.LOST;
+    }
+
+    /**
+     * Advises a covered cell: a provably safe one if there is one, or the one with the lowest estimated risk.
+     * Only the frontier of the board is examined, so the hint is fast enough to be shown after every move.
+     *
+     * @return the advised cell and its justification, or {@code null} if the game is over
+     */
+    public Hint hint() {
+        if (!inGame)
+            return null;
+        // the hint only depends on the visible state, so it is computed once per move
+        if (cachedHint != null && cachedHintHash == visibleHash)
+            return cachedHint;
+
+        if (!minesPlaced) {
+            // any covered cell is safe before the first click, the start cell unless it is marked
+            int start = NO_GUESS_START;
+            while (boardCells.get(start).getCellState() != CellState.UNCHECKED)
+                start = (start + 1) % allCells;
+            cachedHint = new Hint(start, true, 0, "Safe: the mines are placed after the first click, away from it.");
+        } else {
+            cachedHint = HintFinder.find(boardCells, frontier, minesLeft, allCells - checkedCells - (MINES - minesLeft));
+        }
+        cachedHintHash = visibleHash;
+        return cachedHint;
+    }
+
+    /**
+     * Enables undo and redo, starting from the current state of the game.
+     *
+     * @param maxLevels the maximum number of moves that can be undone
+     */
+    public void enableUndo(int maxLevels) {
+        history = new BoardHistory(maxLevels);
+        startHistory();
+    }
+
+    /**
+     * Starts the history of the game from the current state of the board.
+     */
+    private void startHistory() {
+        history.clear(allCells, (byte) COVER_FOR_CELL);
+        for (int i = 0; i < allCells; i++) {
+            int imageIndex = getImageIndex(boardCells.get(i));
+            if (imageIndex != COVER_FOR_CELL)
+                history.cellChanged(i, (byte) imageIndex);
+        }
+        history.start(checkedCells, minesLeft, inGame);
+    }
+
+    /**
+     * Records the state reached by the last move in the history, if undo is enabled.
+     */
+    private void commitMove() {
+        if (history != null)
+            history.commit(checkedCells, minesLeft, inGame);
+    }
+
+    /**
+     * Undoes the last move. Once the game is over, a move can only be undone in practice mode.
+     * Moves are never undone in the challenge mode, whose journal must be the game actually played.
+     * Undoing a move assists the current game.
+     *
+     * @return true if a move was undone
+     */
+    public boolean undo() {
+        if (challenge != null || history == null || !history.canUndo() || (!inGame && !practiceMode))
+            return false;
+        assisted = true;
+        BoardHistory.Snapshot from = history.getCurrent();
+        restore(from, history.undo());
+        return true;
+    }
+
+    /**
+     * Redoes the last undone move.
+     *
+     * @return true if a move was redone
+     */
+    public boolean redo() {
+        if (challenge != null || history == null || !history.canRedo() || (!inGame && !practiceMode))
+            return false;
+        BoardHistory.Snapshot from = history.getCurrent();
+        restore(from, history.redo());
+        return true;
+    }
+
+    /**
+     * Restores a state of the history, changing only the cells that differ from the current state.
+     *
+     * @param from the current state
+     * @param to   the state to restore
+     */
+    private void restore(BoardHistory.Snapshot from, BoardHistory.Snapshot to) {
+        from.forEachChangedCell(to, index -> setCellImage(index, to.getImageIndex(index)));
+        checkedCells = to.getCheckedCells();
+        minesLeft = to.getMinesLeft();
+        inGame = to.isInGame();
+        boolean lost = !inGame && getSpectatorStatus() == SpectatorStream.LOST;
+        if (lost != revealed) {
+            revealed = lost;
+            publishRevealedImages();
+        }
+
+        if (!inGame)
+            statusbar.setText("Game Lost");
+        else if (minesLeft == 0)
+            statusbar.setText("No marks left");
+        else
+            statusbar.setText(getMinesLeftText());
+        checkWining();
+        repaint();
+        updateHeatmap();
+        publishChanges();
+    }
+
+    /**
+     * Gets the index of the image displayed by a cell.
+     *
+     * @param cell the cell
+     * @return the content of a checked cell, or the index of the cover or mark image
+     */
+    private int getImageIndex(ICell cell) {
+        if (cell.getCellState() == CellState.CHECKED)
+            return cell.getCellContent();
+        if (cell.getCellState() == CellState.MARKED)
+            return cell.getCellImage() == imagesList[DRAW_WRONG_MARK] ? DRAW_WRONG_MARK : DRAW_MARK;
+        return COVER_FOR_CELL;
+    }
+
+    /**
+     * Changes the state of a cell so that it displays the given image, and updates the hash of the board.
+     *
+     * @param cellIndex  the index of the cell
+     * @param imageIndex the index of the image: a cell content, the cover or a mark
+     */
+    private void setCellImage(int cellIndex, int imageIndex) {
+        ICell cell = boardCells.get(cellIndex);
+        int previousImage = getImageIndex(cell);
+        visibleHash = Zobrist.update(visibleHash, cellIndex, previousImage, imageIndex);
+        regionCounts.cellChanged(cellIndex, previousImage, imageIndex);
+        if (imageIndex == COVER_FOR_CELL)
+            cell.unMarkCell(imagesList[COVER_FOR_CELL]);
+        else if (imageIndex == DRAW_MARK || imageIndex == DRAW_WRONG_MARK)
+            cell.markCell(imagesList[imageIndex]);
+        else
+            cell.checkCell(imagesList[imageIndex]);
+        frontier.cellChanged(boardCells, cellIndex);
+        if (showHeatmap)
+            heatmap.cellChanged(cellIndex, imageIndex);
+        if (spectators != null)
+            spectators.cellChanged(cellIndex, imageIndex);
+        if (sharedFile != null)
+            sharedFile.cellChanged(cellIndex, imageIndex);
+        if (checkpointer != null)
+            checkpointer.cellChanged(cellIndex, imageIndex);
+    }
+
+    /**
+     * Changes the state of a cell so that it displays the given image,
+     * and records the change in the history if undo is enabled.
+     *
+     * @param cellIndex  the index of the cell
+     * @param imageIndex the index of the image: a cell content, the cover or a mark
+     */
+    private void showCell(int cellIndex, int imageIndex) {
+        setCellImage(cellIndex, imageIndex);
+        if (history != null)
+            history.cellChanged(cellIndex, (byte) imageIndex);
+    }
+
+    /**
+     * Creates all the cells of a new board, without any mine.
+     *
+     * @return the cells of the new board
+     */
+    private List<ICell> createCoveredCells() {
+        int cellsCount = ROWS * COLS;
+        List<ICell> cells = new ArrayList<>(cellsCount);
+
+        for (int i = 0; i < cellsCount; i++) {
+            cells.add(new Cell(i, imagesList[COVER_FOR_CELL]));
+        }
+        return cells;
+    }
+
+    /**
+     * Creates all the cells of a new board and places the mines with the no guess generator.
+     * This method is called by the board pool, usually from its background thread.
+     *
+     * @return the cells of the new board
+     */
+    private List<ICell> createNoGuessCells() {
+        List<ICell> cells = createCoveredCells();
+        for (int position : noGuessGenerator.generate(CONFIG, NO_GUESS_START).getMines())
+            mineCell(cells, position);
+        return cells;
+    }
+
+    /**
+     * Places the mines of the current game in a single pass over the board,
+     * keeping the given cell and its corners free of mines.
+     * If the board is too small for that, only the given cell is kept free of mines.
+     *
+     * @param safeIndex the index of the first clicked cell
+     */
+    void placeMines(int safeIndex) {
+        placeMines(random, safeIndex);
+    }
+
+    /**
+     * Places the mines of the current game in a single pass over the board,
+     * keeping the given cell and its corners free of mines.
+     * This is the same draw as {@link MineField#placeMines(Random, int)},
+     * so both give the same mines for the same seed.
+     *
+     * @param random    the random number generator used to place the mines
+     * @param safeIndex the index of the first clicked cell
+     */
+    private void placeMines(Random random, int safeIndex) {
+        boolean[] excluded = new boolean[allCells];
+        int excludedCount = 1;
+        excluded[safeIndex] = true;
+        int safeCorners = CORNER_OFFSETS[safeIndex + 1] - CORNER_OFFSETS[safeIndex];
+        if (allCells - safeCorners - 1 >= MINES) {
+            for (int p = CORNER_OFFSETS[safeIndex]; p < CORNER_OFFSETS[safeIndex + 1]; p++)
+                excluded[CORNERS[p]] = true;
+            excludedCount += safeCorners;
+        }
+
+        int[] positions = MineField.sampleMines(random, MINES, excluded, excludedCount);
+        for (int position : positions)
+            mineCell(boardCells, position);
+        minesPlaced = true;
+        regionCounts.setMines(positions);
+        if (checkpointer != null)
+            checkpointer.minesPlaced(positions);
+    }
+
+    /**
+     * Mines a cell and increments the number of mined corners of its corner cells.
+     *
+     * @param cells    the cells of the board
+     * @param position the index of the cell to mine
+     */
+    private static void mineCell(List<ICell> cells, int position) {
+        cells.get(position).mineTheCell();
+        for (int p = CORNER_OFFSETS[position]; p < CORNER_OFFSETS[position + 1]; p++)
+            cells.get(CORNERS[p]).addCornerMineCell();
+    }
+
+    /**
+     * Uncovers a cell that is not mined,
+     * and all the empty cells around it if it has no mined corners.
+     *
+     * @param cellIndex The index of the cell to uncover.
+     */
+    void uncoverCell(int cellIndex) {
+        showCell(cellIndex, boardCells.get(cellIndex).getCellContent());
+        checkedCells++;
+        repaint();
+        if (boardCells.get(cellIndex).hasNoMineCellCorners())
+            findEmptyCells(cellIndex);
     }
 
     /**
      * Finds and uncovers all empty cells adjacent to the specified cell index.
+     * The empty area is visited with the reveal stack instead of recursion,
+     * so that uncovering it does not allocate.
      *
      * @param cellIndex The index of the cell to find empty cells around.
      */
     public void findEmptyCells(int cellIndex) {
+        revealStack[0] = cellIndex;
+        checkedCells += uncoverEmptyAreas(1);
+        repaint();
+    }
 
-        boardCells.get(cellIndex).getCellCorners()
-                .values()
-                .forEach(cellCorner -> {
-                    if(boardCells.get(cellCorner).getCellState() != CellState.CHECKED) {
-                        boardCells.get(cellCorner).checkCell(imagesList[boardCells.get(cellCorner).getCellContent()]);
-                        checkedCells++;
-                        if (boardCells.get(cellCorner).hasNoMineCellCorners())
-                            findEmptyCells(cellCorner);
-                    }
-                });
+    /**
+     * Chords a revealed number whose marked corners match its number: uncovers all its other corners
+     * and the empty areas around them in a single pass over the reveal stack, with one update of the checked cells
+     * and one repaint. If a mark is wrong, a mined corner is uncovered and the game is lost.
+     *
+     * @param cellIndex the index of the revealed cell
+     * @return true if the cell was chorded, false if it is not a revealed number or its marks do not match it
+     */
+    boolean chordCell(int cellIndex) {
+        ICell cell = boardCells.get(cellIndex);
+        if (cell.getCellState() != CellState.CHECKED || cell.hasNoMineCellCorners() || cell.isMined())
+            return false;
+
+        int marks = 0;
+        boolean exploded = false;
+        for (int p = CORNER_OFFSETS[cellIndex]; p < CORNER_OFFSETS[cellIndex + 1]; p++) {
+            ICell corner = boardCells.get(CORNERS[p]);
+            if (corner.getCellState() == CellState.MARKED)
+                marks++;
+            else if (corner.getCellState() == CellState.UNCHECKED && corner.isMined())
+                exploded = true;
+        }
+        if (marks != cell.getCellContent())
+            return false;
 
+        recordMove(Action.chord(cellIndex));
+        if (exploded) {
+            inGame = false;
+            revealBoard();
+            return true;
+        }
+
+        int uncovered = 0;
+        int stackSize = 0;
+        for (int p = CORNER_OFFSETS[cellIndex]; p < CORNER_OFFSETS[cellIndex + 1]; p++) {
+            int cellCorner = CORNERS[p];
+            ICell corner = boardCells.get(cellCorner);
+            if (corner.getCellState() == CellState.UNCHECKED) {
+                showCell(cellCorner, corner.getCellContent());
+                uncovered++;
+                if (corner.hasNoMineCellCorners())
+                    revealStack[stackSize++] = cellCorner;
+            }
+        }
+        checkedCells += uncovered + uncoverEmptyAreas(stackSize);
         repaint();
+        return true;
+    }
 
+    /**
+     * Uncovers the empty areas around the empty cells of the reveal stack, which are already uncovered.
+     * The areas are visited with the reveal stack instead of recursion, so that uncovering them does not allocate.
+     *
+     * @param stackSize the number of cells in the reveal stack
+     * @return the number of cells uncovered
+     */
+    private int uncoverEmptyAreas(int stackSize) {
+        int uncovered = 0;
+        while (stackSize > 0) {
+            int cellIndex = revealStack[--stackSize];
+            for (int p = CORNER_OFFSETS[cellIndex]; p < CORNER_OFFSETS[cellIndex + 1]; p++) {
+                int cellCorner = CORNERS[p];
+                ICell cell = boardCells.get(cellCorner);
+                if (cell.getCellState() != CellState.CHECKED) {
+                    showCell(cellCorner, cell.getCellContent());
+                    uncovered++;
+                    if (cell.hasNoMineCellCorners())
+                        revealStack[stackSize++] = cellCorner;
+                }
+            }
+        }
+        return uncovered;
     }
 
 
     /**
-     * Resets the board by covering all the cells
-     * and setting up the mines by calling {@code  newGame()}
+     * Resets the board by covering all the cells, or by swapping in a board
+     * generated ahead of time in the no guess mode,
+     * and starting a new game by calling {@code  newGame()}
      */
     public void resetBoard() {
-        boardCells.forEach(cell -> cell.initCell(imagesList[COVER_FOR_CELL]));
+        if (noGuess)
+            boardCells = boardPool.take();
+        else
+            for (int i = 0; i < allCells; i++)
+                boardCells.get(i).initCell(imagesList[COVER_FOR_CELL]);
         repaint();
         newGame();
     }
 
+    /**
+     * Records a move in the journal of the challenge mode.
+     *
+     * @param action the move encoded by the {@link Action} class
+     */
+    private void recordMove(int action) {
+        if (challenge == null)
+            return;
+        if (journalSize == journal.length)
+            journal = Arrays.copyOf(journal, Math.max(16, journalSize * 2));
+        journal[journalSize++] = action;
+    }
+
+    /**
+     * Gets the moves played in the current game of the challenge mode,
+     * which can be checked with a {@link ChallengeVerifier}.
+     *
+     * @return the moves encoded by the {@link Action} class, empty outside the challenge mode
+     */
+    public int[] getJournal() {
+        return Arrays.copyOf(journal, journalSize);
+    }
+
+    /**
+     * Gets the text displayed by the statusbar for the number of mines left.
+     *
+     * @return the number of mines left as a text, shared when possible
+     */
+    private String getMinesLeftText() {
+        if (minesLeft >= 0 && minesLeft <= MINES)
+            return MINES_LEFT_TEXTS[minesLeft];
+        return Integer.toString(minesLeft);
+    }
+
     /**
      * Checks if the player has won the game.
      * If all mine cells are marked and the rest are checked,
-     * updates the statusbar to announce the win.
+     * updates the statusbar to announce the win, and records the time of the game in the leaderboard if any,
+     * unless the game has been assisted.
+     * The time is recorded in the background, and its rank is added to the statusbar once known,
+     * unless the statusbar has changed in the meantime.
      */
     public void checkWining(){
         if(checkedCells == (allCells - MINES) && minesLeft == 0){
             inGame = false;
-            statusbar.setText("Game Won");
+            if (leaderboard != null && clockStarted && !practiceMode && !assisted) {
+                long millis = getElapsedMillis();
+                String wonText = String.format("Game Won in %.1f s", millis / 1e3);
+                statusbar.setText(wonText);
+                Leaderboard results = leaderboard;
+                String name = player;
+                Leaderboard.Mode mode = challenge != null ? Leaderboard.Mode.DAILY
+                        : noGuess ? Leaderboard.Mode.NO_GUESS : Leaderboard.Mode.RANDOM;
+                RECORDER.execute(() -> {
+                    int rank;
+                    try {
+                        rank = results.record(name, mode, CONFIG, millis);
+                    } catch (UncheckedIOException e) {
+                        System.err.println("The time cannot be recorded: " + e.getCause());
+                        return;
+                    }
+                    SwingUtilities.invokeLater(() -> {
+                        if (statusbar.getText().equals(wonText))
+                            statusbar.setText(wonText + ", rank " + rank);
+                    });
+                });
+            } else {
+                statusbar.setText("Game Won");
+            }
+            publishChanges();
         }
     }
 
     /**
-     * Reveal the board and shows the final result by uncovering all cells.
-     * Updates the statusbar to announce the loss.
+     * Reveals the board to show the final result, and updates the statusbar to announce the loss.
+     * The cells are not changed: the board switches to the revealed view, where the images of the cells
+     * are derived from their state when they are painted, so a loss costs the same on any board
+     * and only the visible cells are drawn. The spectators and the shared file, if any,
+     * still receive the image of every revealed cell.
      */
     public void revealBoard() {
-
-        boardCells.forEach(cell  -> {
-            if(cell.getCellState() == CellState.MARKED) {
-                if (cell.isMined())
-                    cell.markCell(imagesList[DRAW_MARK]);
-                else
-                    cell.markCell(imagesList[DRAW_WRONG_MARK]);
-
-            }else {
-                cell.checkCell(imagesList[cell.getCellContent()]);
-            }
-        });
+        revealed = true;
+        publishRevealedImages();
         repaint();
         statusbar.setText("Game Lost");
     }
 
+    /**
+     * Gets the image displayed by a cell: the image of its state, or its image in the revealed view.
+     *
+     * @param cellIndex the index of the cell
+     * @return the index of the image displayed by the cell
+     */
+    int getDisplayedImage(int cellIndex) {
+        ICell cell = boardCells.get(cellIndex);
+        return revealed ? getRevealedImage(cell) : getImageIndex(cell);
+    }
+
+    /**
+     * Gets the image of a cell in the revealed view: the content of a covered cell,
+     * the wrong mark of a marked cell without a mine, or the image of its state.
+     *
+     * @param cell the cell
+     * @return the index of the image of the cell in the revealed view
+     */
+    private int getRevealedImage(ICell cell) {
+        int imageIndex = getImageIndex(cell);
+        if (imageIndex == COVER_FOR_CELL)
+            return cell.getCellContent();
+        if (imageIndex == DRAW_MARK && !cell.isMined())
+            return DRAW_WRONG_MARK;
+        return imageIndex;
+    }
+
+    /**
+     * Sends the cells whose image differs in the revealed view to the spectators and to the shared file,
+     * when the board enters or leaves the revealed view.
+     * Nothing is done when there are neither spectators nor shared file.
+     */
+    private void publishRevealedImages() {
+        if (spectators == null && sharedFile == null)
+            return;
+        for (int i = 0; i < allCells; i++) {
+            ICell cell = boardCells.get(i);
+            int imageIndex = getImageIndex(cell);
+            int revealedImage = getRevealedImage(cell);
+            if (revealedImage == imageIndex)
+                continue;
+            if (spectators != null)
+                spectators.cellChanged(i, revealed ? revealedImage : imageIndex);
+            if (sharedFile != null)
+                sharedFile.cellChanged(i, revealed ? revealedImage : imageIndex);
+        }
+    }
 
     /**
      * Overrides the paint method to draw the cells on the game board.
+     * Only the cells inside the clip are drawn, with the images scaled to the zoom level by the tile cache,
+     * or with flat colors when the cells are too small to show their images.
      *
      * @param g The graphics object to paint on.
      */
     @Override
     public void paint(Graphics g) {
-        boardCells.forEach( cell -> g.drawImage(cell.getCellImage(), cell.getColumn() * Cell.WIDTH,
-                cell.getRow() * Cell.HEIGHT,Cell.WIDTH, Cell.HEIGHT, null));
+        Rectangle clip = g.getClipBounds();
+        if (clip == null)
+            clip = new Rectangle(0, 0, COLS * cellSize, ROWS * cellSize);
+        int firstColumn = Math.max(clip.x / cellSize, 0);
+        int lastColumn = Math.min((clip.x + clip.width - 1) / cellSize, COLS - 1);
+        int firstRow = Math.max(clip.y / cellSize, 0);
+        int lastRow = Math.min((clip.y + clip.height - 1) / cellSize, ROWS - 1);
+
+        // the tiles are rendered at the size of the cells in device pixels, so that they are not scaled again
+        double scale = g instanceof Graphics2D ? ((Graphics2D) g).getTransform().getScaleX() : 1;
+        int deviceCellSize = Math.max((int) Math.round(cellSize * scale), 1);
+        Image[] tiles = deviceCellSize < FLAT_RENDER_SIZE ? null : tileCache.getTiles(deviceCellSize);
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                int imageIndex = getDisplayedImage(row * COLS + column);
+                if (tiles != null) {
+                    g.drawImage(tiles[imageIndex], column * cellSize, row * cellSize, cellSize, cellSize, null);
+                } else {
+                    g.setColor(TileCache.getFlatColor(imageIndex));
+                    g.fillRect(column * cellSize, row * cellSize, cellSize, cellSize);
+                }
+            }
+        }
 
+        if (showHeatmap)
+            paintHeatmap(g);
+        if (showHints)
+            paintHint(g);
+
+    }
+
+    /**
+     * Changes the size of the cells, between {@link #MIN_CELL_SIZE} and {@link #MAX_CELL_SIZE} pixels.
+     * The images scaled to the new size are rendered once, on the next paint, and kept for the next zooms.
+     *
+     * @param cellSize the new size of a cell in pixels
+     */
+    public void setCellSize(int cellSize) {
+        this.cellSize = Math.max(MIN_CELL_SIZE, Math.min(MAX_CELL_SIZE, cellSize));
+        setPreferredSize(new Dimension(COLS * this.cellSize, ROWS * this.cellSize));
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Tints the covered cells by the last probabilities computed by the heatmap.
+     * Painting never waits for a computation in progress.
+     *
+     * @param g The graphics object to paint on.
+     */
+    private void paintHeatmap(Graphics g) {
+        float[] probabilities = heatmap.getProbabilities();
+        for (int i = 0; i < allCells; i++) {
+            // the cells of a revealed board show their content, which is not tinted
+            if (getDisplayedImage(i) != COVER_FOR_CELL || probabilities[i] <= 0)
+                continue;
+            ICell cell = boardCells.get(i);
+            g.setColor(HEAT_COLORS[Math.round(probabilities[i] * (HEAT_COLORS.length - 1))]);
+            g.fillRect(cell.getColumn() * cellSize, cell.getRow() * cellSize, cellSize, cellSize);
+        }
+    }
+
+    /**
+     * Highlights the cell advised by the hint, in green if it is safe and in orange otherwise,
+     * and shows the justification as the tooltip of the board.
+     *
+     * @param g The graphics object to paint on.
+     */
+    private void paintHint(Graphics g) {
+        Hint hint = hint();
+        setToolTipText(hint == null ? null : hint.getJustification());
+        if (hint == null)
+            return;
+
+        ICell cell = boardCells.get(hint.getCellIndex());
+        g.setColor(hint.isSafe() ? Color.GREEN : Color.ORANGE);
+        g.drawRect(cell.getColumn() * cellSize, cell.getRow() * cellSize, cellSize - 1, cellSize - 1);
+        g.drawRect(cell.getColumn() * cellSize + 1, cell.getRow() * cellSize + 1, cellSize - 3, cellSize - 3);
     }
 
     /**
@@ -284,17 +1464,24 @@ public class Board extends JPanel {
         /**
          * Overrides the mousePressed method of MouseAdapter class to handle mouse press events on the panel.
          * Gets the clicked cell column and row from the MouseEvent object.
-         * Checks  whether it is a left or right click and calls the appropriate method to handle the click
+         * Checks  whether it is a left or right click and calls the appropriate method to handle the click.
+         * A middle click, or a click while both the left and right buttons are down, chords the cell
          * @param e the MouseEvent object representing the mouse press event
          */
         @Override
         public void mousePressed(MouseEvent e) {
 
-            int cellColumn = e.getX() / Cell.WIDTH;
-            int cellRow = e.getY() / Cell.HEIGHT;
+            int cellColumn = e.getX() / cellSize;
+            int cellRow = e.getY() / cellSize;
+            if (e.getX() < 0 || e.getY() < 0 || cellColumn >= COLS || cellRow >= ROWS)
+                return;
 
             int cellIndex = cellRow * COLS + cellColumn;
 
+            if (e.getButton() == MouseEvent.BUTTON2 || (e.getModifiersEx() & CHORD_BUTTONS) == CHORD_BUTTONS) {
+                // Middle mouse button, or both buttons, clicked
+                cellChorded(cellIndex);
+            } else
             if (e.getButton() == MouseEvent.BUTTON1) {
                 // Left mouse button clicked
                 cellLeftClicked(cellIndex);
@@ -307,6 +1494,27 @@ public class Board extends JPanel {
             checkWining();
         }
 
+        /**
+         * Zooms in when the wheel is rotated up and out when it is rotated down,
+         * keeping the cell under the pointer at the same place in the window.
+         * @param e the MouseWheelEvent object representing the wheel rotation
+         */
+        @Override
+        public void mouseWheelMoved(MouseWheelEvent e) {
+            int oldSize = cellSize;
+            int newSize = e.getWheelRotation() < 0
+                    ? Math.max(oldSize * 5 / 4, oldSize + 1)
+                    : Math.min(oldSize * 4 / 5, oldSize - 1);
+            setCellSize(newSize);
+            if (cellSize == oldSize)
+                return;
+
+            Rectangle visible = getVisibleRect();
+            Rectangle target = new Rectangle(e.getX() * cellSize / oldSize - (e.getX() - visible.x),
+                    e.getY() * cellSize / oldSize - (e.getY() - visible.y), visible.width, visible.height);
+            SwingUtilities.invokeLater(() -> scrollRectToVisible(target));
+        }
+
 
         /**
          * Handles a left mouse click event on a cell in the game panel.
@@ -318,23 +1526,45 @@ public class Board extends JPanel {
                 resetBoard();
                 return;
             }
+            startClock();
 
             if(boardCells.get(cellIndex).getCellState() == CellState.UNCHECKED){
+                recordMove(Action.reveal(cellIndex));
+
+                if (!minesPlaced)
+                    placeMines(cellIndex);
 
                 if (boardCells.get(cellIndex).isMined()) {
                     inGame = false;
                     revealBoard();
                 }
                 else {
-                    boardCells.get(cellIndex).checkCell(imagesList[boardCells.get(cellIndex).getCellContent()]);
-                    checkedCells++;
-                    repaint();
-                    if (boardCells.get(cellIndex).hasNoMineCellCorners())
-                        findEmptyCells(cellIndex);
-
+                    uncoverCell(cellIndex);
                 }
             }
+            commitMove();
+            updateHeatmap();
+            publishChanges();
+
+        }
 
+        /**
+         * Handles a middle mouse click, or a click with both buttons, on a cell in the game panel.
+         * Chords the cell if it is a revealed number whose marks match its number.
+         * @param cellIndex the index of the clicked cell
+         */
+        void cellChorded(int cellIndex) {
+
+            if (!inGame) {
+                resetBoard();
+                return;
+            }
+
+            if (!chordCell(cellIndex))
+                return;
+            commitMove();
+            updateHeatmap();
+            publishChanges();
         }
 
         /**
@@ -349,26 +1579,32 @@ public class Board extends JPanel {
                 resetBoard();
                 return;
             }
+            startClock();
 
             if(boardCells.get(cellIndex).getCellState() == CellState.UNCHECKED){
                 if(minesLeft > 0){
-                    boardCells.get(cellIndex).markCell(imagesList[DRAW_MARK]);
+                    recordMove(Action.flag(cellIndex));
+                    showCell(cellIndex, DRAW_MARK);
                     minesLeft--;
                     repaint();
 
                     if(minesLeft == 0)
                         statusbar.setText("No marks left");
                     else
-                        statusbar.setText(Integer.toString(minesLeft));
+                        statusbar.setText(getMinesLeftText());
                 }
 
             }else
             if(boardCells.get(cellIndex).getCellState() == CellState.MARKED){
-                boardCells.get(cellIndex).unMarkCell(imagesList[COVER_FOR_CELL]);
+                recordMove(Action.flag(cellIndex));
+                showCell(cellIndex, COVER_FOR_CELL);
                 minesLeft++;
                 repaint();
-                statusbar.setText(Integer.toString(minesLeft));
+                statusbar.setText(getMinesLeftText());
             }
+            commitMove();
+            updateHeatmap();
+            publishChanges();
         }
 
     }
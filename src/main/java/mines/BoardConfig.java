@@ -0,0 +1,75 @@
+package mines;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * The BoardConfig class describes the size of a game board and its number of mines.
+ * Instances are immutable, so they can be shared between threads and used as keys.
+ */
+@Getter
+@EqualsAndHashCode
+public final class BoardConfig {
+
+    /**
+     * The beginner configuration: 9 rows, 9 columns and 10 mines.
+     */
+    public static final BoardConfig BEGINNER = new BoardConfig(9, 9, 10);
+
+    /**
+     * The intermediate configuration: 16 rows, 16 columns and 40 mines.
+     */
+    public static final BoardConfig INTERMEDIATE = new BoardConfig(16, 16, 40);
+
+    /**
+     * The expert configuration: 16 rows, 30 columns and 99 mines.
+     */
+    public static final BoardConfig EXPERT = new BoardConfig(16, 30, 99);
+
+    /**
+     * The number of rows of the board.
+     */
+    private final int rows;
+
+    /**
+     * The number of columns of the board.
+     */
+    private final int columns;
+
+    /**
+     * The total number of mines of the board.
+     */
+    private final int mines;
+
+    /**
+     * Creates a new board configuration.
+     *
+     * @param rows    the number of rows of the board
+     * @param columns the number of columns of the board
+     * @param mines   the total number of mines of the board
+     */
+    public BoardConfig(int rows, int columns, int mines) {
+        if (rows <= 0 || columns <= 0)
+            throw new IllegalArgumentException("The board must have at least one row and one column");
+        if (mines < 0 || mines >= (long) rows * columns)
+            throw new IllegalArgumentException("The board must have at least one cell without a mine");
+
+        this.rows = rows;
+        this.columns = columns;
+        this.mines = mines;
+    }
+
+    /**
+     * Gets the total number of cells of the board.
+     *
+     * @return the number of cells
+     */
+    public int getCells() {
+        return rows * columns;
+    }
+
+    @Override
+    public String toString() {
+        return rows + "x" + columns + "/" + mines;
+    }
+}
@@ -0,0 +1,252 @@
+package mines;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * The BoardHistory class keeps the successive states of a game so that the moves can be undone and redone.
+ * The visible state of the board is stored in a {@link PersistentByteVector}, one byte per cell holding
+ * the index of the image displayed by the cell. Consecutive snapshots share all the chunks that did
+ * not change, so every undo level costs memory proportional to the cells changed by its move.
+ */
+public class BoardHistory {
+
+    /**
+     * The ring buffer of the snapshots of the game, from the oldest one kept to the last move,
+     * so that forgetting the oldest snapshot when the history is full does not move the others.
+     */
+    private final Snapshot[] snapshots;
+
+    /**
+     * The position in the ring buffer of the oldest snapshot kept.
+     */
+    private int head;
+
+    /**
+     * The number of snapshots kept.
+     */
+    private int size;
+
+    /**
+     * The editor recording the cells changed by the current move.
+     */
+    private PersistentByteVector.Editor editor;
+
+    /**
+     * The position of the snapshot of the current state.
+     */
+    private int current;
+
+    /**
+     * Creates a new history.
+     *
+     * @param maxLevels the maximum number of moves that can be undone
+     */
+    public BoardHistory(int maxLevels) {
+        if (maxLevels <= 0)
+            throw new IllegalArgumentException("The history needs at least one level");
+        snapshots = new Snapshot[maxLevels + 1];
+    }
+
+    /**
+     * Forgets the previous game and starts recording a board whose cells all display the same image.
+     * The changes recorded before the next call to {@link #start(int, int, boolean)} are part of the
+     * initial state of the game.
+     *
+     * @param cells      the number of cells of the board
+     * @param imageIndex the index of the image displayed by all the cells
+     */
+    public void clear(int cells, byte imageIndex) {
+        Arrays.fill(snapshots, null);
+        head = 0;
+        size = 0;
+        current = 0;
+        editor = PersistentByteVector.filled(cells, imageIndex).edit();
+    }
+
+    /**
+     * Records the image displayed by a cell after a change.
+     *
+     * @param index      the index of the cell
+     * @param imageIndex the index of the image displayed by the cell
+     */
+    public void cellChanged(int index, byte imageIndex) {
+        editor.set(index, imageIndex);
+    }
+
+    /**
+     * Records the initial state of the game, which cannot be undone.
+     *
+     * @param checkedCells the number of checked cells
+     * @param minesLeft    the number of mines left to mark
+     * @param inGame       true if the game is in progress
+     */
+    public void start(int checkedCells, int minesLeft, boolean inGame) {
+        snapshots[head] = new Snapshot(editor.build(), checkedCells, minesLeft, inGame);
+        size = 1;
+    }
+
+    /**
+     * Records the state reached by a move, if the move changed something.
+     * The moves undone before are forgotten.
+     *
+     * @param checkedCells the number of checked cells
+     * @param minesLeft    the number of mines left to mark
+     * @param inGame       true if the game is in progress
+     */
+    public void commit(int checkedCells, int minesLeft, boolean inGame) {
+        Snapshot last = get(current);
+        if (!editor.isChanged() && last.checkedCells == checkedCells
+                && last.minesLeft == minesLeft && last.inGame == inGame)
+            return;
+
+        // the moves undone are forgotten
+        for (int position = current + 1; position < size; position++)
+            snapshots[(head + position) % snapshots.length] = null;
+        size = current + 1;
+        Snapshot snapshot = new Snapshot(editor.build(), checkedCells, minesLeft, inGame);
+        if (size == snapshots.length) {
+            // the oldest snapshot is replaced
+            snapshots[head] = snapshot;
+            head = (head + 1) % snapshots.length;
+        } else {
+            snapshots[(head + size) % snapshots.length] = snapshot;
+            size++;
+        }
+        current = size - 1;
+    }
+
+    /**
+     * Checks whether a move can be undone.
+     *
+     * @return true if there is a state before the current one
+     */
+    public boolean canUndo() {
+        return current > 0;
+    }
+
+    /**
+     * Checks whether a move can be redone.
+     *
+     * @return true if there is a state after the current one
+     */
+    public boolean canRedo() {
+        return current < size - 1;
+    }
+
+    /**
+     * Moves back to the previous state.
+     *
+     * @return the previous state
+     */
+    public Snapshot undo() {
+        return moveTo(current - 1);
+    }
+
+    /**
+     * Moves forward to the next state.
+     *
+     * @return the next state
+     */
+    public Snapshot redo() {
+        return moveTo(current + 1);
+    }
+
+    /**
+     * Moves to another state. The changes recorded next start from that state.
+     *
+     * @param position the position of the state
+     * @return the state
+     */
+    private Snapshot moveTo(int position) {
+        Snapshot snapshot = get(position);
+        current = position;
+        editor = snapshot.cells.edit();
+        return snapshot;
+    }
+
+    /**
+     * Gets the current state.
+     *
+     * @return the state reached by the last move, undo or redo
+     */
+    public Snapshot getCurrent() {
+        return get(current);
+    }
+
+    /**
+     * Gets a snapshot kept in the ring buffer.
+     *
+     * @param position the position of the snapshot, 0 for the oldest one kept
+     * @return the snapshot
+     */
+    private Snapshot get(int position) {
+        return snapshots[(head + position) % snapshots.length];
+    }
+
+    /**
+     * Gets the number of moves that can be undone.
+     *
+     * @return the number of states before the current one
+     */
+    public int getUndoLevels() {
+        return current;
+    }
+
+    /**
+     * The Snapshot class holds the state of the game after a move.
+     */
+    @Getter
+    public static final class Snapshot {
+
+        /**
+         * The index of the image displayed by every cell.
+         */
+        private final PersistentByteVector cells;
+
+        /**
+         * The number of checked cells.
+         */
+        private final int checkedCells;
+
+        /**
+         * The number of mines left to mark.
+         */
+        private final int minesLeft;
+
+        /**
+         * A boolean flag indicating whether the game is in progress.
+         */
+        private final boolean inGame;
+
+        private Snapshot(PersistentByteVector cells, int checkedCells, int minesLeft, boolean inGame) {
+            this.cells = cells;
+            this.checkedCells = checkedCells;
+            this.minesLeft = minesLeft;
+            this.inGame = inGame;
+        }
+
+        /**
+         * Gets the index of the image displayed by a cell.
+         *
+         * @param index the index of the cell
+         * @return the index of the image
+         */
+        public byte getImageIndex(int index) {
+            return cells.get(index);
+        }
+
+        /**
+         * Calls the given function with the index of every cell whose image differs in another state.
+         * The chunks shared by both states are skipped.
+         *
+         * @param other    another state of the same game
+         * @param consumer the function receiving the indices of the changed cells
+         */
+        public void forEachChangedCell(Snapshot other, IntConsumer consumer) {
+            cells.forEachDifference(other.cells, consumer);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package mines;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * The BoardPool class keeps a bounded number of boards generated ahead of time
+ * so that a new game can start by swapping in a ready board instead of building one.
+ * Boards are generated on a shared background thread, and the pool is refilled
+ * every time a board is taken from it.
+ *
+ * @param <T> the type of the pooled boards
+ */
+public class BoardPool<T> {
+
+    /**
+     * The background thread shared by all the pools to generate boards.
+     * It is a daemon thread so it never keeps the application alive.
+     */
+    private static final ExecutorService GENERATOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mines-board-pool");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The function used to generate a new board.
+     */
+    private final Supplier<T> generator;
+
+    /**
+     * The boards that are ready to be used.
+     */
+    private final BlockingQueue<T> readyBoards;
+
+    /**
+     * The maximum number of boards kept in the pool,
+     * once the depth and the memory cap are both taken into account.
+     */
+    private final int capacity;
+
+    /**
+     * A flag indicating whether a refill task is already waiting on the background thread.
+     */
+    private final AtomicBoolean refillScheduled = new AtomicBoolean();
+
+    /**
+     * The number of boards taken from the pool.
+     */
+    private final AtomicLong hits = new AtomicLong();
+
+    /**
+     * The number of boards generated on the caller thread because the pool was empty.
+     */
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Creates a new pool and starts filling it in the background.
+     *
+     * @param generator      the function used to generate a new board, it must be thread safe
+     * @param depth          the maximum number of boards kept in the pool
+     * @param memoryCapBytes the maximum memory in bytes the pooled boards may use
+     * @param bytesPerBoard  the estimated memory in bytes used by one board
+     */
+    public BoardPool(Supplier<T> generator, int depth, long memoryCapBytes, long bytesPerBoard) {
+        if (depth < 0 || memoryCapBytes < 0 || bytesPerBoard <= 0)
+            throw new IllegalArgumentException("Invalid pool size");
+
+        this.generator = generator;
+        capacity = (int) Math.min(depth, memoryCapBytes / bytesPerBoard);
+        readyBoards = new ArrayBlockingQueue<>(Math.max(capacity, 1));
+        scheduleRefill();
+    }
+
+    /**
+     * Takes a board from the pool, or generates one on the caller thread if the pool is empty.
+     *
+     * @return a new board
+     */
+    public T take() {
+        T board = readyBoards.poll();
+        if (board != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            board = generator.get();
+        }
+        scheduleRefill();
+        return board;
+    }
+
+    /**
+     * Schedules a refill of the pool on the background thread,
+     * unless one is already waiting to run.
+     */
+    private void scheduleRefill() {
+        if (capacity > 0 && refillScheduled.compareAndSet(false, true))
+            GENERATOR.execute(this::refill);
+    }
+
+    /**
+     * Generates boards until the pool is full.
+     */
+    private void refill() {
+        refillScheduled.set(false);
+        while (readyBoards.size() < capacity) {
+            if (!readyBoards.offer(generator.get()))
+                return;
+        }
+    }
+
+    /**
+     * Gets the maximum number of boards kept in the pool.
+     *
+     * @return the capacity of the pool
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the number of boards that are ready to be used.
+     *
+     * @return the number of pooled boards
+     */
+    public int getReadyBoards() {
+        return readyBoards.size();
+    }
+
+    /**
+     * Gets the number of boards that were taken from the pool.
+     *
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of boards that were generated on the caller thread.
+     *
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Gets the fraction of requests served from the pool.
+     *
+     * @return the hit rate between 0 and 1, or 0 if no board was requested yet
+     */
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+}
@@ -1,13 +1,15 @@
 package mines;
 
 import java.awt.*;
+import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.Map;
 
 /**
  * The Cell class implements ICell interface and represents a cell on the game board.
- * It contains information about the cell's state and contents, as well as its location
- * on the board and the indices of its corners.
+ * It contains information about the cell's state and contents, as well as its location on the board.
+ * The indices of its corners are read from the table of the square topology shared by the whole board,
+ * see {@link Board#CORNERS}.
  */
 public class Cell implements ICell {
 
@@ -36,11 +38,6 @@ public class Cell implements ICell {
      */
     private boolean isCellMined;
 
-    /**
-     * A map containing the indices of each of the cell's corners.
-     */
-    private final Map<Corner, Integer> corners;
-
     /**
      * The total number of mined corner cells surrounding this cell.
      */
@@ -81,11 +78,9 @@ public class Cell implements ICell {
     public Cell(int index, Image img){
 
         this.index = index;
-        corners = new EnumMap<>(Corner.class);
         row = index / Board.COLS;
         column = index % Board.COLS;
         initCell(img);
-        setCellCorners();
     }
 
     /**
@@ -100,50 +95,6 @@ public class Cell implements ICell {
         cellImage = img;
     }
 
-    /**
-     * Sets the indices of all the corners of the cell in a map.
-     */
-    private void setCellCorners(){
-
-        // check for existing a top row
-        if(row > 0 ) {
-            corners.put(Corner.TOP, (index - Board.COLS));
-
-            // check for existing a left column
-            if(column > 0)
-                corners.put(Corner.TOP_LEFT, (index - Board.COLS - 1));
-
-            // check for existing a right column
-            if(column < Board.COLS - 1 )
-                corners.put(Corner.TOP_RIGHT, (index - Board.COLS + 1));
-
-        }
-
-        // check for existing a left column
-        if(column > 0)
-            corners.put(Corner.LEFT, (index - 1));
-
-        // check for existing a right column
-        if(column < Board.COLS - 1 )
-            corners.put(Corner.RIGHT, (index + 1));
-
-        // check for existing a bottom row
-        if(row < Board.ROWS - 1){
-            corners.put(Corner.BOTTOM, (index + Board.COLS));
-
-            // check for existing a left column
-            if(column > 0)
-                corners.put(Corner.BOTTOM_LEFT, (index + Board.COLS - 1));
-
-            // check for existing a right column
-            if(column < Board.COLS - 1)
-                corners.put(Corner.BOTTOM_RIGHT, (index + Board.COLS + 1));
-
-        }
-
-
-    }
-
     /**
      * Increments the number of mined corner cells surrounding this cell.
      */
@@ -191,14 +142,32 @@ public class Cell implements ICell {
     }
 
     /**
-     * Returns a map containing the indices of each of the cell's corners.
+     * Returns a new map containing the indices of each of the cell's corners.
      *
      * @return a map containing the indices of each of the cell's corners
      */
     public Map<Corner, Integer> getCellCorners(){
+        Map<Corner, Integer> corners = new EnumMap<>(Corner.class);
+        Corner[] directions = Corner.values();
+        for (int p = Board.CORNER_OFFSETS[index]; p < Board.CORNER_OFFSETS[index + 1]; p++) {
+            int corner = Board.CORNERS[p];
+            // the directions are listed row by row, around the cell
+            int direction = (corner / Board.COLS - row + 1) * 3 + corner % Board.COLS - column + 1;
+            corners.put(directions[direction < 4 ? direction : direction - 1], corner);
+        }
         return corners;
     }
 
+    /**
+     * Returns a copy of the indices of the cell's corners, in the order of the {@link Corner} enum.
+     * The game itself visits the corners in {@link Board#CORNERS}, without allocating.
+     *
+     * @return the indices of the cell's corners
+     */
+    public int[] getCornerIndices(){
+        return Arrays.copyOfRange(Board.CORNERS, Board.CORNER_OFFSETS[index], Board.CORNER_OFFSETS[index + 1]);
+    }
+
     /**
      * Mines the cell.
      */
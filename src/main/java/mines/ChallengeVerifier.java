@@ -0,0 +1,114 @@
+package mines;
+
+import java.util.Random;
+
+/**
+ * The ChallengeVerifier class checks the journals of moves submitted for a {@link DailyChallenge}
+ * by replaying them on the board regenerated from the seed of the challenge, without any Swing component.
+ * The journals are replayed with the rules of the {@link Board} they were played on: the game is won once all the
+ * cells without a mine are revealed and all the flags are used, in any order.
+ * <p>The verifier reuses the same mine field for all the journals. The mines are only placed again when
+ * the challenge changes; otherwise the cells are just covered again, so verifying a journal costs
+ * time proportional to the board and the journal, and does not allocate.</p>
+ * A ChallengeVerifier is not thread safe, each thread must use its own instance.
+ */
+public class ChallengeVerifier {
+
+    /**
+     * The result of the verification of a journal.
+     */
+    public enum Verdict {
+        /**
+         * All the cells without a mine have been revealed and all the flags have been used,
+         * the last move of the journal ending the game.
+         */
+        WON,
+
+        /**
+         * A mined cell has been revealed by the last move of the journal.
+         */
+        LOST,
+
+        /**
+         * The game is still in progress after the last move of the journal.
+         */
+        UNFINISHED,
+
+        /**
+         * The journal has a move that cannot be played: an unknown action,
+         * a cell outside the board, or a move after the end of the game.
+         */
+        INVALID
+    }
+
+    /**
+     * The random number generator placing the mines, reused for all the challenges.
+     */
+    private final Random random = new Random();
+
+    /**
+     * The mine field the journals are replayed on.
+     */
+    private MineField field;
+
+    /**
+     * The challenge whose mines are placed on the field.
+     */
+    private DailyChallenge challenge;
+
+    /**
+     * Replays a journal of moves on the board of a challenge.
+     * The start cell of the challenge is opened before the first move.
+     *
+     * @param challenge the challenge the journal was played on
+     * @param moves     the moves of the journal, encoded by the {@link Action} class
+     * @return the verdict of the journal
+     */
+    public Verdict verify(DailyChallenge challenge, int[] moves) {
+        prepare(challenge);
+        field.reveal(challenge.getStartIndex());
+
+        for (int move : moves) {
+            if (field.isWon() || field.isLost())
+                return Verdict.INVALID;
+            int type = Action.getType(move);
+            int cell = Action.getCell(move);
+            if (move < 0 || type > Action.CHORD || cell >= field.getCellCount())
+                return Verdict.INVALID;
+            field.apply(move);
+        }
+
+        if (field.isLost())
+            return Verdict.LOST;
+        return field.isWon() ? Verdict.WON : Verdict.UNFINISHED;
+    }
+
+    /**
+     * Gets the mine field after the last verification, to inspect the final state of the journal.
+     *
+     * @return the mine field, or {@code null} before the first verification
+     */
+    public MineField getField() {
+        return field;
+    }
+
+    /**
+     * Places the mines of a challenge on the field, unless they are already placed,
+     * and covers all the cells.
+     *
+     * @param challenge the challenge
+     */
+    private void prepare(DailyChallenge challenge) {
+        if (challenge.equals(this.challenge)) {
+            field.restart();
+            return;
+        }
+
+        if (field == null || !field.getConfig().equals(challenge.getConfig())) {
+            field = new MineField(challenge.getConfig());
+            field.setBoardRules(true);
+        }
+        challenge.placeMines(field, random);
+        this.challenge = challenge;
+    }
+}
@@ -0,0 +1,86 @@
+package mines;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * The DailyChallenge class defines a board by its configuration and a seed only.
+ * The mines are never stored: they are placed again from the seed whenever the board is needed,
+ * keeping the start cell and its corners free of mines, and the start cell is opened for the player.
+ * Every player of a challenge gets the same board, and a journal of moves played on it can be
+ * verified by regenerating the board. Instances are immutable.
+ */
+@Getter
+@EqualsAndHashCode
+public final class DailyChallenge {
+
+    /**
+     * The configuration of the board.
+     */
+    private final BoardConfig config;
+
+    /**
+     * The seed of the random number generator placing the mines.
+     */
+    private final long seed;
+
+    /**
+     * The index of the cell opened at the start of the challenge, the cell at the center of the board.
+     */
+    private final int startIndex;
+
+    /**
+     * Creates a new challenge.
+     *
+     * @param config the configuration of the board
+     * @param seed   the seed of the random number generator placing the mines
+     */
+    public DailyChallenge(BoardConfig config, long seed) {
+        if (config.getCells() - MineField.MAX_CORNERS - 1 < config.getMines())
+            throw new IllegalArgumentException("Too many mines to keep the start cell safe on " + config);
+
+        this.config = config;
+        this.seed = seed;
+        startIndex = (config.getRows() / 2) * config.getColumns() + config.getColumns() / 2;
+    }
+
+    /**
+     * Creates the challenge of a day, the same for every player.
+     *
+     * @param config the configuration of the board
+     * @param date   the day of the challenge
+     * @return the challenge of the day
+     */
+    public static DailyChallenge forDate(BoardConfig config, LocalDate date) {
+        return new DailyChallenge(config, new SplittableRandom(date.toEpochDay()).nextLong());
+    }
+
+    /**
+     * Places the mines of the challenge on a mine field of the same configuration.
+     *
+     * @param field  the mine field, cleared before the mines are placed
+     * @param random the random number generator used to place the mines, whose seed is reset
+     */
+    public void placeMines(MineField field, Random random) {
+        random.setSeed(seed);
+        field.placeMines(random, startIndex);
+    }
+
+    /**
+     * Creates the random number generator placing the mines of the challenge.
+     *
+     * @return a new random number generator seeded with the seed of the challenge
+     */
+    public Random newRandom() {
+        return new Random(seed);
+    }
+
+    @Override
+    public String toString() {
+        return config + "#" + Long.toHexString(seed);
+    }
+}
@@ -0,0 +1,295 @@
+package mines;
+
+import java.util.Arrays;
+
+/**
+ * The DeductionSolver class plays a mine field using only logical deductions, never guessing.
+ * It only reads the visible part of the board through a {@link VisibleBoard}:
+ * the state of the cells and the numbers of the revealed cells.
+ * <p>The solver applies the following rules until none of them makes progress:</p>
+ * <ul>
+ *     <li>a revealed cell whose flagged corners match its number has only safe covered corners.</li>
+ *     <li>a revealed cell whose remaining mines match its covered corners has only mined covered corners.</li>
+ *     <li>if the covered corners of a cell are all corners of a second cell, the difference between
+ *     their remaining mines lies in the corners of the second cell that the first cell does not have.</li>
+ *     <li>if no mine is left all the covered cells are safe, and if the covered cells match the
+ *     remaining mines they are all mined.</li>
+ * </ul>
+ * <p>The results can be shared through a {@link TranspositionCache} keyed by the hash of the visible state,
+ * so that a position already solved by any solver using the same cache is not solved again.</p>
+ * A DeductionSolver is not thread safe, each thread must use its own instance.
+ */
+public class DeductionSolver {
+
+    /**
+     * A buffer receiving the corners of a cell.
+     */
+    private final int[] corners = new int[MineField.MAX_CORNERS];
+
+    /**
+     * A buffer receiving the corners of a second cell.
+     */
+    private final int[] otherCorners = new int[MineField.MAX_CORNERS];
+
+    /**
+     * The buffer receiving the cells compared with a cell by the subset rule.
+     */
+    private final int[] candidates = new int[MineField.MAX_CORNERS];
+
+    /**
+     * The actions found by the last deduction, encoded by the {@link Action} class.
+     */
+    private int[] decisions = new int[0];
+
+    /**
+     * The number of actions found by the last deduction.
+     */
+    private int decisionCount;
+
+    /**
+     * The cells already decided by the last deduction, used to avoid duplicate actions.
+     */
+    private boolean[] decided = new boolean[0];
+
+    /**
+     * The cache of the actions found for the positions already solved, or {@code null} to solve every position.
+     */
+    private final TranspositionCache<int[]> cache;
+
+    /**
+     * Creates a new solver without cache.
+     */
+    public DeductionSolver() {
+        this(null);
+    }
+
+    /**
+     * Creates a new solver sharing the results of its deductions through a cache.
+     * The positions are identified by their hash only, so a cache is shared by boards of the same size and topology.
+     *
+     * @param cache the cache of the positions already solved, or {@code null} to solve every position
+     */
+    public DeductionSolver(TranspositionCache<int[]> cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Reveals the start cell and plays the field until it is won or no deduction is possible.
+     *
+     * @param field      the mine field to play
+     * @param startIndex the index of the first cell to reveal
+     * @return true if the game has been won without guessing, false otherwise
+     */
+    public boolean solve(MineField field, int startIndex) {
+        field.reveal(startIndex);
+        while (!field.isLost() && !field.isWon() && deduce(field.getView()) > 0) {
+            for (int i = 0; i < decisionCount; i++)
+                field.apply(decisions[i]);
+        }
+        return field.isWon();
+    }
+
+    /**
+     * Finds the cells that are known to be safe or mined from the visible part of a board.
+     * The rules are tried in order and the first rule finding something gives the result.
+     * The board is not changed, the found actions are read with {@link #getDecision(int)}.
+     * If the position is in the cache, its stored actions are used instead.
+     *
+     * @param board the visible part of the board
+     * @return the number of actions found
+     */
+    public int deduce(VisibleBoard board) {
+        for (int i = 0; i < decisionCount; i++)
+            decided[Action.getCell(decisions[i])] = false;
+        decisionCount = 0;
+        if (decided.length != board.getCellCount()) {
+            decided = new boolean[board.getCellCount()];
+            decisions = new int[board.getCellCount()];
+        }
+
+        int[] cached = cache == null ? null : cache.get(board.getHash());
+        if (cached != null) {
+            for (int action : cached)
+                decide(Action.getCell(action), Action.getType(action) == Action.FLAG);
+            return decisionCount;
+        }
+
+        applyCountRule(board);
+        if (decisionCount == 0)
+            applySubsetRule(board);
+        if (decisionCount == 0)
+            applyGlobalRule(board);
+
+        if (cache != null)
+            cache.put(board.getHash(), Arrays.copyOf(decisions, decisionCount));
+        return decisionCount;
+    }
+
+    /**
+     * Gets an action found by the last deduction.
+     *
+     * @param i the position of the action, lower than the number returned by {@link #deduce(VisibleBoard)}
+     * @return the action encoded by the {@link Action} class
+     */
+    public int getDecision(int i) {
+        return decisions[i];
+    }
+
+    /**
+     * Records that a covered cell is safe or mined, unless it has already been decided.
+     *
+     * @param index the index of the cell
+     * @param mined true if the cell is mined, false if it is safe
+     */
+    private void decide(int index, boolean mined) {
+        if (decided[index])
+            return;
+        decided[index] = true;
+        decisions[decisionCount++] = mined ? Action.flag(index) : Action.reveal(index);
+    }
+
+    /**
+     * Decides the covered corners of the revealed cells that are fully determined by their number.
+     *
+     * @param board the visible part of the board
+     */
+    private void applyCountRule(VisibleBoard board) {
+        for (int index = 0; index < board.getCellCount(); index++) {
+            int remaining = getRemainingMines(board, index, corners);
+            if (remaining < 0)
+                continue;
+
+            int cornersCount = board.getCorners(index, corners);
+            int covered = 0;
+            for (int i = 0; i < cornersCount; i++) {
+                if (board.getState(corners[i]) == MineField.COVERED)
+                    covered++;
+            }
+
+            if (remaining == 0 || remaining == covered) {
+                for (int i = 0; i < cornersCount; i++) {
+                    if (board.getState(corners[i]) == MineField.COVERED)
+                        decide(corners[i], remaining != 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Compares the revealed cells two by two, and decides the corners of the second cell
+     * that are not shared with the first when the first cell's covered corners are all shared.
+     *
+     * @param board the visible part of the board
+     */
+    private void applySubsetRule(VisibleBoard board) {
+        Adjacency adjacency = board.getAdjacency();
+
+        for (int index = 0; index < board.getCellCount(); index++) {
+            int remaining = getRemainingMines(board, index, corners);
+            if (remaining < 0)
+                continue;
+
+            // a cell sharing all the covered corners is a neighbour of the first one
+            int firstCovered = 0;
+            while (board.getState(corners[firstCovered]) != MineField.COVERED)
+                firstCovered++;
+            int candidatesCount = adjacency.getNeighbours(corners[firstCovered], candidates);
+            for (int i = 0; i < candidatesCount; i++) {
+                int other = candidates[i];
+                if (other == index || !isCoveredCornersSubset(board, index, other, adjacency))
+                    continue;
+
+                int otherRemaining = getRemainingMines(board, other, otherCorners);
+                if (otherRemaining >= 0)
+                    resolveDifference(board, index, other, otherRemaining - remaining, adjacency);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of mines left around a revealed cell having covered corners.
+     * The corners of the cell are written in the given buffer.
+     *
+     * @param board   the visible part of the board
+     * @param index   the index of the cell
+     * @param buffer  the buffer receiving the corners of the cell
+     * @return the number of mines left, or -1 if the cell is not revealed or has no covered corners
+     */
+    private static int getRemainingMines(VisibleBoard board, int index, int[] buffer) {
+        if (board.getState(index) != MineField.REVEALED)
+            return -1;
+
+        int cornersCount = board.getCorners(index, buffer);
+        int flagged = 0;
+        int covered = 0;
+        for (int i = 0; i < cornersCount; i++) {
+            if (board.getState(buffer[i]) == MineField.FLAGGED)
+                flagged++;
+            else if (board.getState(buffer[i]) == MineField.COVERED)
+                covered++;
+        }
+        return covered == 0 ? -1 : board.getNumber(index) - flagged;
+    }
+
+    /**
+     * Checks whether all the covered corners of a cell are also corners of a second cell.
+     *
+     * @param board     the visible part of the board
+     * @param index     the index of the first cell
+     * @param other     the index of the second cell
+     * @param adjacency the corners of all the cells
+     * @return true if the covered corners of the first cell are a subset of the second cell's corners
+     */
+    private boolean isCoveredCornersSubset(VisibleBoard board, int index, int other, Adjacency adjacency) {
+        int cornersCount = board.getCorners(index, corners);
+        for (int i = 0; i < cornersCount; i++) {
+            if (board.getState(corners[i]) == MineField.COVERED && !adjacency.isAdjacent(other, corners[i]))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Decides the covered corners of the second cell that are not corners of the first cell,
+     * if the number of mines among them is determined.
+     *
+     * @param board     the visible part of the board
+     * @param index     the index of the first cell
+     * @param other     the index of the second cell
+     * @param mines     the number of mines among the corners that are not shared
+     * @param adjacency the corners of all the cells
+     */
+    private void resolveDifference(VisibleBoard board, int index, int other, int mines, Adjacency adjacency) {
+        int otherCount = board.getCorners(other, otherCorners);
+        int difference = 0;
+        for (int i = 0; i < otherCount; i++) {
+            if (board.getState(otherCorners[i]) == MineField.COVERED && !adjacency.isAdjacent(index, otherCorners[i]))
+                difference++;
+        }
+        if (difference == 0 || (mines != 0 && mines != difference))
+            return;
+
+        for (int i = 0; i < otherCount; i++) {
+            int cell = otherCorners[i];
+            if (board.getState(cell) == MineField.COVERED && !adjacency.isAdjacent(index, cell))
+                decide(cell, mines != 0);
+        }
+    }
+
+    /**
+     * Decides all the covered cells if no mine is left, or if they are all mined.
+     *
+     * @param board the visible part of the board
+     */
+    private void applyGlobalRule(VisibleBoard board) {
+        int remaining = board.getConfig().getMines() - board.getFlaggedCells();
+        int covered = board.getCellCount() - board.getRevealedCells() - board.getFlaggedCells();
+        if (covered == 0 || (remaining != 0 && remaining != covered))
+            return;
+
+        for (int index = 0; index < board.getCellCount(); index++) {
+            if (board.getState(index) == MineField.COVERED)
+                decide(index, remaining != 0);
+        }
+    }
+}
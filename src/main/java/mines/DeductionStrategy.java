@@ -0,0 +1,63 @@
+package mines;
+
+import java.util.Random;
+
+/**
+ * The DeductionStrategy class is a bot playing the actions found by a {@link DeductionSolver},
+ * and revealing a random covered cell when nothing can be deduced.
+ */
+public class DeductionStrategy implements Strategy {
+
+    /**
+     * The solver finding the safe and mined cells.
+     */
+    private final DeductionSolver solver;
+
+    /**
+     * The number of actions found by the last deduction.
+     */
+    private int pending;
+
+    /**
+     * The position of the next action to play among the ones found by the last deduction.
+     */
+    private int next;
+
+    /**
+     * Creates a new strategy solving every position.
+     */
+    public DeductionStrategy() {
+        this(null);
+    }
+
+    /**
+     * Creates a new strategy sharing the positions it solves through a cache.
+     *
+     * @param cache the cache of the positions already solved, or {@code null} to solve every position
+     */
+    public DeductionStrategy(TranspositionCache<int[]> cache) {
+        solver = new DeductionSolver(cache);
+    }
+
+    @Override
+    public void startGame() {
+        pending = 0;
+        next = 0;
+    }
+
+    @Override
+    public int nextAction(VisibleBoard board, Random random) {
+        // the actions of the last deduction stay valid until they are all played
+        while (next < pending) {
+            int action = solver.getDecision(next++);
+            if (board.getState(Action.getCell(action)) == MineField.COVERED)
+                return action;
+        }
+
+        pending = solver.deduce(board);
+        next = 0;
+        if (pending > 0)
+            return solver.getDecision(next++);
+        return RandomStrategy.guess(board, random);
+    }
+}
@@ -0,0 +1,120 @@
+package mines;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The FrontierIndex class keeps the frontier of a board: the unchecked cells touching a checked cell,
+ * which are the only cells whose risk can be told from the visible numbers.
+ * <p>The frontier is a set of cell indices stored in a dense array, with the position of every member,
+ * so that adding, removing and iterating cost no allocation and do not depend on the size of the board.
+ * It is updated by {@link #cellChanged(List, int)} whenever a cell is checked, marked or covered again,
+ * which only looks at the changed cell and its corners, read from {@link Board#CORNERS}.</p>
+ */
+public class FrontierIndex {
+
+    /**
+     * The indices of the cells of the frontier, in no particular order.
+     */
+    private final int[] members;
+
+    /**
+     * The position of every cell in {@link #members}, or -1 if the cell is not in the frontier.
+     */
+    private final int[] positions;
+
+    /**
+     * The number of cells of the frontier.
+     */
+    private int size;
+
+    /**
+     * Creates an empty frontier.
+     *
+     * @param cells the number of cells of the board
+     */
+    public FrontierIndex(int cells) {
+        members = new int[cells];
+        positions = new int[cells];
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * Removes all the cells from the frontier, in time proportional to the size of the frontier.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++)
+            positions[members[i]] = -1;
+        size = 0;
+    }
+
+    /**
+     * Updates the frontier after the state of a cell changed.
+     * The cell itself and its corners may enter or leave the frontier.
+     *
+     * @param cells     the cells of the board
+     * @param cellIndex the index of the changed cell
+     */
+    public void cellChanged(List<ICell> cells, int cellIndex) {
+        update(cells, cellIndex);
+        for (int p = Board.CORNER_OFFSETS[cellIndex]; p < Board.CORNER_OFFSETS[cellIndex + 1]; p++)
+            update(cells, Board.CORNERS[p]);
+    }
+
+    /**
+     * Adds a cell to the frontier or removes it from the frontier, depending on its state and its corners.
+     *
+     * @param cells     the cells of the board
+     * @param cellIndex the index of the cell
+     */
+    private void update(List<ICell> cells, int cellIndex) {
+        boolean member = false;
+        if (cells.get(cellIndex).getCellState() == CellState.UNCHECKED) {
+            for (int p = Board.CORNER_OFFSETS[cellIndex]; p < Board.CORNER_OFFSETS[cellIndex + 1]; p++) {
+                if (cells.get(Board.CORNERS[p]).getCellState() == CellState.CHECKED) {
+                    member = true;
+                    break;
+                }
+            }
+        }
+
+        if (member && positions[cellIndex] < 0) {
+            positions[cellIndex] = size;
+            members[size++] = cellIndex;
+        } else if (!member && positions[cellIndex] >= 0) {
+            int last = members[--size];
+            members[positions[cellIndex]] = last;
+            positions[last] = positions[cellIndex];
+            positions[cellIndex] = -1;
+        }
+    }
+
+    /**
+     * Checks whether a cell is in the frontier.
+     *
+     * @param cellIndex the index of the cell
+     * @return true if the cell is unchecked and touches a checked cell
+     */
+    public boolean contains(int cellIndex) {
+        return positions[cellIndex] >= 0;
+    }
+
+    /**
+     * Gets the number of cells of the frontier.
+     *
+     * @return the size of the frontier
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets a cell of the frontier.
+     *
+     * @param i the position of the cell, lower than {@link #size()}
+     * @return the index of the cell
+     */
+    public int get(int i) {
+        return members[i];
+    }
+}
@@ -0,0 +1,912 @@
+package mines;
+
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntUnaryOperator;
+import java.util.zip.CRC32;
+
+/**
+ * The GameCheckpointer class saves the game in progress in the background, so that it survives a crash
+ * or a power loss.
+ * <p>The game thread only updates an in-memory copy of the board, one byte per cell, and marks the pages
+ * of 4096 cells it changed in a dirty bitmap. Every move is also encoded as a journal record, which the writer
+ * thread appends to the journal file and forces to the disk in batches, every few milliseconds. The game thread
+ * never waits for the disk: it only holds the lock of the copy while it applies a move, and the writer only
+ * holds it while it takes the records and copies the dirty pages.</p>
+ * <p>Every second or so, the writer writes a checkpoint: only the dirty pages are written, to one of two slots
+ * of the checkpoint file, the other slot holding the previous checkpoint. The pages are forced to the disk
+ * before the header of the slot, which is protected by a CRC-32 and holds the CRC-32 of every page, so a slot
+ * torn by a crash is detected and the previous one is used instead. The journal is emptied once the checkpoint
+ * is on the disk.</p>
+ * <p>After a crash, {@link #recover(Path, BoardConfig)} reads the last valid checkpoint and replays the moves
+ * of the journal that follow it. The moves of the last few milliseconds before the crash may be lost.</p>
+ * The methods other than {@link #recover(Path, BoardConfig)} and {@link #close()} must be called from the
+ * thread playing the game.
+ */
+public class GameCheckpointer implements Closeable {
+
+    /**
+     * The name of the checkpoint file.
+     */
+    static final String CHECKPOINT_FILE = "game.checkpoint";
+
+    /**
+     * The name of the journal file.
+     */
+    static final String JOURNAL_FILE = "game.journal";
+
+    /**
+     * The number of cells of a page, and the size of a page in bytes.
+     */
+    static final int PAGE_SIZE = 4096;
+
+    /**
+     * The delay in milliseconds between two writes of the journal by default.
+     */
+    static final long DEFAULT_FLUSH_MILLIS = 20;
+
+    /**
+     * The delay in milliseconds between two checkpoints by default.
+     */
+    static final long DEFAULT_CHECKPOINT_MILLIS = 1000;
+
+    /**
+     * The size of the header of a slot: the generation, the number of moves, the rows, columns and mines,
+     * the mines left, the checked cells, the status, the number of mines placed, the time played,
+     * then the checksum at its end.
+     */
+    private static final int HEADER_SIZE = 64;
+
+    /**
+     * The position of the checksum in the header of a slot.
+     */
+    private static final int HEADER_CHECKSUM_OFFSET = HEADER_SIZE - 4;
+
+    /**
+     * The type of the journal record starting a new game: all the cells covered, and the mines placed.
+     */
+    private static final byte RESET = 0;
+
+    /**
+     * The type of the journal record placing the mines.
+     */
+    private static final byte MINES = 1;
+
+    /**
+     * The type of the journal record of a move: the counters and the changed cells.
+     */
+    private static final byte MOVE = 2;
+
+    /**
+     * The configuration of the board.
+     */
+    private final BoardConfig config;
+
+    /**
+     * The number of pages of the board.
+     */
+    private final int pageCount;
+
+    /**
+     * The position of the first cell in a slot, aligned on a page.
+     */
+    private final int cellsOffset;
+
+    /**
+     * The size of a slot of the checkpoint file.
+     */
+    private final long slotSize;
+
+    /**
+     * The checkpoint file.
+     */
+    private final FileChannel checkpoint;
+
+    /**
+     * The journal file.
+     */
+    private final FileChannel journal;
+
+    /**
+     * The thread writing the journal and the checkpoints.
+     */
+    private final ScheduledExecutorService writer;
+
+    /**
+     * The delay in nanoseconds between two checkpoints.
+     */
+    private final long checkpointNanos;
+
+    /**
+     * The lock guarding the copy of the board shared with the writer.
+     */
+    private final Object lock = new Object();
+
+    /**
+     * The image of every cell after the last move, as in {@link Zobrist}.
+     */
+    private final byte[] cells;
+
+    /**
+     * The pages changed since the last checkpoint, one bit per page.
+     */
+    private final long[] dirtyPages;
+
+    /**
+     * The positions of the mines, of which {@link #mineCount} are placed.
+     */
+    private final int[] mines;
+
+    /**
+     * The number of mines placed.
+     */
+    private int mineCount;
+
+    /**
+     * The number of mines left to mark after the last move.
+     */
+    private int minesLeft;
+
+    /**
+     * The number of checked cells after the last move.
+     */
+    private int checkedCells;
+
+    /**
+     * The status of the game after the last move, as in {@link SpectatorStream}.
+     */
+    private byte status;
+
+    /**
+     * The time played in milliseconds at the last move, or -1 if the clock of the game has not started.
+     */
+    private long elapsedMillis = -1;
+
+    /**
+     * The number of moves recorded, which numbers the journal records.
+     */
+    private long moves;
+
+    /**
+     * A boolean flag indicating whether the board changed since the last checkpoint.
+     */
+    private boolean changed;
+
+    /**
+     * The journal records not taken by the writer yet.
+     */
+    private ByteBuffer pending = ByteBuffer.allocate(PAGE_SIZE);
+
+    /**
+     * The cells changed by the current move, the index then the image of each one. Only used by the game thread.
+     */
+    private int[] moveChanges = new int[64];
+
+    /**
+     * The number of values of {@link #moveChanges}.
+     */
+    private int moveChangesSize;
+
+    /**
+     * The checksum of the journal records, computed by the game thread while the lock is held.
+     */
+    private final CRC32 recordChecksum = new CRC32();
+
+    /**
+     * The journal records being written. Only used by the writer.
+     */
+    private ByteBuffer writing = ByteBuffer.allocate(PAGE_SIZE);
+
+    /**
+     * The state of the board of the next checkpoint. Only used by the writer, like the fields below.
+     */
+    private final byte[] snapshot;
+
+    /**
+     * The pages changed since the previous checkpoint.
+     */
+    private long[] snapshotPages;
+
+    /**
+     * The pages written by the previous checkpoint, which the other slot has not received yet.
+     */
+    private long[] previousPages;
+
+    /**
+     * The checksum of every page of the snapshot.
+     */
+    private final int[] pageChecksums;
+
+    /**
+     * The header and the tables of a slot being written.
+     */
+    private final ByteBuffer slotHeader;
+
+    /**
+     * The checksum of the pages and the headers. Only used by the writer.
+     */
+    private final CRC32 checksum = new CRC32();
+
+    /**
+     * The generation of the last checkpoint, the slot being chosen by its parity.
+     */
+    private long generation;
+
+    /**
+     * The time in nanoseconds of the last checkpoint.
+     */
+    private long lastCheckpointNanos = System.nanoTime();
+
+    /**
+     * The first error of the writer, thrown by {@link #close()}. The game is no longer recorded after it.
+     */
+    @Getter
+    private volatile IOException failure;
+
+    /**
+     * The number of checkpoints written.
+     */
+    @Getter
+    private volatile long checkpoints;
+
+    /**
+     * The number of pages written by the checkpoints.
+     */
+    @Getter
+    private volatile long pagesWritten;
+
+    /**
+     * The number of times the journal was forced to the disk.
+     */
+    @Getter
+    private volatile long journalSyncs;
+
+    /**
+     * Creates a checkpointer, writing the journal every {@link #DEFAULT_FLUSH_MILLIS} milliseconds
+     * and a checkpoint every {@link #DEFAULT_CHECKPOINT_MILLIS} milliseconds.
+     *
+     * @param directory the directory of the checkpoint and the journal, created if needed
+     * @param config    the configuration of the board
+     */
+    public GameCheckpointer(Path directory, BoardConfig config) {
+        this(directory, config, DEFAULT_FLUSH_MILLIS, DEFAULT_CHECKPOINT_MILLIS);
+    }
+
+    /**
+     * Creates a checkpointer. The previous checkpoint and journal of the directory are discarded,
+     * so they must be recovered first. The board starts with all its cells covered and no mines.
+     *
+     * @param directory        the directory of the checkpoint and the journal, created if needed
+     * @param config           the configuration of the board
+     * @param flushMillis      the delay in milliseconds between two writes of the journal
+     * @param checkpointMillis the delay in milliseconds between two checkpoints
+     */
+    public GameCheckpointer(Path directory, BoardConfig config, long flushMillis, long checkpointMillis) {
+        this.config = config;
+        pageCount = (config.getCells() + PAGE_SIZE - 1) / PAGE_SIZE;
+        cellsOffset = roundToPage(HEADER_SIZE + 4 * (pageCount + config.getMines()));
+        slotSize = cellsOffset + (long) pageCount * PAGE_SIZE;
+        checkpointNanos = TimeUnit.MILLISECONDS.toNanos(checkpointMillis);
+
+        cells = new byte[config.getCells()];
+        Arrays.fill(cells, (byte) Zobrist.COVERED);
+        snapshot = cells.clone();
+        dirtyPages = new long[(pageCount + 63) >>> 6];
+        snapshotPages = new long[dirtyPages.length];
+        previousPages = new long[dirtyPages.length];
+        pageChecksums = new int[pageCount];
+        mines = new int[config.getMines()];
+        minesLeft = config.getMines();
+        slotHeader = ByteBuffer.allocate(cellsOffset);
+        // the slots of a new file hold no valid page, so the first checkpoints write every page
+        Arrays.fill(dirtyPages, -1L);
+        changed = true;
+
+        try {
+            Files.createDirectories(directory);
+            checkpoint = FileChannel.open(directory.resolve(CHECKPOINT_FILE), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            journal = FileChannel.open(directory.resolve(JOURNAL_FILE), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mines-checkpointer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // the previous files are discarded by the writer, before it writes anything else
+        writer.execute(this::discardFiles);
+        writer.scheduleWithFixedDelay(() -> flush(false), flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts a new game, or takes over a game in progress.
+     *
+     * @param images         the function giving the image of a cell from its index, as in {@link Zobrist}
+     * @param minePositions  the positions of the mines placed, possibly none
+     * @param minesLeft      the number of mines left to mark
+     * @param checkedCells   the number of checked cells
+     * @param status         the status of the game, as in {@link SpectatorStream}
+     * @param elapsedMillis  the time played in milliseconds, or -1 if the clock of the game has not started
+     */
+    public void reset(IntUnaryOperator images, int[] minePositions, int minesLeft, int checkedCells, byte status,
+                      long elapsedMillis) {
+        moveChangesSize = 0;
+        if (failure != null)
+            return;
+        synchronized (lock) {
+            moves++;
+            appendMinesRecord(RESET, minePositions, minesLeft, checkedCells, status, elapsedMillis);
+            setMines(minePositions);
+            for (int i = 0; i < cells.length; i++) {
+                byte image = (byte) images.applyAsInt(i);
+                if (image == Zobrist.COVERED)
+                    setCell(i, image);
+                else
+                    recordChange(i, image);
+            }
+        }
+        commit(minesLeft, checkedCells, status, elapsedMillis);
+    }
+
+    /**
+     * Records the mines placed by the first click of a game.
+     *
+     * @param minePositions the positions of the mines
+     */
+    public void minesPlaced(int[] minePositions) {
+        if (failure != null)
+            return;
+        synchronized (lock) {
+            moves++;
+            appendMinesRecord(MINES, minePositions, minesLeft, checkedCells, status, elapsedMillis);
+            setMines(minePositions);
+        }
+    }
+
+    /**
+     * Records the new image of a cell, which is part of the current move.
+     *
+     * @param index      the index of the cell
+     * @param imageIndex the index of the new image of the cell, as in {@link Zobrist}
+     */
+    public void cellChanged(int index, int imageIndex) {
+        if (failure == null)
+            recordChange(index, (byte) imageIndex);
+    }
+
+    /**
+     * Records the end of the current move, with the counters of the game. The move is written to the journal
+     * by the writer, soon after. Nothing is recorded once the writer has failed, see {@link #getFailure()}.
+     *
+     * @param minesLeft     the number of mines left to mark
+     * @param checkedCells  the number of checked cells
+     * @param status        the status of the game, as in {@link SpectatorStream}
+     * @param elapsedMillis the time played in milliseconds, or -1 if the clock of the game has not started
+     */
+    public void commit(int minesLeft, int checkedCells, byte status, long elapsedMillis) {
+        if (failure != null) {
+            moveChangesSize = 0;
+            return;
+        }
+        synchronized (lock) {
+            if (moveChangesSize == 0 && minesLeft == this.minesLeft && checkedCells == this.checkedCells
+                    && status == this.status)
+                return;
+            moves++;
+            int changes = moveChangesSize >> 1;
+            ensurePending(1 + 8 + 4 + 4 + 1 + 8 + 4 + 5 * changes);
+            int start = startRecord(MOVE);
+            pending.putInt(minesLeft).putInt(checkedCells).put(status).putLong(elapsedMillis).putInt(changes);
+            for (int i = 0; i < moveChangesSize; i += 2) {
+                pending.putInt(moveChanges[i]).put((byte) moveChanges[i + 1]);
+                setCell(moveChanges[i], (byte) moveChanges[i + 1]);
+            }
+            endRecord(start);
+            this.minesLeft = minesLeft;
+            this.checkedCells = checkedCells;
+            this.status = status;
+            this.elapsedMillis = elapsedMillis;
+            changed = true;
+        }
+        moveChangesSize = 0;
+    }
+
+    /**
+     * Writes the journal and a checkpoint, then waits until they are on the disk.
+     */
+    void checkpointNow() {
+        try {
+            writer.submit(() -> flush(true)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Writes a last checkpoint, then stops the writer and closes the files.
+     *
+     * @throws UncheckedIOException if the writer failed to write the journal or a checkpoint
+     */
+    @Override
+    public void close() {
+        checkpointNow();
+        writer.shutdown();
+        try {
+            writer.awaitTermination(1, TimeUnit.MINUTES);
+            checkpoint.close();
+            journal.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (failure != null)
+            throw new UncheckedIOException(failure);
+    }
+
+    /**
+     * Records the change of a cell in the current move.
+     *
+     * @param index the index of the cell
+     * @param image the new image of the cell
+     */
+    private void recordChange(int index, byte image) {
+        if (moveChangesSize == moveChanges.length)
+            moveChanges = Arrays.copyOf(moveChanges, moveChanges.length * 2);
+        moveChanges[moveChangesSize++] = index;
+        moveChanges[moveChangesSize++] = image;
+    }
+
+    /**
+     * Changes a cell of the copy of the board, and marks its page as dirty. The lock must be held.
+     *
+     * @param index the index of the cell
+     * @param image the new image of the cell
+     */
+    private void setCell(int index, byte image) {
+        if (cells[index] == image)
+            return;
+        cells[index] = image;
+        int page = index / PAGE_SIZE;
+        dirtyPages[page >>> 6] |= 1L << page;
+        changed = true;
+    }
+
+    /**
+     * Changes the mines of the copy of the board. The lock must be held.
+     *
+     * @param minePositions the positions of the mines
+     */
+    private void setMines(int[] minePositions) {
+        System.arraycopy(minePositions, 0, mines, 0, minePositions.length);
+        mineCount = minePositions.length;
+        changed = true;
+    }
+
+    /**
+     * Appends a record holding the mines to the journal. The lock must be held.
+     *
+     * @param type          {@link #RESET} or {@link #MINES}
+     * @param minePositions the positions of the mines
+     * @param minesLeft     the number of mines left to mark
+     * @param checkedCells  the number of checked cells
+     * @param status        the status of the game
+     * @param elapsedMillis the time played in milliseconds, or -1 if the clock of the game has not started
+     */
+    private void appendMinesRecord(byte type, int[] minePositions, int minesLeft, int checkedCells, byte status,
+                                   long elapsedMillis) {
+        ensurePending(1 + 8 + 4 + 4 + 1 + 8 + 4 + 4 * minePositions.length);
+        int start = startRecord(type);
+        pending.putInt(minesLeft).putInt(checkedCells).put(status).putLong(elapsedMillis)
+                .putInt(minePositions.length);
+        for (int position : minePositions)
+            pending.putInt(position);
+        endRecord(start);
+    }
+
+    /**
+     * Makes room in the pending records for a record. The lock must be held.
+     *
+     * @param payload the size of the payload of the record
+     */
+    private void ensurePending(int payload) {
+        int needed = 4 + payload + 4;
+        if (pending.remaining() >= needed)
+            return;
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + needed));
+        pending.flip();
+        larger.put(pending);
+        pending = larger;
+    }
+
+    /**
+     * Starts a record: its length, filled in by {@link #endRecord(int)}, its type and its number.
+     *
+     * @param type the type of the record
+     * @return the position of the record
+     */
+    private int startRecord(byte type) {
+        int start = pending.position();
+        pending.putInt(0).put(type).putLong(moves);
+        return start;
+    }
+
+    /**
+     * Ends a record with its length and its checksum.
+     *
+     * @param start the position of the record
+     */
+    private void endRecord(int start) {
+        int length = pending.position() - start - 4;
+        pending.putInt(start, length);
+        recordChecksum.reset();
+        recordChecksum.update(pending.array(), start + 4, length);
+        pending.putInt((int) recordChecksum.getValue());
+    }
+
+    /**
+     * Writes the pending records to the journal and forces them to the disk, or writes a checkpoint when it is due.
+     * This method is only called by the writer.
+     *
+     * @param force true to write a checkpoint even if it is not due
+     */
+    private void flush(boolean force) {
+        if (failure != null) {
+            // the records of the moves are dropped, since they can no longer be written
+            synchronized (lock) {
+                pending.clear();
+            }
+            return;
+        }
+        boolean checkpointDue;
+        long checkpointMoves;
+        synchronized (lock) {
+            ByteBuffer records = pending;
+            pending = writing;
+            writing = records;
+            pending.clear();
+
+            checkpointDue = changed && (force || System.nanoTime() - lastCheckpointNanos >= checkpointNanos);
+            checkpointMoves = moves;
+            if (checkpointDue) {
+                // only the dirty pages are copied while the game waits
+                for (int page = 0; page < pageCount; page++) {
+                    if ((dirtyPages[page >>> 6] & 1L << page) != 0) {
+                        int from = page * PAGE_SIZE;
+                        System.arraycopy(cells, from, snapshot, from, Math.min(PAGE_SIZE, cells.length - from));
+                    }
+                }
+                System.arraycopy(dirtyPages, 0, snapshotPages, 0, dirtyPages.length);
+                Arrays.fill(dirtyPages, 0);
+                fillSlotHeader(checkpointMoves);
+                changed = false;
+            }
+        }
+
+        try {
+            if (checkpointDue) {
+                writeCheckpoint();
+                // the records taken with the snapshot are part of the checkpoint
+                journal.truncate(0);
+                journal.position(0);
+                lastCheckpointNanos = System.nanoTime();
+            } else if (writing.position() > 0) {
+                writing.flip();
+                while (writing.hasRemaining())
+                    journal.write(writing);
+                journal.force(false);
+                journalSyncs++;
+            }
+            writing.clear();
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Fills the header and the mines of the slot of the next checkpoint. The lock must be held.
+     *
+     * @param checkpointMoves the number of moves of the checkpoint
+     */
+    private void fillSlotHeader(long checkpointMoves) {
+        slotHeader.clear();
+        slotHeader.putLong(generation + 1).putLong(checkpointMoves).putInt(config.getRows())
+                .putInt(config.getColumns()).putInt(config.getMines()).putInt(minesLeft).putInt(checkedCells)
+                .putInt(status).putInt(mineCount).putLong(elapsedMillis);
+        slotHeader.position(HEADER_SIZE + 4 * pageCount);
+        for (int i = 0; i < mineCount; i++)
+            slotHeader.putInt(mines[i]);
+    }
+
+    /**
+     * Writes a checkpoint in the slot of the oldest one: the pages changed since that checkpoint, then the header.
+     *
+     * @throws IOException if the checkpoint cannot be written
+     */
+    private void writeCheckpoint() throws IOException {
+        generation++;
+        long base = (generation & 1) * slotSize;
+        ByteBuffer page = ByteBuffer.wrap(snapshot);
+        int written = 0;
+        for (int i = 0; i < pageCount; i++) {
+            long bit = 1L << i;
+            boolean dirty = (snapshotPages[i >>> 6] & bit) != 0;
+            if (!dirty && (previousPages[i >>> 6] & bit) == 0)
+                continue;
+            int from = i * PAGE_SIZE;
+            int length = Math.min(PAGE_SIZE, snapshot.length - from);
+            if (dirty) {
+                checksum.reset();
+                checksum.update(snapshot, from, length);
+                pageChecksums[i] = (int) checksum.getValue();
+            }
+            page.limit(from + length).position(from);
+            long position = base + cellsOffset + from;
+            while (page.hasRemaining())
+                position += checkpoint.write(page, position);
+            written++;
+        }
+        long[] swap = previousPages;
+        previousPages = snapshotPages;
+        snapshotPages = swap;
+        // the pages must be on the disk before the header which validates them
+        checkpoint.force(false);
+
+        for (int i = 0; i < pageCount; i++)
+            slotHeader.putInt(HEADER_SIZE + 4 * i, pageChecksums[i]);
+        checksum.reset();
+        checksum.update(slotHeader.array(), 0, HEADER_CHECKSUM_OFFSET);
+        checksum.update(slotHeader.array(), HEADER_SIZE, cellsOffset - HEADER_SIZE);
+        slotHeader.putInt(HEADER_CHECKSUM_OFFSET, (int) checksum.getValue());
+        slotHeader.clear();
+        long position = base;
+        while (slotHeader.hasRemaining())
+            position += checkpoint.write(slotHeader, position);
+        checkpoint.force(false);
+
+        checkpoints++;
+        pagesWritten += written;
+    }
+
+    /**
+     * Discards the checkpoint and the journal of a previous game. This method is only called by the writer.
+     */
+    private void discardFiles() {
+        try {
+            checkpoint.truncate(0);
+            journal.truncate(0);
+            checkpoint.force(true);
+            journal.force(true);
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Rounds a size up to a whole number of pages.
+     *
+     * @param size the size in bytes
+     * @return the smallest multiple of the page size not smaller than the size
+     */
+    private static int roundToPage(int size) {
+        return (size + PAGE_SIZE - 1) / PAGE_SIZE * PAGE_SIZE;
+    }
+
+    /**
+     * Recovers the game saved in a directory: the last valid checkpoint, followed by the moves of the journal.
+     *
+     * @param directory the directory of the checkpoint and the journal
+     * @param config    the configuration of the board
+     * @return the state of the game, or {@code null} if nothing was saved for this configuration
+     */
+    public static State recover(Path directory, BoardConfig config) {
+        State state = null;
+        try (FileChannel file = FileChannel.open(directory.resolve(CHECKPOINT_FILE), StandardOpenOption.READ)) {
+            int pages = (config.getCells() + PAGE_SIZE - 1) / PAGE_SIZE;
+            int offset = roundToPage(HEADER_SIZE + 4 * (pages + config.getMines()));
+            long size = offset + (long) pages * PAGE_SIZE;
+            for (int slot = 0; slot < 2; slot++) {
+                State candidate = readSlot(file, slot * size, config, pages, offset);
+                if (candidate != null && (state == null || candidate.generation > state.generation))
+                    state = candidate;
+            }
+        } catch (NoSuchFileException e) {
+            // no checkpoint, the journal may hold the whole game
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        try {
+            byte[] records = Files.readAllBytes(directory.resolve(JOURNAL_FILE));
+            state = replay(ByteBuffer.wrap(records), state, config);
+        } catch (NoSuchFileException e) {
+            // nothing journaled since the checkpoint
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return state;
+    }
+
+    /**
+     * Reads a slot of the checkpoint file.
+     *
+     * @param file        the checkpoint file
+     * @param base        the position of the slot
+     * @param config      the configuration of the board
+     * @param pages       the number of pages of the board
+     * @param cellsOffset the position of the cells in the slot
+     * @return the state of the slot, or {@code null} if it is not valid
+     * @throws IOException if the file cannot be read
+     */
+    private static State readSlot(FileChannel file, long base, BoardConfig config, int pages, int cellsOffset)
+            throws IOException {
+        if (file.size() < base + cellsOffset + config.getCells())
+            return null;
+        ByteBuffer header = ByteBuffer.allocate(cellsOffset);
+        while (header.hasRemaining() && file.read(header, base + header.position()) > 0) {
+            // reads the header and the tables
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(header.array(), 0, HEADER_CHECKSUM_OFFSET);
+        checksum.update(header.array(), HEADER_SIZE, cellsOffset - HEADER_SIZE);
+        header.flip();
+        if (header.getInt(HEADER_CHECKSUM_OFFSET) != (int) checksum.getValue())
+            return null;
+
+        State state = new State();
+        state.generation = header.getLong();
+        state.moves = header.getLong();
+        if (header.getInt() != config.getRows() || header.getInt() != config.getColumns()
+                || header.getInt() != config.getMines())
+            return null;
+        state.minesLeft = header.getInt();
+        state.checkedCells = header.getInt();
+        state.status = (byte) header.getInt();
+        int mineCount = header.getInt();
+        if (mineCount < 0 || mineCount > config.getMines())
+            return null;
+        state.elapsedMillis = header.getLong();
+        state.minePositions = new int[mineCount];
+        for (int i = 0; i < mineCount; i++)
+            state.minePositions[i] = header.getInt(HEADER_SIZE + 4 * (pages + i));
+
+        state.images = new byte[config.getCells()];
+        ByteBuffer images = ByteBuffer.wrap(state.images);
+        while (images.hasRemaining() && file.read(images, base + cellsOffset + images.position()) > 0) {
+            // reads the cells
+        }
+        for (int page = 0; page < pages; page++) {
+            int from = page * PAGE_SIZE;
+            checksum.reset();
+            checksum.update(state.images, from, Math.min(PAGE_SIZE, state.images.length - from));
+            // a page torn by a crash invalidates the slot
+            if (header.getInt(HEADER_SIZE + 4 * page) != (int) checksum.getValue())
+                return null;
+        }
+        return state;
+    }
+
+    /**
+     * Replays the records of the journal following a checkpoint. The replay stops at the first damaged record.
+     *
+     * @param records the records of the journal
+     * @param state   the state of the checkpoint, or {@code null} if there is none
+     * @param config  the configuration of the board
+     * @return the state after the records, or {@code null} if there is neither checkpoint nor record
+     */
+    private static State replay(ByteBuffer records, State state, BoardConfig config) {
+        CRC32 checksum = new CRC32();
+        while (records.remaining() >= 8) {
+            int start = records.position();
+            int length = records.getInt();
+            if (length < 9 || length > records.remaining() - 4)
+                break;
+            checksum.reset();
+            checksum.update(records.array(), start + 4, length);
+            if (records.getInt(start + 4 + length) != (int) checksum.getValue())
+                break;
+
+            byte type = records.get();
+            long move = records.getLong();
+            if (state != null && move <= state.moves) {
+                records.position(start + 4 + length + 4);
+                continue;
+            }
+            if (state == null && type != RESET)
+                break;
+            if (state == null) {
+                state = new State();
+                state.images = new byte[config.getCells()];
+            }
+            int minesLeft = records.getInt();
+            int checkedCells = records.getInt();
+            byte status = records.get();
+            long elapsedMillis = records.getLong();
+            int count = records.getInt();
+            if (type == MOVE) {
+                for (int i = 0; i < count; i++)
+                    state.images[records.getInt()] = records.get();
+            } else {
+                if (type == RESET)
+                    Arrays.fill(state.images, (byte) Zobrist.COVERED);
+                state.minePositions = new int[count];
+                for (int i = 0; i < count; i++)
+                    state.minePositions[i] = records.getInt();
+            }
+            state.minesLeft = minesLeft;
+            state.checkedCells = checkedCells;
+            state.status = status;
+            state.elapsedMillis = elapsedMillis;
+            state.moves = move;
+            records.position(start + 4 + length + 4);
+        }
+        return state;
+    }
+
+    /**
+     * The State class is a game recovered from a checkpoint and a journal.
+     */
+    @Getter
+    public static final class State {
+
+        /**
+         * The image of every cell, as in {@link Zobrist}.
+         */
+        private byte[] images;
+
+        /**
+         * The positions of the mines placed, possibly none.
+         */
+        private int[] minePositions = new int[0];
+
+        /**
+         * The number of mines left to mark.
+         */
+        private int minesLeft;
+
+        /**
+         * The number of checked cells.
+         */
+        private int checkedCells;
+
+        /**
+         * The status of the game, as in {@link SpectatorStream}.
+         */
+        private byte status;
+
+        /**
+         * The time played in milliseconds at the last move recovered, or -1 if the clock of the game had not started.
+         */
+        private long elapsedMillis = -1;
+
+        /**
+         * The number of the last move recovered.
+         */
+        private long moves;
+
+        /**
+         * The generation of the checkpoint the state was read from.
+         */
+        private long generation;
+    }
+}
@@ -0,0 +1,52 @@
+package mines;
+
+import lombok.Getter;
+
+/**
+ * The Hint class holds the covered cell advised to the player, with the reason it was chosen.
+ * The cell is either provably safe from the visible numbers and marks, or the cell with the lowest
+ * estimated risk when no cell is provably safe.
+ */
+@Getter
+public final class Hint {
+
+    /**
+     * The index of the advised cell.
+     */
+    private final int cellIndex;
+
+    /**
+     * A boolean flag indicating whether the cell is provably safe, assuming that the marks are right.
+     */
+    private final boolean safe;
+
+    /**
+     * The estimated probability that the cell is mined, 0 for a provably safe cell.
+     */
+    private final double mineProbability;
+
+    /**
+     * The explanation of the advice, for the player.
+     */
+    private final String justification;
+
+    /**
+     * Creates a new hint.
+     *
+     * @param cellIndex       the index of the advised cell
+     * @param safe            true if the cell is provably safe
+     * @param mineProbability the estimated probability that the cell is mined
+     * @param justification   the explanation of the advice
+     */
+    public Hint(int cellIndex, boolean safe, double mineProbability, String justification) {
+        this.cellIndex = cellIndex;
+        this.safe = safe;
+        this.mineProbability = mineProbability;
+        this.justification = justification;
+    }
+
+    @Override
+    public String toString() {
+        return justification;
+    }
+}
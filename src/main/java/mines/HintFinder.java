@@ -0,0 +1,245 @@
+package mines;
+
+import java.util.List;
+
+/**
+ * The HintFinder class chooses the cell advised by a hint, looking only at the cells of a {@link FrontierIndex}
+ * and their corners, so that the time taken depends on the frontier instead of the size of the board.
+ * <p>A frontier cell is provably safe if a checked corner already touches as many marked cells as its number,
+ * or if a checked corner has all its mines left among the covered corners of a second checked cell
+ * that the frontier cell does not touch. Otherwise the cell with the lowest estimated risk is advised:
+ * a frontier cell is as risky as its most crowded checked corner, and any other covered cell
+ * is as risky as the density of the mines left. Such a cell is looked for among the corners of the frontier,
+ * the board being scanned only when the covered cells away from the numbers are all enclosed by marks.</p>
+ * <p>The corners are read from the table of the square topology shared with the board,
+ * see {@link Board#CORNERS}.</p>
+ */
+final class HintFinder {
+
+    private HintFinder() {
+    }
+
+    /**
+     * Finds the cell to advise.
+     *
+     * @param cells        the cells of the board
+     * @param frontier     the frontier of the board
+     * @param minesLeft    the number of mines that are not marked
+     * @param coveredCells the number of cells that are neither checked nor marked
+     * @return the hint, or {@code null} if no cell is covered
+     */
+    static Hint find(List<ICell> cells, FrontierIndex frontier, int minesLeft, int coveredCells) {
+        if (coveredCells == 0)
+            return null;
+
+        for (int i = 0; i < frontier.size(); i++) {
+            Hint hint = findCountRuleHint(cells, frontier.get(i));
+            if (hint != null)
+                return hint;
+        }
+        for (int i = 0; i < frontier.size(); i++) {
+            Hint hint = findSubsetRuleHint(cells, frontier.get(i));
+            if (hint != null)
+                return hint;
+        }
+        return findLowestRiskHint(cells, frontier, minesLeft, coveredCells);
+    }
+
+    /**
+     * Checks whether a checked corner of a frontier cell already touches all its mines.
+     *
+     * @param cells     the cells of the board
+     * @param cellIndex the index of the frontier cell
+     * @return the hint if the cell is safe, {@code null} otherwise
+     */
+    private static Hint findCountRuleHint(List<ICell> cells, int cellIndex) {
+        for (int p = Board.CORNER_OFFSETS[cellIndex]; p < Board.CORNER_OFFSETS[cellIndex + 1]; p++) {
+            int corner = Board.CORNERS[p];
+            ICell number = cells.get(corner);
+            if (number.getCellState() == CellState.CHECKED && getRemainingMines(cells, corner) == 0)
+                return new Hint(cellIndex, true, 0, String.format(
+                        "Safe: the cell at %s shows %d and already touches %d marked cells, "
+                                + "so its other covered corners have no mine.",
+                        position(number), number.getCellContent(), number.getCellContent()));
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether the mines left around a checked corner of a frontier cell
+     * are all among the covered corners of a second checked cell that the frontier cell does not touch.
+     *
+     * @param cells     the cells of the board
+     * @param cellIndex the index of the frontier cell
+     * @return the hint if the cell is safe, {@code null} otherwise
+     */
+    private static Hint findSubsetRuleHint(List<ICell> cells, int cellIndex) {
+        for (int p = Board.CORNER_OFFSETS[cellIndex]; p < Board.CORNER_OFFSETS[cellIndex + 1]; p++) {
+            int first = Board.CORNERS[p];
+            if (cells.get(first).getCellState() != CellState.CHECKED)
+                continue;
+            int remaining = getRemainingMines(cells, first);
+
+            // the second cell shares a covered corner with the first one
+            for (int q = Board.CORNER_OFFSETS[first]; q < Board.CORNER_OFFSETS[first + 1]; q++) {
+                int shared = Board.CORNERS[q];
+                if (cells.get(shared).getCellState() != CellState.UNCHECKED)
+                    continue;
+                for (int r = Board.CORNER_OFFSETS[shared]; r < Board.CORNER_OFFSETS[shared + 1]; r++) {
+                    int second = Board.CORNERS[r];
+                    if (second == first || cells.get(second).getCellState() != CellState.CHECKED
+                            || isCorner(cellIndex, second)
+                            || getRemainingMines(cells, second) != remaining
+                            || !isCoveredCornersSubset(cells, second, first))
+                        continue;
+
+                    return new Hint(cellIndex, true, 0, String.format(
+                            "Safe: the cell at %s needs %d more mines, all among covered cells touching "
+                                    + "the cell at %s, which needs %d too, so its other covered corners have no mine.",
+                            position(cells.get(second)), remaining, position(cells.get(first)), remaining));
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the covered cell with the lowest estimated risk.
+     *
+     * @param cells        the cells of the board
+     * @param frontier     the frontier of the board
+     * @param minesLeft    the number of mines that are not marked
+     * @param coveredCells the number of cells that are neither checked nor marked
+     * @return the hint
+     */
+    private static Hint findLowestRiskHint(List<ICell> cells, FrontierIndex frontier, int minesLeft, int coveredCells) {
+        int bestIndex = -1;
+        double bestRisk = 2;
+        for (int i = 0; i < frontier.size(); i++) {
+            int cellIndex = frontier.get(i);
+            double risk = 0;
+            for (int p = Board.CORNER_OFFSETS[cellIndex]; p < Board.CORNER_OFFSETS[cellIndex + 1]; p++) {
+                int corner = Board.CORNERS[p];
+                if (cells.get(corner).getCellState() == CellState.CHECKED)
+                    risk = Math.max(risk, (double) getRemainingMines(cells, corner) / getCoveredCorners(cells, corner));
+            }
+            // a number with more marks than mines, or with wrong marks around it, does not give a probability
+            risk = Math.min(1, Math.max(0, risk));
+            if (risk < bestRisk) {
+                bestRisk = risk;
+                bestIndex = cellIndex;
+            }
+        }
+
+        double density = Math.min(1, (double) Math.max(minesLeft, 0) / coveredCells);
+        if (coveredCells > frontier.size() && density < bestRisk) {
+            int cellIndex = findInteriorCell(cells, frontier);
+            if (cellIndex >= 0)
+                return new Hint(cellIndex, false, density, String.format(
+                        "Guess: no cell is provably safe, and a cell away from the numbers is mined "
+                                + "with a probability of about %.0f%%.", density * 100));
+        }
+
+        return new Hint(bestIndex, false, bestRisk, String.format(
+                "Guess: no cell is provably safe, and the cell at %s has the lowest risk, about %.0f%%.",
+                position(cells.get(bestIndex)), bestRisk * 100));
+    }
+
+    /**
+     * Finds a covered cell outside the frontier, first among the corners of the frontier cells,
+     * then on the whole board if the covered cells away from the numbers do not touch the frontier.
+     *
+     * @param cells    the cells of the board
+     * @param frontier the frontier of the board
+     * @return the index of the cell, or -1 if every covered cell is in the frontier
+     */
+    private static int findInteriorCell(List<ICell> cells, FrontierIndex frontier) {
+        for (int i = 0; i < frontier.size(); i++) {
+            int cellIndex = frontier.get(i);
+            for (int p = Board.CORNER_OFFSETS[cellIndex]; p < Board.CORNER_OFFSETS[cellIndex + 1]; p++) {
+                int corner = Board.CORNERS[p];
+                if (cells.get(corner).getCellState() == CellState.UNCHECKED && !frontier.contains(corner))
+                    return corner;
+            }
+        }
+        for (int cellIndex = 0; cellIndex < cells.size(); cellIndex++) {
+            if (cells.get(cellIndex).getCellState() == CellState.UNCHECKED && !frontier.contains(cellIndex))
+                return cellIndex;
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the number of mines left around a checked cell, assuming that its marked corners are mined.
+     *
+     * @param cells     the cells of the board
+     * @param cellIndex the index of the checked cell
+     * @return the number shown by the cell minus its marked corners
+     */
+    private static int getRemainingMines(List<ICell> cells, int cellIndex) {
+        int remaining = cells.get(cellIndex).getCellContent();
+        for (int p = Board.CORNER_OFFSETS[cellIndex]; p < Board.CORNER_OFFSETS[cellIndex + 1]; p++) {
+            if (cells.get(Board.CORNERS[p]).getCellState() == CellState.MARKED)
+                remaining--;
+        }
+        return remaining;
+    }
+
+    /**
+     * Gets the number of unchecked and unmarked corners of a cell.
+     *
+     * @param cells     the cells of the board
+     * @param cellIndex the index of the cell
+     * @return the number of covered corners
+     */
+    private static int getCoveredCorners(List<ICell> cells, int cellIndex) {
+        int covered = 0;
+        for (int p = Board.CORNER_OFFSETS[cellIndex]; p < Board.CORNER_OFFSETS[cellIndex + 1]; p++) {
+            if (cells.get(Board.CORNERS[p]).getCellState() == CellState.UNCHECKED)
+                covered++;
+        }
+        return covered;
+    }
+
+    /**
+     * Checks whether all the covered corners of a cell are also corners of another cell.
+     *
+     * @param cells     the cells of the board
+     * @param cellIndex the index of the cell
+     * @param other     the index of the other cell
+     * @return true if the covered corners of the cell are a subset of the corners of the other cell
+     */
+    private static boolean isCoveredCornersSubset(List<ICell> cells, int cellIndex, int other) {
+        for (int p = Board.CORNER_OFFSETS[cellIndex]; p < Board.CORNER_OFFSETS[cellIndex + 1]; p++) {
+            int corner = Board.CORNERS[p];
+            if (cells.get(corner).getCellState() == CellState.UNCHECKED && !isCorner(corner, other))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether two cells are distinct and touch each other.
+     *
+     * @param cellIndex the index of the first cell
+     * @param other     the index of the second cell
+     * @return true if the cells are corners of each other
+     */
+    private static boolean isCorner(int cellIndex, int other) {
+        for (int p = Board.CORNER_OFFSETS[cellIndex]; p < Board.CORNER_OFFSETS[cellIndex + 1]; p++) {
+            if (Board.CORNERS[p] == other)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Describes the position of a cell for the player, counting from 1.
+     *
+     * @param cell the cell
+     * @return the row and column of the cell
+     */
+    private static String position(ICell cell) {
+        return "row " + (cell.getRow() + 1) + ", column " + (cell.getColumn() + 1);
+    }
+}
@@ -47,6 +47,13 @@ public interface ICell {
      */
     Map<Corner, Integer> getCellCorners();
 
+    /**
+     * Gets the indices of the corners of the cell, without boxing.
+     *
+     * @return the indices of the corners of the cell.
+     */
+    int[] getCornerIndices();
+
     /**
      * Mines the cell.
      */
@@ -0,0 +1,143 @@
+package mines;
+
+/**
+ * The LatencyHistogram class counts durations in nanoseconds in buckets of bounded relative error,
+ * so that percentiles can be read without keeping every value.
+ * <p>The durations are grouped by their power of two, and every power of two is split in
+ * {@value #SUB_BUCKETS} linear buckets, so a percentile is within about 3% of the exact value.
+ * Recording a duration does not allocate. A histogram is not thread safe:
+ * each thread records in its own histogram, and the histograms are merged at the end.</p>
+ */
+public class LatencyHistogram {
+
+    /**
+     * The number of linear buckets in every power of two.
+     */
+    private static final int SUB_BUCKETS = 32;
+
+    /**
+     * The number of bits of the index of a linear bucket.
+     */
+    private static final int SUB_BUCKET_BITS = 5;
+
+    /**
+     * The number of durations in every bucket.
+     */
+    private final long[] counts = new long[(64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS];
+
+    /**
+     * The number of recorded durations.
+     */
+    private long count;
+
+    /**
+     * The longest recorded duration.
+     */
+    private long max;
+
+    /**
+     * The sum of the recorded durations.
+     */
+    private long total;
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos the duration in nanoseconds, negative durations being counted as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts[bucket(value)]++;
+        count++;
+        total += value;
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds the durations recorded by another histogram to this one.
+     *
+     * @param other the other histogram
+     */
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++)
+            counts[i] += other.counts[i];
+        count += other.count;
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Gets the number of recorded durations.
+     *
+     * @return the number of durations
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the longest recorded duration.
+     *
+     * @return the longest duration in nanoseconds
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Gets the sum of the recorded durations.
+     *
+     * @return the total duration in nanoseconds
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Gets a percentile of the recorded durations.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the highest value of the bucket holding the percentile, in nanoseconds, or 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        if (count == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank)
+                return Math.min(highestValue(i), max);
+        }
+        return max;
+    }
+
+    /**
+     * Gets the bucket of a duration.
+     *
+     * @param value the duration, not negative
+     * @return the index of the bucket
+     */
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+        // the value shifted by its magnitude is between SUB_BUCKETS and 2 * SUB_BUCKETS - 1
+        int magnitude = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return magnitude * SUB_BUCKETS + (int) (value >>> magnitude);
+    }
+
+    /**
+     * Gets the highest duration counted in a bucket.
+     *
+     * @param bucket the index of the bucket
+     * @return the highest duration of the bucket
+     */
+    private static long highestValue(int bucket) {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+        int magnitude = bucket / SUB_BUCKETS - 1;
+        long shifted = bucket - (long) magnitude * SUB_BUCKETS;
+        return ((shifted + 1) << magnitude) - 1;
+    }
+}
@@ -0,0 +1,571 @@
+package mines;
+
+import lombok.Getter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * The Leaderboard class keeps the best time of every player for every board configuration and every {@link Mode}
+ * of the game, which are ranked separately.
+ * <p>Every result is appended to a log file as a record protected by a CRC-32, and the best times are indexed
+ * in memory by a Fenwick tree per configuration, counting the players by time bucket, so that the rank of a time
+ * is a prefix sum found in O(log n) whatever the number of players. Times of the same bucket share their rank.</p>
+ * <p>When the leaderboard is opened, the index is loaded from the last snapshot, a compact file holding only
+ * the best times, then the records appended to the log after the snapshot are replayed. A record cut short
+ * by a crash, or whose checksum does not match, ends the log and is truncated. A snapshot is written every
+ * {@code snapshotInterval} results and when the leaderboard is closed; the log itself is never rewritten.</p>
+ * The methods are synchronized, so a leaderboard can be shared by the games of several threads.
+ */
+public class Leaderboard implements Closeable {
+
+    /**
+     * The way the boards of a game are generated, which makes their times comparable or not.
+     */
+    public enum Mode {
+        /**
+         * The mines are placed randomly on the first click.
+         */
+        RANDOM,
+
+        /**
+         * The boards can be won without guessing.
+         */
+        NO_GUESS,
+
+        /**
+         * The board is the daily challenge, the same for every player of the day.
+         */
+        DAILY
+    }
+
+    /**
+     * The name of the log file.
+     */
+    static final String LOG_FILE = "leaderboard.log";
+
+    /**
+     * The name of the snapshot file.
+     */
+    static final String SNAPSHOT_FILE = "leaderboard.snapshot";
+
+    /**
+     * The version of the format of the snapshot file.
+     */
+    private static final byte FORMAT_VERSION = 2;
+
+    /**
+     * The number of results appended to the log between two snapshots by default.
+     */
+    static final int DEFAULT_SNAPSHOT_INTERVAL = 1024;
+
+    /**
+     * The duration in milliseconds of a time bucket of the ranking.
+     */
+    static final long BUCKET_MILLIS = 10;
+
+    /**
+     * The number of time buckets of the ranking. The times longer than all the buckets share the last one.
+     */
+    static final int BUCKETS = 1 << 16;
+
+    /**
+     * The largest length in bytes of the name of a player, in UTF-8.
+     */
+    static final int MAX_NAME_BYTES = 255;
+
+    /**
+     * The length of a record without the name of the player and the mode: the length of the payload,
+     * the rows, columns and mines, the time, the length of the name and the checksum.
+     * The mode follows the name; the records written before the modes have none, and are random games.
+     */
+    private static final int RECORD_OVERHEAD = 4 + 3 * 4 + 8 + 2 + 4;
+
+    /**
+     * The directory holding the log and the snapshot.
+     */
+    @Getter
+    private final Path directory;
+
+    /**
+     * The number of results appended to the log between two snapshots.
+     */
+    private final int snapshotInterval;
+
+    /**
+     * The log file, positioned at its end.
+     */
+    private final FileChannel log;
+
+    /**
+     * The ranking of every board configuration, for every mode.
+     */
+    private final Map<Mode, Map<BoardConfig, Ranking>> rankings = new EnumMap<>(Mode.class);
+
+    /**
+     * The buffer used to encode a record.
+     */
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_OVERHEAD + MAX_NAME_BYTES + 1);
+
+    /**
+     * The checksum of the records.
+     */
+    private final CRC32 checksum = new CRC32();
+
+    /**
+     * The number of results appended to the log since the last snapshot.
+     */
+    private int unsnapshotted;
+
+    /**
+     * The number of records replayed from the log when the leaderboard was opened.
+     */
+    @Getter
+    private long replayedRecords;
+
+    /**
+     * Opens a leaderboard, writing a snapshot every {@link #DEFAULT_SNAPSHOT_INTERVAL} results.
+     *
+     * @param directory the directory holding the log and the snapshot, created if needed
+     */
+    public Leaderboard(Path directory) {
+        this(directory, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    /**
+     * Opens a leaderboard.
+     *
+     * @param directory        the directory holding the log and the snapshot, created if needed
+     * @param snapshotInterval the number of results appended to the log between two snapshots
+     */
+    public Leaderboard(Path directory, int snapshotInterval) {
+        if (snapshotInterval <= 0)
+            throw new IllegalArgumentException("The snapshot interval must be positive");
+
+        this.directory = directory;
+        this.snapshotInterval = snapshotInterval;
+        try {
+            Files.createDirectories(directory);
+            log = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            long offset = loadSnapshot();
+            if (offset > log.size()) {
+                // the snapshot does not belong to this log, which is replayed from its start
+                rankings.clear();
+                offset = 0;
+            }
+            replay(offset);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Appends the result of a won random game to the log, and updates the best time of the player.
+     *
+     * @param player the name of the player
+     * @param config the configuration of the board
+     * @param millis the time of the game in milliseconds
+     * @return the rank of the best time of the player, from 1
+     */
+    public int record(String player, BoardConfig config, long millis) {
+        return record(player, Mode.RANDOM, config, millis);
+    }
+
+    /**
+     * Appends the result of a won game to the log, and updates the best time of the player.
+     *
+     * @param player the name of the player
+     * @param mode   the mode of the game
+     * @param config the configuration of the board
+     * @param millis the time of the game in milliseconds
+     * @return the rank of the best time of the player among the games of the same mode and configuration, from 1
+     */
+    public synchronized int record(String player, Mode mode, BoardConfig config, long millis) {
+        if (millis < 0)
+            throw new IllegalArgumentException("The time cannot be negative");
+        byte[] name = player.getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_NAME_BYTES)
+            throw new IllegalArgumentException("The name of the player is longer than " + MAX_NAME_BYTES + " bytes");
+
+        record.clear();
+        record.putInt(RECORD_OVERHEAD - 8 + name.length + 1);
+        record.putInt(config.getRows()).putInt(config.getColumns()).putInt(config.getMines());
+        record.putLong(millis).putShort((short) name.length).put(name).put((byte) mode.ordinal());
+        checksum.reset();
+        checksum.update(record.array(), 4, record.position() - 4);
+        record.putInt((int) checksum.getValue());
+        record.flip();
+        try {
+            while (record.hasRemaining())
+                log.write(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        Ranking ranking = rankingOf(mode, config);
+        ranking.offer(player, millis);
+        if (++unsnapshotted >= snapshotInterval)
+            snapshot();
+        return ranking.getRank(player);
+    }
+
+    /**
+     * Gets the best time of a player in the random games.
+     *
+     * @param player the name of the player
+     * @param config the configuration of the board
+     * @return the best time in milliseconds, or -1 if the player has not won a random game of this configuration
+     */
+    public long getBestTime(String player, BoardConfig config) {
+        return getBestTime(player, Mode.RANDOM, config);
+    }
+
+    /**
+     * Gets the best time of a player.
+     *
+     * @param player the name of the player
+     * @param mode   the mode of the games
+     * @param config the configuration of the board
+     * @return the best time in milliseconds, or -1 if the player has not won a game of this mode and configuration
+     */
+    public synchronized long getBestTime(String player, Mode mode, BoardConfig config) {
+        Ranking ranking = findRanking(mode, config);
+        Long best = ranking == null ? null : ranking.bestTimes.get(player);
+        return best == null ? -1 : best;
+    }
+
+    /**
+     * Gets the rank of the best time of a player in the random games.
+     *
+     * @param player the name of the player
+     * @param config the configuration of the board
+     * @return the rank from 1, or 0 if the player has not won a random game of this configuration
+     */
+    public int getRank(String player, BoardConfig config) {
+        return getRank(player, Mode.RANDOM, config);
+    }
+
+    /**
+     * Gets the rank of the best time of a player.
+     *
+     * @param player the name of the player
+     * @param mode   the mode of the games
+     * @param config the configuration of the board
+     * @return the rank from 1, or 0 if the player has not won a game of this mode and configuration
+     */
+    public synchronized int getRank(String player, Mode mode, BoardConfig config) {
+        Ranking ranking = findRanking(mode, config);
+        return ranking == null ? 0 : ranking.getRank(player);
+    }
+
+    /**
+     * Gets the rank a time would have among the best times of the players in the random games.
+     *
+     * @param config the configuration of the board
+     * @param millis the time in milliseconds
+     * @return the rank from 1
+     */
+    public synchronized int getRankOf(BoardConfig config, long millis) {
+        Ranking ranking = findRanking(Mode.RANDOM, config);
+        return ranking == null ? 1 : ranking.countFaster(bucketOf(millis)) + 1;
+    }
+
+    /**
+     * Gets the number of players who have won a random game of a configuration.
+     *
+     * @param config the configuration of the board
+     * @return the number of ranked players
+     */
+    public int getPlayerCount(BoardConfig config) {
+        return getPlayerCount(Mode.RANDOM, config);
+    }
+
+    /**
+     * Gets the number of players who have won a game of a mode and a configuration.
+     *
+     * @param mode   the mode of the games
+     * @param config the configuration of the board
+     * @return the number of ranked players
+     */
+    public synchronized int getPlayerCount(Mode mode, BoardConfig config) {
+        Ranking ranking = findRanking(mode, config);
+        return ranking == null ? 0 : ranking.bestTimes.size();
+    }
+
+    /**
+     * Writes the best times to the snapshot, replacing the previous one atomically, so that the next opening only
+     * replays the results appended after it. The log is forced to the disk first, so that the snapshot never
+     * covers results lost by a crash.
+     */
+    public synchronized void snapshot() {
+        Path path = directory.resolve(SNAPSHOT_FILE);
+        Path temporary = path.resolveSibling(SNAPSHOT_FILE + ".tmp");
+        try {
+            log.force(false);
+            CheckedOutputStream checked = new CheckedOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporary)), new CRC32());
+            try (DataOutputStream out = new DataOutputStream(checked)) {
+                out.writeByte(FORMAT_VERSION);
+                out.writeLong(log.position());
+                out.writeInt(rankings.size());
+                for (Map.Entry<Mode, Map<BoardConfig, Ranking>> modeRankings : rankings.entrySet()) {
+                    out.writeByte(modeRankings.getKey().ordinal());
+                    out.writeInt(modeRankings.getValue().size());
+                    for (Map.Entry<BoardConfig, Ranking> entry : modeRankings.getValue().entrySet()) {
+                        BoardConfig config = entry.getKey();
+                        out.writeInt(config.getRows());
+                        out.writeInt(config.getColumns());
+                        out.writeInt(config.getMines());
+                        out.writeInt(entry.getValue().bestTimes.size());
+                        for (Map.Entry<String, Long> best : entry.getValue().bestTimes.entrySet()) {
+                            out.writeUTF(best.getKey());
+                            out.writeLong(best.getValue());
+                        }
+                    }
+                }
+                out.writeLong(checked.getChecksum().getValue());
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        unsnapshotted = 0;
+    }
+
+    /**
+     * Writes a snapshot, then closes the log.
+     */
+    @Override
+    public synchronized void close() {
+        snapshot();
+        try {
+            log.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Loads the best times from the snapshot. A missing or damaged snapshot, or a snapshot of a previous format,
+     * is ignored.
+     *
+     * @return the length of the log covered by the snapshot, or 0 if there is no valid snapshot
+     * @throws IOException if the snapshot cannot be read
+     */
+    private long loadSnapshot() throws IOException {
+        InputStream file;
+        try {
+            file = Files.newInputStream(directory.resolve(SNAPSHOT_FILE));
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+
+        CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(file), new CRC32());
+        try (DataInputStream in = new DataInputStream(checked)) {
+            if (in.readByte() != FORMAT_VERSION)
+                return 0;
+            long offset = in.readLong();
+            int modeCount = in.readInt();
+            for (int i = 0; i < modeCount; i++) {
+                Mode mode = modeOf(in.readByte());
+                int configCount = in.readInt();
+                for (int j = 0; j < configCount; j++) {
+                    Ranking ranking = rankingOf(mode, new BoardConfig(in.readInt(), in.readInt(), in.readInt()));
+                    int playerCount = in.readInt();
+                    for (int k = 0; k < playerCount; k++)
+                        ranking.offer(in.readUTF(), in.readLong());
+                }
+            }
+            long expected = checked.getChecksum().getValue();
+            if (in.readLong() == expected)
+                return offset;
+        } catch (EOFException | IllegalArgumentException e) {
+            // a damaged snapshot is ignored, and the whole log is replayed
+        }
+        rankings.clear();
+        return 0;
+    }
+
+    /**
+     * Replays the records of the log from an offset, and truncates the log after the last valid record.
+     *
+     * @param offset the position of the first record to replay
+     * @throws IOException if the log cannot be read
+     */
+    private void replay(long offset) throws IOException {
+        log.position(offset);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(log), 1 << 16));
+        long end = offset;
+        byte[] payload = new byte[RECORD_OVERHEAD - 8 + MAX_NAME_BYTES + 1];
+        try {
+            while (true) {
+                int length = in.readInt();
+                if (length < RECORD_OVERHEAD - 8 || length > payload.length)
+                    break;
+                in.readFully(payload, 0, length);
+                checksum.reset();
+                checksum.update(payload, 0, length);
+                if (in.readInt() != (int) checksum.getValue())
+                    break;
+
+                ByteBuffer buffer = ByteBuffer.wrap(payload, 0, length);
+                BoardConfig config = new BoardConfig(buffer.getInt(), buffer.getInt(), buffer.getInt());
+                long millis = buffer.getLong();
+                int nameLength = buffer.getShort();
+                int modeLength = length - (RECORD_OVERHEAD - 8) - nameLength;
+                if (modeLength != 0 && modeLength != 1)
+                    break;
+                Mode mode = modeLength == 0 ? Mode.RANDOM : modeOf(payload[buffer.position() + nameLength]);
+                rankingOf(mode, config).offer(
+                        new String(payload, buffer.position(), nameLength, StandardCharsets.UTF_8), millis);
+                end += 4 + length + 4;
+                replayedRecords++;
+            }
+        } catch (EOFException | IllegalArgumentException e) {
+            // the last record was cut short by a crash
+        }
+
+        // the stream is not closed, as that would close the log
+        if (end < log.size())
+            log.truncate(end);
+        log.position(end);
+        unsnapshotted = (int) Math.min(replayedRecords, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Gets the ranking of a mode and a configuration, creating it if needed.
+     *
+     * @param mode   the mode of the games
+     * @param config the configuration of the board
+     * @return the ranking
+     */
+    private Ranking rankingOf(Mode mode, BoardConfig config) {
+        return rankings.computeIfAbsent(mode, key -> new HashMap<>()).computeIfAbsent(config, key -> new Ranking());
+    }
+
+    /**
+     * Gets the ranking of a mode and a configuration.
+     *
+     * @param mode   the mode of the games
+     * @param config the configuration of the board
+     * @return the ranking, or {@code null} if no game of this mode and configuration has been won
+     */
+    private Ranking findRanking(Mode mode, BoardConfig config) {
+        Map<BoardConfig, Ranking> modeRankings = rankings.get(mode);
+        return modeRankings == null ? null : modeRankings.get(config);
+    }
+
+    /**
+     * Gets the mode stored in a file.
+     *
+     * @param ordinal the ordinal of the mode
+     * @return the mode
+     * @throws IllegalArgumentException if there is no such mode
+     */
+    private static Mode modeOf(int ordinal) {
+        if (ordinal < 0 || ordinal >= Mode.values().length)
+            throw new IllegalArgumentException("Invalid mode " + ordinal);
+        return Mode.values()[ordinal];
+    }
+
+    /**
+     * Gets the bucket of a time.
+     *
+     * @param millis the time in milliseconds
+     * @return the index of the bucket, from 0
+     */
+    static int bucketOf(long millis) {
+        return (int) Math.min(millis / BUCKET_MILLIS, BUCKETS - 1);
+    }
+
+    /**
+     * The Ranking class holds the best times of the players of a configuration, and counts them by time bucket
+     * in a Fenwick tree.
+     */
+    private static final class Ranking {
+
+        /**
+         * The best time of every player, in milliseconds.
+         */
+        private final Map<String, Long> bestTimes = new HashMap<>();
+
+        /**
+         * The Fenwick tree counting the best times of every bucket, from index 1.
+         */
+        private final int[] tree = new int[BUCKETS + 1];
+
+        /**
+         * Keeps a time if it is the first or the best one of the player.
+         *
+         * @param player the name of the player
+         * @param millis the time in milliseconds
+         */
+        private void offer(String player, long millis) {
+            Long best = bestTimes.get(player);
+            if (best != null && best <= millis)
+                return;
+            if (best != null)
+                add(bucketOf(best), -1);
+            bestTimes.put(player, millis);
+            add(bucketOf(millis), 1);
+        }
+
+        /**
+         * Gets the rank of the best time of a player.
+         *
+         * @param player the name of the player
+         * @return the rank from 1, or 0 if the player has no time
+         */
+        private int getRank(String player) {
+            Long best = bestTimes.get(player);
+            return best == null ? 0 : countFaster(bucketOf(best)) + 1;
+        }
+
+        /**
+         * Adds to the count of a bucket.
+         *
+         * @param bucket the index of the bucket
+         * @param delta  the number of times added, or removed if negative
+         */
+        private void add(int bucket, int delta) {
+            for (int i = bucket + 1; i <= BUCKETS; i += i & -i)
+                tree[i] += delta;
+        }
+
+        /**
+         * Counts the times of the buckets before a bucket.
+         *
+         * @param bucket the index of the bucket
+         * @return the number of times strictly faster than the bucket
+         */
+        private int countFaster(int bucket) {
+            int count = 0;
+            for (int i = bucket; i > 0; i -= i & -i)
+                count += tree[i];
+            return count;
+        }
+    }
+}
@@ -0,0 +1,711 @@
+package mines;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The MineField class is a headless game engine working on packed arrays instead of cells.
+ * It holds the mines, the number of mined corners and the visible state of every cell,
+ * and implements the reveal and flag rules of the game without any image or Swing component.
+ * It is used by the board generators and the solvers, which play many games per second.
+ * A MineField is not thread safe, each thread must use its own instance.
+ */
+public class MineField {
+
+    /**
+     * The state of a cell that has not been revealed or flagged.
+     */
+    public static final byte COVERED = 0;
+
+    /**
+     * The state of a cell whose content is visible.
+     */
+    public static final byte REVEALED = 1;
+
+    /**
+     * The state of a cell flagged as containing a mine.
+     */
+    public static final byte FLAGGED = 2;
+
+    /**
+     * The maximum number of corners of a cell.
+     */
+    public static final int MAX_CORNERS = 8;
+
+    /**
+     * The largest size in bytes of a varint encoding an int.
+     */
+    private static final int MAX_VARINT_BYTES = 5;
+
+    /**
+     * The configuration of the board.
+     */
+    @Getter
+    private final BoardConfig config;
+
+    /**
+     * The topology of the board, defining the corners of the cells.
+     */
+    @Getter
+    private final Topology topology;
+
+    /**
+     * The corners of all the cells, compiled by the topology.
+     */
+    private final Adjacency adjacency;
+
+    /**
+     * The position of the first corner of every cell in {@link #corners}, shared by the fields of the same size.
+     */
+    private final int[] cornerOffsets;
+
+    /**
+     * The corners of all the cells, cell after cell, shared by the fields of the same size.
+     */
+    private final int[] corners;
+
+    /**
+     * The total number of cells of the board.
+     */
+    @Getter
+    private final int cellCount;
+
+    /**
+     * The mined cells.
+     */
+    private final boolean[] mined;
+
+    /**
+     * The number of mined corners of every cell.
+     */
+    private final byte[] counts;
+
+    /**
+     * The visible state of every cell.
+     */
+    private final byte[] states;
+
+    /**
+     * The stack of cells used to reveal the empty areas without recursion.
+     */
+    private final int[] revealStack;
+
+    /**
+     * The cells changed by the last move, in the order they changed.
+     */
+    private final int[] changedCells;
+
+    /**
+     * The number of cells changed by the last move.
+     */
+    @Getter
+    private int changedCount;
+
+    /**
+     * The cells kept free of mines while placing the mines, reused between games.
+     */
+    private final boolean[] excluded;
+
+    /**
+     * A buffer receiving the corners of a cell.
+     */
+    private final int[] cornerBuffer = new int[MAX_CORNERS];
+
+    /**
+     * The read-only view of the visible part of this field.
+     */
+    private final VisibleBoard view = new View();
+
+    /**
+     * The number of revealed cells.
+     */
+    @Getter
+    private int revealedCells;
+
+    /**
+     * The number of flagged cells.
+     */
+    @Getter
+    private int flaggedCells;
+
+    /**
+     * The number of flags left, as the mines left counter of the {@link Board}: the mines minus the flags set,
+     * a flag revealed by an empty area being still counted.
+     */
+    @Getter
+    private int marksLeft;
+
+    /**
+     * A boolean flag indicating whether the field plays with the rules of the {@link Board}, as the daily challenges do:
+     * the flags are limited to the number of mines, the empty areas reveal the flagged cells they reach
+     * without giving their flags back, and the game is won only once no flag is left.
+     * Otherwise the flags are not limited, the empty areas stop at the flags, and revealing all the cells
+     * without a mine wins the game.
+     */
+    @Getter
+    @Setter
+    private boolean boardRules;
+
+    /**
+     * A boolean flag indicating whether a mined cell has been revealed.
+     */
+    @Getter
+    private boolean lost;
+
+    /**
+     * The {@link Zobrist} hash of the visible state, updated on every change of a cell.
+     */
+    @Getter
+    private long hash;
+
+    /**
+     * Creates a new mine field without mines.
+     *
+     * @param config the configuration of the board
+     */
+    public MineField(BoardConfig config) {
+        this(config, Topology.SQUARE);
+    }
+
+    /**
+     * Creates a new empty field whose cells are all covered, on a board of the given topology.
+     *
+     * @param config   the configuration of the board
+     * @param topology the topology of the board
+     */
+    public MineField(BoardConfig config, Topology topology) {
+        this.config = config;
+        this.topology = topology;
+        adjacency = topology.getAdjacency(config.getRows(), config.getColumns());
+        cornerOffsets = adjacency.getOffsets();
+        corners = adjacency.getNeighbours();
+        cellCount = config.getCells();
+        mined = new boolean[cellCount];
+        counts = new byte[cellCount];
+        states = new byte[cellCount];
+        revealStack = new int[cellCount];
+        changedCells = new int[cellCount];
+        excluded = new boolean[cellCount];
+        marksLeft = config.getMines();
+    }
+
+    /**
+     * Removes all the mines and covers all the cells.
+     */
+    public void clear() {
+        Arrays.fill(mined, false);
+        Arrays.fill(counts, (byte) 0);
+        Arrays.fill(states, COVERED);
+        revealedCells = 0;
+        flaggedCells = 0;
+        marksLeft = config.getMines();
+        lost = false;
+        hash = 0;
+    }
+
+    /**
+     * Covers all the cells again, keeping the mines, to replay the same board.
+     */
+    public void restart() {
+        Arrays.fill(states, COVERED);
+        revealedCells = 0;
+        flaggedCells = 0;
+        marksLeft = config.getMines();
+        lost = false;
+        hash = 0;
+    }
+
+    /**
+     * Clears the field and places the mines of the given layout.
+     *
+     * @param layout the positions of the mines
+     */
+    public void setLayout(MineLayout layout) {
+        if (!layout.getConfig().equals(config))
+            throw new IllegalArgumentException("The layout does not match the board configuration");
+
+        clear();
+        for (int position : layout.getMines())
+            mineCell(position);
+    }
+
+    /**
+     * Clears the field and places the mines randomly,
+     * keeping the given cell and its corners free of mines.
+     *
+     * @param random    the random number generator used to place the mines
+     * @param safeIndex the index of the cell that must be empty
+     */
+    public void placeMines(Random random, int safeIndex) {
+        clear();
+        int cornersCount = getCorners(safeIndex, cornerBuffer);
+        if (cellCount - cornersCount - 1 < config.getMines())
+            throw new IllegalArgumentException("Not enough cells to keep the safe cell and its corners empty");
+
+        excluded[safeIndex] = true;
+        for (int i = 0; i < cornersCount; i++)
+            excluded[cornerBuffer[i]] = true;
+
+        // the same single pass as sampleMines, mining the cells directly so that nothing is allocated
+        int allowed = cellCount - cornersCount - 1;
+        int needed = config.getMines();
+        for (int index = 0; index < cellCount && needed > 0; index++) {
+            if (excluded[index])
+                continue;
+            if (random.nextInt(allowed) < needed) {
+                mineCell(index);
+                needed--;
+            }
+            allowed--;
+        }
+
+        excluded[safeIndex] = false;
+        for (int i = 0; i < cornersCount; i++)
+            excluded[cornerBuffer[i]] = false;
+    }
+
+    /**
+     * Chooses the positions of the mines uniformly among the cells that are not excluded.
+     * The cells are visited once, in order, and each one is selected with the probability
+     * that the remaining mines have among the remaining allowed cells,
+     * so the sampling never has to retry a position.
+     *
+     * @param random        the random number generator used to place the mines
+     * @param mines         the number of mines to place
+     * @param excluded      the cells that must stay free of mines
+     * @param excludedCount the number of excluded cells
+     * @return the indices of the mined cells, in increasing order
+     */
+    public static int[] sampleMines(Random random, int mines, boolean[] excluded, int excludedCount) {
+        int allowed = excluded.length - excludedCount;
+        if (allowed < mines)
+            throw new IllegalArgumentException("Not enough cells to place " + mines + " mines");
+
+        int[] positions = new int[mines];
+        int needed = mines;
+        for (int index = 0; index < excluded.length && needed > 0; index++) {
+            if (excluded[index])
+                continue;
+            if (random.nextInt(allowed) < needed) {
+                positions[mines - needed] = index;
+                needed--;
+            }
+            allowed--;
+        }
+        return positions;
+    }
+
+    /**
+     * Mines a cell and increments the number of mined corners of its corner cells.
+     *
+     * @param index the index of the cell
+     */
+    private void mineCell(int index) {
+        mined[index] = true;
+        counts[index]++;
+        for (int p = cornerOffsets[index]; p < cornerOffsets[index + 1]; p++)
+            counts[corners[p]]++;
+    }
+
+    /**
+     * Writes the indices of the corner cells of a cell in the given array.
+     *
+     * @param index   the index of the cell
+     * @param corners the array receiving the indices, of at least {@link #MAX_CORNERS} elements
+     * @return the number of corner cells
+     */
+    public int getCorners(int index, int[] corners) {
+        int start = cornerOffsets[index];
+        int count = cornerOffsets[index + 1] - start;
+        System.arraycopy(this.corners, start, corners, 0, count);
+        return count;
+    }
+
+    /**
+     * Reveals a covered cell, and all the empty area around it if it has no mined corners.
+     * Revealing a mined cell loses the game.
+     *
+     * @param index the index of the cell
+     * @return the number of revealed cells
+     */
+    public int reveal(int index) {
+        changedCount = 0;
+        if (states[index] != COVERED)
+            return 0;
+
+        if (mined[index]) {
+            states[index] = REVEALED;
+            hash ^= Zobrist.key(index, Zobrist.MINE);
+            lost = true;
+            changedCells[changedCount++] = index;
+            return 1;
+        }
+
+        states[index] = REVEALED;
+        revealStack[0] = index;
+        return floodReveal(1);
+    }
+
+    /**
+     * Chords a revealed number whose flagged corners match its number: reveals all its covered corners,
+     * and the empty areas around them, in a single pass. Chording loses the game if a flag is wrong.
+     * Chording a cell that is not a revealed number, or whose flags do not match, does nothing.
+     *
+     * @param index the index of the cell
+     * @return the number of revealed cells
+     */
+    public int chord(int index) {
+        changedCount = 0;
+        if (states[index] != REVEALED || mined[index] || getCount(index) == 0)
+            return 0;
+
+        int flags = 0;
+        for (int p = cornerOffsets[index]; p < cornerOffsets[index + 1]; p++) {
+            if (states[corners[p]] == FLAGGED)
+                flags++;
+        }
+        if (flags != getCount(index))
+            return 0;
+
+        int exploded = 0;
+        int stackSize = 0;
+        for (int p = cornerOffsets[index]; p < cornerOffsets[index + 1]; p++) {
+            int corner = corners[p];
+            if (states[corner] != COVERED)
+                continue;
+            states[corner] = REVEALED;
+            if (mined[corner]) {
+                hash ^= Zobrist.key(corner, Zobrist.MINE);
+                lost = true;
+                changedCells[changedCount++] = corner;
+                exploded++;
+            } else {
+                revealStack[stackSize++] = corner;
+            }
+        }
+        return exploded + floodReveal(stackSize);
+    }
+
+    /**
+     * Reveals the cells of the reveal stack, which are already marked as revealed and are not mined,
+     * and the empty areas around them.
+     *
+     * @param stackSize the number of cells in the reveal stack
+     * @return the number of revealed cells
+     */
+    private int floodReveal(int stackSize) {
+        int revealed = 0;
+        while (stackSize > 0) {
+            int cell = revealStack[--stackSize];
+            changedCells[changedCount++] = cell;
+            revealed++;
+            hash ^= Zobrist.key(cell, getCount(cell));
+            if (getCount(cell) != 0)
+                continue;
+
+            for (int p = cornerOffsets[cell]; p < cornerOffsets[cell + 1]; p++) {
+                int corner = corners[p];
+                if (states[corner] == FLAGGED && boardRules) {
+                    // the board uncovers the marks of an empty area, and keeps them counted
+                    flaggedCells--;
+                    hash ^= Zobrist.key(corner, Zobrist.MARKED);
+                    states[corner] = COVERED;
+                }
+                if (states[corner] == COVERED) {
+                    states[corner] = REVEALED;
+                    revealStack[stackSize++] = corner;
+                }
+            }
+        }
+        revealedCells += revealed;
+        return revealed;
+    }
+
+    /**
+     * Flags a covered cell, or removes the flag of a flagged cell.
+     * With the rules of the board, a cell is only flagged if a flag is left.
+     *
+     * @param index the index of the cell
+     * @return true if the state of the cell changed, false otherwise
+     */
+    public boolean toggleFlag(int index) {
+        changedCount = 0;
+        if (states[index] == COVERED) {
+            if (boardRules && marksLeft == 0)
+                return false;
+            states[index] = FLAGGED;
+            flaggedCells++;
+            marksLeft--;
+            hash ^= Zobrist.key(index, Zobrist.MARKED);
+            changedCells[changedCount++] = index;
+            return true;
+        }
+        if (states[index] == FLAGGED) {
+            states[index] = COVERED;
+            flaggedCells--;
+            marksLeft++;
+            hash ^= Zobrist.key(index, Zobrist.MARKED);
+            changedCells[changedCount++] = index;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Plays an action on the field.
+     * Flagging a revealed cell does nothing.
+     *
+     * @param action the action encoded by the {@link Action} class
+     * @return the number of cells whose state changed
+     */
+    public int apply(int action) {
+        int index = Action.getCell(action);
+        if (Action.getType(action) == Action.FLAG)
+            return toggleFlag(index) ? 1 : 0;
+        if (Action.getType(action) == Action.CHORD)
+            return chord(index);
+        return reveal(index);
+    }
+
+    /**
+     * Gets a cell changed by the last move: the last reveal, chord, flag or action applied.
+     *
+     * @param position the position of the change, from 0 included to {@link #getChangedCount()} excluded
+     * @return the index of the changed cell
+     */
+    public int getChangedCell(int position) {
+        return changedCells[position];
+    }
+
+    /**
+     * Gets a read-only view of the visible part of this field.
+     * The view is created once, so calling this method does not allocate.
+     *
+     * @return the view of the field
+     */
+    public VisibleBoard getView() {
+        return view;
+    }
+
+    /**
+     * Checks if all the cells without a mine have been revealed,
+     * and with the rules of the board, if no flag is left.
+     *
+     * @return true if the game is won, false otherwise
+     */
+    public boolean isWon() {
+        return !lost && revealedCells == cellCount - config.getMines() && (!boardRules || marksLeft == 0);
+    }
+
+    /**
+     * Gets the indices of the mined cells.
+     *
+     * @return the indices of the mined cells, in increasing order
+     */
+    public int[] getMinePositions() {
+        int[] positions = new int[config.getMines()];
+        int count = 0;
+        for (int index = 0; index < cellCount && count < positions.length; index++) {
+            if (mined[index])
+                positions[count++] = index;
+        }
+        return positions;
+    }
+
+    /**
+     * Gets the indices of the flagged cells.
+     *
+     * @return the indices of the flagged cells, in increasing order
+     */
+    public int[] getFlaggedPositions() {
+        int[] positions = new int[flaggedCells];
+        int count = 0;
+        for (int index = 0; index < cellCount && count < positions.length; index++) {
+            if (states[index] == FLAGGED)
+                positions[count++] = index;
+        }
+        return positions;
+    }
+
+    /**
+     * Checks whether a cell is mined.
+     *
+     * @param index the index of the cell
+     * @return true if the cell is mined, false otherwise
+     */
+    public boolean isMined(int index) {
+        return mined[index];
+    }
+
+    /**
+     * Gets the number of mined corners of a cell, whatever its state.
+     *
+     * @param index the index of the cell
+     * @return the number of mined corners
+     */
+    public int getCount(int index) {
+        return mined[index] ? counts[index] - 1 : counts[index];
+    }
+
+    /**
+     * Gets the visible state of a cell.
+     *
+     * @param index the index of the cell
+     * @return {@link #COVERED}, {@link #REVEALED} or {@link #FLAGGED}
+     */
+    public byte getState(int index) {
+        return states[index];
+    }
+
+    /**
+     * Gets the index of the image displaying the visible state of a cell, as in {@link Zobrist}.
+     *
+     * @param index the index of the cell
+     * @return the number or mine of a revealed cell, or the cover or mark image
+     */
+    public int getImageIndex(int index) {
+        if (states[index] == COVERED)
+            return Zobrist.COVERED;
+        if (states[index] == FLAGGED)
+            return Zobrist.MARKED;
+        return mined[index] ? Zobrist.MINE : getCount(index);
+    }
+
+    /**
+     * Gets the largest number of bytes written by {@link #writeTo(ByteBuffer)} for this configuration.
+     *
+     * @return the size of a buffer large enough to hold the field
+     */
+    public int getMaxSerializedSize() {
+        return 5 * MAX_VARINT_BYTES + config.getMines() * MAX_VARINT_BYTES + (cellCount + 3) / 4;
+    }
+
+    /**
+     * Writes the mines and the visible state of the field in a compact form:
+     * the rows, columns and mines, the identifier of the topology, whether the game is lost, the gaps between the mined cells,
+     * then the states of the cells, four per byte. All the numbers are varints.
+     *
+     * @param buffer the buffer receiving the field, of at least {@link #getMaxSerializedSize()} bytes remaining
+     * @throws IllegalStateException if the topology of the field is not a built-in one
+     */
+    public void writeTo(ByteBuffer buffer) {
+        if (topology.getId() < 0)
+            throw new IllegalStateException("The " + topology + " topology cannot be written");
+
+        SpectatorStream.putVarint(buffer, config.getRows());
+        SpectatorStream.putVarint(buffer, config.getColumns());
+        SpectatorStream.putVarint(buffer, config.getMines());
+        SpectatorStream.putVarint(buffer, topology.getId());
+        SpectatorStream.putVarint(buffer, lost ? 1 : 0);
+
+        int previous = 0;
+        for (int index = 0; index < cellCount; index++) {
+            if (mined[index]) {
+                SpectatorStream.putVarint(buffer, index - previous);
+                previous = index;
+            }
+        }
+
+        for (int index = 0; index < cellCount; index += 4) {
+            int packed = 0;
+            for (int i = 0; i < 4 && index + i < cellCount; i++)
+                packed |= states[index + i] << (i << 1);
+            buffer.put((byte) packed);
+        }
+    }
+
+    /**
+     * Reads a field written by {@link #writeTo(ByteBuffer)}.
+     *
+     * @param buffer the buffer holding the field
+     * @return the field, with its mines, its visible state and its hash
+     * @throws IllegalArgumentException if the buffer does not hold a valid field
+     */
+    public static MineField readFrom(ByteBuffer buffer) {
+        MineField field = new MineField(new BoardConfig(SpectatorStream.getVarint(buffer),
+                SpectatorStream.getVarint(buffer), SpectatorStream.getVarint(buffer)),
+                Topology.forId(SpectatorStream.getVarint(buffer)));
+        field.lost = SpectatorStream.getVarint(buffer) != 0;
+
+        int index = 0;
+        for (int i = 0; i < field.config.getMines(); i++) {
+            index += SpectatorStream.getVarint(buffer);
+            if (index >= field.cellCount || field.mined[index])
+                throw new IllegalArgumentException("Invalid mine position " + index);
+            field.mineCell(index);
+        }
+
+        for (index = 0; index < field.cellCount; index += 4) {
+            int packed = buffer.get();
+            for (int i = 0; i < 4 && index + i < field.cellCount; i++) {
+                byte state = (byte) ((packed >> (i << 1)) & 3);
+                if (state > FLAGGED)
+                    throw new IllegalArgumentException("Invalid cell state " + state);
+                field.states[index + i] = state;
+                if (state == FLAGGED)
+                    field.flaggedCells++;
+                else if (state == REVEALED && !field.mined[index + i])
+                    field.revealedCells++;
+                field.hash ^= Zobrist.key(index + i, field.getImageIndex(index + i));
+            }
+        }
+        field.marksLeft = field.config.getMines() - field.flaggedCells;
+        return field;
+    }
+
+    /**
+     * The read-only view of the field, hiding the mines and the numbers of the covered cells.
+     * It is a separate object so that the field cannot be reached from the view.
+     */
+    private class View implements VisibleBoard {
+
+        @Override
+        public BoardConfig getConfig() {
+            return config;
+        }
+
+        @Override
+        public int getCellCount() {
+            return cellCount;
+        }
+
+        @Override
+        public byte getState(int index) {
+            return states[index];
+        }
+
+        @Override
+        public int getNumber(int index) {
+            return states[index] == REVEALED ? getCount(index) : -1;
+        }
+
+        @Override
+        public Adjacency getAdjacency() {
+            return adjacency;
+        }
+
+        @Override
+        public int getCorners(int index, int[] corners) {
+            return MineField.this.getCorners(index, corners);
+        }
+
+        @Override
+        public int getRevealedCells() {
+            return revealedCells;
+        }
+
+        @Override
+        public int getFlaggedCells() {
+            return flaggedCells;
+        }
+
+        @Override
+        public long getHash() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package mines;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * The MineLayout class represents the positions of the mines of a board,
+ * together with the cell the game is meant to be started from.
+ * Instances are immutable.
+ */
+public final class MineLayout {
+
+    /**
+     * The configuration of the board.
+     */
+    @Getter
+    private final BoardConfig config;
+
+    /**
+     * The index of the cell the game is started from.
+     */
+    @Getter
+    private final int startIndex;
+
+    /**
+     * The indices of the mined cells.
+     */
+    private final int[] mines;
+
+    /**
+     * Creates a new mine layout.
+     *
+     * @param config     the configuration of the board
+     * @param startIndex the index of the cell the game is started from
+     * @param mines      the indices of the mined cells
+     */
+    public MineLayout(BoardConfig config, int startIndex, int[] mines) {
+        if (mines.length != config.getMines())
+            throw new IllegalArgumentException("The layout must have " + config.getMines() + " mines");
+
+        this.config = config;
+        this.startIndex = startIndex;
+        this.mines = mines.clone();
+    }
+
+    /**
+     * Gets the indices of the mined cells.
+     *
+     * @return a copy of the indices of the mined cells
+     */
+    public int[] getMines() {
+        return mines.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "MineLayout" + config + " start=" + startIndex + " mines=" + Arrays.toString(mines);
+    }
+}
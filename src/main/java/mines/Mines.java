@@ -1,6 +1,13 @@
 package mines;
 
 import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
 
 import javax.swing.*;
 
@@ -24,26 +31,86 @@ public class Mines extends JFrame {
     private static final int SCORE_PANEL_HEIGHT = 50;
 
     /**
-     * The width of the game window in pixels.
+     * The initial width of the board in pixels.
      */
-    static final int WIDTH = Cell.WIDTH * Board.COLS + BOARD_PADDING;
+    static final int WIDTH = Cell.WIDTH * Board.COLS;
+
+
+
+    /**
+     * The directory of the leaderboard, in the home directory of the user.
+     */
+    static final String LEADERBOARD_DIRECTORY = ".mines";
 
     /**
-     * The height of the game window in pixels.
+     * The directory of the checkpoints of the game in progress, in the directory of the leaderboard.
      */
-    static final int HEIGHT = Cell.HEIGHT * Board.ROWS + SCORE_PANEL_HEIGHT + BOARD_PADDING;
+    static final String CHECKPOINT_DIRECTORY = "checkpoint";
 
+    /**
+     * The command line argument selecting the boards that can be won without guessing.
+     */
+    static final String NO_GUESS_ARGUMENT = "--no-guess";
 
+    /**
+     * The command line argument selecting the practice mode, where a losing click can be undone.
+     */
+    static final String PRACTICE_ARGUMENT = "--practice";
+
+    /**
+     * The command line argument selecting the daily challenge, the same board for every player of the day.
+     */
+    static final String DAILY_ARGUMENT = "--daily";
+
+    /**
+     * The command line argument publishing the board in a memory-mapped file for the viewer processes,
+     * followed by the path of the file.
+     */
+    static final String SHARE_ARGUMENT = "--share";
 
     /**
      * Constructs a Mines object and initializes the game frame with a set size and layout.
      * It also initializes an instance of the Board class, which generates the game board.
      */
     public Mines() {
+        this(false, false);
+    }
+
+    /**
+     * Constructs a Mines object and initializes the game frame with a set size and layout.
+     * It also initializes an instance of the Board class, which generates the game board.
+     *
+     * @param noGuess  true to play boards that can be won without guessing
+     * @param practice true to allow undoing the moves after the game is over
+     */
+    public Mines(boolean noGuess, boolean practice) {
+        this(noGuess, practice, null);
+    }
+
+    /**
+     * Constructs a Mines object and initializes the game frame with a set size and layout.
+     * It also initializes an instance of the Board class, which generates the game board.
+     *
+     * @param noGuess   true to play boards that can be won without guessing
+     * @param practice  true to allow undoing the moves after the game is over
+     * @param challenge the daily challenge to play, or {@code null} to play random boards
+     */
+    public Mines(boolean noGuess, boolean practice, DailyChallenge challenge) {
+        this(noGuess, practice, challenge, null);
+    }
+
+    /**
+     * Constructs a Mines object and initializes the game frame with a set size and layout.
+     * It also initializes an instance of the Board class, which generates the game board.
+     *
+     * @param noGuess   true to play boards that can be won without guessing
+     * @param practice  true to allow undoing the moves after the game is over
+     * @param challenge the daily challenge to play, or {@code null} to play random boards
+     * @param sharePath the file publishing the board to the viewer processes, or {@code null} not to share it
+     */
+    public Mines(boolean noGuess, boolean practice, DailyChallenge challenge, Path sharePath) {
 
         setDefaultCloseOperation(EXIT_ON_CLOSE);
-        setSize(WIDTH, HEIGHT);
-        setLocationRelativeTo(null);
         setTitle("Minesweeper");
 
         JPanel scorePanel = new JPanel(new BorderLayout());
@@ -56,26 +123,112 @@ public class Mines extends JFrame {
         scorePanel.add(marksLeftTitleLabel, BorderLayout.WEST);
         scorePanel.add(marksLeftLabel,BorderLayout.CENTER);
         scorePanel.setBorder(BorderFactory.createEmptyBorder(0, 10, 5, 10));
-        scorePanel.setSize(WIDTH, SCORE_PANEL_HEIGHT);
+        scorePanel.setPreferredSize(new Dimension(WIDTH, SCORE_PANEL_HEIGHT));
         add(scorePanel, BorderLayout.SOUTH);
 
-        JPanel boardPanel = new JPanel(new BorderLayout());
+        // the board is zoomed with the mouse wheel, and scrolled when it is larger than the window
         int boardSidePadding = BOARD_PADDING / 2;
+        Board board = challenge != null ? new Board(marksLeftLabel, challenge) : new Board(marksLeftLabel, noGuess);
+        board.enableUndo(Board.DEFAULT_UNDO_LEVELS);
+        board.setPracticeMode(practice);
+        Leaderboard leaderboard = openLeaderboard();
+        if (leaderboard != null)
+            board.setLeaderboard(leaderboard, System.getProperty("user.name"));
+        if (challenge == null)
+            enableCheckpoints(board);
+        if (sharePath != null)
+            shareBoard(board, sharePath);
+        JScrollPane boardPanel = new JScrollPane(board);
         boardPanel.setBorder(BorderFactory.createEmptyBorder(boardSidePadding, boardSidePadding, boardSidePadding, boardSidePadding));
-        boardPanel.add(new Board(marksLeftLabel), BorderLayout.CENTER);
 
         add(boardPanel);
-        setResizable(false);
+        pack();
+        setLocationRelativeTo(null);
         setVisible(true);
     }
 
+    /**
+     * Saves the game in progress in the directory of the user, resuming the game of a previous run if there is one.
+     * The game is played without checkpoints if the directory cannot be used.
+     *
+     * @param board the board
+     */
+    private static void enableCheckpoints(Board board) {
+        try {
+            board.enableCheckpoints(Path.of(System.getProperty("user.home"), LEADERBOARD_DIRECTORY,
+                    CHECKPOINT_DIRECTORY));
+        } catch (UncheckedIOException e) {
+            System.err.println("The game cannot be saved: " + e.getCause());
+        }
+    }
+
+    /**
+     * Publishes the board in a memory-mapped file. The game is played without sharing if the file cannot be mapped.
+     *
+     * @param board the board
+     * @param path  the path of the file
+     */
+    private static void shareBoard(Board board, Path path) {
+        try {
+            board.shareTo(path);
+        } catch (UncheckedIOException e) {
+            System.err.println("The board cannot be shared in " + path + ": " + e.getCause());
+        }
+    }
+
+    /**
+     * Gets the path of the file publishing the board, which follows the {@code --share} argument.
+     *
+     * @param arguments the command line arguments
+     * @return the path, or {@code null} if the board is not shared
+     * @throws IllegalArgumentException if the argument is not followed by a path
+     */
+    static Path getSharePath(List<String> arguments) {
+        int index = arguments.indexOf(SHARE_ARGUMENT);
+        if (index < 0)
+            return null;
+        if (index + 1 == arguments.size() || arguments.get(index + 1).startsWith("--"))
+            throw new IllegalArgumentException(SHARE_ARGUMENT + " must be followed by the path of the board file");
+        return Path.of(arguments.get(index + 1));
+    }
+
+    /**
+     * Opens the leaderboard of the user. The results are appended to its log as soon as they are recorded,
+     * so it does not need to be closed when the game exits.
+     *
+     * @return the leaderboard, or {@code null} if it cannot be opened
+     */
+    private static Leaderboard openLeaderboard() {
+        try {
+            return new Leaderboard(Path.of(System.getProperty("user.home"), LEADERBOARD_DIRECTORY));
+        } catch (UncheckedIOException e) {
+            System.err.println("The leaderboard cannot be opened: " + e.getCause());
+            return null;
+        }
+    }
 
     /**
      * The main method that creates an instance of the Mines game and starts it.
+     * The {@code --no-guess} argument starts the game with boards that can be won without guessing,
+     * the {@code --practice} argument allows undoing a losing click,
+     * the {@code --daily} argument plays the challenge of the day,
+     * and the {@code --share PATH} argument publishes the board in a file that viewer processes can map.
      *
      * @param args the command line arguments
      */
     public static void main(String[] args) {
-        new Mines();
+        List<String> arguments = Arrays.asList(args);
+        DailyChallenge challenge = arguments.contains(DAILY_ARGUMENT)
+                ? DailyChallenge.forDate(Board.CONFIG, LocalDate.now(ZoneOffset.UTC))
+                : null;
+        Path sharePath;
+        try {
+            sharePath = getSharePath(arguments);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        new Mines(arguments.contains(NO_GUESS_ARGUMENT), arguments.contains(PRACTICE_ARGUMENT), challenge, sharePath);
     }
 }
\ No newline at end of file
@@ -0,0 +1,132 @@
+package mines;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The NoGuessGenerator class generates boards that can be won from the start cell without guessing.
+ * Candidate layouts are generated like a regular game, keeping the start cell and its corners free
+ * of mines, and each candidate is played by a {@link DeductionSolver}.
+ * The candidates are tried in parallel on all the cores, and the first one solved cancels the others.
+ */
+public class NoGuessGenerator {
+
+    /**
+     * The default maximum number of candidates tried before giving up.
+     */
+    public static final long DEFAULT_MAX_ATTEMPTS = 100_000;
+
+    /**
+     * The pool running the searching tasks, shared by all the generators.
+     * Its threads are daemon threads, so it never keeps the application alive.
+     */
+    private static final ForkJoinPool WORKERS = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    /**
+     * The number of candidates searched in parallel.
+     */
+    private final int parallelism;
+
+    /**
+     * The maximum number of candidates tried before giving up.
+     */
+    private final long maxAttempts;
+
+    /**
+     * The random number generator from which the searching tasks get their own generator.
+     */
+    private final SplittableRandom seeds;
+
+    /**
+     * Creates a new generator searching on all the cores.
+     */
+    public NoGuessGenerator() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_MAX_ATTEMPTS, new SplittableRandom());
+    }
+
+    /**
+     * Creates a new generator.
+     *
+     * @param parallelism the number of candidates searched in parallel
+     * @param maxAttempts the maximum number of candidates tried before giving up
+     * @param seeds       the random number generator from which the searching tasks get their own generator
+     */
+    public NoGuessGenerator(int parallelism, long maxAttempts, SplittableRandom seeds) {
+        if (parallelism <= 0 || maxAttempts <= 0)
+            throw new IllegalArgumentException("The generator needs at least one task and one attempt");
+
+        this.parallelism = parallelism;
+        this.maxAttempts = maxAttempts;
+        this.seeds = seeds;
+    }
+
+    /**
+     * Generates a layout that can be won from the start cell without guessing.
+     *
+     * @param config     the configuration of the board
+     * @param startIndex the index of the cell the game is started from
+     * @return the generated layout
+     * @throws IllegalStateException if no layout has been found in the maximum number of attempts
+     */
+    public MineLayout generate(BoardConfig config, int startIndex) {
+        CompletableFuture<MineLayout> result = new CompletableFuture<>();
+        AtomicLong attempts = new AtomicLong();
+
+        for (int i = 0; i < parallelism; i++) {
+            Random random = new Random(nextSeed());
+            WORKERS.execute(() -> search(config, startIndex, random, attempts, result));
+        }
+
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets a seed for the random number generator of a searching task.
+     *
+     * @return a new seed
+     */
+    private synchronized long nextSeed() {
+        return seeds.nextLong();
+    }
+
+    /**
+     * Generates and solves candidates until a layout is found, by this task or another one.
+     *
+     * @param config     the configuration of the board
+     * @param startIndex the index of the cell the game is started from
+     * @param random     the random number generator of this task
+     * @param attempts   the number of candidates tried by all the tasks
+     * @param result     the layout found by the first successful task
+     */
+    private void search(BoardConfig config, int startIndex, Random random,
+                        AtomicLong attempts, CompletableFuture<MineLayout> result) {
+        try {
+            MineField field = new MineField(config);
+            DeductionSolver solver = new DeductionSolver();
+
+            while (!result.isDone()) {
+                if (attempts.incrementAndGet() > maxAttempts) {
+                    result.completeExceptionally(new IllegalStateException(
+                            "No board without guessing found for " + config + " after " + maxAttempts + " attempts"));
+                    return;
+                }
+
+                field.placeMines(random, startIndex);
+                if (solver.solve(field, startIndex))
+                    result.complete(new MineLayout(config, startIndex, field.getMinePositions()));
+            }
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package mines;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+/**
+ * The PersistentByteVector class is an immutable array of bytes that shares its structure between versions.
+ * The bytes are stored in chunks of 32, which are the leaves of a tree whose inner nodes have 32 children.
+ * Changing a byte copies only its chunk and the inner nodes on the path to it, so a new version costs
+ * memory proportional to the number of changed chunks, and two versions can be compared by skipping
+ * the subtrees they share.
+ */
+public final class PersistentByteVector {
+
+    /**
+     * The number of bits of an index used at each level of the tree.
+     */
+    private static final int BITS = 5;
+
+    /**
+     * The number of children of an inner node, and the number of bytes of a chunk.
+     */
+    private static final int WIDTH = 1 << BITS;
+
+    /**
+     * The mask of the bits of an index used at each level of the tree.
+     */
+    private static final int MASK = WIDTH - 1;
+
+    /**
+     * The number of bytes of the vector.
+     */
+    private final int size;
+
+    /**
+     * The shift of the index bits used by the root, 0 when the root is a chunk.
+     */
+    private final int shift;
+
+    /**
+     * The root of the tree, a {@code byte[]} chunk or an {@code Object[]} inner node.
+     */
+    private final Object root;
+
+    private PersistentByteVector(int size, int shift, Object root) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+    }
+
+    /**
+     * Creates a vector whose bytes all have the same value.
+     * All the chunks and inner nodes of a level are shared, so the vector uses almost no memory.
+     *
+     * @param size  the number of bytes of the vector
+     * @param value the value of all the bytes
+     * @return the new vector
+     */
+    public static PersistentByteVector filled(int size, byte value) {
+        byte[] chunk = new byte[WIDTH];
+        Arrays.fill(chunk, value);
+
+        Object node = chunk;
+        int shift = 0;
+        long capacity = WIDTH;
+        while (capacity < size) {
+            Object[] parent = new Object[WIDTH];
+            Arrays.fill(parent, node);
+            node = parent;
+            shift += BITS;
+            capacity <<= BITS;
+        }
+        return new PersistentByteVector(size, shift, node);
+    }
+
+    /**
+     * Gets the number of bytes of the vector.
+     *
+     * @return the size of the vector
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets a byte of the vector.
+     *
+     * @param index the index of the byte
+     * @return the value of the byte
+     */
+    public byte get(int index) {
+        Object node = root;
+        for (int level = shift; level > 0; level -= BITS)
+            node = ((Object[]) node)[(index >>> level) & MASK];
+        return ((byte[]) node)[index & MASK];
+    }
+
+    /**
+     * Creates an editor building a new version of this vector.
+     *
+     * @return the new editor
+     */
+    public Editor edit() {
+        return new Editor(this);
+    }
+
+    /**
+     * Calls the given function with the index of every byte that differs from another version.
+     * The subtrees shared by both versions are skipped.
+     *
+     * @param other    another version of this vector, of the same size
+     * @param consumer the function receiving the indices of the different bytes
+     */
+    public void forEachDifference(PersistentByteVector other, IntConsumer consumer) {
+        if (other.size != size)
+            throw new IllegalArgumentException("The vectors must have the same size");
+        forEachDifference(root, other.root, shift, 0, consumer);
+    }
+
+    /**
+     * Compares two subtrees covering the same range of indices.
+     *
+     * @param node      the subtree of this vector
+     * @param other     the subtree of the other vector
+     * @param level     the shift of the index bits used by the subtrees
+     * @param offset    the first index covered by the subtrees
+     * @param consumer  the function receiving the indices of the different bytes
+     */
+    private void forEachDifference(Object node, Object other, int level, int offset, IntConsumer consumer) {
+        if (node == other)
+            return;
+
+        if (level == 0) {
+            byte[] chunk = (byte[]) node;
+            byte[] otherChunk = (byte[]) other;
+            for (int i = 0; i < WIDTH && offset + i < size; i++) {
+                if (chunk[i] != otherChunk[i])
+                    consumer.accept(offset + i);
+            }
+            return;
+        }
+
+        Object[] children = (Object[]) node;
+        Object[] otherChildren = (Object[]) other;
+        for (int i = 0; i < WIDTH && offset + (i << level) < size; i++)
+            forEachDifference(children[i], otherChildren[i], level - BITS, offset + (i << level), consumer);
+    }
+
+    /**
+     * The Editor class builds a new version of a vector.
+     * Each chunk or inner node is copied at most once per version, the first time it is changed,
+     * and the copies are changed in place until the version is built.
+     */
+    public static final class Editor {
+
+        /**
+         * The number of bytes of the vector.
+         */
+        private final int size;
+
+        /**
+         * The shift of the index bits used by the root.
+         */
+        private final int shift;
+
+        /**
+         * The root of the version being built.
+         */
+        private Object root;
+
+        /**
+         * The nodes copied for the version being built, which can be changed in place.
+         */
+        private Set<Object> copies = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        private Editor(PersistentByteVector vector) {
+            size = vector.size;
+            shift = vector.shift;
+            root = vector.root;
+        }
+
+        /**
+         * Sets a byte of the version being built.
+         *
+         * @param index the index of the byte
+         * @param value the new value of the byte
+         */
+        public void set(int index, byte value) {
+            if (index < 0 || index >= size)
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+
+            root = copy(root);
+            Object node = root;
+            for (int level = shift; level > 0; level -= BITS) {
+                Object[] children = (Object[]) node;
+                int slot = (index >>> level) & MASK;
+                children[slot] = copy(children[slot]);
+                node = children[slot];
+            }
+            ((byte[]) node)[index & MASK] = value;
+        }
+
+        /**
+         * Checks whether a byte has been set since the last version was built.
+         *
+         * @return true if the version being built differs from the last one
+         */
+        public boolean isChanged() {
+            return !copies.isEmpty();
+        }
+
+        /**
+         * Builds the new version. The editor can then be used to build the following version.
+         *
+         * @return the new version
+         */
+        public PersistentByteVector build() {
+            if (!copies.isEmpty())
+                copies = Collections.newSetFromMap(new IdentityHashMap<>());
+            return new PersistentByteVector(size, shift, root);
+        }
+
+        /**
+         * Copies a node unless it has already been copied for the version being built.
+         *
+         * @param node the node to copy
+         * @return the node that can be changed in place
+         */
+        private Object copy(Object node) {
+            if (copies.contains(node))
+                return node;
+
+            Object copy = node instanceof byte[] ? ((byte[]) node).clone() : ((Object[]) node).clone();
+            copies.add(copy);
+            return copy;
+        }
+    }
+}
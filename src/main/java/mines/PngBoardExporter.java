@@ -0,0 +1,404 @@
+package mines;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntUnaryOperator;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * The PngBoardExporter class writes the image of a board to a PNG stream, with the cell images used by
+ * {@link Board#paint(java.awt.Graphics)}, without ever holding the whole image in memory.
+ * <p>The image is produced in bands of one row of cells. Every band is split in tiles of columns that are
+ * rendered in parallel on a fork/join pool, while the previous band is compressed into the stream,
+ * so only two bands are in memory whatever the size of the board. The PNG encoder is written here
+ * instead of using {@link ImageIO}, which needs the whole image, and no component is created,
+ * so the exporter works in headless mode.</p>
+ */
+public class PngBoardExporter {
+
+    /**
+     * The signature starting every PNG file.
+     */
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    /**
+     * The maximum number of compressed bytes written in an IDAT chunk.
+     */
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * The number of cells rendered by a tile.
+     */
+    private static final int TILE_COLUMNS = 256;
+
+    /**
+     * The number of cell images.
+     */
+    private static final int NUM_IMAGES = 13;
+
+    /**
+     * The size in pixels of a cell in the exported image.
+     */
+    private final int cellSize;
+
+    /**
+     * The RGB bytes of every cell image scaled to the cell size, row after row.
+     */
+    private final byte[][] cellPixels;
+
+    /**
+     * The pool rendering the tiles.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates an exporter drawing the cells with the size they have on the board,
+     * with the images loaded by the board.
+     *
+     * @throws IOException if an image cannot be read
+     */
+    public PngBoardExporter() throws IOException {
+        this(new File("images"), Cell.WIDTH, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates an exporter.
+     *
+     * @param imagesDirectory the directory of the cell images, named from {@code 0.gif} to {@code 12.gif}
+     * @param cellSize        the size in pixels of a cell in the exported image, smaller for thumbnails
+     * @param pool            the pool rendering the tiles
+     * @throws IOException if an image cannot be read
+     */
+    public PngBoardExporter(File imagesDirectory, int cellSize, ForkJoinPool pool) throws IOException {
+        if (cellSize <= 0)
+            throw new IllegalArgumentException("The cell size must be positive");
+
+        this.cellSize = cellSize;
+        this.pool = pool;
+        cellPixels = new byte[NUM_IMAGES][];
+        for (int i = 0; i < NUM_IMAGES; i++) {
+            File file = new File(imagesDirectory, i + ".gif");
+            BufferedImage image = ImageIO.read(file);
+            if (image == null)
+                throw new IOException("Cannot read the cell image " + file);
+            cellPixels[i] = scale(image);
+        }
+    }
+
+    /**
+     * Scales a cell image to the cell size and extracts its RGB bytes.
+     *
+     * @param image the cell image
+     * @return the RGB bytes of the scaled image, row after row
+     */
+    private byte[] scale(BufferedImage image) {
+        BufferedImage scaled = new BufferedImage(cellSize, cellSize, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        graphics.drawImage(image, 0, 0, cellSize, cellSize, null);
+        graphics.dispose();
+
+        byte[] pixels = new byte[cellSize * cellSize * 3];
+        int position = 0;
+        for (int y = 0; y < cellSize; y++) {
+            for (int x = 0; x < cellSize; x++) {
+                int rgb = scaled.getRGB(x, y);
+                pixels[position++] = (byte) (rgb >> 16);
+                pixels[position++] = (byte) (rgb >> 8);
+                pixels[position++] = (byte) rgb;
+            }
+        }
+        return pixels;
+    }
+
+    /**
+     * Writes the image of the visible state of a mine field.
+     *
+     * @param field the mine field
+     * @param out   the stream receiving the PNG image, which is not closed
+     * @throws IOException if the stream cannot be written
+     */
+    public void export(MineField field, OutputStream out) throws IOException {
+        export(field.getConfig().getRows(), field.getConfig().getColumns(), field::getImageIndex, out);
+    }
+
+    /**
+     * Writes the image of a board.
+     *
+     * @param rows       the number of rows of the board
+     * @param columns    the number of columns of the board
+     * @param imageIndex the function giving the index of the image displayed by a cell, called from several threads
+     * @param out        the stream receiving the PNG image, which is not closed
+     * @throws IOException if the stream cannot be written
+     */
+    public void export(int rows, int columns, IntUnaryOperator imageIndex, OutputStream out) throws IOException {
+        long width = (long) columns * cellSize;
+        long height = (long) rows * cellSize;
+        if (rows <= 0 || columns <= 0 || width > Integer.MAX_VALUE || height > Integer.MAX_VALUE
+                || (width * 3 + 1) * cellSize > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Cannot export a board of " + rows + "x" + columns + " cells");
+
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, CHUNK_SIZE));
+        data.write(PNG_SIGNATURE);
+        writeHeader(data, (int) width, (int) height);
+
+        int bandSize = (int) (width * 3 + 1) * cellSize;
+        byte[][] bands = {new byte[bandSize], new byte[bandSize]};
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DeflaterOutputStream compressed = new DeflaterOutputStream(new ChunkOutputStream(data), deflater, CHUNK_SIZE)) {
+            ForkJoinTask<Void> rendering = renderBand(bands[0], 0, columns, imageIndex);
+            for (int row = 0; row < rows; row++) {
+                rendering.join();
+                byte[] band = bands[row & 1];
+                // the next band is rendered while this one is compressed
+                if (row + 1 < rows)
+                    rendering = renderBand(bands[(row + 1) & 1], row + 1, columns, imageIndex);
+                compressed.write(band);
+            }
+        } finally {
+            deflater.end();
+        }
+
+        writeChunk(data, "IEND", new byte[0], 0);
+        data.flush();
+    }
+
+    /**
+     * Starts rendering a row of cells, split in tiles rendered in parallel.
+     *
+     * @param band       the array receiving the scanlines of the row, each one starting with its filter byte
+     * @param row        the row of cells
+     * @param columns    the number of columns of the board
+     * @param imageIndex the function giving the index of the image displayed by a cell
+     * @return the rendering in progress
+     */
+    private ForkJoinTask<Void> renderBand(byte[] band, int row, int columns, IntUnaryOperator imageIndex) {
+        return pool.submit(new BandTask(band, row, columns, imageIndex, 0, (columns + TILE_COLUMNS - 1) / TILE_COLUMNS));
+    }
+
+    /**
+     * Writes the IHDR chunk of an 8 bits RGB image without interlacing.
+     *
+     * @param data   the stream
+     * @param width  the width of the image in pixels
+     * @param height the height of the image in pixels
+     * @throws IOException if the stream cannot be written
+     */
+    private static void writeHeader(DataOutputStream data, int width, int height) throws IOException {
+        byte[] header = new byte[13];
+        writeInt(header, 0, width);
+        writeInt(header, 4, height);
+        header[8] = 8;
+        header[9] = 2;
+        writeChunk(data, "IHDR", header, header.length);
+    }
+
+    /**
+     * Writes a PNG chunk: its length, its type, its data and the CRC of its type and data.
+     *
+     * @param data   the stream
+     * @param type   the type of the chunk
+     * @param bytes  the data of the chunk
+     * @param length the number of bytes of data
+     * @throws IOException if the stream cannot be written
+     */
+    private static void writeChunk(DataOutputStream data, String type, byte[] bytes, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(bytes, 0, length);
+
+        data.writeInt(length);
+        data.write(typeBytes);
+        data.write(bytes, 0, length);
+        data.writeInt((int) crc.getValue());
+    }
+
+    /**
+     * Writes an int in big endian order in an array.
+     *
+     * @param bytes    the array
+     * @param position the position of the first byte
+     * @param value    the value
+     */
+    private static void writeInt(byte[] bytes, int position, int value) {
+        bytes[position] = (byte) (value >>> 24);
+        bytes[position + 1] = (byte) (value >>> 16);
+        bytes[position + 2] = (byte) (value >>> 8);
+        bytes[position + 3] = (byte) value;
+    }
+
+    /**
+     * The stream cutting the compressed image into IDAT chunks.
+     */
+    private static final class ChunkOutputStream extends OutputStream {
+
+        /**
+         * The stream receiving the chunks.
+         */
+        private final DataOutputStream data;
+
+        /**
+         * The compressed bytes of the chunk being filled.
+         */
+        private final byte[] buffer = new byte[CHUNK_SIZE];
+
+        /**
+         * The number of bytes of the chunk being filled.
+         */
+        private int size;
+
+        private ChunkOutputStream(DataOutputStream data) {
+            this.data = data;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (size == buffer.length)
+                flushChunk();
+            buffer[size++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (size == buffer.length)
+                    flushChunk();
+                int count = Math.min(length, buffer.length - size);
+                System.arraycopy(bytes, offset, buffer, size, count);
+                size += count;
+                offset += count;
+                length -= count;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            flushChunk();
+        }
+
+        /**
+         * Writes the bytes of the chunk being filled as an IDAT chunk.
+         *
+         * @throws IOException if the stream cannot be written
+         */
+        private void flushChunk() throws IOException {
+            if (size > 0)
+                writeChunk(data, "IDAT", buffer, size);
+            size = 0;
+        }
+    }
+
+    /**
+     * The task rendering a range of tiles of a row of cells, split in halves until a single tile is left.
+     */
+    private final class BandTask extends RecursiveAction {
+        private static final long serialVersionUID = -1316419498253612904L;
+
+        /**
+         * The array receiving the scanlines of the row.
+         */
+        private final byte[] band;
+
+        /**
+         * The row of cells.
+         */
+        private final int row;
+
+        /**
+         * The number of columns of the board.
+         */
+        private final int columns;
+
+        /**
+         * The function giving the index of the image displayed by a cell.
+         */
+        private final transient IntUnaryOperator imageIndex;
+
+        /**
+         * The first tile of the range.
+         */
+        private final int from;
+
+        /**
+         * The tile following the last tile of the range.
+         */
+        private final int to;
+
+        private BandTask(byte[] band, int row, int columns, IntUnaryOperator imageIndex, int from, int to) {
+            this.band = band;
+            this.row = row;
+            this.columns = columns;
+            this.imageIndex = imageIndex;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new BandTask(band, row, columns, imageIndex, from, middle),
+                        new BandTask(band, row, columns, imageIndex, middle, to));
+                return;
+            }
+
+            int scanline = columns * cellSize * 3 + 1;
+            int cellBytes = cellSize * 3;
+            int lastColumn = Math.min(columns, (from + 1) * TILE_COLUMNS);
+            for (int column = from * TILE_COLUMNS; column < lastColumn; column++) {
+                byte[] pixels = cellPixels[imageIndex.applyAsInt(row * columns + column)];
+                for (int y = 0; y < cellSize; y++)
+                    System.arraycopy(pixels, y * cellBytes, band, y * scanline + 1 + column * cellBytes, cellBytes);
+            }
+        }
+    }
+
+    /**
+     * Exports a random board from the command line, with its first cell revealed.
+     * The arguments are the number of rows, columns and mines, the output file,
+     * and optionally the size in pixels of a cell and the directory of the cell images.
+     *
+     * @param args the command line arguments
+     * @throws IOException if the images cannot be read or the file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.err.println("Usage: PngBoardExporter rows columns mines output.png [cellSize] [imagesDirectory]");
+            return;
+        }
+
+        System.setProperty("java.awt.headless", "true");
+        BoardConfig config = new BoardConfig(Integer.parseInt(args[0]), Integer.parseInt(args[1]),
+                Integer.parseInt(args[2]));
+        int cellSize = args.length > 4 ? Integer.parseInt(args[4]) : Cell.WIDTH;
+        File imagesDirectory = new File(args.length > 5 ? args[5] : "images");
+
+        MineField field = new MineField(config);
+        Random random = new Random();
+        int start = random.nextInt(config.getCells());
+        field.placeMines(random, start);
+        field.reveal(start);
+
+        Path output = Paths.get(args[3]);
+        try (OutputStream out = Files.newOutputStream(output)) {
+            new PngBoardExporter(imagesDirectory, cellSize, ForkJoinPool.commonPool()).export(field, out);
+        }
+        System.out.println("Exported " + config + " to " + output.toAbsolutePath());
+    }
+}
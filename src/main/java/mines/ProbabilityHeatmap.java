@@ -0,0 +1,707 @@
+package mines;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The ProbabilityHeatmap class estimates the probability that every covered cell is mined,
+ * from the visible state of a board, on a background thread.
+ * <p>The board sends the image of every cell changed by a move, then commits the move.
+ * The heatmap keeps its own copy of the visible state and the probabilities of the frontier between the moves,
+ * so only the frontier components touched by the changed cells are recomputed: a component is a set of covered
+ * cells linked by the numbers they touch, and its probabilities are the fraction of the consistent mine placements
+ * that mine each cell. The other covered cells share the density of the mines that are not expected
+ * in the frontier. The buffers of the computation are allocated once, and only grow with the largest component;
+ * only the published probabilities are a new array for every computation.</p>
+ * <p>Moves committed while a computation runs are coalesced, their changes are all applied by the next computation.
+ * The last completed probabilities stay readable at any time with {@link #getProbabilities()},
+ * so painting never waits for a computation.</p>
+ */
+public class ProbabilityHeatmap {
+
+    /**
+     * The background thread shared by all the heatmaps.
+     * It is a daemon thread so it never keeps the application alive.
+     */
+    private static final ExecutorService WORKER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mines-heatmap");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The maximum number of placements tried for a component,
+     * after which its cells get the local estimate of their numbers instead.
+     */
+    static final int MAX_SEARCH_STEPS = 200_000;
+
+    /**
+     * The number of low bits of a pending change holding the image of the cell, the index of the cell being above.
+     */
+    private static final int IMAGE_BITS = 4;
+
+    /**
+     * The corners of all the cells of the board.
+     */
+    private final Adjacency adjacency;
+
+    /**
+     * The total number of mines of the board.
+     */
+    private final int mines;
+
+    /**
+     * The function called on the worker thread after every completed computation.
+     */
+    private final Runnable listener;
+
+    /**
+     * A flag indicating whether a computation task is scheduled or running.
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * The changes sent since the last computation, each one being the index of a cell shifted
+     * by {@link #IMAGE_BITS} plus its new image. Guarded by this heatmap.
+     */
+    private int[] pendingChanges = new int[64];
+
+    /**
+     * The number of changes sent since the last computation. Guarded by this heatmap.
+     */
+    private int pendingCount;
+
+    /**
+     * A flag indicating whether all the cells have been covered since the last computation. Guarded by this heatmap.
+     */
+    private boolean pendingReset;
+
+    /**
+     * The changes taken by the computation, swapped with {@link #pendingChanges} so that neither is allocated again.
+     */
+    private int[] takenChanges = new int[64];
+
+    /**
+     * The probabilities of the last completed computation, never changed once published.
+     * The cells that are not covered have a negative probability.
+     */
+    private volatile float[] probabilities;
+
+    /**
+     * The number of frontier components computed since the heatmap was created.
+     */
+    private volatile long computedComponents;
+
+    /**
+     * The image of every cell, as of the last computation, only used by the computation.
+     */
+    private final byte[] cells;
+
+    /**
+     * The probability of every frontier cell, negative for the other cells, only used by the computation.
+     */
+    private final float[] frontier;
+
+    /**
+     * The number of covered cells.
+     */
+    private int coveredCells;
+
+    /**
+     * The number of marked cells.
+     */
+    private int markedCells;
+
+    /**
+     * The number of frontier cells.
+     */
+    private int frontierCells;
+
+    /**
+     * The sum of the probabilities of the frontier cells: the number of mines expected in the frontier.
+     */
+    private double expectedMines;
+
+    /**
+     * The stamp of the current computation, marking the cells affected and visited by it.
+     */
+    private int stamp;
+
+    /**
+     * The stamp of the last computation that affected every cell.
+     */
+    private final int[] affectedStamps;
+
+    /**
+     * The cells affected by the changes of the current computation.
+     */
+    private final int[] affected;
+
+    /**
+     * The stamp of the last computation that visited every cell while collecting a component.
+     */
+    private final int[] visitedStamps;
+
+    /**
+     * The covered cells of the component being computed.
+     */
+    private final int[] component;
+
+    /**
+     * The stamp of the component being computed, marking the numbers it touches.
+     */
+    private int componentStamp;
+
+    /**
+     * The stamp of the last component that touched every number.
+     */
+    private final int[] numberStamps;
+
+    /**
+     * The position of every number touched by the component being computed, among its numbers.
+     */
+    private final int[] numberOf;
+
+    /**
+     * The number of mines still needed by every number of the component.
+     */
+    private final int[] needed;
+
+    /**
+     * The number of cells not yet decided around every number of the component.
+     */
+    private final int[] unassigned;
+
+    /**
+     * The position in {@link #cellNumbers} of the numbers touched by every cell of the component,
+     * one more position ending the last cell.
+     */
+    private int[] cellNumberOffsets = new int[64];
+
+    /**
+     * The numbers touched by the cells of the component, cell after cell.
+     */
+    private int[] cellNumbers = new int[64 * MineField.MAX_CORNERS];
+
+    /**
+     * The search enumerating the mine placements of a component.
+     */
+    private final Search search = new Search();
+
+    /**
+     * A buffer receiving the corners of a cell.
+     */
+    private final int[] corners = new int[MineField.MAX_CORNERS];
+
+    /**
+     * A buffer receiving the corners of a number.
+     */
+    private final int[] numberCorners = new int[MineField.MAX_CORNERS];
+
+    /**
+     * Creates a new heatmap for an empty board.
+     *
+     * @param config   the configuration of the board
+     * @param listener the function called on the worker thread when new probabilities are available
+     */
+    public ProbabilityHeatmap(BoardConfig config, Runnable listener) {
+        adjacency = Topology.SQUARE.getAdjacency(config.getRows(), config.getColumns());
+        mines = config.getMines();
+        this.listener = listener;
+        int count = config.getCells();
+        probabilities = new float[count];
+        Arrays.fill(probabilities, (float) mines / count);
+
+        cells = new byte[count];
+        frontier = new float[count];
+        affectedStamps = new int[count];
+        affected = new int[count];
+        visitedStamps = new int[count];
+        component = new int[count];
+        numberStamps = new int[count];
+        numberOf = new int[count];
+        needed = new int[count];
+        unassigned = new int[count];
+        coverAll();
+    }
+
+    /**
+     * Covers all the cells, for a new game. The cells changed afterwards are sent with {@link #cellChanged(int, int)}.
+     */
+    public synchronized void reset() {
+        pendingCount = 0;
+        pendingReset = true;
+    }
+
+    /**
+     * Sends the new image of a cell. It is taken into account by the computation following the next commit.
+     *
+     * @param index      the index of the cell
+     * @param imageIndex the index of the image displayed by the cell, as in {@link Zobrist}
+     */
+    public synchronized void cellChanged(int index, int imageIndex) {
+        if (pendingCount == pendingChanges.length)
+            pendingChanges = Arrays.copyOf(pendingChanges, pendingCount * 2);
+        pendingChanges[pendingCount++] = index << IMAGE_BITS | imageIndex;
+    }
+
+    /**
+     * Commits the changes sent since the last commit. They are computed on the background thread,
+     * with the changes of the moves committed before the computation starts.
+     */
+    public void commit() {
+        if (scheduled.compareAndSet(false, true))
+            WORKER.execute(this::computePending);
+    }
+
+    /**
+     * Gets the probabilities of the last completed computation.
+     * The array is never changed once published, so it can be read while the next computation runs.
+     *
+     * @return the probability that every covered cell is mined, negative for the other cells; the array must not be changed
+     */
+    public float[] getProbabilities() {
+        return probabilities;
+    }
+
+    /**
+     * Gets the number of frontier components computed since the heatmap was created.
+     *
+     * @return the number of computed components
+     */
+    public long getComputedComponents() {
+        return computedComponents;
+    }
+
+    /**
+     * Computes the committed changes until none is left.
+     */
+    private void computePending() {
+        while (true) {
+            if (hasPendingChanges()) {
+                compute();
+                listener.run();
+                continue;
+            }
+
+            scheduled.set(false);
+            // a move committed after the last check but before the flag was cleared is computed now
+            if (!hasPendingChanges() || !scheduled.compareAndSet(false, true))
+                return;
+        }
+    }
+
+    /**
+     * Checks whether changes have been sent since the last computation.
+     *
+     * @return true if there are changes to compute
+     */
+    private synchronized boolean hasPendingChanges() {
+        return pendingCount > 0 || pendingReset;
+    }
+
+    /**
+     * Applies the changes sent since the last computation, recomputes the frontier components they touch,
+     * and publishes the new probabilities.
+     *
+     * @return the probability that every covered cell is mined, negative for the other cells
+     */
+    float[] compute() {
+        int changes;
+        synchronized (this) {
+            int[] taken = pendingChanges;
+            pendingChanges = takenChanges;
+            takenChanges = taken;
+            changes = pendingCount;
+            pendingCount = 0;
+            if (pendingReset)
+                coverAll();
+            pendingReset = false;
+        }
+
+        stamp++;
+        int affectedCount = 0;
+        for (int i = 0; i < changes; i++) {
+            int index = takenChanges[i] >>> IMAGE_BITS;
+            byte imageIndex = (byte) (takenChanges[i] & ((1 << IMAGE_BITS) - 1));
+            if (cells[index] == imageIndex)
+                continue;
+            coveredCells += (imageIndex == Zobrist.COVERED ? 1 : 0) - (cells[index] == Zobrist.COVERED ? 1 : 0);
+            markedCells += (imageIndex == Zobrist.MARKED ? 1 : 0) - (cells[index] == Zobrist.MARKED ? 1 : 0);
+            cells[index] = imageIndex;
+            affectedCount = markAffected(index, affectedCount);
+        }
+
+        for (int i = 0; i < affectedCount; i++) {
+            int cell = affected[i];
+            if (!isFrontier(cell))
+                setFrontier(cell, -1);
+            else if (visitedStamps[cell] != stamp)
+                solveComponent(collectComponent(cell));
+        }
+        return publish();
+    }
+
+    /**
+     * Covers all the cells of the copy of the visible state, whose frontier is then empty.
+     */
+    private void coverAll() {
+        Arrays.fill(cells, (byte) Zobrist.COVERED);
+        Arrays.fill(frontier, -1);
+        coveredCells = cells.length;
+        markedCells = 0;
+        frontierCells = 0;
+        expectedMines = 0;
+    }
+
+    /**
+     * Adds to the affected cells the cells whose component may change when a cell changes:
+     * the cell, its corners and their corners, which share a number with it.
+     *
+     * @param index the index of the changed cell
+     * @param count the number of affected cells
+     * @return the new number of affected cells
+     */
+    private int markAffected(int index, int count) {
+        int[] offsets = adjacency.getOffsets();
+        int[] neighbours = adjacency.getNeighbours();
+        count = addAffected(index, count);
+        for (int p = offsets[index]; p < offsets[index + 1]; p++) {
+            int corner = neighbours[p];
+            count = addAffected(corner, count);
+            for (int q = offsets[corner]; q < offsets[corner + 1]; q++)
+                count = addAffected(neighbours[q], count);
+        }
+        return count;
+    }
+
+    /**
+     * Adds a cell to the affected cells, unless it is already affected.
+     *
+     * @param index the index of the cell
+     * @param count the number of affected cells
+     * @return the new number of affected cells
+     */
+    private int addAffected(int index, int count) {
+        if (affectedStamps[index] == stamp)
+            return count;
+        affectedStamps[index] = stamp;
+        affected[count] = index;
+        return count + 1;
+    }
+
+    /**
+     * Collects the component of a frontier cell, linking the covered corners of its numbers.
+     *
+     * @param index the index of the cell
+     * @return the number of cells of the component, stored in {@link #component}
+     */
+    private int collectComponent(int index) {
+        int size = 0;
+        visitedStamps[index] = stamp;
+        component[size++] = index;
+        for (int i = 0; i < size; i++) {
+            int cornersCount = getCorners(component[i], corners);
+            for (int c = 0; c < cornersCount; c++) {
+                if (!isNumber(cells[corners[c]]))
+                    continue;
+                int numberCount = getCorners(corners[c], numberCorners);
+                for (int n = 0; n < numberCount; n++) {
+                    int other = numberCorners[n];
+                    if (visitedStamps[other] != stamp && cells[other] == Zobrist.COVERED) {
+                        visitedStamps[other] = stamp;
+                        component[size++] = other;
+                    }
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Sets the probability of a cell in the frontier, and updates the mines expected in the frontier.
+     *
+     * @param index       the index of the cell
+     * @param probability the probability that the cell is mined, negative if it is not in the frontier
+     */
+    private void setFrontier(int index, float probability) {
+        if (frontier[index] >= 0) {
+            expectedMines -= frontier[index];
+            frontierCells--;
+        }
+        if (probability >= 0) {
+            expectedMines += probability;
+            frontierCells++;
+        }
+        frontier[index] = probability;
+    }
+
+    /**
+     * Publishes the probabilities of all the cells: the frontier probabilities, and for the other covered cells
+     * the density of the mines that are neither marked nor expected in the frontier.
+     * They are written in a new array, since the event thread may still be painting the previous one.
+     *
+     * @return the published probabilities
+     */
+    private float[] publish() {
+        int interior = coveredCells - frontierCells;
+        float density = interior == 0 ? 0
+                : (float) Math.min(1, Math.max(0, (mines - markedCells - expectedMines) / interior));
+        float[] result = new float[cells.length];
+        for (int index = 0; index < cells.length; index++) {
+            if (frontier[index] >= 0)
+                result[index] = frontier[index];
+            else
+                result[index] = cells[index] == Zobrist.COVERED ? density : -1;
+        }
+        probabilities = result;
+        return result;
+    }
+
+    /**
+     * Computes the probabilities of the cells of the collected component by enumerating the mine placements
+     * consistent with the numbers they touch, the marked cells being counted as mines.
+     * If the component has too many placements, every cell gets the highest local estimate of its numbers.
+     *
+     * @param size the number of cells of the component
+     */
+    private void solveComponent(int size) {
+        computedComponents++;
+
+        // the numbers touching the component, with the mines they still need
+        componentStamp++;
+        cellNumberOffsets = ensureCapacity(cellNumberOffsets, size + 1);
+        cellNumbers = ensureCapacity(cellNumbers, size * MineField.MAX_CORNERS);
+        int numbers = 0;
+        int touched = 0;
+        for (int i = 0; i < size; i++) {
+            cellNumberOffsets[i] = touched;
+            int cornersCount = getCorners(component[i], corners);
+            for (int c = 0; c < cornersCount; c++) {
+                int number = corners[c];
+                if (!isNumber(cells[number]))
+                    continue;
+                if (numberStamps[number] != componentStamp) {
+                    numberStamps[number] = componentStamp;
+                    numberOf[number] = numbers;
+                    needed[numbers] = cells[number] - countCorners(number, Zobrist.MARKED);
+                    unassigned[numbers] = countCorners(number, Zobrist.COVERED);
+                    numbers++;
+                }
+                cellNumbers[touched++] = numberOf[number];
+            }
+        }
+        cellNumberOffsets[size] = touched;
+
+        search.start(size);
+        if (search.solutions > 0 && search.steps <= MAX_SEARCH_STEPS) {
+            for (int i = 0; i < size; i++)
+                setFrontier(component[i], (float) ((double) search.minedCounts[i] / search.solutions));
+            return;
+        }
+
+        // too many placements, or inconsistent marks: fall back to the most crowded number of every cell
+        for (int i = 0; i < size; i++) {
+            float risk = 0;
+            int cornersCount = getCorners(component[i], corners);
+            for (int c = 0; c < cornersCount; c++) {
+                int number = corners[c];
+                if (isNumber(cells[number])) {
+                    int left = cells[number] - countCorners(number, Zobrist.MARKED);
+                    risk = Math.max(risk, (float) left / countCorners(number, Zobrist.COVERED));
+                }
+            }
+            setFrontier(component[i], Math.min(1, Math.max(0, risk)));
+        }
+    }
+
+    /**
+     * Checks whether a cell is covered and touches a revealed number.
+     *
+     * @param index the index of the cell
+     * @return true if the cell is in the frontier
+     */
+    private boolean isFrontier(int index) {
+        if (cells[index] != Zobrist.COVERED)
+            return false;
+        int cornersCount = getCorners(index, corners);
+        for (int c = 0; c < cornersCount; c++) {
+            if (isNumber(cells[corners[c]]))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether an image shows a revealed cell touching at least one mine.
+     *
+     * @param imageIndex the index of the image
+     * @return true if the image is a number from 1 to 8
+     */
+    private static boolean isNumber(byte imageIndex) {
+        return imageIndex > 0 && imageIndex < Zobrist.MINE;
+    }
+
+    /**
+     * Counts the corners of a cell displaying an image.
+     *
+     * @param index      the index of the cell
+     * @param imageIndex the index of the image
+     * @return the number of corners displaying the image
+     */
+    private int countCorners(int index, int imageIndex) {
+        int[] offsets = adjacency.getOffsets();
+        int[] neighbours = adjacency.getNeighbours();
+        int count = 0;
+        for (int p = offsets[index]; p < offsets[index + 1]; p++)
+            if (cells[neighbours[p]] == imageIndex)
+                count++;
+        return count;
+    }
+
+    /**
+     * Writes the indices of the corner cells of a cell in the given array.
+     *
+     * @param index   the index of the cell
+     * @param corners the array receiving the indices
+     * @return the number of corner cells
+     */
+    private int getCorners(int index, int[] corners) {
+        return adjacency.getNeighbours(index, corners);
+    }
+
+    /**
+     * Returns an array holding at least the given number of values, the given one if it is large enough.
+     * The values of a new array are not copied.
+     *
+     * @param array  the array
+     * @param length the number of values needed
+     * @return the array, or a new array twice as large at least
+     */
+    private static int[] ensureCapacity(int[] array, int length) {
+        return array.length >= length ? array : new int[Math.max(length, array.length * 2)];
+    }
+
+    /**
+     * The backtracking search enumerating the mine placements of the collected component,
+     * reused for all the components.
+     */
+    private final class Search {
+
+        /**
+         * The number of consistent placements mining every cell.
+         */
+        private long[] minedCounts = new long[64];
+
+        /**
+         * The cells mined by the current placement.
+         */
+        private boolean[] mined = new boolean[64];
+
+        /**
+         * The number of cells of the component.
+         */
+        private int size;
+
+        /**
+         * The number of consistent placements.
+         */
+        private long solutions;
+
+        /**
+         * The number of decisions tried so far.
+         */
+        private long steps;
+
+        /**
+         * Enumerates the placements of a component.
+         *
+         * @param size the number of cells of the component
+         */
+        private void start(int size) {
+            this.size = size;
+            if (minedCounts.length < size) {
+                minedCounts = new long[Math.max(size, minedCounts.length * 2)];
+                mined = new boolean[minedCounts.length];
+            } else {
+                Arrays.fill(minedCounts, 0, size, 0);
+            }
+            solutions = 0;
+            steps = 0;
+            run(0);
+        }
+
+        /**
+         * Decides the cells of the component from the given one, recursively.
+         *
+         * @param cell the position of the next cell to decide
+         */
+        private void run(int cell) {
+            if (++steps > MAX_SEARCH_STEPS)
+                return;
+            if (cell == size) {
+                solutions++;
+                for (int i = 0; i < size; i++)
+                    if (mined[i])
+                        minedCounts[i]++;
+                return;
+            }
+
+            int from = cellNumberOffsets[cell];
+            int to = cellNumberOffsets[cell + 1];
+            for (int p = from; p < to; p++)
+                unassigned[cellNumbers[p]]--;
+
+            // the cell is safe if no number would need more mines than cells left
+            if (canLeaveSafe(from, to)) {
+                mined[cell] = false;
+                run(cell + 1);
+            }
+            if (canMine(from, to)) {
+                mined[cell] = true;
+                for (int p = from; p < to; p++)
+                    needed[cellNumbers[p]]--;
+                run(cell + 1);
+                for (int p = from; p < to; p++)
+                    needed[cellNumbers[p]]++;
+                mined[cell] = false;
+            }
+
+            for (int p = from; p < to; p++)
+                unassigned[cellNumbers[p]]++;
+        }
+
+        /**
+         * Checks whether the numbers of a cell can still get their mines if the cell is safe.
+         *
+         * @param from the position of the first number of the cell in {@link #cellNumbers}
+         * @param to   the position after its last number
+         * @return true if the cell can be left safe
+         */
+        private boolean canLeaveSafe(int from, int to) {
+            for (int p = from; p < to; p++)
+                if (needed[cellNumbers[p]] > unassigned[cellNumbers[p]])
+                    return false;
+            return true;
+        }
+
+        /**
+         * Checks whether the numbers of a cell still need a mine,
+         * and can get the rest of their mines from their cells left if the cell is mined.
+         *
+         * @param from the position of the first number of the cell in {@link #cellNumbers}
+         * @param to   the position after its last number
+         * @return true if the cell can be mined
+         */
+        private boolean canMine(int from, int to) {
+            for (int p = from; p < to; p++) {
+                int number = cellNumbers[p];
+                if (needed[number] <= 0 || needed[number] - 1 > unassigned[number])
+                    return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package mines;
+
+import java.util.Random;
+
+/**
+ * The RandomStrategy class is a bot revealing covered cells at random.
+ * It is the baseline against which the other strategies are compared.
+ */
+public class RandomStrategy implements Strategy {
+
+    @Override
+    public int nextAction(VisibleBoard board, Random random) {
+        return guess(board, random);
+    }
+
+    /**
+     * Chooses a random covered cell to reveal, without allocating.
+     *
+     * @param board  the visible part of the board
+     * @param random the random number generator used to choose the cell
+     * @return the action revealing the chosen cell, or {@link Action#NONE} if no cell is covered
+     */
+    static int guess(VisibleBoard board, Random random) {
+        int covered = board.getCellCount() - board.getRevealedCells() - board.getFlaggedCells();
+        if (covered <= 0)
+            return Action.NONE;
+
+        int target = random.nextInt(covered);
+        for (int index = 0; index < board.getCellCount(); index++) {
+            if (board.getState(index) == MineField.COVERED && target-- == 0)
+                return Action.reveal(index);
+        }
+        return Action.NONE;
+    }
+}
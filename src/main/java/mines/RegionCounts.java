@@ -0,0 +1,225 @@
+package mines;
+
+import java.util.Arrays;
+
+/**
+ * The RegionCounts class counts the mines, the flags and the revealed or covered cells of any rectangle
+ * of a board, without scanning its cells, for the analytics, the region hints and the density displays.
+ * <p>The mines do not move once they are placed, so they are counted by a summed-area table built once,
+ * which answers in constant time. The flags and the revealed cells change with every move, so they are counted
+ * by two dimensional Fenwick trees, which are updated and queried in O(log rows &times; log columns),
+ * where a summed-area table would have to be rebuilt after every change.</p>
+ * The rectangles include their first row and column, and exclude their last ones.
+ */
+public class RegionCounts {
+
+    /**
+     * The number of rows of the board.
+     */
+    private final int rows;
+
+    /**
+     * The number of columns of the board.
+     */
+    private final int columns;
+
+    /**
+     * The summed-area table of the mines: the number of mines above and to the left of every corner,
+     * {@code columns + 1} corners per row.
+     */
+    private final int[] mines;
+
+    /**
+     * The Fenwick tree of the flags, indexed from 1 in both dimensions, {@code columns + 1} values per row.
+     */
+    private final int[] flags;
+
+    /**
+     * The Fenwick tree of the revealed cells, laid out like {@link #flags}.
+     */
+    private final int[] revealed;
+
+    /**
+     * Creates the counts of a board without mines, whose cells are all covered.
+     *
+     * @param config the configuration of the board
+     */
+    public RegionCounts(BoardConfig config) {
+        rows = config.getRows();
+        columns = config.getColumns();
+        mines = new int[(rows + 1) * (columns + 1)];
+        flags = new int[mines.length];
+        revealed = new int[mines.length];
+    }
+
+    /**
+     * Covers all the cells and places the mines of a new game.
+     *
+     * @param minePositions the indices of the mined cells, possibly none
+     */
+    public void reset(int[] minePositions) {
+        Arrays.fill(flags, 0);
+        Arrays.fill(revealed, 0);
+        setMines(minePositions);
+    }
+
+    /**
+     * Places the mines, and builds their summed-area table in a single pass over the board.
+     *
+     * @param minePositions the indices of the mined cells
+     */
+    public void setMines(int[] minePositions) {
+        int stride = columns + 1;
+        Arrays.fill(mines, 0);
+        for (int position : minePositions)
+            mines[(position / columns + 1) * stride + position % columns + 1] = 1;
+        for (int row = 1; row <= rows; row++) {
+            int rowSum = 0;
+            for (int column = 1; column <= columns; column++) {
+                int corner = row * stride + column;
+                rowSum += mines[corner];
+                mines[corner] = mines[corner - stride] + rowSum;
+            }
+        }
+    }
+
+    /**
+     * Updates the counts when a cell changes its image.
+     *
+     * @param index    the index of the cell
+     * @param oldImage the index of the previous image of the cell, as in {@link Zobrist}
+     * @param newImage the index of the new image of the cell
+     */
+    public void cellChanged(int index, int oldImage, int newImage) {
+        int row = index / columns;
+        int column = index % columns;
+        int flagChange = (isFlag(newImage) ? 1 : 0) - (isFlag(oldImage) ? 1 : 0);
+        if (flagChange != 0)
+            add(flags, row, column, flagChange);
+        int revealedChange = (isRevealed(newImage) ? 1 : 0) - (isRevealed(oldImage) ? 1 : 0);
+        if (revealedChange != 0)
+            add(revealed, row, column, revealedChange);
+    }
+
+    /**
+     * Counts the mines of a rectangle, in constant time.
+     *
+     * @param fromRow    the first row of the rectangle
+     * @param fromColumn the first column of the rectangle
+     * @param toRow      the row after the last one of the rectangle
+     * @param toColumn   the column after the last one of the rectangle
+     * @return the number of mined cells of the rectangle
+     */
+    public int countMines(int fromRow, int fromColumn, int toRow, int toColumn) {
+        int stride = columns + 1;
+        return mines[toRow * stride + toColumn] - mines[fromRow * stride + toColumn]
+                - mines[toRow * stride + fromColumn] + mines[fromRow * stride + fromColumn];
+    }
+
+    /**
+     * Counts the flagged cells of a rectangle, correctly or wrongly marked.
+     *
+     * @param fromRow    the first row of the rectangle
+     * @param fromColumn the first column of the rectangle
+     * @param toRow      the row after the last one of the rectangle
+     * @param toColumn   the column after the last one of the rectangle
+     * @return the number of flagged cells of the rectangle
+     */
+    public int countFlags(int fromRow, int fromColumn, int toRow, int toColumn) {
+        return count(flags, fromRow, fromColumn, toRow, toColumn);
+    }
+
+    /**
+     * Counts the revealed cells of a rectangle.
+     *
+     * @param fromRow    the first row of the rectangle
+     * @param fromColumn the first column of the rectangle
+     * @param toRow      the row after the last one of the rectangle
+     * @param toColumn   the column after the last one of the rectangle
+     * @return the number of revealed cells of the rectangle
+     */
+    public int countRevealed(int fromRow, int fromColumn, int toRow, int toColumn) {
+        return count(revealed, fromRow, fromColumn, toRow, toColumn);
+    }
+
+    /**
+     * Counts the covered cells of a rectangle, the flagged cells excluded.
+     *
+     * @param fromRow    the first row of the rectangle
+     * @param fromColumn the first column of the rectangle
+     * @param toRow      the row after the last one of the rectangle
+     * @param toColumn   the column after the last one of the rectangle
+     * @return the number of covered cells of the rectangle
+     */
+    public int countCovered(int fromRow, int fromColumn, int toRow, int toColumn) {
+        return (toRow - fromRow) * (toColumn - fromColumn) - countFlags(fromRow, fromColumn, toRow, toColumn)
+                - countRevealed(fromRow, fromColumn, toRow, toColumn);
+    }
+
+    /**
+     * Checks whether an image shows a flag.
+     *
+     * @param imageIndex the index of the image, as in {@link Zobrist}
+     * @return true for a correct or a wrong mark
+     */
+    private static boolean isFlag(int imageIndex) {
+        return imageIndex == Zobrist.MARKED || imageIndex == Zobrist.WRONG_MARK;
+    }
+
+    /**
+     * Checks whether an image shows a revealed cell.
+     *
+     * @param imageIndex the index of the image, as in {@link Zobrist}
+     * @return true for a number or a mine
+     */
+    private static boolean isRevealed(int imageIndex) {
+        return imageIndex <= Zobrist.MINE;
+    }
+
+    /**
+     * Adds a value to a cell of a Fenwick tree.
+     *
+     * @param tree   the tree
+     * @param row    the row of the cell
+     * @param column the column of the cell
+     * @param value  the value to add
+     */
+    private void add(int[] tree, int row, int column, int value) {
+        int stride = columns + 1;
+        for (int i = row + 1; i <= rows; i += i & -i)
+            for (int j = column + 1; j <= columns; j += j & -j)
+                tree[i * stride + j] += value;
+    }
+
+    /**
+     * Sums the values of a Fenwick tree above and to the left of a corner.
+     *
+     * @param tree   the tree
+     * @param row    the row of the corner, the rows before it being summed
+     * @param column the column of the corner, the columns before it being summed
+     * @return the sum
+     */
+    private int prefixSum(int[] tree, int row, int column) {
+        int stride = columns + 1;
+        int sum = 0;
+        for (int i = row; i > 0; i -= i & -i)
+            for (int j = column; j > 0; j -= j & -j)
+                sum += tree[i * stride + j];
+        return sum;
+    }
+
+    /**
+     * Sums the values of a Fenwick tree in a rectangle.
+     *
+     * @param tree       the tree
+     * @param fromRow    the first row of the rectangle
+     * @param fromColumn the first column of the rectangle
+     * @param toRow      the row after the last one of the rectangle
+     * @param toColumn   the column after the last one of the rectangle
+     * @return the sum
+     */
+    private int count(int[] tree, int fromRow, int fromColumn, int toRow, int toColumn) {
+        return prefixSum(tree, toRow, toColumn) - prefixSum(tree, fromRow, toColumn)
+                - prefixSum(tree, toRow, fromColumn) + prefixSum(tree, fromRow, fromColumn);
+    }
+}
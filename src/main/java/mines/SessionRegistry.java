@@ -0,0 +1,481 @@
+package mines;
+
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * The SessionRegistry class hosts the games of a server, keeping only a bounded working set in memory.
+ * The sessions are spread over shards, each one an access ordered map evicting its least recently
+ * used session when it is full, and the sessions idle for too long are evicted when their shard is used.
+ * An evicted session is written to a small file, and read back the next time it is played.
+ * <p>Nothing is kept in memory for the evicted sessions, so the memory used by the registry does not grow
+ * with the total number of sessions. The files are spread over two levels of directories named after the
+ * low bytes of the session identifiers, so that no directory holds more than a few files per 65536 sessions.</p>
+ * <p>Every shard is guarded by its own lock, held while a session is loaded, played or evicted,
+ * so a session cannot be played while it is being written, and the shards are used concurrently.</p>
+ */
+public class SessionRegistry implements Closeable {
+
+    /**
+     * The version of the format of the session files.
+     */
+    private static final byte FORMAT_VERSION = 2;
+
+    /**
+     * The suffix of the session files.
+     */
+    private static final String SUFFIX = ".session";
+
+    /**
+     * The directory holding the evicted sessions.
+     */
+    @Getter
+    private final Path directory;
+
+    /**
+     * The shards of the working set.
+     */
+    private final Shard[] shards;
+
+    /**
+     * The time in nanoseconds after which an unused session is evicted.
+     */
+    private final long idleNanos;
+
+    /**
+     * The identifier of the next session.
+     */
+    private final AtomicLong nextId = new AtomicLong();
+
+    /**
+     * The number of sessions written to disk.
+     */
+    private final LongAdder spills = new LongAdder();
+
+    /**
+     * The number of sessions read from disk.
+     */
+    private final LongAdder rehydrations = new LongAdder();
+
+    /**
+     * Creates a new registry.
+     *
+     * @param directory   the directory holding the evicted sessions, created if needed
+     * @param maxResident the maximum number of sessions kept in memory
+     * @param idleNanos   the time in nanoseconds after which an unused session is evicted
+     * @param shardCount  the number of shards, which can be used concurrently
+     */
+    public SessionRegistry(Path directory, int maxResident, long idleNanos, int shardCount) {
+        if (shardCount <= 0 || maxResident < shardCount)
+            throw new IllegalArgumentException("Every shard must hold at least one session");
+        if (idleNanos <= 0)
+            throw new IllegalArgumentException("The idle time must be positive");
+
+        this.directory = directory;
+        this.idleNanos = idleNanos;
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++)
+            shards[i] = new Shard(maxResident / shardCount + (i < maxResident % shardCount ? 1 : 0));
+        try {
+            Files.createDirectories(directory);
+            // the sessions of a previous run are kept, and the new identifiers follow theirs
+            nextId.set(findNextId());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Creates a new session and places its mines, keeping the start cell and its corners free of mines.
+     *
+     * @param config     the configuration of the board
+     * @param seed       the seed of the mines
+     * @param startIndex the index of the cell the game is started from
+     * @return the identifier of the session
+     */
+    public long create(BoardConfig config, long seed, int startIndex) {
+        MineField field = new MineField(config);
+        field.placeMines(new Random(seed), startIndex);
+
+        long id = nextId.getAndIncrement();
+        Shard shard = shardOf(id);
+        synchronized (shard) {
+            shard.put(id, new Session(field));
+        }
+        return id;
+    }
+
+    /**
+     * Plays an action in a session, reading the session from disk if it has been evicted.
+     *
+     * @param id     the identifier of the session
+     * @param action the action encoded by the {@link Action} class
+     * @return the number of cells whose state changed
+     * @throws NoSuchElementException if there is no such session
+     */
+    public int play(long id, int action) {
+        return query(id, field -> field.apply(action));
+    }
+
+    /**
+     * Calls a function with the field of a session, reading the session from disk if it has been evicted.
+     * The shard of the session is locked during the call, which must not keep the field.
+     *
+     * @param id       the identifier of the session
+     * @param function the function
+     * @param <T>      the type of the result of the function
+     * @return the result of the function
+     * @throws NoSuchElementException if there is no such session
+     */
+    public <T> T query(long id, Function<? super MineField, T> function) {
+        Shard shard = shardOf(id);
+        synchronized (shard) {
+            Session session = shard.sessions.get(id);
+            if (session == null) {
+                session = rehydrate(shard, id);
+                shard.put(id, session);
+            }
+            session.lastAccess = System.nanoTime();
+            return function.apply(session.field);
+        }
+    }
+
+    /**
+     * Removes a session, from memory and from disk.
+     *
+     * @param id the identifier of the session
+     * @return true if the session existed
+     */
+    public boolean remove(long id) {
+        Shard shard = shardOf(id);
+        synchronized (shard) {
+            boolean resident = shard.sessions.remove(id) != null;
+            try {
+                return Files.deleteIfExists(pathOf(id)) || resident;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Checks whether a session is in memory.
+     *
+     * @param id the identifier of the session
+     * @return true if the session is in memory
+     */
+    public boolean isResident(long id) {
+        Shard shard = shardOf(id);
+        synchronized (shard) {
+            return shard.sessions.containsKey(id);
+        }
+    }
+
+    /**
+     * Gets the number of sessions in memory.
+     *
+     * @return the number of resident sessions
+     */
+    public int getResidentCount() {
+        int count = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                count += shard.sessions.size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of sessions written to disk.
+     *
+     * @return the number of evictions
+     */
+    public long getSpills() {
+        return spills.sum();
+    }
+
+    /**
+     * Gets the number of sessions read from disk.
+     *
+     * @return the number of rehydrations
+     */
+    public long getRehydrations() {
+        return rehydrations.sum();
+    }
+
+    /**
+     * Gets the durations of the rehydrations, from the read of the file to the rebuilt field.
+     *
+     * @return a histogram merging the durations of all the shards
+     */
+    public LatencyHistogram getRehydrationLatency() {
+        LatencyHistogram latency = new LatencyHistogram();
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                latency.merge(shard.rehydrationLatency);
+            }
+        }
+        return latency;
+    }
+
+    /**
+     * Evicts the sessions of all the shards that have not been used for the idle time.
+     * The shards also evict their idle sessions whenever they are used.
+     */
+    public void evictIdle() {
+        long now = System.nanoTime();
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                shard.evictIdle(now);
+            }
+        }
+    }
+
+    /**
+     * Writes all the sessions in memory to disk, so that they survive a restart.
+     */
+    @Override
+    public void close() {
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                for (Map.Entry<Long, Session> entry : shard.sessions.entrySet())
+                    spill(entry.getKey(), entry.getValue());
+                shard.sessions.clear();
+            }
+        }
+    }
+
+    /**
+     * Gets the shard of a session.
+     *
+     * @param id the identifier of the session
+     * @return the shard holding the session when it is in memory
+     */
+    private Shard shardOf(long id) {
+        return shards[(int) Long.remainderUnsigned(id * 0x9E3779B97F4A7C15L >>> 32, shards.length)];
+    }
+
+    /**
+     * Gets the file of a session.
+     *
+     * @param id the identifier of the session
+     * @return the path of the file holding the session when it is evicted
+     */
+    Path pathOf(long id) {
+        return directory.resolve(String.format("%02x", id & 0xFF))
+                .resolve(String.format("%02x", (id >>> 8) & 0xFF))
+                .resolve(id + SUFFIX);
+    }
+
+    /**
+     * Writes a session to its file, replacing the previous version atomically.
+     *
+     * @param id      the identifier of the session
+     * @param session the session
+     */
+    private void spill(long id, Session session) {
+        MineField field = session.field;
+        ByteBuffer buffer = ByteBuffer.allocate(1 + field.getMaxSerializedSize());
+        buffer.put(FORMAT_VERSION);
+        field.writeTo(buffer);
+
+        Path path = pathOf(id);
+        try {
+            Files.createDirectories(path.getParent());
+            Path temporary = path.resolveSibling(id + ".tmp");
+            Files.write(temporary, Arrays.copyOf(buffer.array(), buffer.position()));
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        spills.increment();
+    }
+
+    /**
+     * Reads an evicted session from its file.
+     *
+     * @param shard the shard of the session, recording the latency
+     * @param id    the identifier of the session
+     * @return the session
+     * @throws NoSuchElementException if there is no such session
+     */
+    private Session rehydrate(Shard shard, long id) {
+        long start = System.nanoTime();
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(pathOf(id));
+        } catch (NoSuchFileException e) {
+            throw new NoSuchElementException("No session " + id);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (buffer.get() != FORMAT_VERSION)
+            throw new IllegalStateException("Unknown format of session " + id);
+        Session session = new Session(MineField.readFrom(buffer));
+        shard.rehydrationLatency.record(System.nanoTime() - start);
+        rehydrations.increment();
+        return session;
+    }
+
+    /**
+     * Finds the identifier following those of the sessions already on disk.
+     *
+     * @return the identifier of the next session
+     * @throws IOException if the directory cannot be read
+     */
+    private long findNextId() throws IOException {
+        long next = 0;
+        try (Stream<Path> files = Files.walk(directory, 3)) {
+            Iterator<Path> iterator = files.iterator();
+            while (iterator.hasNext()) {
+                String name = iterator.next().getFileName().toString();
+                if (name.endsWith(SUFFIX))
+                    next = Math.max(next, Long.parseLong(name.substring(0, name.length() - SUFFIX.length())) + 1);
+            }
+        }
+        return next;
+    }
+
+    /**
+     * The Session class holds a game in memory.
+     */
+    private static final class Session {
+
+        /**
+         * The field of the game.
+         */
+        private final MineField field;
+
+        /**
+         * The time in nanoseconds of the last use of the session.
+         */
+        private long lastAccess = System.nanoTime();
+
+        private Session(MineField field) {
+            this.field = field;
+        }
+    }
+
+    /**
+     * The Shard class holds a part of the working set, in the order of the last use of the sessions.
+     */
+    private final class Shard {
+
+        /**
+         * The sessions in memory, from the least to the most recently used.
+         */
+        private final LinkedHashMap<Long, Session> sessions = new LinkedHashMap<>(16, 0.75f, true);
+
+        /**
+         * The maximum number of sessions of the shard.
+         */
+        private final int capacity;
+
+        /**
+         * The durations of the rehydrations of the shard.
+         */
+        private final LatencyHistogram rehydrationLatency = new LatencyHistogram();
+
+        private Shard(int capacity) {
+            this.capacity = capacity;
+        }
+
+        /**
+         * Adds a session, evicting the idle sessions and the least recently used ones to make room for it.
+         *
+         * @param id      the identifier of the session
+         * @param session the session
+         */
+        private void put(long id, Session session) {
+            evictIdle(System.nanoTime());
+            Iterator<Map.Entry<Long, Session>> iterator = sessions.entrySet().iterator();
+            while (sessions.size() >= capacity) {
+                Map.Entry<Long, Session> eldest = iterator.next();
+                spill(eldest.getKey(), eldest.getValue());
+                iterator.remove();
+            }
+            sessions.put(id, session);
+        }
+
+        /**
+         * Evicts the sessions that have not been used for the idle time.
+         * They are the first ones of the access order.
+         *
+         * @param now the current time in nanoseconds
+         */
+        private void evictIdle(long now) {
+            Iterator<Map.Entry<Long, Session>> iterator = sessions.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Long, Session> eldest = iterator.next();
+                if (now - eldest.getValue().lastAccess < idleNanos)
+                    return;
+                spill(eldest.getKey(), eldest.getValue());
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Plays random games on many sessions from the command line, with a small working set,
+     * and prints the number of evictions and the percentiles of the rehydration latency.
+     * The arguments are the directory of the sessions, then optionally the number of sessions,
+     * the number of sessions kept in memory and the number of moves.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: SessionRegistry directory [sessions] [resident] [moves]");
+            return;
+        }
+
+        int sessionCount = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int resident = args.length > 2 ? Integer.parseInt(args[2]) : 1_000;
+        int moves = args.length > 3 ? Integer.parseInt(args[3]) : 100_000;
+        BoardConfig config = BoardConfig.EXPERT;
+        Random random = new Random();
+
+        try (SessionRegistry registry = new SessionRegistry(Path.of(args[0]), resident, TimeUnit.MINUTES.toNanos(5),
+                Runtime.getRuntime().availableProcessors())) {
+            long first = -1;
+            for (int i = 0; i < sessionCount; i++) {
+                long id = registry.create(config, random.nextLong(), config.getCells() / 2);
+                if (first < 0)
+                    first = id;
+            }
+            for (int i = 0; i < moves; i++) {
+                long id = first + random.nextInt(sessionCount);
+                int cell = random.nextInt(config.getCells());
+                registry.play(id, random.nextInt(4) == 0 ? Action.flag(cell) : Action.reveal(cell));
+            }
+
+            LatencyHistogram latency = registry.getRehydrationLatency();
+            System.out.println(sessionCount + " sessions, " + registry.getResidentCount() + " in memory, "
+                    + registry.getSpills() + " spills, " + registry.getRehydrations() + " rehydrations");
+            System.out.printf("Rehydration latency: p50 %.1f us, p99 %.1f us, max %.1f us%n",
+                    latency.getPercentile(50) / 1e3, latency.getPercentile(99) / 1e3, latency.getMax() / 1e3);
+        }
+    }
+}
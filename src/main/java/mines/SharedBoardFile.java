@@ -0,0 +1,190 @@
+package mines;
+
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The SharedBoardFile class publishes the visible state of a board in a memory-mapped file,
+ * which the viewer processes of the same machine map read-only with a {@link SharedBoardViewer}.
+ * <p>The file holds a header and the image of every cell in one byte, indexed as in {@link Zobrist}.
+ * The changes are written straight into the mapping, so publishing a move neither copies nor serialises the board,
+ * and the viewers see it as soon as the game process writes it.</p>
+ * <p>The updates are guarded by a sequence counter, as a seqlock: the counter is odd while a move is being written
+ * and is incremented again, with release semantics, once the move is complete. A viewer reads the counter,
+ * the cells, then the counter again, and retries if it was odd or changed, so it never sees half a move
+ * and never blocks the game.</p>
+ * The file has a single writer, the game process; its methods must be called from the thread playing the game.
+ */
+public class SharedBoardFile implements Closeable {
+
+    /**
+     * The first four bytes of a board file.
+     */
+    static final int MAGIC = 0x4D494E45;
+
+    /**
+     * The version of the layout of the file.
+     */
+    static final int FORMAT_VERSION = 1;
+
+    /**
+     * The position of the magic number.
+     */
+    static final int MAGIC_OFFSET = 0;
+
+    /**
+     * The position of the version of the layout.
+     */
+    static final int VERSION_OFFSET = 4;
+
+    /**
+     * The position of the sequence counter, aligned on eight bytes for the atomic accesses.
+     */
+    static final int SEQUENCE_OFFSET = 8;
+
+    /**
+     * The position of the number of rows.
+     */
+    static final int ROWS_OFFSET = 16;
+
+    /**
+     * The position of the number of columns.
+     */
+    static final int COLUMNS_OFFSET = 20;
+
+    /**
+     * The position of the number of mines.
+     */
+    static final int MINES_OFFSET = 24;
+
+    /**
+     * The position of the number of mines left to mark.
+     */
+    static final int MINES_LEFT_OFFSET = 28;
+
+    /**
+     * The position of the status of the game, as in {@link SpectatorStream}.
+     */
+    static final int STATUS_OFFSET = 32;
+
+    /**
+     * The position of the image of the first cell.
+     */
+    static final int CELLS_OFFSET = 64;
+
+    /**
+     * The handle reading and writing the sequence counter with memory ordering.
+     */
+    static final VarHandle SEQUENCE = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    /**
+     * The mapping of the file.
+     */
+    private final MappedByteBuffer buffer;
+
+    /**
+     * The configuration of the board.
+     */
+    @Getter
+    private final BoardConfig config;
+
+    /**
+     * The value of the sequence counter, odd while a move is being written.
+     */
+    @Getter
+    private long sequence;
+
+    /**
+     * Creates a board file, or takes over the file of a previous game, with all the cells covered.
+     * An existing file is not truncated, which would crash the viewers mapping it, and its sequence counter
+     * keeps increasing, so the viewers see the new game as one more move.
+     *
+     * @param path   the path of the file
+     * @param config the configuration of the board
+     */
+    public SharedBoardFile(Path path, BoardConfig config) {
+        this.config = config;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            // the mapping stays valid once the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, CELLS_OFFSET + config.getCells());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.order(ByteOrder.nativeOrder());
+        sequence = (long) SEQUENCE.getAcquire(buffer, SEQUENCE_OFFSET);
+
+        beginUpdate();
+        buffer.putInt(VERSION_OFFSET, FORMAT_VERSION);
+        buffer.putInt(ROWS_OFFSET, config.getRows());
+        buffer.putInt(COLUMNS_OFFSET, config.getColumns());
+        buffer.putInt(MINES_OFFSET, config.getMines());
+        for (int i = 0; i < config.getCells(); i++)
+            buffer.put(CELLS_OFFSET + i, (byte) Zobrist.COVERED);
+        publish(config.getMines(), SpectatorStream.IN_GAME);
+        // the magic number is written last, so a viewer never maps a file that is not initialized
+        VarHandle.storeStoreFence();
+        buffer.putInt(MAGIC_OFFSET, MAGIC);
+    }
+
+    /**
+     * Writes the new image of a cell. The change is visible once the move is published.
+     *
+     * @param index      the index of the cell
+     * @param imageIndex the index of the new image of the cell, as in {@link Zobrist}
+     */
+    public void cellChanged(int index, int imageIndex) {
+        beginUpdate();
+        buffer.put(CELLS_OFFSET + index, (byte) imageIndex);
+    }
+
+    /**
+     * Publishes the changes written since the last move, with the counter and the status of the game.
+     *
+     * @param minesLeft the number of mines left to mark
+     * @param status    the status of the game: {@link SpectatorStream#IN_GAME}, {@link SpectatorStream#WON}
+     *                  or {@link SpectatorStream#LOST}
+     */
+    public void publish(int minesLeft, byte status) {
+        if (buffer.getInt(MINES_LEFT_OFFSET) != minesLeft || buffer.getInt(STATUS_OFFSET) != status) {
+            beginUpdate();
+            buffer.putInt(MINES_LEFT_OFFSET, minesLeft);
+            buffer.putInt(STATUS_OFFSET, status);
+        }
+        if ((sequence & 1) == 0)
+            return;
+        sequence++;
+        SEQUENCE.setRelease(buffer, SEQUENCE_OFFSET, sequence);
+    }
+
+    /**
+     * Makes the sequence counter odd before the first change of a move,
+     * so that the viewers reading the cells meanwhile retry.
+     */
+    private void beginUpdate() {
+        if ((sequence & 1) != 0)
+            return;
+        sequence++;
+        SEQUENCE.setOpaque(buffer, SEQUENCE_OFFSET, sequence);
+        // the cells cannot be written before the counter
+        VarHandle.storeStoreFence();
+    }
+
+    /**
+     * Writes the mapping to the disk. The viewers do not need it, they share the pages of the mapping.
+     */
+    @Override
+    public void close() {
+        buffer.force();
+    }
+}
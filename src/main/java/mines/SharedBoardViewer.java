@@ -0,0 +1,189 @@
+package mines;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The SharedBoardViewer class reads a board published by a {@link SharedBoardFile}, usually in another process.
+ * The file is mapped read-only, and the cells are read straight from the mapping.
+ * <p>A consistent state is read with {@link #read(byte[])}, which retries while the game is writing a move,
+ * and the viewers waiting for the next move poll the sequence counter with {@link #awaitChange(long, long)},
+ * spinning for a few microseconds before sleeping, since the processes share no lock.</p>
+ * A viewer is not thread safe, each thread must use its own instance.
+ */
+public class SharedBoardViewer {
+
+    /**
+     * The number of polls spent spinning before sleeping between the polls.
+     */
+    private static final int SPINS = 1_000;
+
+    /**
+     * The longest time in nanoseconds slept between two polls.
+     */
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * The mapping of the file.
+     */
+    private final MappedByteBuffer buffer;
+
+    /**
+     * A view of the mapping whose position is moved to copy the cells.
+     */
+    private final ByteBuffer cellsView;
+
+    /**
+     * The number of rows of the board in the last consistent read.
+     */
+    @Getter
+    private int rows;
+
+    /**
+     * The number of columns of the board in the last consistent read.
+     */
+    @Getter
+    private int columns;
+
+    /**
+     * The number of mines of the board in the last consistent read.
+     */
+    @Getter
+    private int mines;
+
+    /**
+     * The number of mines left to mark in the last consistent read.
+     */
+    @Getter
+    private int minesLeft;
+
+    /**
+     * The status of the game in the last consistent read.
+     */
+    @Getter
+    private byte status;
+
+    /**
+     * Maps a board file read-only.
+     *
+     * @param path the path of the file, written by a {@link SharedBoardFile}
+     * @throws IllegalArgumentException if the file is not an initialized board file
+     */
+    public SharedBoardViewer(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < SharedBoardFile.CELLS_OFFSET)
+                throw new IllegalArgumentException(path + " is not a board file");
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.order(ByteOrder.nativeOrder());
+        cellsView = buffer.duplicate();
+        if (buffer.getInt(SharedBoardFile.MAGIC_OFFSET) != SharedBoardFile.MAGIC
+                || buffer.getInt(SharedBoardFile.VERSION_OFFSET) != SharedBoardFile.FORMAT_VERSION)
+            throw new IllegalArgumentException(path + " is not a board file");
+    }
+
+    /**
+     * Gets the sequence counter of the file, which increases with every move and is odd while a move is written.
+     *
+     * @return the value of the counter
+     */
+    public long getSequence() {
+        return (long) SharedBoardFile.SEQUENCE.getAcquire(buffer, SharedBoardFile.SEQUENCE_OFFSET);
+    }
+
+    /**
+     * Copies a consistent state of the board: the images of the cells, and the header returned by the getters.
+     *
+     * @param images the array receiving the image of every cell, as in {@link Zobrist}, of at least
+     *               {@link #getCellCount()} elements after a first read
+     * @return the sequence counter of the state read
+     * @throws IllegalStateException if the board grew larger than the mapping, when the game restarted with
+     *                               a larger board; the file must then be mapped again
+     */
+    public long read(byte[] images) {
+        while (true) {
+            long before = getSequence();
+            if ((before & 1) == 0) {
+                int readRows = buffer.getInt(SharedBoardFile.ROWS_OFFSET);
+                int readColumns = buffer.getInt(SharedBoardFile.COLUMNS_OFFSET);
+                int cells = readRows * readColumns;
+                if (SharedBoardFile.CELLS_OFFSET + (long) cells > buffer.capacity()) {
+                    if (getSequence() == before)
+                        throw new IllegalStateException("The board is larger than the mapping");
+                    continue;
+                }
+                int readMines = buffer.getInt(SharedBoardFile.MINES_OFFSET);
+                int readMinesLeft = buffer.getInt(SharedBoardFile.MINES_LEFT_OFFSET);
+                byte readStatus = (byte) buffer.getInt(SharedBoardFile.STATUS_OFFSET);
+                if (cells <= images.length) {
+                    cellsView.position(SharedBoardFile.CELLS_OFFSET);
+                    cellsView.get(images, 0, cells);
+                }
+
+                // the reads above cannot move after the second read of the counter
+                VarHandle.loadLoadFence();
+                if (getSequence() == before) {
+                    if (cells > images.length)
+                        throw new IllegalArgumentException("The array is smaller than the " + cells + " cells");
+                    rows = readRows;
+                    columns = readColumns;
+                    mines = readMines;
+                    minesLeft = readMinesLeft;
+                    status = readStatus;
+                    return before;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Waits until the sequence counter differs from a value and is even, that is until a move is published.
+     *
+     * @param sequence     the counter of the last state read
+     * @param timeoutNanos the longest time to wait in nanoseconds
+     * @return the new counter, or the given one if the time ran out
+     */
+    public long awaitChange(long sequence, long timeoutNanos) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        long parkNanos = 1_000;
+        for (int polls = 0; ; polls++) {
+            long current = getSequence();
+            if (current != sequence && (current & 1) == 0)
+                return current;
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0)
+                return sequence;
+            if (polls < SPINS) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(Math.min(parkNanos, remaining));
+                parkNanos = Math.min(parkNanos * 2, MAX_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of cells of the board, as last read, or of the board in the file before the first read.
+     *
+     * @return the number of cells
+     */
+    public int getCellCount() {
+        if (rows == 0)
+            return buffer.getInt(SharedBoardFile.ROWS_OFFSET) * buffer.getInt(SharedBoardFile.COLUMNS_OFFSET);
+        return rows * columns;
+    }
+}
@@ -0,0 +1,144 @@
+package mines;
+
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * The SpectatorDecoder class rebuilds the visible state of a board from the messages of a {@link SpectatorStream}.
+ * The first message must be a snapshot, then the deltas are applied in order.
+ */
+public class SpectatorDecoder implements SpectatorStream.Subscriber {
+
+    /**
+     * The configuration of the board, or {@code null} before the first snapshot.
+     */
+    @Getter
+    private BoardConfig config;
+
+    /**
+     * The image of every cell, as in {@link Zobrist}.
+     */
+    private byte[] images = new byte[0];
+
+    /**
+     * The number of mines left to mark.
+     */
+    @Getter
+    private int minesLeft;
+
+    /**
+     * The status of the game: {@link SpectatorStream#IN_GAME}, {@link SpectatorStream#WON} or {@link SpectatorStream#LOST}.
+     */
+    @Getter
+    private byte status;
+
+    /**
+     * The number of messages applied.
+     */
+    @Getter
+    private long messages;
+
+    @Override
+    public void onMessage(ByteBuffer message) {
+        apply(message);
+    }
+
+    /**
+     * Applies a message to the board.
+     *
+     * @param message the message, read from its position to its limit
+     * @throws IllegalStateException if a delta arrives before the first snapshot, or the message is corrupted
+     */
+    public void apply(ByteBuffer message) {
+        byte type = message.get();
+        if (type == SpectatorStream.SNAPSHOT)
+            applySnapshot(message);
+        else if (type == SpectatorStream.DELTA && config != null)
+            applyDelta(message);
+        else
+            throw new IllegalStateException("Unexpected message of type " + type);
+        messages++;
+    }
+
+    /**
+     * Replaces the board with a snapshot.
+     *
+     * @param message the snapshot, after its type
+     */
+    private void applySnapshot(ByteBuffer message) {
+        BoardConfig snapshotConfig = new BoardConfig(SpectatorStream.getVarint(message),
+                SpectatorStream.getVarint(message), SpectatorStream.getVarint(message));
+        minesLeft = SpectatorStream.getVarint(message);
+        status = message.get();
+        byte[] compressed = new byte[SpectatorStream.getVarint(message)];
+        message.get(compressed);
+
+        byte[] packed = new byte[(snapshotConfig.getCells() + 1) / 2];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            if (inflater.inflate(packed) != packed.length)
+                throw new IllegalStateException("Truncated snapshot");
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupted snapshot", e);
+        } finally {
+            inflater.end();
+        }
+
+        if (!snapshotConfig.equals(config))
+            images = new byte[snapshotConfig.getCells()];
+        config = snapshotConfig;
+        for (int i = 0; i < images.length; i++)
+            images[i] = (byte) ((packed[i >> 1] >> ((i & 1) << 2)) & 0x0F);
+    }
+
+    /**
+     * Applies the changes of a delta.
+     *
+     * @param message the delta, after its type
+     */
+    private void applyDelta(ByteBuffer message) {
+        minesLeft = SpectatorStream.getVarint(message);
+        status = message.get();
+
+        int runs = SpectatorStream.getVarint(message);
+        int cell = 0;
+        for (int run = 0; run < runs; run++) {
+            cell += SpectatorStream.getVarint(message);
+            int length = SpectatorStream.getVarint(message);
+            for (int i = 0; i < length; i += 2) {
+                int pair = message.get();
+                images[cell++] = (byte) (pair & 0x0F);
+                if (i + 1 < length)
+                    images[cell++] = (byte) ((pair >> 4) & 0x0F);
+            }
+        }
+
+        int toggles = SpectatorStream.getVarint(message);
+        cell = 0;
+        for (int i = 0; i < toggles; i++) {
+            cell += SpectatorStream.getVarint(message);
+            images[cell] = images[cell] == Zobrist.MARKED ? (byte) Zobrist.COVERED : (byte) Zobrist.MARKED;
+        }
+
+        int others = SpectatorStream.getVarint(message);
+        cell = 0;
+        for (int i = 0; i < others; i++) {
+            cell += SpectatorStream.getVarint(message);
+            images[cell] = message.get();
+        }
+    }
+
+    /**
+     * Gets the image of a cell.
+     *
+     * @param index the index of the cell
+     * @return the index of the image, as in {@link Zobrist}
+     */
+    public int getImageIndex(int index) {
+        return images[index];
+    }
+}
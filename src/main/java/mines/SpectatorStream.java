@@ -0,0 +1,466 @@
+package mines;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.Deflater;
+
+/**
+ * The SpectatorStream class encodes the visible changes of a game into messages sent to local spectators.
+ * A spectator first receives a snapshot of the whole board, then a delta after every move.
+ * <p>All the numbers are unsigned varints, 7 bits per byte with the high bit set on all bytes but the last.
+ * Cells are identified by their index and images as in {@link Zobrist}. A message is:</p>
+ * <ul>
+ *     <li>a snapshot: the type {@link #SNAPSHOT}, the rows, columns and mines, the mines left, the status,
+ *     then the length and the bytes of the images of all the cells, two per byte and compressed with deflate.</li>
+ *     <li>a delta: the type {@link #DELTA}, the mines left, the status, then three sections. The revealed runs:
+ *     their number, then for every run the gap since the end of the previous run, its length and the images of
+ *     its cells, two per byte. The flag toggles: their number, then the gap since the previous toggled cell.
+ *     The other changes, such as an undo or the wrong marks shown at the end: their number, then for each one
+ *     the gap since the previous changed cell and its new image.</li>
+ * </ul>
+ * <p>Every message is encoded once into a reusable buffer, and every subscriber receives the same read-only view
+ * of it, rewound, so a move is sent to any number of subscribers without copying or allocating. The view is only
+ * valid during the call: a subscriber keeping the message must copy it.</p>
+ * A SpectatorStream is not thread safe, it is used by the thread playing the game.
+ */
+public class SpectatorStream {
+
+    /**
+     * The type of a snapshot message.
+     */
+    public static final byte SNAPSHOT = 0;
+
+    /**
+     * The type of a delta message.
+     */
+    public static final byte DELTA = 1;
+
+    /**
+     * The status of a game in progress.
+     */
+    public static final byte IN_GAME = 0;
+
+    /**
+     * The status of a won game.
+     */
+    public static final byte WON = 1;
+
+    /**
+     * The status of a lost game.
+     */
+    public static final byte LOST = 2;
+
+    /**
+     * The largest size in bytes of a varint encoding an int.
+     */
+    private static final int MAX_VARINT_BYTES = 5;
+
+    /**
+     * Receives the messages of a stream.
+     */
+    public interface Subscriber {
+
+        /**
+         * Receives a message.
+         *
+         * @param message the read-only message, only valid during the call
+         */
+        void onMessage(ByteBuffer message);
+    }
+
+    /**
+     * The configuration of the board.
+     */
+    private final BoardConfig config;
+
+    /**
+     * The subscribers of the stream, copied when one is added or removed, so that a subscriber can unsubscribe
+     * while it receives a message and sending a message does not allocate.
+     */
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    /**
+     * The image of every cell when the last message was sent.
+     */
+    private final byte[] sentImages;
+
+    /**
+     * The image of every cell now.
+     */
+    private final byte[] images;
+
+    /**
+     * The cells changed since the last message, in the order of their first change.
+     */
+    private final int[] changedCells;
+
+    /**
+     * The cells in {@link #changedCells}.
+     */
+    private final boolean[] changed;
+
+    /**
+     * The number of cells changed since the last message.
+     */
+    private int changedCount;
+
+    /**
+     * The buffer receiving the messages, reused for all of them.
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * The read-only view of {@link #buffer} given to the subscribers.
+     */
+    private ByteBuffer view;
+
+    /**
+     * The buffer receiving the compressed images of a snapshot.
+     */
+    private final byte[] compressed;
+
+    /**
+     * The images of a snapshot, two per byte.
+     */
+    private final byte[] packed;
+
+    /**
+     * The compressor of the snapshots, reset for every snapshot.
+     */
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+    /**
+     * The mines left when the last message was sent.
+     */
+    private int sentMinesLeft = -1;
+
+    /**
+     * The status when the last message was sent.
+     */
+    private byte sentStatus = -1;
+
+    /**
+     * Creates a new stream for a board whose cells are all covered.
+     *
+     * @param config the configuration of the board
+     */
+    public SpectatorStream(BoardConfig config) {
+        this.config = config;
+        int cells = config.getCells();
+        images = new byte[cells];
+        Arrays.fill(images, (byte) Zobrist.COVERED);
+        sentImages = images.clone();
+        changedCells = new int[cells];
+        changed = new boolean[cells];
+        packed = new byte[(cells + 1) / 2];
+        compressed = new byte[packed.length + packed.length / 1000 + 64];
+        setCapacity(cells * (2 * MAX_VARINT_BYTES + 1) + 8 * MAX_VARINT_BYTES);
+    }
+
+    /**
+     * Replaces the buffer of the messages.
+     *
+     * @param capacity the capacity of the new buffer
+     */
+    private void setCapacity(int capacity) {
+        buffer = ByteBuffer.allocate(capacity);
+        view = buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * Adds a subscriber, which immediately receives a snapshot of the board.
+     * The changes not sent yet are sent to the other subscribers first.
+     *
+     * @param subscriber the subscriber
+     * @param minesLeft  the number of mines left to mark
+     * @param status     the status of the game
+     */
+    public void subscribe(Subscriber subscriber, int minesLeft, byte status) {
+        publishDelta(minesLeft, status);
+        subscribers.add(subscriber);
+        encodeSnapshot(minesLeft, status);
+        send(subscriber);
+    }
+
+    /**
+     * Removes a subscriber.
+     *
+     * @param subscriber the subscriber
+     */
+    public void unsubscribe(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     * Gets the number of subscribers.
+     *
+     * @return the number of subscribers
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Records the new image of a cell, sent with the next delta.
+     *
+     * @param index      the index of the cell
+     * @param imageIndex the index of the new image of the cell
+     */
+    public void cellChanged(int index, int imageIndex) {
+        images[index] = (byte) imageIndex;
+        if (!changed[index]) {
+            changed[index] = true;
+            changedCells[changedCount++] = index;
+        }
+    }
+
+    /**
+     * Covers all the cells for a new game, without sending anything.
+     * The cells revealed before the game starts are recorded by {@link #cellChanged(int, int)} as usual.
+     */
+    public void reset() {
+        clearChanges();
+        Arrays.fill(images, (byte) Zobrist.COVERED);
+    }
+
+    /**
+     * Sends a snapshot of the board to all the subscribers, when a new game starts.
+     *
+     * @param minesLeft the number of mines left to mark
+     * @param status    the status of the game
+     */
+    public void publishSnapshot(int minesLeft, byte status) {
+        encodeSnapshot(minesLeft, status);
+        for (Subscriber subscriber : subscribers)
+            send(subscriber);
+    }
+
+    /**
+     * Sends the changes since the last message to all the subscribers, unless nothing changed.
+     *
+     * @param minesLeft the number of mines left to mark
+     * @param status    the status of the game
+     */
+    public void publishDelta(int minesLeft, byte status) {
+        if (encodeDelta(minesLeft, status)) {
+            for (Subscriber subscriber : subscribers)
+                send(subscriber);
+        }
+    }
+
+    /**
+     * Sends the encoded message to a subscriber.
+     *
+     * @param subscriber the subscriber
+     */
+    private void send(Subscriber subscriber) {
+        view.limit(buffer.position());
+        view.position(0);
+        subscriber.onMessage(view);
+    }
+
+    /**
+     * Encodes a snapshot of the board, and forgets the changes recorded so far.
+     *
+     * @param minesLeft the number of mines left to mark
+     * @param status    the status of the game
+     */
+    private void encodeSnapshot(int minesLeft, byte status) {
+        clearChanges();
+        System.arraycopy(images, 0, sentImages, 0, images.length);
+        sentMinesLeft = minesLeft;
+        sentStatus = status;
+
+        Arrays.fill(packed, (byte) 0);
+        for (int i = 0; i < images.length; i++)
+            packed[i >> 1] |= (byte) (images[i] << ((i & 1) << 2));
+        deflater.reset();
+        deflater.setInput(packed);
+        deflater.finish();
+        int length = deflater.deflate(compressed);
+
+        buffer.clear();
+        buffer.put(SNAPSHOT);
+        putVarint(buffer, config.getRows());
+        putVarint(buffer, config.getColumns());
+        putVarint(buffer, config.getMines());
+        putVarint(buffer, minesLeft);
+        buffer.put(status);
+        putVarint(buffer, length);
+        buffer.put(compressed, 0, length);
+    }
+
+    /**
+     * Encodes the changes since the last message, and forgets them.
+     *
+     * @param minesLeft the number of mines left to mark
+     * @param status    the status of the game
+     * @return true if something changed, false if there is nothing to send
+     */
+    private boolean encodeDelta(int minesLeft, byte status) {
+        // keep only the cells whose image really changed, in increasing order
+        int count = 0;
+        for (int i = 0; i < changedCount; i++) {
+            int cell = changedCells[i];
+            changed[cell] = false;
+            if (images[cell] != sentImages[cell])
+                changedCells[count++] = cell;
+        }
+        changedCount = 0;
+        if (count == 0 && minesLeft == sentMinesLeft && status == sentStatus)
+            return false;
+        Arrays.sort(changedCells, 0, count);
+
+        buffer.clear();
+        buffer.put(DELTA);
+        putVarint(buffer, minesLeft);
+        buffer.put(status);
+
+        // the revealed runs, with the images of their cells
+        int runsPosition = reserveCount();
+        int runs = 0;
+        int previous = 0;
+        for (int i = 0; i < count; ) {
+            if (!isReveal(changedCells[i])) {
+                i++;
+                continue;
+            }
+            int end = i + 1;
+            while (end < count && changedCells[end] == changedCells[end - 1] + 1 && isReveal(changedCells[end]))
+                end++;
+            putVarint(buffer, changedCells[i] - previous);
+            putVarint(buffer, end - i);
+            for (int j = i; j < end; j += 2) {
+                int low = images[changedCells[j]];
+                int high = j + 1 < end ? images[changedCells[j + 1]] : 0;
+                buffer.put((byte) (low | high << 4));
+            }
+            previous = changedCells[end - 1] + 1;
+            runs++;
+            i = end;
+        }
+        putReservedCount(runsPosition, runs);
+
+        // the flag toggles
+        int togglesPosition = reserveCount();
+        int toggles = 0;
+        previous = 0;
+        for (int i = 0; i < count; i++) {
+            int cell = changedCells[i];
+            if (isToggle(cell)) {
+                putVarint(buffer, cell - previous);
+                previous = cell;
+                toggles++;
+            }
+        }
+        putReservedCount(togglesPosition, toggles);
+
+        // the other changes, with the new images of their cells
+        int othersPosition = reserveCount();
+        int others = 0;
+        previous = 0;
+        for (int i = 0; i < count; i++) {
+            int cell = changedCells[i];
+            if (!isReveal(cell) && !isToggle(cell)) {
+                putVarint(buffer, cell - previous);
+                buffer.put(images[cell]);
+                previous = cell;
+                others++;
+            }
+        }
+        putReservedCount(othersPosition, others);
+
+        for (int i = 0; i < count; i++)
+            sentImages[changedCells[i]] = images[changedCells[i]];
+        sentMinesLeft = minesLeft;
+        sentStatus = status;
+        return true;
+    }
+
+    /**
+     * Checks whether a changed cell has been revealed.
+     *
+     * @param cell the index of the cell
+     * @return true if the cell was covered and now shows its content
+     */
+    private boolean isReveal(int cell) {
+        return sentImages[cell] == Zobrist.COVERED && images[cell] <= Zobrist.MINE;
+    }
+
+    /**
+     * Checks whether a changed cell has been marked or unmarked.
+     *
+     * @param cell the index of the cell
+     * @return true if the cell changed from covered to marked or from marked to covered
+     */
+    private boolean isToggle(int cell) {
+        return (sentImages[cell] == Zobrist.COVERED && images[cell] == Zobrist.MARKED)
+                || (sentImages[cell] == Zobrist.MARKED && images[cell] == Zobrist.COVERED);
+    }
+
+    /**
+     * Forgets the changes recorded since the last message.
+     */
+    private void clearChanges() {
+        for (int i = 0; i < changedCount; i++)
+            changed[changedCells[i]] = false;
+        changedCount = 0;
+    }
+
+    /**
+     * Reserves the room of a count written once the section is encoded, always on {@link #MAX_VARINT_BYTES} bytes.
+     *
+     * @return the position of the count
+     */
+    private int reserveCount() {
+        int position = buffer.position();
+        buffer.position(position + MAX_VARINT_BYTES);
+        return position;
+    }
+
+    /**
+     * Writes a reserved count as a padded varint of {@link #MAX_VARINT_BYTES} bytes.
+     *
+     * @param position the position of the count
+     * @param count    the count
+     */
+    private void putReservedCount(int position, int count) {
+        for (int i = 0; i < MAX_VARINT_BYTES - 1; i++) {
+            buffer.put(position + i, (byte) ((count & 0x7F) | 0x80));
+            count >>>= 7;
+        }
+        buffer.put(position + MAX_VARINT_BYTES - 1, (byte) count);
+    }
+
+    /**
+     * Writes an unsigned varint.
+     *
+     * @param buffer the buffer
+     * @param value  the value, not negative
+     */
+    static void putVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Reads an unsigned varint.
+     *
+     * @param buffer the buffer
+     * @return the value
+     */
+    static int getVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0)
+                return value;
+        }
+    }
+}
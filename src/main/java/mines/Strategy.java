@@ -0,0 +1,38 @@
+package mines;
+
+import java.util.Random;
+
+/**
+ * Represents a bot playing the game.
+ * A strategy only sees the visible part of the board, and chooses one action at a time.
+ * Strategies may keep state between the actions of a game, so each thread uses its own instance.
+ * <p>Strategies are plugins loaded with {@link java.util.ServiceLoader}: an implementation with a public
+ * constructor without arguments is registered by listing its class name in a
+ * {@code META-INF/services/mines.Strategy} resource, as the strategies of this package are.</p>
+ */
+public interface Strategy {
+
+    /**
+     * Prepares the strategy for a new game, forgetting everything about the previous one.
+     */
+    default void startGame() {
+    }
+
+    /**
+     * Gets the name of the strategy shown in the reports.
+     *
+     * @return the simple name of the class by default
+     */
+    default String getName() {
+        return getClass().getSimpleName();
+    }
+
+    /**
+     * Chooses the next action to play.
+     *
+     * @param board  the visible part of the board
+     * @param random the random number generator of the current thread, used to guess
+     * @return the action encoded by the {@link Action} class, or {@link Action#NONE} to give up
+     */
+    int nextAction(VisibleBoard board, Random random);
+}
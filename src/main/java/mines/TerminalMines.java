@@ -0,0 +1,220 @@
+package mines;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Random;
+
+/**
+ * The TerminalMines class plays the game in a terminal, for the machines without a display.
+ * It drives a {@link MineField} with the rules of the {@link Board}, and draws it with an {@link AnsiRenderer}
+ * after every command, so only the cells changed by the command are sent to the terminal.
+ * A lost game is shown as the board shows it, with the content of every covered cell and the wrong flags.
+ * <p>The commands are typed one per line: {@code r ROW COLUMN} reveals a cell, {@code f ROW COLUMN} flags
+ * or unflags it, {@code c ROW COLUMN} chords a revealed number whose flags match it, {@code n} starts a new game and {@code q} quits. Rows and columns start at 0.</p>
+ */
+public class TerminalMines {
+
+    /**
+     * The reminder of the commands shown under the board.
+     */
+    private static final String COMMANDS = "r ROW COL: reveal, f ROW COL: flag, c ROW COL: chord, n: new game, q: quit";
+
+    /**
+     * The field of the game.
+     */
+    private final MineField field;
+
+    /**
+     * The renderer drawing the field.
+     */
+    private final AnsiRenderer renderer;
+
+    /**
+     * The random number generator placing the mines.
+     */
+    private final Random random;
+
+    /**
+     * A boolean flag indicating whether the mines have been placed, on the first reveal.
+     */
+    private boolean minesPlaced;
+
+    /**
+     * The message about the last command, or an empty string.
+     */
+    private String message = "";
+
+    /**
+     * Creates a new game.
+     *
+     * @param config the configuration of the board
+     * @param out    the writer receiving the frames
+     * @param random the random number generator placing the mines
+     */
+    public TerminalMines(BoardConfig config, Writer out, Random random) {
+        field = new MineField(config);
+        field.setBoardRules(true);
+        renderer = new AnsiRenderer(out);
+        this.random = random;
+    }
+
+    /**
+     * Executes a command, then draws the board.
+     *
+     * @param command the command typed by the player
+     * @return false if the command quits the game, true otherwise
+     */
+    public boolean execute(String command) {
+        String[] words = command.trim().split("\\s+");
+        message = "";
+        switch (words[0]) {
+            case "q":
+                return false;
+            case "n":
+                field.clear();
+                minesPlaced = false;
+                renderer.invalidate();
+                break;
+            case "r":
+            case "f":
+            case "c":
+                play(words);
+                break;
+            default:
+                message = "Unknown command";
+                break;
+        }
+        render();
+        return true;
+    }
+
+    /**
+     * Plays a reveal, flag or chord command.
+     *
+     * @param words the words of the command
+     */
+    private void play(String[] words) {
+        BoardConfig config = field.getConfig();
+        int row;
+        int column;
+        try {
+            row = Integer.parseInt(words[1]);
+            column = Integer.parseInt(words[2]);
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            message = "Expected a row and a column";
+            return;
+        }
+        if (row < 0 || row >= config.getRows() || column < 0 || column >= config.getColumns()) {
+            message = "No such cell";
+            return;
+        }
+        if (isOver())
+            return;
+
+        int index = row * config.getColumns() + column;
+        if (words[0].equals("f")) {
+            if (!field.toggleFlag(index) && field.getState(index) == MineField.COVERED)
+                message = "No marks left";
+            return;
+        }
+        if (words[0].equals("c")) {
+            field.chord(index);
+            return;
+        }
+        if (!minesPlaced && field.getState(index) == MineField.COVERED) {
+            // placing the mines clears the field, so the flags set before are set again
+            int[] flags = field.getFlaggedPositions();
+            field.placeMines(random, index);
+            for (int flag : flags)
+                field.toggleFlag(flag);
+            minesPlaced = true;
+        }
+        field.reveal(index);
+    }
+
+    /**
+     * Checks whether the game is over.
+     *
+     * @return true if the game is won or lost
+     */
+    private boolean isOver() {
+        return field.isWon() || field.isLost();
+    }
+
+    /**
+     * Draws the board and the status line.
+     *
+     * @return the number of cells redrawn
+     */
+    public int render() {
+        BoardConfig config = field.getConfig();
+        String status;
+        if (field.isWon())
+            status = "Game Won";
+        else if (field.isLost())
+            status = "Game Lost";
+        else
+            status = "Marks Left: " + field.getMarksLeft();
+        status += "   " + (message.isEmpty() ? COMMANDS : message);
+        return renderer.render(config.getRows(), config.getColumns(), this::getImageIndex, status);
+    }
+
+    /**
+     * Gets the image of a cell, showing the content of the covered cells and the wrong flags
+     * once the game is lost, as the board does.
+     *
+     * @param index the index of the cell
+     * @return the index of the image, as in {@link Zobrist}
+     */
+    int getImageIndex(int index) {
+        int image = field.getImageIndex(index);
+        if (!field.isLost())
+            return image;
+        if (image == Zobrist.COVERED)
+            return field.isMined(index) ? Zobrist.MINE : field.getCount(index);
+        if (image == Zobrist.MARKED && !field.isMined(index))
+            return Zobrist.WRONG_MARK;
+        return image;
+    }
+
+    /**
+     * Gets the field of the game.
+     *
+     * @return the field
+     */
+    MineField getField() {
+        return field;
+    }
+
+    /**
+     * Plays the game in the terminal.
+     * The optional arguments are the number of rows, columns and mines, an expert board by default.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        BoardConfig config = args.length >= 3
+                ? new BoardConfig(Integer.parseInt(args[0]), Integer.parseInt(args[1]), Integer.parseInt(args[2]))
+                : BoardConfig.EXPERT;
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+        TerminalMines game = new TerminalMines(config, out, new Random());
+        game.render();
+
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(System.in))) {
+            String line;
+            while ((line = in.readLine()) != null && game.execute(line)) {
+                // every command redraws the board
+            }
+            // shows the cursor again
+            out.write("\u001B[?25h\n");
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
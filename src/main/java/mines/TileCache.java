@@ -0,0 +1,127 @@
+package mines;
+
+import lombok.Getter;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The TileCache class keeps the cell images scaled to the last used cell sizes,
+ * so that painting a zoomed board draws every cell without decoding or scaling an image.
+ * A set of tiles is rendered the first time its size is used, and the least recently used sets
+ * are dropped when there are more than the maximum number of sizes.
+ * <p>The cache also gives the flat color of every image, used to paint the cells too small to show their image.
+ * A TileCache is not thread safe, it is used by the event dispatch thread.</p>
+ */
+public class TileCache {
+
+    /**
+     * The flat color of every cell image, from the empty cell to the wrong mark.
+     */
+    private static final Color[] FLAT_COLORS = {
+            new Color(0xE0E0E0), new Color(0xC6D9F1), new Color(0xB4E0B4), new Color(0xF5C6C6),
+            new Color(0xB8B8E8), new Color(0xE0B090), new Color(0x90D0D0), new Color(0x909090),
+            new Color(0x707070), Color.BLACK, new Color(0xA0A0A0), Color.RED, Color.MAGENTA
+    };
+
+    /**
+     * The images of the cells at their original size.
+     */
+    private final Image[] sources;
+
+    /**
+     * The tiles of the last used sizes, from the least to the most recently used.
+     */
+    private final LinkedHashMap<Integer, Image[]> levels;
+
+    /**
+     * The number of sets of tiles rendered since the creation of the cache.
+     */
+    @Getter
+    private int renders;
+
+    /**
+     * Creates a new cache.
+     *
+     * @param sources   the images of the cells, indexed as in {@link Zobrist}
+     * @param maxLevels the maximum number of sizes whose tiles are kept
+     */
+    public TileCache(Image[] sources, int maxLevels) {
+        if (maxLevels <= 0)
+            throw new IllegalArgumentException("The cache needs at least one level");
+
+        this.sources = sources.clone();
+        levels = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 3021473164582713240L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Image[]> eldest) {
+                return size() > maxLevels;
+            }
+        };
+    }
+
+    /**
+     * Gets the tiles of a size, rendering them if this size has not been used recently.
+     *
+     * @param size the size of the tiles in pixels
+     * @return the tiles, indexed as the images of the cells
+     */
+    public Image[] getTiles(int size) {
+        Image[] tiles = levels.get(size);
+        if (tiles == null) {
+            tiles = render(size);
+            levels.put(size, tiles);
+            renders++;
+        }
+        return tiles;
+    }
+
+    /**
+     * Gets the number of sizes whose tiles are kept.
+     *
+     * @return the number of cached sets of tiles
+     */
+    public int getLevelCount() {
+        return levels.size();
+    }
+
+    /**
+     * Gets the flat color painting a cell too small to show its image.
+     *
+     * @param imageIndex the index of the image of the cell
+     * @return the color of the image
+     */
+    public static Color getFlatColor(int imageIndex) {
+        return FLAT_COLORS[imageIndex];
+    }
+
+    /**
+     * Scales all the images to a size. An image that could not be loaded is replaced by its flat color.
+     *
+     * @param size the size of the tiles in pixels
+     * @return the tiles
+     */
+    private Image[] render(int size) {
+        Image[] tiles = new Image[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            BufferedImage tile = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics = tile.createGraphics();
+            if (sources[i] != null && sources[i].getWidth(null) > 0) {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(sources[i], 0, 0, size, size, null);
+            } else {
+                graphics.setColor(FLAT_COLORS[i]);
+                graphics.fillRect(0, 0, size, size);
+            }
+            graphics.dispose();
+            tiles[i] = tile;
+        }
+        return tiles;
+    }
+}
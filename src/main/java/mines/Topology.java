@@ -0,0 +1,290 @@
+package mines;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The Topology class defines which cells of a grid are the neighbours of a cell.
+ * A topology is compiled once per board size into an {@link Adjacency} table, kept by the topology
+ * and shared by all the games of that size, so the engine and the solvers only follow the table
+ * and every topology plays as fast as the square board.
+ * <p>The built-in topologies are the square board, the torus, the hexagonal board and the knight moves.
+ * Custom topologies are made from a list of moves by {@link #ofMoves(String, boolean, int[][])},
+ * or by extending this class.</p>
+ */
+public abstract class Topology {
+
+    /**
+     * The moves to the eight cells around a cell, the row first.
+     */
+    private static final int[][] KING_MOVES = {{-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}};
+
+    /**
+     * The moves of a knight.
+     */
+    private static final int[][] KNIGHT_MOVES = {{-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}};
+
+    /**
+     * The classic board: the eight cells around a cell, without crossing the edges.
+     */
+    public static final Topology SQUARE = new MoveTopology("square", 0, false, KING_MOVES);
+
+    /**
+     * The eight cells around a cell, the edges wrapping around to the opposite edges.
+     */
+    public static final Topology TORUS = new MoveTopology("torus", 1, true, KING_MOVES);
+
+    /**
+     * The six cells around a hexagonal cell, the odd rows being shifted right by half a cell.
+     */
+    public static final Topology HEX = new HexTopology();
+
+    /**
+     * The cells a knight can move to.
+     */
+    public static final Topology KNIGHT = new MoveTopology("knight", 3, false, KNIGHT_MOVES);
+
+    /**
+     * The built-in topologies, indexed by their identifier.
+     */
+    private static final Topology[] BUILT_IN = {SQUARE, TORUS, HEX, KNIGHT};
+
+    /**
+     * The name of the topology.
+     */
+    @Getter
+    private final String name;
+
+    /**
+     * The identifier of a built-in topology, or -1 for a custom one.
+     */
+    @Getter
+    private final int id;
+
+    /**
+     * The tables compiled for every board size, the rows in the high half of the key.
+     */
+    private final ConcurrentMap<Long, Adjacency> tables = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a custom topology.
+     *
+     * @param name the name of the topology
+     */
+    protected Topology(String name) {
+        this(name, -1);
+    }
+
+    private Topology(String name, int id) {
+        this.name = name;
+        this.id = id;
+    }
+
+    /**
+     * Gets a built-in topology from its identifier.
+     *
+     * @param id the identifier of the topology
+     * @return the topology
+     * @throws IllegalArgumentException if there is no built-in topology with this identifier
+     */
+    public static Topology forId(int id) {
+        if (id < 0 || id >= BUILT_IN.length)
+            throw new IllegalArgumentException("Unknown topology " + id);
+        return BUILT_IN[id];
+    }
+
+    /**
+     * Gets a built-in topology from its name.
+     *
+     * @param name the name of the topology
+     * @return the topology
+     * @throws IllegalArgumentException if there is no built-in topology with this name
+     */
+    public static Topology forName(String name) {
+        for (Topology topology : BUILT_IN) {
+            if (topology.name.equals(name))
+                return topology;
+        }
+        throw new IllegalArgumentException("Unknown topology " + name);
+    }
+
+    /**
+     * Creates a topology whose neighbours are the cells reached by a list of moves.
+     *
+     * @param name  the name of the topology
+     * @param wrap  true if the moves crossing an edge continue from the opposite edge
+     * @param moves the moves, each one a row offset and a column offset, which must include the opposite
+     *              of every move, since a cell must be a neighbour of its neighbours
+     * @return the topology
+     */
+    public static Topology ofMoves(String name, boolean wrap, int[][] moves) {
+        return new MoveTopology(name, -1, wrap, moves);
+    }
+
+    /**
+     * Gets the table of the neighbours for a board size, compiling it the first time the size is used.
+     *
+     * @param rows    the number of rows of the board
+     * @param columns the number of columns of the board
+     * @return the table, shared by all the boards of this size
+     * @throws IllegalArgumentException if a cell has more than {@link MineField#MAX_CORNERS} neighbours,
+     *                                  or if a cell is not a neighbour of one of its neighbours
+     */
+    public Adjacency getAdjacency(int rows, int columns) {
+        return tables.computeIfAbsent((long) rows << 32 | columns, key -> compile(rows, columns));
+    }
+
+    /**
+     * Writes the neighbours of a cell in the given array, in any order. The cell itself and the duplicates
+     * are removed by the compilation.
+     *
+     * @param row        the row of the cell
+     * @param column     the column of the cell
+     * @param rows       the number of rows of the board
+     * @param columns    the number of columns of the board
+     * @param neighbours the array receiving the indices of the neighbours
+     * @return the number of neighbours written
+     */
+    protected abstract int neighbours(int row, int column, int rows, int columns, int[] neighbours);
+
+    /**
+     * Gets the largest number of neighbours written by {@link #neighbours(int, int, int, int, int[])}.
+     *
+     * @return the size of the array receiving the neighbours of a cell
+     */
+    protected abstract int maxNeighbours();
+
+    /**
+     * Compiles the neighbours of all the cells of a board size.
+     *
+     * @param rows    the number of rows of the board
+     * @param columns the number of columns of the board
+     * @return the table of the neighbours
+     * @throws IllegalArgumentException if a cell has too many neighbours, or is not a neighbour of its neighbours
+     */
+    private Adjacency compile(int rows, int columns) {
+        int cells = rows * columns;
+        int[] offsets = new int[cells + 1];
+        int[] neighbours = new int[cells * MineField.MAX_CORNERS];
+        int[] buffer = new int[maxNeighbours()];
+        int size = 0;
+        for (int index = 0; index < cells; index++) {
+            offsets[index] = size;
+            int count = neighbours(index / columns, index % columns, rows, columns, buffer);
+            Arrays.sort(buffer, 0, count);
+            for (int i = 0; i < count; i++) {
+                int neighbour = buffer[i];
+                if (neighbour == index || (i > 0 && neighbour == buffer[i - 1]))
+                    continue;
+                if (size - offsets[index] == MineField.MAX_CORNERS)
+                    throw new IllegalArgumentException("The " + name + " topology has more than "
+                            + MineField.MAX_CORNERS + " neighbours per cell");
+                neighbours[size++] = neighbour;
+            }
+        }
+        offsets[cells] = size;
+
+        // a mine raises the numbers of its own neighbours, which are the right numbers only if every cell
+        // is a neighbour of its neighbours
+        for (int index = 0; index < cells; index++) {
+            for (int i = offsets[index]; i < offsets[index + 1]; i++) {
+                int neighbour = neighbours[i];
+                if (Arrays.binarySearch(neighbours, offsets[neighbour], offsets[neighbour + 1], index) < 0)
+                    throw new IllegalArgumentException("The " + name + " topology is not symmetric: cell "
+                            + neighbour + " is a neighbour of cell " + index + " but not the reverse");
+            }
+        }
+        return new Adjacency(offsets, Arrays.copyOf(neighbours, size));
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * The MoveTopology class is a topology whose neighbours are reached by a fixed list of moves.
+     */
+    private static final class MoveTopology extends Topology {
+
+        /**
+         * The moves, each one a row offset and a column offset.
+         */
+        private final int[][] moves;
+
+        /**
+         * A boolean flag indicating whether the moves crossing an edge continue from the opposite edge.
+         */
+        private final boolean wrap;
+
+        private MoveTopology(String name, int id, boolean wrap, int[][] moves) {
+            super(name, id);
+            this.wrap = wrap;
+            this.moves = new int[moves.length][];
+            for (int i = 0; i < moves.length; i++)
+                this.moves[i] = moves[i].clone();
+        }
+
+        @Override
+        protected int neighbours(int row, int column, int rows, int columns, int[] neighbours) {
+            int count = 0;
+            for (int[] move : moves) {
+                int r = row + move[0];
+                int c = column + move[1];
+                if (wrap) {
+                    r = Math.floorMod(r, rows);
+                    c = Math.floorMod(c, columns);
+                } else if (r < 0 || r >= rows || c < 0 || c >= columns) {
+                    continue;
+                }
+                neighbours[count++] = r * columns + c;
+            }
+            return count;
+        }
+
+        @Override
+        protected int maxNeighbours() {
+            return moves.length;
+        }
+    }
+
+    /**
+     * The HexTopology class is a board of hexagonal cells in rows, the odd rows being shifted right by half a cell.
+     */
+    private static final class HexTopology extends Topology {
+
+        /**
+         * The moves from a cell of an even row.
+         */
+        private static final int[][] EVEN_ROW_MOVES = {{-1, -1}, {-1, 0}, {0, -1}, {0, 1}, {1, -1}, {1, 0}};
+
+        /**
+         * The moves from a cell of an odd row.
+         */
+        private static final int[][] ODD_ROW_MOVES = {{-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, 0}, {1, 1}};
+
+        private HexTopology() {
+            super("hex", 2);
+        }
+
+        @Override
+        protected int neighbours(int row, int column, int rows, int columns, int[] neighbours) {
+            int count = 0;
+            for (int[] move : (row & 1) == 0 ? EVEN_ROW_MOVES : ODD_ROW_MOVES) {
+                int r = row + move[0];
+                int c = column + move[1];
+                if (r >= 0 && r < rows && c >= 0 && c < columns)
+                    neighbours[count++] = r * columns + c;
+            }
+            return count;
+        }
+
+        @Override
+        protected int maxNeighbours() {
+            return EVEN_ROW_MOVES.length;
+        }
+    }
+}
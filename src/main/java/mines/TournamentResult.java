@@ -0,0 +1,62 @@
+package mines;
+
+import lombok.Getter;
+
+/**
+ * The TournamentResult class holds the results of a strategy in a tournament:
+ * its win rate, the latency of its decisions and the rate at which it plays its moves.
+ */
+@Getter
+public final class TournamentResult {
+
+    /**
+     * The name of the strategy.
+     */
+    private final String name;
+
+    /**
+     * The games played and won, and the moves played by the strategy.
+     */
+    private final WinRateEstimate estimate;
+
+    /**
+     * The durations of the decisions of the strategy.
+     */
+    private final LatencyHistogram latencies;
+
+    /**
+     * The time spent playing the games, on all the threads, in nanoseconds.
+     */
+    private final long playingNanos;
+
+    /**
+     * Creates a new result.
+     *
+     * @param name         the name of the strategy
+     * @param estimate     the games played and won, and the moves played
+     * @param latencies    the durations of the decisions
+     * @param playingNanos the time spent playing the games, in nanoseconds
+     */
+    public TournamentResult(String name, WinRateEstimate estimate, LatencyHistogram latencies, long playingNanos) {
+        this.name = name;
+        this.estimate = estimate;
+        this.latencies = latencies;
+        this.playingNanos = playingNanos;
+    }
+
+    /**
+     * Gets the number of moves played per second of playing time, on one thread.
+     *
+     * @return the moves per second, or 0 if nothing was played
+     */
+    public double getMovesPerSecond() {
+        return playingNanos == 0 ? 0 : estimate.getMoves() * 1e9 / playingNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-20s %s p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus moves/s=%.0f",
+                name, estimate, latencies.getPercentile(50) / 1e3, latencies.getPercentile(99) / 1e3,
+                latencies.getPercentile(99.9) / 1e3, latencies.getMax() / 1e3, getMovesPerSecond());
+    }
+}
@@ -0,0 +1,266 @@
+package mines;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.ServiceLoader;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * The TournamentRunner class plays several strategies on the same boards, concurrently on a fork/join pool,
+ * and reports the win rate, the decision latency percentiles and the moves per second of every strategy.
+ * <p>Every game of a tournament has its own seed, split from the seed of the tournament, which places the mines
+ * and chooses the first click, so all the strategies play exactly the same boards whatever the scheduling.
+ * The games are played in ranges split in halves down to a fixed number of games. Every range creates its own
+ * strategy and mine field, and its own histogram of the decision latencies, merged when the ranges join.</p>
+ */
+public class TournamentRunner {
+
+    /**
+     * The default number of games played by a task before it is not split any more.
+     */
+    public static final int DEFAULT_GAMES_PER_TASK = 64;
+
+    /**
+     * The constant mixed into the seed of a game to seed the random number generator of the strategy,
+     * so that the guesses do not replay the draws that placed the mines.
+     */
+    private static final long STRATEGY_SEED_MIX = 0x5DEECE66DL;
+
+    /**
+     * The pool playing the games.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The number of games played by a task before it is not split any more.
+     */
+    private final int gamesPerTask;
+
+    /**
+     * Creates a new runner playing on the common fork/join pool.
+     */
+    public TournamentRunner() {
+        this(ForkJoinPool.commonPool(), DEFAULT_GAMES_PER_TASK);
+    }
+
+    /**
+     * Creates a new runner.
+     *
+     * @param pool         the pool playing the games
+     * @param gamesPerTask the number of games played by a task before it is not split any more
+     */
+    public TournamentRunner(ForkJoinPool pool, int gamesPerTask) {
+        if (gamesPerTask <= 0)
+            throw new IllegalArgumentException("A task must play at least one game");
+
+        this.pool = pool;
+        this.gamesPerTask = gamesPerTask;
+    }
+
+    /**
+     * Loads the strategies registered with {@link ServiceLoader}.
+     * Each provider creates a new instance every time it is called, one per task.
+     *
+     * @return the providers of the registered strategies
+     */
+    public static List<ServiceLoader.Provider<Strategy>> loadStrategies() {
+        return ServiceLoader.load(Strategy.class).stream().collect(Collectors.toList());
+    }
+
+    /**
+     * Plays a tournament. The strategies play one after the other, each one on all the threads of the pool.
+     *
+     * @param config     the configuration of the boards
+     * @param strategies the functions creating the strategies, one instance per task
+     * @param seed       the seed of the tournament
+     * @param games      the number of games played by every strategy
+     * @return the result of every strategy, in the order of the strategies
+     */
+    public List<TournamentResult> run(BoardConfig config, List<? extends Supplier<? extends Strategy>> strategies,
+                                      long seed, int games) {
+        if (config.getCells() - MineField.MAX_CORNERS - 1 < config.getMines())
+            throw new IllegalArgumentException("Too many mines to keep the first click safe on " + config);
+
+        long[] gameSeeds = new long[games];
+        SplittableRandom seeds = new SplittableRandom(seed);
+        for (int i = 0; i < games; i++)
+            gameSeeds[i] = seeds.nextLong();
+
+        List<TournamentResult> results = new ArrayList<>();
+        for (Supplier<? extends Strategy> strategy : strategies) {
+            Tally tally = pool.invoke(new GamesTask(config, strategy, gameSeeds, 0, games));
+            results.add(new TournamentResult(tally.name, new WinRateEstimate(tally.games, tally.wins, tally.moves),
+                    tally.latencies, tally.playingNanos));
+        }
+        return results;
+    }
+
+    /**
+     * The results of a range of games.
+     */
+    private static final class Tally {
+
+        /**
+         * The name of the strategy.
+         */
+        private String name;
+
+        /**
+         * The number of games played.
+         */
+        private long games;
+
+        /**
+         * The number of games won.
+         */
+        private long wins;
+
+        /**
+         * The number of moves played, including the first clicks.
+         */
+        private long moves;
+
+        /**
+         * The time spent playing the games, in nanoseconds.
+         */
+        private long playingNanos;
+
+        /**
+         * The durations of the decisions of the strategy.
+         */
+        private final LatencyHistogram latencies = new LatencyHistogram();
+
+        /**
+         * Adds the results of another range of games.
+         *
+         * @param other the results of the other range
+         * @return this tally
+         */
+        private Tally merge(Tally other) {
+            if (name == null)
+                name = other.name;
+            games += other.games;
+            wins += other.wins;
+            moves += other.moves;
+            playingNanos += other.playingNanos;
+            latencies.merge(other.latencies);
+            return this;
+        }
+    }
+
+    /**
+     * The task playing a range of games with a strategy, split in halves until few games are left.
+     */
+    private final class GamesTask extends RecursiveTask<Tally> {
+        private static final long serialVersionUID = -8214369402154807166L;
+
+        /**
+         * The configuration of the boards.
+         */
+        private final BoardConfig config;
+
+        /**
+         * The function creating the strategy.
+         */
+        private final transient Supplier<? extends Strategy> strategies;
+
+        /**
+         * The seed of every game of the tournament.
+         */
+        private final long[] seeds;
+
+        /**
+         * The first game of the range.
+         */
+        private final int from;
+
+        /**
+         * The game following the last game of the range.
+         */
+        private final int to;
+
+        private GamesTask(BoardConfig config, Supplier<? extends Strategy> strategies, long[] seeds, int from, int to) {
+            this.config = config;
+            this.strategies = strategies;
+            this.seeds = seeds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Tally compute() {
+            if (to - from > gamesPerTask) {
+                int middle = (from + to) >>> 1;
+                GamesTask second = new GamesTask(config, strategies, seeds, middle, to);
+                second.fork();
+                Tally first = new GamesTask(config, strategies, seeds, from, middle).compute();
+                return first.merge(second.join());
+            }
+
+            Strategy strategy = strategies.get();
+            MineField field = new MineField(config);
+            Random boardRandom = new Random();
+            Random strategyRandom = new Random();
+            int maxMoves = 2 * config.getCells();
+            Tally tally = new Tally();
+            tally.name = strategy.getName();
+
+            long start = System.nanoTime();
+            for (int game = from; game < to; game++) {
+                boardRandom.setSeed(seeds[game]);
+                strategyRandom.setSeed(seeds[game] ^ STRATEGY_SEED_MIX);
+                int first = boardRandom.nextInt(field.getCellCount());
+                field.placeMines(boardRandom, first);
+                field.reveal(first);
+                strategy.startGame();
+
+                int moves = 1;
+                while (!field.isWon() && !field.isLost() && moves < maxMoves) {
+                    long decisionStart = System.nanoTime();
+                    int action = strategy.nextAction(field.getView(), strategyRandom);
+                    tally.latencies.record(System.nanoTime() - decisionStart);
+                    if (action == Action.NONE)
+                        break;
+                    field.apply(action);
+                    moves++;
+                }
+
+                tally.games++;
+                tally.moves += moves;
+                if (field.isWon())
+                    tally.wins++;
+            }
+            tally.playingNanos = System.nanoTime() - start;
+            return tally;
+        }
+    }
+
+    /**
+     * Runs a tournament of the registered strategies from the command line and prints the results.
+     * The arguments are the number of rows, columns and mines, then optionally the number of games and the seed.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.err.println("Usage: TournamentRunner rows columns mines [games] [seed]");
+            return;
+        }
+
+        BoardConfig config = new BoardConfig(Integer.parseInt(args[0]), Integer.parseInt(args[1]),
+                Integer.parseInt(args[2]));
+        int games = args.length > 3 ? Integer.parseInt(args[3]) : 10_000;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : System.nanoTime();
+
+        List<ServiceLoader.Provider<Strategy>> strategies = loadStrategies();
+        System.out.println("Tournament of " + strategies.size() + " strategies, " + games + " games on " + config
+                + ", seed " + seed);
+        for (TournamentResult result : new TournamentRunner().run(config, strategies, seed, games))
+            System.out.println(result);
+    }
+}
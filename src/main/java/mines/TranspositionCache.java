@@ -0,0 +1,169 @@
+package mines;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The TranspositionCache class stores the results computed for board positions, keyed by
+ * the {@link Zobrist} hash of their visible state, so that a position reached again by another
+ * game or another thread does not have to be solved twice.
+ * <p>The cache is a fixed array of slots, indexed by the low bits of the hash. Storing a result
+ * replaces the entry of its slot, so the memory used never grows. The entries are immutable and
+ * the slots are read and written atomically without locks, so the cache can be shared by all
+ * the threads of a simulation. A lookup only hits if the full 64-bit hash matches.</p>
+ * <p>The hash only covers the visible state, so a cache must only be shared between boards
+ * with the same configuration.</p>
+ *
+ * @param <V> the type of the stored results, which must not be changed once stored
+ */
+public class TranspositionCache<V> {
+
+    /**
+     * The slots of the cache, whose number is a power of two.
+     */
+    private final AtomicReferenceArray<Entry<V>> slots;
+
+    /**
+     * The mask selecting the slot of a hash.
+     */
+    private final int mask;
+
+    /**
+     * The number of lookups that found a result.
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * The number of lookups that did not find a result.
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * The number of stored results that replaced the result of another position.
+     */
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a new cache.
+     *
+     * @param capacity the maximum number of results, rounded up to a power of two
+     */
+    public TranspositionCache(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30)
+            throw new IllegalArgumentException("The capacity must be between 1 and 2^30");
+
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity)
+            size <<= 1;
+        slots = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+    }
+
+    /**
+     * Gets the result stored for a position.
+     *
+     * @param hash the hash of the position
+     * @return the stored result, or {@code null} if there is none
+     */
+    public V get(long hash) {
+        Entry<V> entry = slots.get(slot(hash));
+        if (entry != null && entry.hash == hash) {
+            hits.increment();
+            return entry.value;
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Stores the result of a position, replacing the result stored in the same slot.
+     *
+     * @param hash  the hash of the position
+     * @param value the result of the position
+     */
+    public void put(long hash, V value) {
+        Entry<V> previous = slots.getAndSet(slot(hash), new Entry<>(hash, value));
+        if (previous != null && previous.hash != hash)
+            evictions.increment();
+    }
+
+    /**
+     * Gets the maximum number of results.
+     *
+     * @return the number of slots
+     */
+    public int getCapacity() {
+        return slots.length();
+    }
+
+    /**
+     * Gets the number of lookups that found a result.
+     *
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of lookups that did not find a result.
+     *
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the number of stored results that replaced the result of another position.
+     *
+     * @return the number of evictions
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Gets the fraction of the lookups that found a result.
+     *
+     * @return the hit rate, or 0 if nothing was looked up
+     */
+    public double getHitRate() {
+        long found = getHits();
+        long total = found + getMisses();
+        return total == 0 ? 0 : (double) found / total;
+    }
+
+    /**
+     * Gets the slot of a hash. The hash is already uniformly distributed, so its low bits are used.
+     *
+     * @param hash the hash of a position
+     * @return the index of the slot
+     */
+    private int slot(long hash) {
+        return (int) hash & mask;
+    }
+
+    /**
+     * An immutable entry of the cache.
+     *
+     * @param <V> the type of the result
+     */
+    private static final class Entry<V> {
+
+        /**
+         * The full hash of the position.
+         */
+        private final long hash;
+
+        /**
+         * The result of the position.
+         */
+        private final V value;
+
+        private Entry(long hash, V value) {
+            this.hash = hash;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package mines;
+
+/**
+ * Represents a read-only view of the visible part of a board,
+ * which is all a player, a bot or a solver is allowed to know about it.
+ * The mines are hidden: only the numbers of the revealed cells are visible.
+ */
+public interface VisibleBoard {
+
+    /**
+     * Gets the configuration of the board.
+     *
+     * @return the configuration of the board.
+     */
+    BoardConfig getConfig();
+
+    /**
+     * Gets the total number of cells of the board.
+     *
+     * @return the number of cells.
+     */
+    int getCellCount();
+
+    /**
+     * Gets the visible state of a cell.
+     *
+     * @param index the index of the cell.
+     * @return {@link MineField#COVERED}, {@link MineField#REVEALED} or {@link MineField#FLAGGED}.
+     */
+    byte getState(int index);
+
+    /**
+     * Gets the number of mined corners shown by a revealed cell.
+     *
+     * @param index the index of the cell.
+     * @return the number shown by the cell, or -1 if the cell is not revealed.
+     */
+    int getNumber(int index);
+
+    /**
+     * Writes the indices of the corner cells of a cell in the given array.
+     *
+     * @param index   the index of the cell.
+     * @param corners the array receiving the indices, of at least {@link MineField#MAX_CORNERS} elements.
+     * @return the number of corner cells.
+     */
+    int getCorners(int index, int[] corners);
+
+    /**
+     * Gets the corners of all the cells, as compiled by the topology of the board.
+     *
+     * @return the table of the corners, shared by the boards of the same size and topology
+     */
+    Adjacency getAdjacency();
+
+    /**
+     * Gets the number of revealed cells.
+     *
+     * @return the number of revealed cells.
+     */
+    int getRevealedCells();
+
+    /**
+     * Gets the number of flagged cells.
+     *
+     * @return the number of flagged cells.
+     */
+    int getFlaggedCells();
+
+    /**
+     * Gets the {@link Zobrist} hash of the visible state, which identifies the position.
+     *
+     * @return the hash of the visible state.
+     */
+    long getHash();
+}
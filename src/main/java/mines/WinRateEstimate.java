@@ -0,0 +1,110 @@
+package mines;
+
+import lombok.Getter;
+
+/**
+ * The WinRateEstimate class holds the result of a Monte Carlo run at some point of its progress:
+ * the number of games played and won, the mean game length and a confidence interval of the win rate.
+ * The interval is the 95% Wilson score interval, which stays meaningful for win rates close to 0 or 1.
+ */
+@Getter
+public final class WinRateEstimate {
+
+    /**
+     * The z-score of the 95% confidence level.
+     */
+    private static final double Z = 1.96;
+
+    /**
+     * The number of games played.
+     */
+    private final long games;
+
+    /**
+     * The number of games won.
+     */
+    private final long wins;
+
+    /**
+     * The total number of moves played in all the games.
+     */
+    private final long moves;
+
+    /**
+     * Creates a new estimate.
+     *
+     * @param games the number of games played
+     * @param wins  the number of games won
+     * @param moves the total number of moves played in all the games
+     */
+    public WinRateEstimate(long games, long wins, long moves) {
+        this.games = games;
+        this.wins = wins;
+        this.moves = moves;
+    }
+
+    /**
+     * Gets the observed win rate.
+     *
+     * @return the fraction of the games won, or 0 if no game was played
+     */
+    public double getWinRate() {
+        return games == 0 ? 0 : (double) wins / games;
+    }
+
+    /**
+     * Gets the mean number of moves per game.
+     *
+     * @return the mean game length, or 0 if no game was played
+     */
+    public double getMeanMoves() {
+        return games == 0 ? 0 : (double) moves / games;
+    }
+
+    /**
+     * Gets the lower bound of the confidence interval of the win rate.
+     *
+     * @return the lower bound, between 0 and 1
+     */
+    public double getLower() {
+        return Math.max(0, getCenter() - getHalfWidth());
+    }
+
+    /**
+     * Gets the upper bound of the confidence interval of the win rate.
+     *
+     * @return the upper bound, between 0 and 1
+     */
+    public double getUpper() {
+        return Math.min(1, getCenter() + getHalfWidth());
+    }
+
+    /**
+     * Gets the half width of the confidence interval of the win rate.
+     *
+     * @return the half width, or 1 if no game was played
+     */
+    public double getHalfWidth() {
+        if (games == 0)
+            return 1;
+        double rate = getWinRate();
+        return Z / (1 + Z * Z / games) * Math.sqrt(rate * (1 - rate) / games + Z * Z / (4.0 * games * games));
+    }
+
+    /**
+     * Gets the center of the Wilson score interval.
+     *
+     * @return the center of the interval
+     */
+    private double getCenter() {
+        if (games == 0)
+            return 0.5;
+        return (getWinRate() + Z * Z / (2.0 * games)) / (1 + Z * Z / games);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("games=%d win rate=%.4f [%.4f, %.4f] mean moves=%.1f",
+                games, getWinRate(), getLower(), getUpper(), getMeanMoves());
+    }
+}
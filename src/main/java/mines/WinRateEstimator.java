@@ -0,0 +1,328 @@
+package mines;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * The WinRateEstimator class estimates the win rate and the mean game length of a strategy
+ * on a board configuration, by playing many games in parallel on a fork/join pool.
+ * <p>The games are played in rounds of batches. Every batch draws its games from its own
+ * random stream, split from the seed of the run, so a run is reproducible whatever the scheduling.
+ * Every batch borrows a mine field and a strategy from the players of the run, and gives them back
+ * when it is done, so playing a game does not allocate and no player outlives its run.
+ * After each round the current estimate is published, and the run stops as soon as the
+ * confidence interval of the win rate is narrow enough.</p>
+ */
+public class WinRateEstimator {
+
+    /**
+     * The default number of games played by a batch.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    /**
+     * The number of batches per thread of the pool in every round.
+     */
+    private static final int BATCHES_PER_THREAD = 4;
+
+    /**
+     * The number of positions kept by the solver cache of the command line runs.
+     */
+    private static final int CACHE_CAPACITY = 1 << 20;
+
+    /**
+     * The pool playing the games.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The number of games played by a batch.
+     */
+    private final int batchSize;
+
+    /**
+     * Creates a new estimator playing on the common fork/join pool.
+     */
+    public WinRateEstimator() {
+        this(ForkJoinPool.commonPool(), DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a new estimator.
+     *
+     * @param pool      the pool playing the games
+     * @param batchSize the number of games played by a batch
+     */
+    public WinRateEstimator(ForkJoinPool pool, int batchSize) {
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("A batch must play at least one game");
+
+        this.pool = pool;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Estimates the win rate of a strategy until the requested precision is reached.
+     *
+     * @param config     the configuration of the board
+     * @param strategies the function creating the strategy of each thread
+     * @param seed       the seed of the run
+     * @param precision  the half width of the confidence interval at which the run stops
+     * @param maxGames   the maximum number of games played
+     * @param progress   the function receiving the estimate after every round
+     * @return the final estimate
+     */
+    public WinRateEstimate estimate(BoardConfig config, Supplier<? extends Strategy> strategies, long seed,
+                                    double precision, long maxGames, Consumer<WinRateEstimate> progress) {
+        if (config.getCells() - MineField.MAX_CORNERS - 1 < config.getMines())
+            throw new IllegalArgumentException("Too many mines to keep the first click safe on " + config);
+
+        Players players = new Players(config, strategies);
+        SplittableRandom seeds = new SplittableRandom(seed);
+        int batchesPerRound = pool.getParallelism() * BATCHES_PER_THREAD;
+        long games = 0;
+        long wins = 0;
+        long moves = 0;
+        WinRateEstimate estimate = new WinRateEstimate(0, 0, 0);
+
+        while (games < maxGames && estimate.getHalfWidth() > precision) {
+            long remaining = maxGames - games;
+            int batches = (int) Math.min(batchesPerRound, (remaining + batchSize - 1) / batchSize);
+            Round round = new Round(players, batches, remaining);
+            for (int i = 0; i < batches; i++)
+                round.seeds[i] = seeds.split().nextLong();
+
+            pool.invoke(round.new BatchTask(0, batches));
+
+            for (int i = 0; i < batches; i++) {
+                games += round.games[i];
+                wins += round.wins[i];
+                moves += round.moves[i];
+            }
+            estimate = new WinRateEstimate(games, wins, moves);
+            progress.accept(estimate);
+        }
+        return estimate;
+    }
+
+    /**
+     * The state of a round: the seed of every batch and the results written by the batches.
+     */
+    private final class Round {
+
+        /**
+         * The players of the run.
+         */
+        private final Players players;
+
+        /**
+         * The maximum number of games left in the run.
+         */
+        private final long remaining;
+
+        /**
+         * The seed of every batch.
+         */
+        private final long[] seeds;
+
+        /**
+         * The number of games played by every batch.
+         */
+        private final long[] games;
+
+        /**
+         * The number of games won by every batch.
+         */
+        private final long[] wins;
+
+        /**
+         * The number of moves played by every batch.
+         */
+        private final long[] moves;
+
+        private Round(Players players, int batches, long remaining) {
+            this.players = players;
+            this.remaining = remaining;
+            seeds = new long[batches];
+            games = new long[batches];
+            wins = new long[batches];
+            moves = new long[batches];
+        }
+
+        /**
+         * The task playing a range of batches, split in halves until a single batch is left.
+         */
+        private final class BatchTask extends RecursiveAction {
+            private static final long serialVersionUID = 2409786716412826533L;
+
+            /**
+             * The first batch of the range.
+             */
+            private final int from;
+
+            /**
+             * The batch following the last batch of the range.
+             */
+            private final int to;
+
+            private BatchTask(int from, int to) {
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from > 1) {
+                    int middle = (from + to) >>> 1;
+                    invokeAll(new BatchTask(from, middle), new BatchTask(middle, to));
+                    return;
+                }
+
+                Player player = players.borrow();
+                player.random.setSeed(seeds[from]);
+                long count = Math.min(batchSize, remaining - (long) from * batchSize);
+                for (long game = 0; game < count; game++) {
+                    int gameMoves = player.playGame();
+                    games[from]++;
+                    moves[from] += gameMoves;
+                    if (player.field.isWon())
+                        wins[from]++;
+                }
+                players.giveBack(player);
+            }
+        }
+    }
+
+    /**
+     * The idle players of a run. A player is created only when all the others are busy, so a run creates
+     * at most one player per thread of the pool, and they are all released with the run.
+     */
+    private static final class Players {
+
+        /**
+         * The configuration of the board.
+         */
+        private final BoardConfig config;
+
+        /**
+         * The function creating the strategy of a new player.
+         */
+        private final Supplier<? extends Strategy> strategies;
+
+        /**
+         * The players waiting for a batch.
+         */
+        private final ConcurrentLinkedQueue<Player> idle = new ConcurrentLinkedQueue<>();
+
+        private Players(BoardConfig config, Supplier<? extends Strategy> strategies) {
+            this.config = config;
+            this.strategies = strategies;
+        }
+
+        /**
+         * Takes an idle player, or creates one if none is idle.
+         *
+         * @return the player, which must be given back once its batch is played
+         */
+        private Player borrow() {
+            Player player = idle.poll();
+            return player != null ? player : new Player(config, strategies.get());
+        }
+
+        /**
+         * Gives back a player once its batch is played.
+         *
+         * @param player the player
+         */
+        private void giveBack(Player player) {
+            idle.add(player);
+        }
+    }
+
+    /**
+     * The mine field, the strategy and the random number generator reused by the batches for their games.
+     */
+    private static final class Player {
+
+        /**
+         * The mine field of the games.
+         */
+        private final MineField field;
+
+        /**
+         * The strategy playing the games.
+         */
+        private final Strategy strategy;
+
+        /**
+         * The random number generator placing the mines and used by the strategy.
+         */
+        private final Random random = new Random();
+
+        /**
+         * The maximum number of moves of a game, after which the strategy is considered stuck.
+         */
+        private final int maxMoves;
+
+        private Player(BoardConfig config, Strategy strategy) {
+            field = new MineField(config);
+            this.strategy = strategy;
+            maxMoves = 2 * config.getCells();
+        }
+
+        /**
+         * Plays a game from a random safe first click until it is won, lost or the strategy gives up.
+         *
+         * @return the number of moves played, including the first click
+         */
+        private int playGame() {
+            int first = random.nextInt(field.getCellCount());
+            field.placeMines(random, first);
+            field.reveal(first);
+            strategy.startGame();
+
+            int moves = 1;
+            while (!field.isWon() && !field.isLost() && moves < maxMoves) {
+                int action = strategy.nextAction(field.getView(), random);
+                if (action == Action.NONE)
+                    break;
+                field.apply(action);
+                moves++;
+            }
+            return moves;
+        }
+    }
+
+    /**
+     * Runs an estimation from the command line and prints the estimate after every round.
+     * The arguments are the number of rows, columns and mines, then optionally the strategy
+     * ({@code deduction} or {@code random}), the precision and the maximum number of games.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.err.println("Usage: WinRateEstimator rows columns mines [deduction|random] [precision] [maxGames]");
+            return;
+        }
+
+        BoardConfig config = new BoardConfig(Integer.parseInt(args[0]), Integer.parseInt(args[1]),
+                Integer.parseInt(args[2]));
+        boolean random = args.length > 3 && "random".equals(args[3]);
+        double precision = args.length > 4 ? Double.parseDouble(args[4]) : 0.005;
+        long maxGames = args.length > 5 ? Long.parseLong(args[5]) : 1_000_000;
+
+        TranspositionCache<int[]> cache = new TranspositionCache<>(CACHE_CAPACITY);
+        WinRateEstimate estimate = new WinRateEstimator().estimate(config,
+                random ? RandomStrategy::new : () -> new DeductionStrategy(cache),
+                System.nanoTime(), precision, maxGames, System.out::println);
+        System.out.println("Final: " + estimate);
+        if (!random)
+            System.out.printf("Solver cache: hit rate=%.4f evictions=%d%n", cache.getHitRate(), cache.getEvictions());
+    }
+}
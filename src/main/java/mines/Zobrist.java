@@ -0,0 +1,79 @@
+package mines;
+
+/**
+ * The Zobrist class computes the 64-bit Zobrist hash of the visible state of a board.
+ * The hash is the exclusive or of a random key for every cell and the image it displays,
+ * so it can be updated incrementally: a cell changing from one image to another changes
+ * the hash by the exclusive or of both keys, whatever the size of the board.
+ * <p>The images are identified by their index, as in {@link Board}: the content of a revealed cell
+ * from 0 to 8 or {@link #MINE} for a revealed mine, {@link #COVERED}, {@link #MARKED} or
+ * {@link #WRONG_MARK}. The key of a covered cell is 0, so a fully covered board has the hash 0.
+ * The keys are derived from the cell index and the image by a mixing function instead of a table,
+ * so that boards of any size get the same keys, and the hashes of two boards can be compared.</p>
+ */
+public final class Zobrist {
+
+    /**
+     * The image of a revealed mine.
+     */
+    public static final int MINE = 9;
+
+    /**
+     * The image of a covered cell.
+     */
+    public static final int COVERED = 10;
+
+    /**
+     * The image of a marked cell.
+     */
+    public static final int MARKED = 11;
+
+    /**
+     * The image of a wrongly marked cell, shown when a game is lost.
+     */
+    public static final int WRONG_MARK = 12;
+
+    /**
+     * The number of distinct images of a cell.
+     */
+    private static final int IMAGES = 13;
+
+    /**
+     * The golden ratio increment of the SplitMix64 generator.
+     */
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private Zobrist() {
+    }
+
+    /**
+     * Gets the key of a cell displaying an image.
+     *
+     * @param index      the index of the cell
+     * @param imageIndex the index of the image displayed by the cell
+     * @return the key of the cell and image, 0 for a covered cell
+     */
+    public static long key(int index, int imageIndex) {
+        if (imageIndex == COVERED)
+            return 0;
+
+        // the finalizer of SplitMix64, which spreads consecutive inputs over all the bits
+        long z = ((long) index * IMAGES + imageIndex + 1) * GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Updates a hash for a cell changing from one image to another.
+     *
+     * @param hash     the hash before the change
+     * @param index    the index of the cell
+     * @param oldImage the index of the image displayed before the change
+     * @param newImage the index of the image displayed after the change
+     * @return the hash after the change
+     */
+    public static long update(long hash, int index, int oldImage, int newImage) {
+        return hash ^ key(index, oldImage) ^ key(index, newImage);
+    }
+}
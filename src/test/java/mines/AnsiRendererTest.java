@@ -0,0 +1,122 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnsiRendererTest {
+
+    @Test
+    void diffTest() {
+        StringWriter out = new StringWriter();
+        AnsiRenderer renderer = new AnsiRenderer(out);
+        int rows = 200;
+        int columns = 200;
+        byte[] images = new byte[rows * columns];
+        Arrays.fill(images, (byte) Zobrist.COVERED);
+
+        // the first frame clears the screen and draws every cell
+        assertEquals(rows * columns, renderer.render(rows, columns, i -> images[i], "status"));
+        assertTrue(out.toString().startsWith("\u001B[?25l\u001B[2J"));
+        assertTrue(out.toString().contains("status"));
+
+        // nothing is written when nothing changed
+        out.getBuffer().setLength(0);
+        assertEquals(0, renderer.render(rows, columns, i -> images[i], "status"));
+        assertEquals(0, out.getBuffer().length());
+
+        // a run of changed cells is written after a single cursor move
+        for (int column = 10; column < 20; column++)
+            images[5 * columns + column] = 1;
+        images[7 * columns + 3] = (byte) Zobrist.MARKED;
+        assertEquals(11, renderer.render(rows, columns, i -> images[i], "status"));
+        String frame = out.toString();
+        assertEquals(renderer.getLastFrameLength(), frame.length());
+        assertTrue(frame.contains("\u001B[6;21H\u001B[0;94m1 1 1 1 1 1 1 1 1 1 "), frame);
+        assertTrue(frame.contains("\u001B[8;7H\u001B[1;91mF "), frame);
+        assertTrue(frame.length() < 100, frame);
+
+        // an invalidated screen is drawn again
+        out.getBuffer().setLength(0);
+        renderer.invalidate();
+        assertEquals(rows * columns, renderer.render(rows, columns, i -> images[i], "status"));
+    }
+
+    @Test
+    void terminalGameTest() {
+        StringWriter out = new StringWriter();
+        TerminalMines game = new TerminalMines(BoardConfig.BEGINNER, out, new Random(3));
+        assertEquals(81, game.render());
+
+        assertTrue(game.execute("r 4 4"));
+        MineField field = game.getField();
+        assertEquals(MineField.REVEALED, field.getState(4 * 9 + 4));
+        assertFalse(field.isLost());
+
+        assertTrue(game.execute("x"));
+        assertTrue(out.toString().endsWith("Unknown command\u001B[K\u001B[12;1H\u001B[0m\u001B[K"), out.toString());
+        assertTrue(game.execute("r 9 0"));
+        assertTrue(out.toString().contains("No such cell"));
+
+        // losing shows the content of all the covered cells
+        for (int index = 0; index < 81 && !field.isLost(); index++) {
+            if (field.isMined(index))
+                game.execute("r " + index / 9 + " " + index % 9);
+        }
+        assertTrue(out.toString().contains("Game Lost"));
+        for (int index = 0; index < 81; index++) {
+            if (field.isMined(index))
+                assertNotEquals(MineField.FLAGGED, field.getState(index));
+            if (field.getState(index) == MineField.COVERED)
+                assertEquals(field.isMined(index) ? Zobrist.MINE : field.getCount(index), game.getImageIndex(index));
+        }
+
+        assertTrue(game.execute("n"));
+        assertEquals(0, field.getView().getRevealedCells());
+        assertFalse(game.execute("q"));
+    }
+
+    @Test
+    void terminalFlagTest() {
+        TerminalMines game = new TerminalMines(BoardConfig.BEGINNER, new StringWriter(), new Random(3));
+        MineField field = game.getField();
+        game.execute("f 0 0");
+        game.execute("r 4 4");
+        // the flag set before the mines are placed is kept, or revealed by the empty area
+        // without giving it back, as on the board
+        assertNotEquals(MineField.COVERED, field.getState(0));
+        assertEquals(BoardConfig.BEGINNER.getMines() - 1, field.getMarksLeft());
+        assertEquals(MineField.REVEALED, field.getState(4 * 9 + 4));
+    }
+
+    @Test
+    void terminalBoardRulesTest() {
+        StringWriter out = new StringWriter();
+        TerminalMines game = new TerminalMines(BoardConfig.BEGINNER, out, new Random(3));
+        MineField field = game.getField();
+        game.execute("r 4 4");
+
+        // the game is only won once every mine is flagged, as on the board
+        for (int index = 0; index < 81; index++) {
+            if (!field.isMined(index))
+                game.execute("r " + index / 9 + " " + index % 9);
+        }
+        assertFalse(field.isWon());
+        int[] mines = field.getMinePositions();
+        for (int mine : mines)
+            game.execute("f " + mine / 9 + " " + mine % 9);
+        assertTrue(field.isWon());
+        assertTrue(out.toString().contains("Game Won"));
+
+        // the flags are limited to the number of mines
+        game.execute("n");
+        for (int index = 0; index <= mines.length; index++)
+            game.execute("f " + index / 9 + " " + index % 9);
+        assertEquals(mines.length, field.getView().getFlaggedCells());
+        assertTrue(out.toString().contains("No marks left"));
+    }
+}
@@ -0,0 +1,107 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchRunnerTest {
+
+    /**
+     * Runs a script on a beginner board.
+     *
+     * @param seed   the seed of the mines
+     * @param script the commands, one per line
+     * @return the lines written by the runner
+     * @throws IOException if the script cannot be read
+     */
+    private static List<String> run(long seed, String script) throws IOException {
+        StringWriter out = new StringWriter();
+        new BatchRunner(BoardConfig.BEGINNER, Topology.SQUARE, seed, out)
+                .run(new BufferedReader(new StringReader(script)));
+        return out.toString().lines().collect(Collectors.toList());
+    }
+
+    @Test
+    void scriptTest() throws IOException {
+        List<String> lines = run(7, "# a comment\n\nf 0 0\nf 0 0\nr 4 4\nx 1 1\nr 9 0\nf 0\n");
+        assertEquals(7, lines.size());
+        assertEquals("1 1 0:" + Zobrist.MARKED, lines.get(0));
+        assertEquals("2 1 0:" + Zobrist.COVERED, lines.get(1));
+
+        // the first reveal opens the empty area around the center
+        String[] reveal = lines.get(2).split(" ");
+        assertEquals("3", reveal[0]);
+        assertTrue(Integer.parseInt(reveal[1]) >= 9);
+        assertEquals(Integer.parseInt(reveal[1]), reveal.length - 2);
+        assertTrue(lines.get(2).contains(" 40:"));
+
+        assertTrue(lines.get(3).startsWith("error 4 "));
+        assertEquals("error 5 no such cell", lines.get(4));
+        assertTrue(lines.get(5).startsWith("error 6 "));
+        assertTrue(lines.get(6).startsWith("commands 6 errors 3 ignored 0 changes "));
+        assertTrue(lines.get(6).endsWith(" flagged 0 playing"));
+
+        // the same seed plays the same game
+        assertEquals(lines, run(7, "f 0 0\nf 0 0\nr 4 4\nx 1 1\nr 9 0\nf 0\n"));
+    }
+
+    @Test
+    void flagBeforeRevealTest() throws IOException {
+        List<String> lines = run(7, "f 0 0\nr 0 0\nr 4 4\n");
+        assertEquals("1 1 0:" + Zobrist.MARKED, lines.get(0));
+        // revealing a flagged cell does nothing and does not place the mines
+        assertEquals("2 0", lines.get(1));
+        assertFalse(lines.get(2).contains(" 0:"));
+        assertTrue(lines.get(3).endsWith(" flagged 1 playing"));
+    }
+
+    @Test
+    void gameOverTest() throws IOException {
+        StringWriter out = new StringWriter();
+        BatchRunner runner = new BatchRunner(BoardConfig.BEGINNER, Topology.SQUARE, 3, out);
+        runner.execute("r 0 0");
+        int mine = runner.getField().getMinePositions()[0];
+        runner.execute("r " + mine / 9 + " " + mine % 9);
+        runner.execute("r 8 8");
+        runner.finish();
+
+        List<String> lines = out.toString().lines().collect(Collectors.toList());
+        assertEquals("2 1 " + mine + ":" + Zobrist.MINE, lines.get(1));
+        assertEquals("lost", lines.get(2));
+        assertTrue(lines.get(3).startsWith("commands 3 errors 0 ignored 1 "));
+        assertTrue(lines.get(3).endsWith(" lost"));
+    }
+
+    @Test
+    void noAwtTest() throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-verbose:class", "-cp", System.getProperty("java.class.path"), BatchRunner.class.getName(),
+                "beginner", "--seed", "1")
+                .redirectErrorStream(true)
+                .start();
+        try (OutputStream in = process.getOutputStream()) {
+            in.write("r 4 4\nc 4 4\n".getBytes(StandardCharsets.UTF_8));
+        }
+        List<String> lines;
+        try (BufferedReader out = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            lines = out.lines().collect(Collectors.toList());
+        }
+        assertEquals(0, process.waitFor());
+
+        assertTrue(lines.stream().anyMatch(line -> line.startsWith("commands 2 errors 0")), String.join("\n", lines));
+        assertTrue(lines.stream().anyMatch(line -> line.contains("mines.MineField")));
+        assertTrue(lines.stream().noneMatch(line -> line.contains("java.awt.") || line.contains("javax.swing.")));
+    }
+}
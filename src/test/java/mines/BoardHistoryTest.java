@@ -0,0 +1,44 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoardHistoryTest {
+
+    @Test
+    void levelsTest() {
+        BoardHistory history = new BoardHistory(3);
+        history.clear(10, (byte) Zobrist.COVERED);
+        history.start(0, 10, true);
+
+        // ten moves through a history of three levels, which wraps around its ring buffer
+        for (int move = 1; move <= 10; move++) {
+            history.cellChanged(move - 1, (byte) 1);
+            history.commit(move, 10, true);
+        }
+        assertEquals(3, history.getUndoLevels());
+        assertFalse(history.canRedo());
+        for (int move = 9; move >= 7; move--)
+            assertEquals(move, history.undo().getCheckedCells());
+        assertFalse(history.canUndo());
+        assertEquals(1, history.getCurrent().getImageIndex(5));
+        assertEquals(Zobrist.COVERED, history.getCurrent().getImageIndex(7));
+        assertEquals(8, history.redo().getCheckedCells());
+
+        // a new move forgets the moves undone
+        history.cellChanged(9, (byte) 2);
+        history.commit(20, 10, true);
+        assertFalse(history.canRedo());
+        assertEquals(2, history.getUndoLevels());
+        assertEquals(8, history.undo().getCheckedCells());
+        assertEquals(7, history.undo().getCheckedCells());
+        assertFalse(history.canUndo());
+
+        history.clear(10, (byte) Zobrist.COVERED);
+        history.start(0, 10, true);
+        assertFalse(history.canUndo());
+        assertFalse(history.canRedo());
+        assertEquals(0, history.getCurrent().getCheckedCells());
+    }
+}
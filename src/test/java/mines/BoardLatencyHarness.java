@@ -0,0 +1,202 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.awt.Graphics2D;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fires storms of synthetic mouse events at a board on the event dispatch thread, and fails when the 99th
+ * percentile of the time spent handling an event or painting the board regresses beyond a stored baseline.
+ * <p>It is not run by the default build, only by the {@code latency} profile: {@code mvn test -Platency}.
+ * The baseline is read from the file named by the {@code latency.baseline} property, and a percentile fails
+ * when it exceeds its baseline multiplied by the {@code latency.tolerance} property. Running the profile with
+ * {@code -Dlatency.update=true} writes the measured percentiles to the baseline instead.</p>
+ */
+class BoardLatencyHarness {
+
+    /**
+     * The number of events fired before measuring, to let the JIT compile the handlers.
+     */
+    private static final int WARMUP_EVENTS = 20_000;
+
+    /**
+     * The number of measured events.
+     */
+    private static final int MEASURED_EVENTS = 50_000;
+
+    /**
+     * The number of events queued at once on the event dispatch thread, followed by one paint of the board.
+     */
+    private static final int BURST_SIZE = 32;
+
+    /**
+     * The kinds of events fired at the board, and the painting of the board after a burst of events.
+     */
+    enum Metric {
+        LEFT, RIGHT, RESET, PAINT
+    }
+
+    /**
+     * The repaint manager counting the repaints requested by the board.
+     */
+    static final class CountingRepaintManager extends RepaintManager {
+
+        /**
+         * The number of repaints requested.
+         */
+        private long requests;
+
+        @Override
+        public void addDirtyRegion(JComponent component, int x, int y, int width, int height) {
+            requests++;
+            super.addDirtyRegion(component, x, y, width, height);
+        }
+    }
+
+    @Test
+    void clickStormTest() throws Exception {
+        Map<Metric, LatencyHistogram> latencies = new EnumMap<>(Metric.class);
+        CountingRepaintManager repaintManager = new CountingRepaintManager();
+        Board[] board = new Board[1];
+        RepaintManager previousManager = onEdt(() -> RepaintManager.currentManager(null));
+        onEdt(() -> {
+            RepaintManager.setCurrentManager(repaintManager);
+            board[0] = new Board(new JLabel());
+            return null;
+        });
+
+        try {
+            Random random = new Random(20240314);
+            fireStorm(board[0], random, WARMUP_EVENTS, new EnumMap<>(Metric.class));
+            long requestsBefore = repaintManager.requests;
+            fireStorm(board[0], random, MEASURED_EVENTS, latencies);
+            long requests = repaintManager.requests - requestsBefore;
+
+            long frames = latencies.get(Metric.PAINT).getCount();
+            System.out.printf("%d events, %d repaints requested, coalesced into %d frames (%.1f requests per frame)%n",
+                    MEASURED_EVENTS, requests, frames, (double) requests / frames);
+            checkBaseline(latencies);
+        } finally {
+            onEdt(() -> {
+                RepaintManager.setCurrentManager(previousManager);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Fires events at a board in bursts, and paints the board after every burst as the repaint manager would.
+     * A left click on a finished game starts a new one, and is recorded as a reset.
+     *
+     * @param board     the board
+     * @param random    the random number generator choosing the events
+     * @param events    the number of events to fire
+     * @param latencies the histograms receiving the durations, by metric
+     * @throws Exception if an event cannot be dispatched
+     */
+    private static void fireStorm(Board board, Random random, int events, Map<Metric, LatencyHistogram> latencies)
+            throws Exception {
+        for (Metric metric : Metric.values())
+            latencies.putIfAbsent(metric, new LatencyHistogram());
+        BufferedImage image = new BufferedImage(Board.COLS * Cell.WIDTH, Board.ROWS * Cell.HEIGHT,
+                BufferedImage.TYPE_INT_RGB);
+
+        for (int fired = 0; fired < events; fired += BURST_SIZE) {
+            for (int i = 0; i < BURST_SIZE; i++) {
+                int cellIndex = random.nextInt(Board.ROWS * Board.COLS);
+                boolean left = random.nextInt(3) != 0;
+                SwingUtilities.invokeLater(() -> {
+                    Metric metric = !board.isInGame() ? Metric.RESET : left ? Metric.LEFT : Metric.RIGHT;
+                    MouseEvent event = new MouseEvent(board, MouseEvent.MOUSE_PRESSED, System.currentTimeMillis(), 0,
+                            (cellIndex % Board.COLS) * board.getCellSize() + 1,
+                            (cellIndex / Board.COLS) * board.getCellSize() + 1, 1, false,
+                            left || metric == Metric.RESET ? MouseEvent.BUTTON1 : MouseEvent.BUTTON3);
+                    long start = System.nanoTime();
+                    board.dispatchEvent(event);
+                    latencies.get(metric).record(System.nanoTime() - start);
+                });
+            }
+            onEdt(() -> {
+                long start = System.nanoTime();
+                Graphics2D graphics = image.createGraphics();
+                board.paint(graphics);
+                graphics.dispose();
+                latencies.get(Metric.PAINT).record(System.nanoTime() - start);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Compares the 99th percentiles with the baseline, or writes them to the baseline.
+     *
+     * @param latencies the measured durations, by metric
+     * @throws IOException if the baseline cannot be read or written
+     */
+    private static void checkBaseline(Map<Metric, LatencyHistogram> latencies) throws IOException {
+        Path baselinePath = Path.of(System.getProperty("latency.baseline",
+                "src/test/resources/latency-baseline.properties"));
+        double tolerance = Double.parseDouble(System.getProperty("latency.tolerance", "2"));
+        Properties baseline = new Properties();
+        if (Files.exists(baselinePath)) {
+            try (InputStream in = Files.newInputStream(baselinePath)) {
+                baseline.load(in);
+            }
+        }
+
+        Properties measured = new Properties();
+        StringBuilder regressions = new StringBuilder();
+        for (Map.Entry<Metric, LatencyHistogram> entry : latencies.entrySet()) {
+            String key = entry.getKey().name().toLowerCase() + ".p99";
+            long p99 = entry.getValue().getPercentile(99);
+            measured.setProperty(key, Long.toString(p99));
+            String expected = baseline.getProperty(key);
+            System.out.printf("%-6s %7d events, p50 %8.1f us, p99 %8.1f us, max %8.1f us, baseline p99 %s us%n",
+                    entry.getKey(), entry.getValue().getCount(), entry.getValue().getPercentile(50) / 1e3,
+                    p99 / 1e3, entry.getValue().getMax() / 1e3,
+                    expected == null ? "-" : String.format("%.1f", Long.parseLong(expected) / 1e3));
+            if (expected != null && p99 > Long.parseLong(expected) * tolerance)
+                regressions.append(' ').append(key).append('=').append(p99).append(" > ").append(tolerance)
+                        .append(" x ").append(expected);
+        }
+
+        if (Boolean.getBoolean("latency.update")) {
+            try (OutputStream out = Files.newOutputStream(baselinePath)) {
+                measured.store(out, "99th percentiles of the board latencies in nanoseconds");
+            }
+            return;
+        }
+        assertFalse(baseline.isEmpty(), "No latency baseline in " + baselinePath);
+        assertEquals(0, regressions.length(), "Latency regression:" + regressions);
+    }
+
+    /**
+     * Runs a task on the event dispatch thread and waits for its result.
+     *
+     * @param task the task
+     * @param <T>  the type of the result
+     * @return the result of the task
+     * @throws Exception if the task fails
+     */
+    private static <T> T onEdt(Callable<T> task) throws Exception {
+        FutureTask<T> future = new FutureTask<>(task);
+        SwingUtilities.invokeLater(future);
+        return future.get();
+    }
+}
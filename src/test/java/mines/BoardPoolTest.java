@@ -0,0 +1,56 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoardPoolTest {
+
+    @Test
+    void capacityTest() {
+        // the depth limits the pool when the memory cap is large enough
+        assertEquals(4, new BoardPool<>(Object::new, 4, 1000, 10).getCapacity());
+
+        // the memory cap limits the pool when the boards are too big
+        assertEquals(2, new BoardPool<>(Object::new, 4, 25, 10).getCapacity());
+    }
+
+    @Test
+    void invalidSizeTest() {
+        assertThrows(IllegalArgumentException.class, () -> new BoardPool<>(Object::new, -1, 100, 10));
+        assertThrows(IllegalArgumentException.class, () -> new BoardPool<>(Object::new, 1, 100, 0));
+    }
+
+    @Test
+    void hitTest() throws InterruptedException {
+        BoardPool<Object> pool = new BoardPool<>(Object::new, 2, 100, 10);
+
+        // waiting for the background thread to fill the pool
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pool.getReadyBoards() < 2 && System.currentTimeMillis() < deadline)
+            Thread.sleep(5);
+
+        assertNotNull(pool.take());
+        assertEquals(1, pool.getHits());
+        assertEquals(0, pool.getMisses());
+        assertEquals(1.0, pool.getHitRate());
+    }
+
+    @Test
+    void missTest() {
+        AtomicInteger generated = new AtomicInteger();
+
+        // a pool without capacity generates every board on the caller thread
+        BoardPool<Integer> pool = new BoardPool<>(generated::incrementAndGet, 0, 100, 10);
+        assertEquals(0, pool.getHitRate());
+
+        assertEquals(1, pool.take());
+        assertEquals(2, pool.take());
+
+        assertEquals(0, pool.getHits());
+        assertEquals(2, pool.getMisses());
+        assertEquals(0, pool.getHitRate());
+    }
+}
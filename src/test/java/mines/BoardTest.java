@@ -3,11 +3,23 @@ package mines;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import javax.swing.*;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.event.InputEvent;
 import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 class BoardTest {
     private static Board board;
@@ -15,7 +27,18 @@ class BoardTest {
     @BeforeAll
     static void initializeBoardTest(){
         board = new Board(new JLabel());
-        assertEquals(Board.MINES, board.getBoardCells().stream().filter(ICell::isMined).count());
+        // the mines are only placed on the first left click
+        assertEquals(0, board.getBoardCells().stream().filter(ICell::isMined).count());
+    }
+
+    /**
+     * Starts the game of a board by clicking its first cell, which places the mines.
+     *
+     * @param board the board to start
+     */
+    private static void startGame(Board board) {
+        board.getMouseAdapter().cellLeftClicked(0);
+        assertTrue(board.isMinesPlaced());
     }
 
     @Test
@@ -37,6 +60,8 @@ class BoardTest {
 
     @Test
     void cellTotalMinedCornersTest(){
+        startGame(board);
+
         // checking corners of mined cells are set correctly
         board.getBoardCells().stream()
                 .filter( cell -> !cell.isMined())
@@ -61,9 +86,37 @@ class BoardTest {
         //checking minesLeft is reset to total mines
         assertEquals(Board.MINES, board.getMinesLeft());
 
+        //checking the mines are not placed before the first click
+        assertFalse(board.isMinesPlaced());
+        long totalMinesInBoard = board.getBoardCells().stream().filter(ICell::isMined).count();
+        assertEquals(0, totalMinesInBoard);
+    }
+
+    @Test
+    void firstClickTest() {
+        Board board = new Board(new JLabel());
+        int cellIndex = 5 * Board.COLS + 5;
+
+        board.getMouseAdapter().cellLeftClicked(cellIndex);
+
         //checking the board has 40 mines
+        assertTrue(board.isMinesPlaced());
         long totalMinesInBoard = board.getBoardCells().stream().filter(ICell::isMined).count();
         assertEquals(Board.MINES, totalMinesInBoard);
+
+        // checking the first clicked cell and its corners are not mined
+        ICell clickedCell = board.getBoardCells().get(cellIndex);
+        assertTrue(clickedCell.hasNoMineCellCorners());
+        assertEquals(CellState.CHECKED, clickedCell.getCellState());
+        assertTrue(board.isInGame());
+
+        // checking the mines are placed only once
+        ICell otherCell = board.getBoardCells().stream()
+                .filter(cell -> cell.getCellState() == CellState.UNCHECKED && !cell.isMined())
+                .findAny().orElse(null);
+        assertNotNull(otherCell);
+        board.getMouseAdapter().cellLeftClicked(otherCell.getRow() * Board.COLS + otherCell.getColumn());
+        assertEquals(Board.MINES, board.getBoardCells().stream().filter(ICell::isMined).count());
     }
 
     @Test
@@ -357,6 +410,43 @@ class BoardTest {
         // checks that minesLeft decremented by one
         assertNotEquals(Board.MINES - 1, board.getMinesLeft());
     }
+    @Test
+    void chordTest() {
+        Board board = new Board(new JLabel());
+        startGame(board);
+        List<ICell> cells = board.getBoardCells();
+
+        // a revealed number next to covered cells without mines
+        ICell number = cells.stream()
+                .filter(cell -> cell.getCellState() == CellState.CHECKED && cell.getCellContent() > 0)
+                .filter(cell -> Arrays.stream(cell.getCornerIndices()).mapToObj(cells::get)
+                        .anyMatch(corner -> corner.getCellState() == CellState.UNCHECKED && !corner.isMined()))
+                .findFirst().orElse(null);
+        assertNotNull(number);
+        int cellX = number.getColumn() * Cell.WIDTH + (Cell.WIDTH/2);
+        int cellY = number.getRow() * Cell.HEIGHT + (Cell.HEIGHT/2);
+
+        // without the marks, chording does nothing
+        int checkedCells = board.getCheckedCells();
+        board.getMouseAdapter().mousePressed(new MouseEvent(board, 0, 0, 0, cellX, cellY, 1, false, MouseEvent.BUTTON2));
+        assertEquals(checkedCells, board.getCheckedCells());
+
+        for (int corner : number.getCornerIndices()) {
+            if (cells.get(corner).isMined())
+                board.getMouseAdapter().cellRightClicked(corner);
+        }
+        // pressing the right button while the left one is down chords the cell
+        board.getMouseAdapter().mousePressed(new MouseEvent(board, 0, 0,
+                InputEvent.BUTTON1_DOWN_MASK | InputEvent.BUTTON3_DOWN_MASK, cellX, cellY, 1, false, MouseEvent.BUTTON3));
+
+        for (int corner : number.getCornerIndices())
+            assertNotSame(CellState.UNCHECKED, cells.get(corner).getCellState());
+        assertTrue(board.getCheckedCells() > checkedCells);
+        assertEquals(cells.stream().filter(cell -> cell.getCellState() == CellState.CHECKED).count(),
+                board.getCheckedCells());
+        assertTrue(board.isInGame() || board.getCheckedCells() == Board.ROWS * Board.COLS - Board.MINES);
+    }
+
     @AfterEach
     @Test
     void resetBoardTest() {
@@ -364,6 +454,77 @@ class BoardTest {
         board.getBoardCells().forEach(cell -> assertSame(CellState.UNCHECKED, cell.getCellState()));
     }
 
+    @Test
+    void resetBoardFromPoolTest() {
+        Board board = new Board(new JLabel(), true);
+        long requests = board.getBoardPool().getHits() + board.getBoardPool().getMisses();
+        List<ICell> previousCells = board.getBoardCells();
+
+        board.resetBoard();
+
+        // checking a new board was swapped in from the pool
+        assertNotSame(previousCells, board.getBoardCells());
+        assertEquals(requests + 1, board.getBoardPool().getHits() + board.getBoardPool().getMisses());
+        assertEquals(Board.MINES, board.getBoardCells().stream().filter(ICell::isMined).count());
+        assertTrue(board.isInGame());
+    }
+
+    @Test
+    void noGuessBoardTest() {
+        Board board = new Board(new JLabel(), true);
+
+        // the game starts with the center cell and its empty area opened
+        assertTrue(board.isNoGuess());
+        assertEquals(CellState.CHECKED, board.getBoardCells().get(Board.NO_GUESS_START).getCellState());
+        assertTrue(board.getBoardCells().get(Board.NO_GUESS_START).hasNoMineCellCorners());
+        assertTrue(board.getCheckedCells() > 1);
+        assertEquals(Board.MINES, board.getBoardCells().stream().filter(ICell::isMined).count());
+    }
+
+    @Test
+    void clickAllocationTest() {
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+        long threadId = Thread.currentThread().getId();
+
+        // a statusbar that does not notify its listeners, since Swing allocates an event on every text change
+        JLabel statusbar = new JLabel() {
+            @Override
+            protected void firePropertyChange(String propertyName, Object oldValue, Object newValue) {
+                // the listeners are not notified
+            }
+        };
+        Board board = new Board(statusbar);
+        int[] cellIndices = new int[Board.ROWS * Board.COLS];
+        long allocatedBytes = 0;
+
+        for (int game = 0; game < 200; game++) {
+            // the first click of a game places the mines, so it is not measured
+            board.resetBoard();
+            startGame(board);
+
+            int clicks = 0;
+            for (int i = 0; i < board.getAllCells(); i++) {
+                if (!board.getBoardCells().get(i).isMined())
+                    cellIndices[clicks++] = i;
+            }
+
+            long before = threadBean.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < clicks; i++) {
+                // marking and unmarking a cell, then checking it
+                board.getMouseAdapter().cellRightClicked(cellIndices[i]);
+                board.getMouseAdapter().cellRightClicked(cellIndices[i]);
+                board.getMouseAdapter().cellLeftClicked(cellIndices[i]);
+            }
+            allocatedBytes = threadBean.getThreadAllocatedBytes(threadId) - before;
+        }
+
+        // checking the clicks of the last game, once the code is warm, allocated nothing
+        assertEquals(0, allocatedBytes);
+    }
+
     @Test
     void checkWiningTest() {
 
@@ -396,6 +557,49 @@ class BoardTest {
 
     }
 
+    @Test
+    void assistedGameTest(@TempDir Path directory) {
+        Leaderboard leaderboard = new Leaderboard(directory);
+        Board board = new Board(new JLabel(), true);
+        board.setLeaderboard(leaderboard, "alice");
+        assertFalse(board.isAssisted());
+
+        // showing the hints assists the game, whose time is not recorded
+        board.setShowHints(true);
+        board.setShowHints(false);
+        assertTrue(board.isAssisted());
+        List<ICell> cells = board.getBoardCells();
+        for (int i = 0; i < cells.size() && board.isInGame(); i++) {
+            if (cells.get(i).getCellState() != CellState.UNCHECKED)
+                continue;
+            if (cells.get(i).isMined())
+                board.getMouseAdapter().cellRightClicked(i);
+            else
+                board.getMouseAdapter().cellLeftClicked(i);
+            board.checkWining();
+        }
+        assertEquals("Game Won", board.getStatusbar().getText());
+        assertEquals(0, leaderboard.getRank("alice", Leaderboard.Mode.NO_GUESS, Board.CONFIG));
+
+        // a new game starts without help, unless an overlay is still shown
+        board.resetBoard();
+        assertFalse(board.isAssisted());
+        board.setShowHeatmap(true);
+        board.resetBoard();
+        assertTrue(board.isAssisted());
+        board.setShowHeatmap(false);
+        board.resetBoard();
+        assertFalse(board.isAssisted());
+
+        // undoing a move assists the game
+        board.enableUndo(Board.DEFAULT_UNDO_LEVELS);
+        board.getMouseAdapter().cellRightClicked(board.getBoardCells().indexOf(board.getBoardCells().stream()
+                .filter(cell -> cell.getCellState() == CellState.UNCHECKED).findFirst().get()));
+        assertTrue(board.undo());
+        assertTrue(board.isAssisted());
+        leaderboard.close();
+    }
+
     @Test
     void checkFalseWiningTest() {
 
@@ -430,6 +634,8 @@ class BoardTest {
 
     @Test
     void lostGameTest(){
+        startGame(board);
+
         // simulating a lost scenario
         ICell randomMinedCell = board.getBoardCells().stream().filter(ICell::isMined).findAny().orElse(null);
         assertNotNull(randomMinedCell);
@@ -446,30 +652,48 @@ class BoardTest {
     
     @Test
     void revealBoardTest() {
+        startGame(board);
+
 
         // mark a mined cell
         ICell randomMinedCell = board.getBoardCells().stream().filter(ICell::isMined).findAny().orElse(null);
         assertNotNull(randomMinedCell);
         randomMinedCell.markCell(new ImageIcon().getImage());
+        int markedMineIndex = randomMinedCell.getRow() * Board.COLS + randomMinedCell.getColumn();
 
         // mark a non mined cell
-        randomMinedCell = board.getBoardCells().stream().filter(cell -> !cell.isMined()).findAny().orElse(null);
+        randomMinedCell = board.getBoardCells().stream()
+                .filter(cell -> !cell.isMined() && cell.getCellState() == CellState.UNCHECKED).findAny().orElse(null);
         assertNotNull(randomMinedCell);
         randomMinedCell.markCell(new ImageIcon().getImage());
+        int wrongMarkIndex = randomMinedCell.getRow() * Board.COLS + randomMinedCell.getColumn();
+        long uncheckedCells = board.getBoardCells().stream()
+                .filter(cell -> cell.getCellState() == CellState.UNCHECKED).count();
 
         board.revealBoard();
-        board.getBoardCells()
-                .forEach(cell ->
-                        assertNotEquals(CellState.UNCHECKED, cell.getCellState())
-                );
-
-
-
+        assertTrue(board.isRevealed());
+        // the cells are not changed, their images are derived when they are painted
+        assertEquals(uncheckedCells, board.getBoardCells().stream()
+                .filter(cell -> cell.getCellState() == CellState.UNCHECKED).count());
+        for (int i = 0; i < Board.ROWS * Board.COLS; i++) {
+            ICell cell = board.getBoardCells().get(i);
+            if (cell.getCellState() == CellState.UNCHECKED)
+                assertEquals(cell.getCellContent(), board.getDisplayedImage(i));
+        }
+        assertEquals(Zobrist.MARKED, board.getDisplayedImage(markedMineIndex));
+        assertEquals(Zobrist.WRONG_MARK, board.getDisplayedImage(wrongMarkIndex));
         assertTrue(board.getStatusbar().getText().contains("Game Lost"));
+
+        // a new game leaves the revealed view
+        board.resetBoard();
+        assertFalse(board.isRevealed());
+        assertEquals(Zobrist.COVERED, board.getDisplayedImage(wrongMarkIndex));
     }
 
     @Test
     void clickingLeftForNewGameTest(){
+        startGame(board);
+
         // simulating a lost scenario
         ICell randomMinedCell = board.getBoardCells().stream().filter(ICell::isMined).findAny().orElse(null);
         assertNotNull(randomMinedCell);
@@ -487,6 +711,8 @@ class BoardTest {
 
     @Test
     void clickingRightForNewGameTest(){
+        startGame(board);
+
         // simulating a lost scenario
         ICell randomMinedCell = board.getBoardCells().stream().filter(ICell::isMined).findAny().orElse(null);
         assertNotNull(randomMinedCell);
@@ -501,4 +727,374 @@ class BoardTest {
         assertTrue(board.isInGame());
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void undoRedoTest() {
+        Board undoBoard = new Board(new JLabel());
+        undoBoard.enableUndo(Board.DEFAULT_UNDO_LEVELS);
+        assertFalse(undoBoard.undo());
+
+        startGame(undoBoard);
+        int checkedCells = undoBoard.getCheckedCells();
+        assertTrue(checkedCells > 0);
+
+        // mark a covered cell
+        int markedIndex = 0;
+        while (undoBoard.getBoardCells().get(markedIndex).getCellState() != CellState.UNCHECKED)
+            markedIndex++;
+        undoBoard.getMouseAdapter().cellRightClicked(markedIndex);
+        assertEquals(Board.MINES - 1, undoBoard.getMinesLeft());
+
+        // undo the mark, then the first click
+        assertTrue(undoBoard.undo());
+        assertEquals(CellState.UNCHECKED, undoBoard.getBoardCells().get(markedIndex).getCellState());
+        assertEquals(Board.MINES, undoBoard.getMinesLeft());
+        assertTrue(undoBoard.undo());
+        assertEquals(0, undoBoard.getCheckedCells());
+        undoBoard.getBoardCells().forEach(cell -> assertEquals(CellState.UNCHECKED, cell.getCellState()));
+        assertFalse(undoBoard.undo());
+
+        // redo both moves
+        assertTrue(undoBoard.redo());
+        assertEquals(checkedCells, undoBoard.getCheckedCells());
+        assertEquals(CellState.CHECKED, undoBoard.getBoardCells().get(0).getCellState());
+        assertTrue(undoBoard.redo());
+        assertEquals(CellState.MARKED, undoBoard.getBoardCells().get(markedIndex).getCellState());
+        assertEquals(Board.MINES - 1, undoBoard.getMinesLeft());
+        assertFalse(undoBoard.redo());
+
+        // a new move forgets the undone moves
+        assertTrue(undoBoard.undo());
+        undoBoard.getMouseAdapter().cellRightClicked(markedIndex);
+        assertFalse(undoBoard.redo());
+    }
+
+    @Test
+    void undoLosingClickTest() {
+        Board undoBoard = new Board(new JLabel());
+        undoBoard.enableUndo(Board.DEFAULT_UNDO_LEVELS);
+        startGame(undoBoard);
+        int checkedCells = undoBoard.getCheckedCells();
+
+        int minedIndex = 0;
+        while (!undoBoard.getBoardCells().get(minedIndex).isMined())
+            minedIndex++;
+        undoBoard.getMouseAdapter().cellLeftClicked(minedIndex);
+        assertFalse(undoBoard.isInGame());
+
+        // a lost game cannot be undone outside the practice mode
+        assertFalse(undoBoard.undo());
+
+        undoBoard.setPracticeMode(true);
+        assertTrue(undoBoard.undo());
+        assertTrue(undoBoard.isInGame());
+        assertEquals(checkedCells, undoBoard.getCheckedCells());
+        assertEquals(CellState.UNCHECKED, undoBoard.getBoardCells().get(minedIndex).getCellState());
+        assertNotEquals("Game Lost", undoBoard.getStatusbar().getText());
+        assertEquals(checkedCells, undoBoard.getBoardCells().stream()
+                .filter(cell -> cell.getCellState() == CellState.CHECKED).count());
+
+        assertFalse(undoBoard.isRevealed());
+
+        // the losing click can be redone
+        assertTrue(undoBoard.redo());
+        assertFalse(undoBoard.isInGame());
+        assertTrue(undoBoard.isRevealed());
+        assertEquals("Game Lost", undoBoard.getStatusbar().getText());
+    }
+
+    @Test
+    void visibleHashTest() {
+        Board hashBoard = new Board(new JLabel());
+        hashBoard.enableUndo(Board.DEFAULT_UNDO_LEVELS);
+        assertEquals(0, hashBoard.getVisibleHash());
+
+        startGame(hashBoard);
+        long openedHash = hashBoard.getVisibleHash();
+        assertNotEquals(0, openedHash);
+
+        int markedIndex = 0;
+        while (hashBoard.getBoardCells().get(markedIndex).getCellState() != CellState.UNCHECKED)
+            markedIndex++;
+        hashBoard.getMouseAdapter().cellRightClicked(markedIndex);
+        assertNotEquals(openedHash, hashBoard.getVisibleHash());
+
+        // unmarking or undoing restores the hash of the position
+        hashBoard.getMouseAdapter().cellRightClicked(markedIndex);
+        assertEquals(openedHash, hashBoard.getVisibleHash());
+        assertTrue(hashBoard.undo());
+        assertTrue(hashBoard.undo());
+        assertEquals(openedHash, hashBoard.getVisibleHash());
+        assertTrue(hashBoard.undo());
+        assertEquals(0, hashBoard.getVisibleHash());
+    }
+
+    /**
+     * Checks that the frontier of a board holds exactly the unchecked cells touching a checked cell.
+     *
+     * @param board the board to check
+     */
+    private static void assertFrontier(Board board) {
+        List<ICell> cells = board.getBoardCells();
+        int expected = 0;
+        for (int i = 0; i < cells.size(); i++) {
+            boolean member = false;
+            if (cells.get(i).getCellState() == CellState.UNCHECKED) {
+                for (int corner : cells.get(i).getCornerIndices())
+                    member |= cells.get(corner).getCellState() == CellState.CHECKED;
+            }
+            assertEquals(member, board.getFrontier().contains(i));
+            if (member)
+                expected++;
+        }
+        assertEquals(expected, board.getFrontier().size());
+    }
+
+    @Test
+    void hintTest() {
+        Board hintBoard = new Board(new JLabel());
+        hintBoard.enableUndo(Board.DEFAULT_UNDO_LEVELS);
+
+        // before the first click every cell is safe
+        Hint first = hintBoard.hint();
+        assertTrue(first.isSafe());
+        hintBoard.getMouseAdapter().cellLeftClicked(first.getCellIndex());
+        assertFrontier(hintBoard);
+
+        // following the safe hints never hits a mine
+        Hint hint = hintBoard.hint();
+        while (hint != null && hint.isSafe()) {
+            assertFalse(hintBoard.getBoardCells().get(hint.getCellIndex()).isMined(), hint.getJustification());
+            assertEquals(CellState.UNCHECKED, hintBoard.getBoardCells().get(hint.getCellIndex()).getCellState());
+            hintBoard.getMouseAdapter().cellLeftClicked(hint.getCellIndex());
+            assertFrontier(hintBoard);
+            hint = hintBoard.hint();
+        }
+
+        if (hint != null) {
+            assertTrue(hint.getMineProbability() > 0 && hint.getMineProbability() <= 1);
+            assertTrue(hint.getJustification().startsWith("Guess"));
+            assertEquals(CellState.UNCHECKED, hintBoard.getBoardCells().get(hint.getCellIndex()).getCellState());
+
+            // marking and undoing keep the frontier up to date
+            hintBoard.getMouseAdapter().cellRightClicked(hint.getCellIndex());
+            assertFrontier(hintBoard);
+            assertTrue(hintBoard.undo());
+            assertTrue(hintBoard.undo());
+            assertFrontier(hintBoard);
+        }
+    }
+
+    @Test
+    void hintMarkedCellsTest() {
+        Board hintBoard = new Board(new JLabel());
+        List<ICell> cells = hintBoard.getBoardCells();
+
+        // a marked start cell is not advised before the first click, and the hint is computed once per move
+        hintBoard.getMouseAdapter().cellRightClicked(Board.NO_GUESS_START);
+        Hint start = hintBoard.hint();
+        assertTrue(start.isSafe());
+        assertEquals(CellState.UNCHECKED, cells.get(start.getCellIndex()).getCellState());
+        assertSame(start, hintBoard.hint());
+        hintBoard.getMouseAdapter().cellRightClicked(Board.NO_GUESS_START);
+        assertEquals(Board.NO_GUESS_START, hintBoard.hint().getCellIndex());
+        startGame(hintBoard);
+
+        // marking all the mines touching a number makes its other covered corners safe
+        int number = -1;
+        for (int i = 0; i < cells.size() && number < 0; i++) {
+            if (cells.get(i).getCellState() != CellState.CHECKED || cells.get(i).getCellContent() == 0)
+                continue;
+            for (int corner : cells.get(i).getCornerIndices())
+                if (cells.get(corner).getCellState() == CellState.UNCHECKED && !cells.get(corner).isMined())
+                    number = i;
+        }
+        assertTrue(number >= 0);
+        for (int corner : cells.get(number).getCornerIndices())
+            if (cells.get(corner).getCellState() == CellState.UNCHECKED && cells.get(corner).isMined())
+                hintBoard.getMouseAdapter().cellRightClicked(corner);
+        Hint hint = hintBoard.hint();
+        assertTrue(hint.isSafe(), hint.getJustification());
+        assertFalse(cells.get(hint.getCellIndex()).isMined());
+
+        // wrong marks give too many marks to the numbers, whose risk stays a probability
+        for (int i = 0; i < cells.size() && hintBoard.getMinesLeft() > 0; i++)
+            if (hintBoard.getFrontier().contains(i) && !cells.get(i).isMined())
+                hintBoard.getMouseAdapter().cellRightClicked(i);
+        hint = hintBoard.hint();
+        assertTrue(hint.getMineProbability() >= 0 && hint.getMineProbability() <= 1);
+
+        // there is no hint once the game is over
+        int mined = 0;
+        while (!cells.get(mined).isMined() || cells.get(mined).getCellState() != CellState.UNCHECKED)
+            mined++;
+        hintBoard.getMouseAdapter().cellLeftClicked(mined);
+        assertNull(hintBoard.hint());
+    }
+
+    @Test
+    void heatmapTest() throws InterruptedException {
+        Board heatmapBoard = new Board(new JLabel());
+        assertNull(heatmapBoard.getHeatmap());
+        heatmapBoard.setShowHeatmap(true);
+        startGame(heatmapBoard);
+
+        // the probabilities are computed in the background, the board keeps the last completed ones
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (heatmapBoard.getHeatmap().getProbabilities()[0] >= 0 && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+
+        float[] probabilities = heatmapBoard.getHeatmap().getProbabilities();
+        for (int i = 0; i < probabilities.length; i++) {
+            CellState state = heatmapBoard.getBoardCells().get(i).getCellState();
+            if (state == CellState.CHECKED)
+                assertTrue(probabilities[i] < 0);
+            else
+                assertTrue(probabilities[i] >= 0 && probabilities[i] <= 1);
+        }
+
+        // a revealed board is painted without the overlay
+        heatmapBoard.revealBoard();
+        BufferedImage tinted = paintBoard(heatmapBoard);
+        heatmapBoard.setShowHeatmap(false);
+        BufferedImage plain = paintBoard(heatmapBoard);
+        for (int y = 0; y < plain.getHeight(); y++)
+            for (int x = 0; x < plain.getWidth(); x++)
+                assertEquals(plain.getRGB(x, y), tinted.getRGB(x, y), "pixel " + x + "," + y);
+    }
+
+    /**
+     * Paints a board into an image of its size.
+     *
+     * @param paintedBoard the board
+     * @return the image
+     */
+    private static BufferedImage paintBoard(Board paintedBoard) {
+        BufferedImage image = new BufferedImage(Board.COLS * paintedBoard.getCellSize(),
+                Board.ROWS * paintedBoard.getCellSize(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        paintedBoard.paint(graphics);
+        graphics.dispose();
+        return image;
+    }
+
+    @Test
+    void dailyChallengeTest() {
+        DailyChallenge challenge = new DailyChallenge(Board.CONFIG, 20240314);
+        Board challengeBoard = new Board(new JLabel(), challenge);
+        challengeBoard.enableUndo(Board.DEFAULT_UNDO_LEVELS);
+
+        // the board is regenerated from the seed, with the start cell opened
+        MineField field = new MineField(Board.CONFIG);
+        challenge.placeMines(field, new Random());
+        List<ICell> cells = challengeBoard.getBoardCells();
+        for (int i = 0; i < cells.size(); i++)
+            assertEquals(field.isMined(i), cells.get(i).isMined());
+        assertEquals(CellState.CHECKED, cells.get(challenge.getStartIndex()).getCellState());
+
+        // the moves are journaled, cannot be undone, and are verified on the regenerated board
+        for (int i = 0; i < cells.size() && challengeBoard.isInGame(); i++) {
+            if (cells.get(i).getCellState() != CellState.UNCHECKED)
+                continue;
+            if (cells.get(i).isMined())
+                challengeBoard.getMouseAdapter().cellRightClicked(i);
+            else
+                challengeBoard.getMouseAdapter().cellLeftClicked(i);
+            challengeBoard.checkWining();
+        }
+        assertFalse(challengeBoard.undo());
+        assertEquals("Game Won", challengeBoard.getStatusbar().getText());
+        int[] journal = challengeBoard.getJournal();
+        assertTrue(journal.length > 0);
+        assertEquals(ChallengeVerifier.Verdict.WON, new ChallengeVerifier().verify(challenge, journal));
+
+        // a new game replays the same board with an empty journal
+        challengeBoard.resetBoard();
+        assertEquals(0, challengeBoard.getJournal().length);
+        for (int i = 0; i < cells.size(); i++)
+            assertEquals(field.isMined(i), challengeBoard.getBoardCells().get(i).isMined());
+    }
+
+    @Test
+    void spectatorTest() {
+        Board spectatedBoard = new Board(new JLabel());
+        SpectatorDecoder spectator = new SpectatorDecoder();
+        spectatedBoard.addSpectator(spectator);
+        assertEquals(Board.CONFIG, spectator.getConfig());
+
+        List<ICell> cells = spectatedBoard.getBoardCells();
+        startGame(spectatedBoard);
+        for (int i = 0; i < cells.size() && spectatedBoard.isInGame(); i += 7) {
+            if (cells.get(i).isMined())
+                spectatedBoard.getMouseAdapter().cellRightClicked(i);
+            else
+                spectatedBoard.getMouseAdapter().cellLeftClicked(i);
+            assertSpectatorImages(spectatedBoard, spectator);
+            assertEquals(spectatedBoard.getMinesLeft(), spectator.getMinesLeft());
+        }
+
+        // losing shows the whole board to the spectator
+        for (int i = 0; i < cells.size() && spectatedBoard.isInGame(); i++) {
+            if (cells.get(i).isMined() && cells.get(i).getCellState() == CellState.UNCHECKED)
+                spectatedBoard.getMouseAdapter().cellLeftClicked(i);
+        }
+        assertSpectatorImages(spectatedBoard, spectator);
+        assertEquals(SpectatorStream.LOST, spectator.getStatus());
+
+        // a new game is sent as a snapshot
+        spectatedBoard.resetBoard();
+        assertSpectatorImages(spectatedBoard, spectator);
+        assertEquals(SpectatorStream.IN_GAME, spectator.getStatus());
+        spectatedBoard.removeSpectator(spectator);
+    }
+
+    /**
+     * Checks that a spectator displays the same images as a board.
+     */
+    private static void assertSpectatorImages(Board board, SpectatorDecoder spectator) {
+        for (int i = 0; i < Board.ROWS * Board.COLS; i++)
+            assertEquals(board.getDisplayedImage(i), spectator.getImageIndex(i), "cell " + i);
+    }
+
+    @Test
+    void zoomTest() {
+        Board zoomedBoard = new Board(new JLabel());
+        assertEquals(Cell.WIDTH, zoomedBoard.getCellSize());
+
+        // the clicks hit the cells at their zoomed position
+        zoomedBoard.setCellSize(50);
+        assertEquals(new Dimension(Board.COLS * 50, Board.ROWS * 50), zoomedBoard.getPreferredSize());
+        int index = 3 * Board.COLS + 5;
+        zoomedBoard.getMouseAdapter().mousePressed(
+                new MouseEvent(zoomedBoard, 0, 0, 0, 5 * 50 + 49, 3 * 50 + 1, 1, false, MouseEvent.BUTTON1));
+        assertEquals(CellState.CHECKED, zoomedBoard.getBoardCells().get(index).getCellState());
+
+        // a click outside the board is ignored
+        zoomedBoard.getMouseAdapter().mousePressed(
+                new MouseEvent(zoomedBoard, 0, 0, 0, Board.COLS * 50 + 10, 10, 1, false, MouseEvent.BUTTON3));
+        assertEquals(Board.MINES, zoomedBoard.getMinesLeft());
+
+        // the mouse wheel zooms in and out within the limits
+        for (int i = 0; i < 50; i++)
+            zoomedBoard.getMouseAdapter().mouseWheelMoved(new MouseWheelEvent(zoomedBoard, 0, 0, 0,
+                    10, 10, 0, false, MouseWheelEvent.WHEEL_UNIT_SCROLL, 1, -1));
+        assertEquals(Board.MAX_CELL_SIZE, zoomedBoard.getCellSize());
+        for (int i = 0; i < 50; i++)
+            zoomedBoard.getMouseAdapter().mouseWheelMoved(new MouseWheelEvent(zoomedBoard, 0, 0, 0,
+                    10, 10, 0, false, MouseWheelEvent.WHEEL_UNIT_SCROLL, 1, 1));
+        assertEquals(Board.MIN_CELL_SIZE, zoomedBoard.getCellSize());
+
+        // at the smallest zoom the cells are painted with flat colors
+        BufferedImage image = new BufferedImage(Board.COLS * Board.MIN_CELL_SIZE,
+                Board.ROWS * Board.MIN_CELL_SIZE, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        zoomedBoard.paint(graphics);
+        graphics.dispose();
+        for (int i = 0; i < Board.ROWS * Board.COLS; i++) {
+            ICell cell = zoomedBoard.getBoardCells().get(i);
+            int expected = cell.getCellState() == CellState.CHECKED ? cell.getCellContent() : Zobrist.COVERED;
+            assertEquals(TileCache.getFlatColor(expected).getRGB(), image.getRGB(
+                    cell.getColumn() * Board.MIN_CELL_SIZE + 1, cell.getRow() * Board.MIN_CELL_SIZE + 1), "cell " + i);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChallengeVerifierTest {
+
+    private static final DailyChallenge CHALLENGE = DailyChallenge.forDate(BoardConfig.EXPERT, LocalDate.of(2024, 3, 14));
+
+    /**
+     * Builds the journal revealing every cell without a mine, then flagging every mine, from the regenerated board.
+     *
+     * @return the winning journal
+     */
+    private static int[] winningJournal() {
+        MineField field = new MineField(CHALLENGE.getConfig());
+        CHALLENGE.placeMines(field, new Random());
+        field.reveal(CHALLENGE.getStartIndex());
+
+        int[] moves = new int[field.getCellCount() + CHALLENGE.getConfig().getMines()];
+        int count = 0;
+        for (int index = 0; index < field.getCellCount(); index++) {
+            if (!field.isMined(index) && field.getState(index) == MineField.COVERED) {
+                moves[count++] = Action.reveal(index);
+                field.reveal(index);
+            }
+        }
+        for (int mine : field.getMinePositions())
+            moves[count++] = Action.flag(mine);
+        return Arrays.copyOf(moves, count);
+    }
+
+    @Test
+    void regenerationTest() {
+        assertEquals(CHALLENGE, DailyChallenge.forDate(BoardConfig.EXPERT, LocalDate.of(2024, 3, 14)));
+        assertNotEquals(CHALLENGE, DailyChallenge.forDate(BoardConfig.EXPERT, LocalDate.of(2024, 3, 15)));
+
+        MineField first = new MineField(CHALLENGE.getConfig());
+        MineField second = new MineField(CHALLENGE.getConfig());
+        CHALLENGE.placeMines(first, new Random());
+        CHALLENGE.placeMines(second, new Random(42));
+        assertArrayEquals(first.getMinePositions(), second.getMinePositions());
+        assertEquals(0, first.getCount(CHALLENGE.getStartIndex()));
+    }
+
+    @Test
+    void verifyTest() {
+        ChallengeVerifier verifier = new ChallengeVerifier();
+        int[] journal = winningJournal();
+        assertEquals(ChallengeVerifier.Verdict.WON, verifier.verify(CHALLENGE, journal));
+        assertEquals(ChallengeVerifier.Verdict.UNFINISHED,
+                verifier.verify(CHALLENGE, Arrays.copyOf(journal, journal.length - 1)));
+        assertEquals(ChallengeVerifier.Verdict.UNFINISHED, verifier.verify(CHALLENGE, new int[0]));
+        int mines = CHALLENGE.getConfig().getMines();
+        assertEquals(ChallengeVerifier.Verdict.UNFINISHED,
+                verifier.verify(CHALLENGE, Arrays.copyOf(journal, journal.length - mines)));
+
+        // revealing a mine loses, and nothing can be played after the end of the game
+        int mine = verifier.getField().getMinePositions()[0];
+        assertEquals(ChallengeVerifier.Verdict.LOST, verifier.verify(CHALLENGE, new int[]{Action.reveal(mine)}));
+        assertEquals(ChallengeVerifier.Verdict.INVALID,
+                verifier.verify(CHALLENGE, new int[]{Action.reveal(mine), Action.flag(0)}));
+        assertEquals(ChallengeVerifier.Verdict.INVALID,
+                verifier.verify(CHALLENGE, new int[]{Action.reveal(BoardConfig.EXPERT.getCells())}));
+        assertEquals(ChallengeVerifier.Verdict.INVALID, verifier.verify(CHALLENGE, new int[]{-1}));
+
+        // the journal of a challenge does not win another one
+        DailyChallenge other = new DailyChallenge(BoardConfig.EXPERT, CHALLENGE.getSeed() + 1);
+        assertNotEquals(ChallengeVerifier.Verdict.WON, verifier.verify(other, journal));
+    }
+
+    @Test
+    void boardRulesTest() {
+        DailyChallenge challenge = new DailyChallenge(Board.CONFIG, 20240314);
+        Board board = new Board(new JLabel(), challenge);
+        MineField field = new MineField(Board.CONFIG);
+        challenge.placeMines(field, new Random());
+        List<ICell> cells = board.getBoardCells();
+
+        // a mark next to an empty area is uncovered with the area, and is not given back
+        int[] corners = new int[MineField.MAX_CORNERS];
+        int empty = -1;
+        int marked = -1;
+        for (int i = 0; i < cells.size() && marked < 0; i++) {
+            if (cells.get(i).getCellState() != CellState.UNCHECKED || field.isMined(i) || field.getCount(i) != 0)
+                continue;
+            int count = field.getCorners(i, corners);
+            for (int c = 0; c < count && marked < 0; c++) {
+                if (cells.get(corners[c]).getCellState() == CellState.UNCHECKED) {
+                    empty = i;
+                    marked = corners[c];
+                }
+            }
+        }
+        assertTrue(marked >= 0);
+        board.getMouseAdapter().cellRightClicked(marked);
+        board.getMouseAdapter().cellLeftClicked(empty);
+        assertEquals(CellState.CHECKED, cells.get(marked).getCellState());
+        assertEquals(Board.MINES - 1, board.getMinesLeft());
+
+        // all the cells without a mine are revealed first, then the mines are flagged
+        for (int i = 0; i < cells.size(); i++) {
+            if (cells.get(i).getCellState() == CellState.UNCHECKED && !cells.get(i).isMined())
+                board.getMouseAdapter().cellLeftClicked(i);
+            board.checkWining();
+        }
+        assertTrue(board.isInGame());
+        int revealedJournal = board.getJournal().length;
+        for (int i = 0; i < cells.size() && board.isInGame(); i++) {
+            if (cells.get(i).getCellState() == CellState.UNCHECKED)
+                board.getMouseAdapter().cellRightClicked(i);
+            board.checkWining();
+        }
+        assertEquals("Game Won", board.getStatusbar().getText());
+
+        int[] journal = board.getJournal();
+        ChallengeVerifier verifier = new ChallengeVerifier();
+        assertEquals(ChallengeVerifier.Verdict.WON, verifier.verify(challenge, journal));
+        assertEquals(0, verifier.getField().getMarksLeft());
+        assertEquals(Board.MINES - 1, verifier.getField().getFlaggedCells());
+        assertEquals(ChallengeVerifier.Verdict.UNFINISHED,
+                verifier.verify(challenge, Arrays.copyOf(journal, revealedJournal)));
+    }
+
+    @Test
+    void throughputTest() {
+        ChallengeVerifier verifier = new ChallengeVerifier();
+        int[] journal = winningJournal();
+        long start = System.nanoTime();
+        for (int i = 0; i < 20_000; i++)
+            assertEquals(ChallengeVerifier.Verdict.WON, verifier.verify(CHALLENGE, journal));
+
+        // tens of thousands of submissions per minute leave a lot of margin
+        assertTrue(System.nanoTime() - start < 30_000_000_000L);
+    }
+}
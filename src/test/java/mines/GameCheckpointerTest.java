@@ -0,0 +1,185 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.swing.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameCheckpointerTest {
+
+    /**
+     * A board of three pages.
+     */
+    private static final BoardConfig CONFIG = new BoardConfig(100, 100, 10);
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Waits until the journal holds the given move, as a crash would find it.
+     *
+     * @param moves the number of the move
+     * @return the recovered state
+     */
+    private GameCheckpointer.State awaitMove(long moves) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        GameCheckpointer.State state = GameCheckpointer.recover(directory, CONFIG);
+        while ((state == null || state.getMoves() < moves) && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+            state = GameCheckpointer.recover(directory, CONFIG);
+        }
+        assertNotNull(state);
+        assertEquals(moves, state.getMoves());
+        return state;
+    }
+
+    @Test
+    void journalTest() throws InterruptedException, IOException {
+        // the checkpointer is never closed, as after a crash
+        GameCheckpointer checkpointer = new GameCheckpointer(directory, CONFIG, 1, 3_600_000);
+        checkpointer.reset(i -> Zobrist.COVERED, new int[0], 10, 0, SpectatorStream.IN_GAME, -1);
+        checkpointer.minesPlaced(new int[]{1, 2});
+        checkpointer.cellChanged(5, 3);
+        checkpointer.commit(10, 1, SpectatorStream.IN_GAME, -1);
+        checkpointer.cellChanged(6, Zobrist.MARKED);
+        checkpointer.commit(9, 1, SpectatorStream.IN_GAME, 1_500);
+
+        GameCheckpointer.State state = awaitMove(4);
+        assertEquals(0, checkpointer.getCheckpoints());
+        assertArrayEquals(new int[]{1, 2}, state.getMinePositions());
+        assertEquals(3, state.getImages()[5]);
+        assertEquals(Zobrist.MARKED, state.getImages()[6]);
+        assertEquals(Zobrist.COVERED, state.getImages()[7]);
+        assertEquals(9, state.getMinesLeft());
+        assertEquals(1, state.getCheckedCells());
+        assertEquals(SpectatorStream.IN_GAME, state.getStatus());
+        assertEquals(1_500, state.getElapsedMillis());
+
+        // a record torn by the crash is ignored
+        Files.write(directory.resolve(GameCheckpointer.JOURNAL_FILE), new byte[]{0, 0, 0, 40, 2, 0, 0},
+                StandardOpenOption.APPEND);
+        assertEquals(4, GameCheckpointer.recover(directory, CONFIG).getMoves());
+
+        // a move without change is not recorded
+        checkpointer.commit(9, 1, SpectatorStream.IN_GAME, -1);
+        checkpointer.cellChanged(6, Zobrist.COVERED);
+        checkpointer.commit(10, 1, SpectatorStream.IN_GAME, -1);
+        checkpointer.close();
+        state = GameCheckpointer.recover(directory, CONFIG);
+        assertEquals(5, state.getMoves());
+        assertEquals(Zobrist.COVERED, state.getImages()[6]);
+        assertEquals(1, checkpointer.getCheckpoints());
+    }
+
+    @Test
+    void checkpointTest() throws IOException {
+        GameCheckpointer checkpointer = new GameCheckpointer(directory, CONFIG, 3_600_000, 3_600_000);
+        checkpointer.reset(i -> Zobrist.COVERED, new int[]{0, 9_999}, 10, 0, SpectatorStream.IN_GAME, -1);
+        checkpointer.checkpointNow();
+        assertEquals(3, checkpointer.getPagesWritten());
+
+        checkpointer.cellChanged(1, 1);
+        checkpointer.commit(10, 1, SpectatorStream.IN_GAME, 700);
+        checkpointer.checkpointNow();
+        // the other slot had no page yet
+        assertEquals(6, checkpointer.getPagesWritten());
+
+        checkpointer.cellChanged(9_000, 2);
+        checkpointer.commit(10, 2, SpectatorStream.IN_GAME, -1);
+        checkpointer.checkpointNow();
+        // the page changed by this checkpoint, and the one changed by the previous checkpoint
+        assertEquals(8, checkpointer.getPagesWritten());
+        assertEquals(3, checkpointer.getCheckpoints());
+
+        // nothing is written without a change
+        checkpointer.checkpointNow();
+        assertEquals(3, checkpointer.getCheckpoints());
+        assertEquals(0, Files.size(directory.resolve(GameCheckpointer.JOURNAL_FILE)));
+
+        GameCheckpointer.State state = GameCheckpointer.recover(directory, CONFIG);
+        assertEquals(3, state.getMoves());
+        assertEquals(1, state.getImages()[1]);
+        assertEquals(2, state.getImages()[9_000]);
+        assertArrayEquals(new int[]{0, 9_999}, state.getMinePositions());
+
+        // a page torn in the last slot falls back on the previous checkpoint
+        int slotSize = 4 * GameCheckpointer.PAGE_SIZE;
+        try (FileChannel file = FileChannel.open(directory.resolve(GameCheckpointer.CHECKPOINT_FILE),
+                StandardOpenOption.WRITE)) {
+            file.write(ByteBuffer.wrap(new byte[]{42}), slotSize + GameCheckpointer.PAGE_SIZE + 9_001);
+        }
+        state = GameCheckpointer.recover(directory, CONFIG);
+        assertEquals(2, state.getMoves());
+        assertEquals(1, state.getImages()[1]);
+        assertEquals(Zobrist.COVERED, state.getImages()[9_000]);
+        assertEquals(1, state.getCheckedCells());
+        assertEquals(700, state.getElapsedMillis());
+        checkpointer.close();
+
+        // the configuration of the board must match
+        assertNull(GameCheckpointer.recover(directory, BoardConfig.EXPERT));
+    }
+
+    @Test
+    void concurrentCheckpointTest() throws InterruptedException {
+        // the writer checkpoints continuously while the moves are recorded
+        GameCheckpointer checkpointer = new GameCheckpointer(directory, CONFIG, 1, 0);
+        checkpointer.reset(i -> Zobrist.COVERED, new int[0], 10, 0, SpectatorStream.IN_GAME, -1);
+        int moves = 20_000;
+        for (int move = 1; move <= moves; move++) {
+            checkpointer.cellChanged(move % CONFIG.getCells(), move % 9);
+            checkpointer.commit(10, move, SpectatorStream.IN_GAME, -1);
+        }
+
+        // every record and every slot is valid, so the last move is recovered without closing
+        GameCheckpointer.State state = awaitMove(moves + 1);
+        assertEquals(moves, state.getCheckedCells());
+        for (int move = moves - CONFIG.getCells() + 1; move <= moves; move++)
+            assertEquals(move % 9, state.getImages()[move % CONFIG.getCells()]);
+        assertTrue(checkpointer.getCheckpoints() > 0);
+        checkpointer.close();
+    }
+
+    @Test
+    void boardTest() {
+        Board board = new Board(new JLabel());
+        board.enableCheckpoints(directory);
+        board.getMouseAdapter().cellLeftClicked(0);
+        int covered = 0;
+        while (board.getBoardCells().get(covered).getCellState() != CellState.UNCHECKED)
+            covered++;
+        board.getMouseAdapter().cellRightClicked(covered);
+        board.disableCheckpoints();
+
+        // a new run resumes the game
+        Board resumed = new Board(new JLabel());
+        resumed.enableCheckpoints(directory);
+        assertTrue(resumed.isInGame());
+        assertEquals(board.getMinesLeft(), resumed.getMinesLeft());
+        assertEquals(board.getCheckedCells(), resumed.getCheckedCells());
+        assertEquals(board.getVisibleHash(), resumed.getVisibleHash());
+        // the clock goes on, so the time of the game is not restarted
+        assertTrue(resumed.isClockStarted());
+        for (int i = 0; i < Board.ROWS * Board.COLS; i++) {
+            ICell cell = board.getBoardCells().get(i);
+            ICell resumedCell = resumed.getBoardCells().get(i);
+            assertEquals(cell.getCellState(), resumedCell.getCellState(), "cell " + i);
+            assertEquals(cell.isMined(), resumedCell.isMined(), "cell " + i);
+        }
+
+        // a new game is saved as well
+        resumed.resetBoard();
+        resumed.disableCheckpoints();
+        GameCheckpointer.State state = GameCheckpointer.recover(directory, Board.CONFIG);
+        assertEquals(Board.MINES, state.getMinesLeft());
+        assertEquals(0, state.getMinePositions().length);
+    }
+}
@@ -0,0 +1,46 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void percentileTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentile(99));
+
+        for (long value = 1; value <= 100_000; value++)
+            histogram.record(value * 1000);
+
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(100_000_000, histogram.getMax());
+        assertEquals(50_000_000, histogram.getPercentile(50), 50_000_000 * 0.04);
+        assertEquals(99_000_000, histogram.getPercentile(99), 99_000_000 * 0.04);
+        assertEquals(100_000_000, histogram.getPercentile(100));
+
+        // small values are exact
+        LatencyHistogram small = new LatencyHistogram();
+        small.record(3);
+        small.record(-5);
+        assertEquals(0, small.getPercentile(50));
+        assertEquals(3, small.getPercentile(100));
+    }
+
+    @Test
+    void mergeTest() {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        first.record(10);
+        second.record(1_000_000);
+        second.record(Long.MAX_VALUE);
+        first.merge(second);
+
+        assertEquals(3, first.getCount());
+        assertEquals(Long.MAX_VALUE, first.getMax());
+        assertEquals(10, first.getPercentile(30));
+        assertEquals(1_000_000, first.getPercentile(60), 1_000_000 * 0.04);
+        assertEquals(Long.MAX_VALUE, first.getPercentile(100));
+    }
+}
@@ -0,0 +1,138 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.swing.*;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderboardTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void rankTest() {
+        try (Leaderboard leaderboard = new Leaderboard(directory)) {
+            assertEquals(1, leaderboard.record("alice", BoardConfig.EXPERT, 90_000));
+            assertEquals(1, leaderboard.record("bob", BoardConfig.EXPERT, 60_000));
+            assertEquals(2, leaderboard.getRank("alice", BoardConfig.EXPERT));
+
+            // a slower time does not replace the best one
+            assertEquals(2, leaderboard.record("alice", BoardConfig.EXPERT, 120_000));
+            assertEquals(90_000, leaderboard.getBestTime("alice", BoardConfig.EXPERT));
+
+            // a better time moves the player up
+            assertEquals(1, leaderboard.record("alice", BoardConfig.EXPERT, 30_000));
+            assertEquals(2, leaderboard.getRank("bob", BoardConfig.EXPERT));
+            assertEquals(2, leaderboard.getPlayerCount(BoardConfig.EXPERT));
+            assertEquals(3, leaderboard.getRankOf(BoardConfig.EXPERT, 70_000));
+
+            // the configurations are ranked separately
+            assertEquals(0, leaderboard.getRank("alice", BoardConfig.BEGINNER));
+            assertEquals(-1, leaderboard.getBestTime("alice", BoardConfig.BEGINNER));
+            assertEquals(1, leaderboard.record("carol", BoardConfig.BEGINNER, 5_000));
+
+            // the times longer than the last bucket are ranked last
+            assertEquals(3, leaderboard.record("dave", BoardConfig.EXPERT, Long.MAX_VALUE));
+            assertThrows(IllegalArgumentException.class, () -> leaderboard.record("eve", BoardConfig.EXPERT, -1));
+        }
+    }
+
+    @Test
+    void modeTest() {
+        Leaderboard leaderboard = new Leaderboard(directory, 2);
+        assertEquals(1, leaderboard.record("alice", BoardConfig.EXPERT, 90_000));
+        assertEquals(1, leaderboard.record("bob", Leaderboard.Mode.DAILY, BoardConfig.EXPERT, 120_000));
+        assertEquals(1, leaderboard.record("carol", Leaderboard.Mode.NO_GUESS, BoardConfig.EXPERT, 100_000));
+
+        // the modes are ranked separately
+        assertEquals(1, leaderboard.getPlayerCount(BoardConfig.EXPERT));
+        assertEquals(0, leaderboard.getRank("bob", BoardConfig.EXPERT));
+        assertEquals(120_000, leaderboard.getBestTime("bob", Leaderboard.Mode.DAILY, BoardConfig.EXPERT));
+        assertEquals(-1, leaderboard.getBestTime("bob", Leaderboard.Mode.NO_GUESS, BoardConfig.EXPERT));
+
+        // the modes are kept by the snapshot of the first two results, and by the log of the last one
+        try (Leaderboard reopened = new Leaderboard(directory, 2)) {
+            assertEquals(1, reopened.getReplayedRecords());
+            assertEquals(1, reopened.getRank("alice", BoardConfig.EXPERT));
+            assertEquals(1, reopened.getPlayerCount(Leaderboard.Mode.DAILY, BoardConfig.EXPERT));
+            assertEquals(1, reopened.getRank("carol", Leaderboard.Mode.NO_GUESS, BoardConfig.EXPERT));
+            assertEquals(0, reopened.getRank("carol", BoardConfig.EXPERT));
+        }
+        leaderboard.close();
+    }
+
+    @Test
+    void boardTest() throws InterruptedException, InvocationTargetException {
+        Leaderboard leaderboard = new Leaderboard(directory);
+        JLabel statusbar = new JLabel();
+        Board board = new Board(statusbar, true);
+        board.setLeaderboard(leaderboard, "alice");
+        List<ICell> cells = board.getBoardCells();
+        for (int i = 0; i < cells.size() && board.isInGame(); i++) {
+            if (cells.get(i).getCellState() != CellState.UNCHECKED)
+                continue;
+            if (cells.get(i).isMined())
+                board.getMouseAdapter().cellRightClicked(i);
+            else
+                board.getMouseAdapter().cellLeftClicked(i);
+            board.checkWining();
+        }
+        assertTrue(statusbar.getText().startsWith("Game Won in "), statusbar.getText());
+
+        // the rank is shown once the time is recorded in the background
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        String[] text = new String[1];
+        do {
+            Thread.sleep(5);
+            SwingUtilities.invokeAndWait(() -> text[0] = statusbar.getText());
+        } while (!text[0].endsWith(", rank 1") && System.nanoTime() < deadline);
+        assertTrue(text[0].endsWith(", rank 1"), text[0]);
+        assertEquals(1, leaderboard.getRank("alice", Leaderboard.Mode.NO_GUESS, Board.CONFIG));
+        assertEquals(0, leaderboard.getRank("alice", Board.CONFIG));
+        leaderboard.close();
+    }
+
+    @Test
+    void recoveryTest() throws IOException {
+        Leaderboard leaderboard = new Leaderboard(directory, 100);
+        for (int i = 0; i < 250; i++)
+            leaderboard.record("player" + (i % 50), BoardConfig.INTERMEDIATE, 10_000 + i * 37 % 5_000);
+        // the last 50 results are only in the log, after the snapshot of the 200th
+        Path log = directory.resolve(Leaderboard.LOG_FILE);
+        long logLength = Files.size(log);
+        int rank = leaderboard.getRank("player7", BoardConfig.INTERMEDIATE);
+        long best = leaderboard.getBestTime("player7", BoardConfig.INTERMEDIATE);
+
+        // reopening without closing replays the results appended after the snapshot
+        Leaderboard reopened = new Leaderboard(directory, 100);
+        assertEquals(50, reopened.getReplayedRecords());
+        assertEquals(rank, reopened.getRank("player7", BoardConfig.INTERMEDIATE));
+        assertEquals(best, reopened.getBestTime("player7", BoardConfig.INTERMEDIATE));
+        assertEquals(50, reopened.getPlayerCount(BoardConfig.INTERMEDIATE));
+        reopened.close();
+        leaderboard.close();
+
+        // a record cut short by a crash is dropped, and a damaged snapshot is replaced by the whole log
+        Files.write(log, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+        Files.write(directory.resolve(Leaderboard.SNAPSHOT_FILE), new byte[]{1, 0, 0});
+        try (Leaderboard recovered = new Leaderboard(directory, 100)) {
+            assertEquals(250, recovered.getReplayedRecords());
+            assertEquals(logLength, Files.size(log));
+            assertEquals(best, recovered.getBestTime("player7", BoardConfig.INTERMEDIATE));
+            assertEquals(1, recovered.record("fast", BoardConfig.INTERMEDIATE, 1));
+        }
+        try (Leaderboard recovered = new Leaderboard(directory, 100)) {
+            assertEquals(0, recovered.getReplayedRecords());
+            assertEquals(51, recovered.getPlayerCount(BoardConfig.INTERMEDIATE));
+        }
+    }
+}
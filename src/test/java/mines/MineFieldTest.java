@@ -0,0 +1,250 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MineFieldTest {
+
+    /**
+     * A 3x4 board with mines at the top left and bottom right corners:
+     * <pre>
+     * * 1 0 0
+     * 1 1 1 1
+     * 0 0 1 *
+     * </pre>
+     */
+    private static final MineLayout LAYOUT = new MineLayout(new BoardConfig(3, 4, 2), 3, new int[]{0, 11});
+
+    @Test
+    void setLayoutTest() {
+        MineField field = new MineField(LAYOUT.getConfig());
+        field.setLayout(LAYOUT);
+
+        assertTrue(field.isMined(0));
+        assertTrue(field.isMined(11));
+        assertArrayEquals(new int[]{0, 11}, field.getMinePositions());
+
+        // checking the number of mined corners
+        assertEquals(1, field.getCount(1));
+        assertEquals(0, field.getCount(3));
+        assertEquals(1, field.getCount(5));
+        assertEquals(0, field.getCount(8));
+        assertEquals(1, field.getCount(10));
+    }
+
+    @Test
+    void revealEmptyAreaTest() {
+        MineField field = new MineField(LAYOUT.getConfig());
+        field.setLayout(LAYOUT);
+
+        // revealing an empty cell reveals the empty area and its border
+        assertEquals(6, field.reveal(3));
+        assertEquals(6, field.getChangedCount());
+        int[] changed = new int[6];
+        for (int i = 0; i < changed.length; i++)
+            changed[i] = field.getChangedCell(i);
+        Arrays.sort(changed);
+        assertArrayEquals(new int[]{1, 2, 3, 5, 6, 7}, changed);
+        assertEquals(MineField.REVEALED, field.getState(1));
+        assertEquals(MineField.REVEALED, field.getState(7));
+        assertEquals(MineField.COVERED, field.getState(4));
+
+        // revealing an already revealed cell does nothing
+        assertEquals(0, field.reveal(3));
+        assertEquals(0, field.getChangedCount());
+        assertEquals(6, field.getRevealedCells());
+        assertFalse(field.isWon());
+    }
+
+    @Test
+    void revealMineTest() {
+        MineField field = new MineField(LAYOUT.getConfig());
+        field.setLayout(LAYOUT);
+
+        assertEquals(1, field.reveal(11));
+        assertTrue(field.isLost());
+        assertFalse(field.isWon());
+    }
+
+    @Test
+    void toggleFlagTest() {
+        MineField field = new MineField(LAYOUT.getConfig());
+        field.setLayout(LAYOUT);
+
+        assertTrue(field.toggleFlag(0));
+        assertEquals(MineField.FLAGGED, field.getState(0));
+        assertEquals(1, field.getFlaggedCells());
+
+        // a flagged cell cannot be revealed
+        assertEquals(0, field.reveal(0));
+
+        assertTrue(field.toggleFlag(0));
+        assertEquals(MineField.COVERED, field.getState(0));
+        assertEquals(0, field.getFlaggedCells());
+
+        // a revealed cell cannot be flagged
+        field.reveal(1);
+        assertFalse(field.toggleFlag(1));
+    }
+
+    @Test
+    void chordTest() {
+        MineField field = new MineField(LAYOUT.getConfig());
+        field.setLayout(LAYOUT);
+        field.reveal(3);
+
+        // the flags of the cell 5 do not match its number yet
+        assertEquals(0, field.chord(5));
+        // an empty cell or a covered cell cannot be chorded
+        field.toggleFlag(0);
+        assertEquals(0, field.chord(3));
+        assertEquals(0, field.chord(4));
+
+        // chording reveals the covered corners and the empty area behind them in one move
+        long hash = field.getHash();
+        assertEquals(4, field.apply(Action.chord(5)));
+        assertNotEquals(hash, field.getHash());
+        assertEquals(10, field.getRevealedCells());
+        assertTrue(field.isWon());
+
+        // a wrong flag loses the game
+        field.restart();
+        field.reveal(3);
+        field.toggleFlag(4);
+        assertEquals(4, field.chord(5));
+        assertTrue(field.isLost());
+        assertEquals(MineField.REVEALED, field.getState(0));
+        assertEquals("chord 5", Action.toString(Action.chord(5)));
+    }
+
+    @Test
+    void placeMinesTest() {
+        MineField field = new MineField(BoardConfig.EXPERT);
+        int safeIndex = 5 * BoardConfig.EXPERT.getColumns() + 10;
+        field.placeMines(new Random(42), safeIndex);
+
+        assertEquals(BoardConfig.EXPERT.getMines(), field.getMinePositions().length);
+
+        // the safe cell and its corners have no mine
+        assertEquals(0, field.getCount(safeIndex));
+        assertFalse(field.isMined(safeIndex));
+
+        // the board is fully cleared before placing new mines
+        field.reveal(safeIndex);
+        field.placeMines(new Random(7), safeIndex);
+        assertEquals(0, field.getRevealedCells());
+        assertEquals(BoardConfig.EXPERT.getMines(), field.getMinePositions().length);
+    }
+
+    @Test
+    void sampleMinesTest() {
+        boolean[] excluded = new boolean[20];
+        excluded[0] = true;
+        excluded[7] = true;
+        int[] mineCount = new int[20];
+
+        for (int seed = 0; seed < 1000; seed++) {
+            int[] positions = MineField.sampleMines(new Random(seed), 5, excluded, 2);
+            assertEquals(5, positions.length);
+            for (int i = 0; i < positions.length; i++) {
+                // the positions are distinct, in increasing order, and never excluded
+                assertTrue(i == 0 || positions[i] > positions[i - 1]);
+                assertFalse(excluded[positions[i]]);
+                mineCount[positions[i]]++;
+            }
+        }
+
+        // every allowed cell has been mined about 5 times out of 18
+        assertTrue(mineCount[1] > 150 && mineCount[19] > 150);
+
+        // the allowed cells must be enough for the mines
+        assertThrows(IllegalArgumentException.class, () -> MineField.sampleMines(new Random(), 19, excluded, 2));
+    }
+
+    @Test
+    void solveTest() {
+        MineField field = new MineField(LAYOUT.getConfig());
+        field.setLayout(LAYOUT);
+
+        // the small board can be won without guessing from its top right corner
+        assertTrue(new DeductionSolver().solve(field, 3));
+        assertTrue(field.isWon());
+    }
+
+    @Test
+    void hashTest() {
+        MineField field = new MineField(LAYOUT.getConfig());
+        field.setLayout(LAYOUT);
+        assertEquals(0, field.getHash());
+
+        // the hash follows the visible state, whatever the order of the moves
+        field.reveal(3);
+        field.toggleFlag(0);
+        long hash = field.getHash();
+        assertNotEquals(0, hash);
+        assertEquals(hash, field.getView().getHash());
+
+        MineField other = new MineField(LAYOUT.getConfig());
+        other.setLayout(LAYOUT);
+        other.toggleFlag(0);
+        other.reveal(3);
+        assertEquals(hash, other.getHash());
+
+        // removing the flag restores the previous hash
+        field.toggleFlag(0);
+        other.toggleFlag(0);
+        long expected = 0;
+        for (int index = 0; index < field.getCellCount(); index++) {
+            if (field.getState(index) == MineField.REVEALED)
+                expected ^= Zobrist.key(index, field.getCount(index));
+        }
+        assertEquals(expected, field.getHash());
+        assertEquals(expected, other.getHash());
+
+        field.clear();
+        assertEquals(0, field.getHash());
+    }
+
+    @Test
+    void serializeTest() {
+        MineField field = new MineField(LAYOUT.getConfig());
+        field.setLayout(LAYOUT);
+        field.reveal(3);
+        field.toggleFlag(0);
+
+        ByteBuffer buffer = ByteBuffer.allocate(field.getMaxSerializedSize());
+        field.writeTo(buffer);
+        buffer.flip();
+        MineField copy = MineField.readFrom(buffer);
+        assertFalse(buffer.hasRemaining());
+        assertEquals(field.getConfig(), copy.getConfig());
+        assertArrayEquals(field.getMinePositions(), copy.getMinePositions());
+        for (int index = 0; index < field.getCellCount(); index++) {
+            assertEquals(field.getImageIndex(index), copy.getImageIndex(index));
+            assertEquals(field.getCount(index), copy.getCount(index));
+        }
+        assertEquals(field.getView().getRevealedCells(), copy.getView().getRevealedCells());
+        assertEquals(field.getView().getFlaggedCells(), copy.getView().getFlaggedCells());
+        assertEquals(field.getHash(), copy.getHash());
+
+        // a lost game stays lost
+        copy.reveal(LAYOUT.getMines()[1]);
+        buffer.clear();
+        copy.writeTo(buffer);
+        buffer.flip();
+        MineField lost = MineField.readFrom(buffer);
+        assertFalse(lost.isWon());
+        assertEquals(Zobrist.MINE, lost.getImageIndex(LAYOUT.getMines()[1]));
+
+        // the same mine twice is rejected
+        buffer.clear();
+        buffer.put(new byte[]{3, 4, 2, 0, 0, 1, 0});
+        buffer.flip();
+        assertThrows(IllegalArgumentException.class, () -> MineField.readFrom(buffer));
+    }
+}
@@ -2,6 +2,9 @@ package mines;
 
 import org.junit.jupiter.api.Test;
 
+import java.nio.file.Path;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class MinesTest {
@@ -14,4 +17,14 @@ class MinesTest {
 
     }
 
+    @Test
+    void sharePathTest() {
+        assertNull(Mines.getSharePath(List.of(Mines.PRACTICE_ARGUMENT)));
+        assertEquals(Path.of("board.bin"),
+                Mines.getSharePath(List.of(Mines.NO_GUESS_ARGUMENT, Mines.SHARE_ARGUMENT, "board.bin")));
+        assertThrows(IllegalArgumentException.class, () -> Mines.getSharePath(List.of(Mines.SHARE_ARGUMENT)));
+        assertThrows(IllegalArgumentException.class,
+                () -> Mines.getSharePath(List.of(Mines.SHARE_ARGUMENT, Mines.DAILY_ARGUMENT)));
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,38 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NoGuessGeneratorTest {
+
+    @Test
+    void generateExpertTest() {
+        int startIndex = 8 * BoardConfig.EXPERT.getColumns() + 15;
+        NoGuessGenerator generator = new NoGuessGenerator();
+
+        MineLayout layout = assertTimeoutPreemptively(Duration.ofSeconds(30),
+                () -> generator.generate(BoardConfig.EXPERT, startIndex));
+
+        assertEquals(BoardConfig.EXPERT, layout.getConfig());
+        assertEquals(startIndex, layout.getStartIndex());
+        assertEquals(BoardConfig.EXPERT.getMines(), layout.getMines().length);
+
+        // checking the layout is won by the solver from the start cell
+        MineField field = new MineField(BoardConfig.EXPERT);
+        field.setLayout(layout);
+        assertTrue(new DeductionSolver().solve(field, startIndex));
+    }
+
+    @Test
+    void giveUpTest() {
+        // a board full of mines around a single empty area cannot be solved in one attempt
+        NoGuessGenerator generator = new NoGuessGenerator(2, 1, new SplittableRandom(1));
+        BoardConfig config = new BoardConfig(10, 10, 60);
+
+        assertThrows(IllegalStateException.class, () -> generator.generate(config, 0));
+    }
+}
@@ -0,0 +1,65 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentByteVectorTest {
+
+    @Test
+    void filledTest() {
+        PersistentByteVector vector = PersistentByteVector.filled(1000, (byte) 10);
+        assertEquals(1000, vector.size());
+        for (int i = 0; i < vector.size(); i++)
+            assertEquals(10, vector.get(i));
+    }
+
+    @Test
+    void editTest() {
+        PersistentByteVector first = PersistentByteVector.filled(5000, (byte) 10);
+        PersistentByteVector.Editor editor = first.edit();
+        assertFalse(editor.isChanged());
+        editor.set(0, (byte) 1);
+        editor.set(4999, (byte) 2);
+        editor.set(4999, (byte) 3);
+        assertTrue(editor.isChanged());
+        PersistentByteVector second = editor.build();
+        assertFalse(editor.isChanged());
+
+        // the previous version is unchanged
+        assertEquals(10, first.get(0));
+        assertEquals(10, first.get(4999));
+        assertEquals(1, second.get(0));
+        assertEquals(3, second.get(4999));
+        assertEquals(10, second.get(2500));
+
+        assertThrows(IndexOutOfBoundsException.class, () -> editor.set(5000, (byte) 0));
+    }
+
+    @Test
+    void forEachDifferenceTest() {
+        PersistentByteVector first = PersistentByteVector.filled(100_000, (byte) 10);
+        PersistentByteVector.Editor editor = first.edit();
+        for (int i = 40_000; i < 40_100; i++)
+            editor.set(i, (byte) 0);
+        editor.set(99_999, (byte) 10);
+        PersistentByteVector second = editor.build();
+
+        // a cell set to its previous value is not a difference
+        List<Integer> differences = new ArrayList<>();
+        first.forEachDifference(second, differences::add);
+        assertEquals(100, differences.size());
+        assertEquals(40_000, differences.get(0));
+        assertEquals(40_099, differences.get(99));
+
+        differences.clear();
+        second.forEachDifference(second.edit().build(), differences::add);
+        assertTrue(differences.isEmpty());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> first.forEachDifference(PersistentByteVector.filled(10, (byte) 10), differences::add));
+    }
+}
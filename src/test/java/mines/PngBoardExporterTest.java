@@ -0,0 +1,113 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntUnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PngBoardExporterTest {
+
+    private static final File IMAGES = new File("src/main/images");
+
+    @Test
+    void exportTest() throws IOException {
+        // a board wider than a tile, so that a row is rendered by several tasks
+        BoardConfig config = new BoardConfig(3, 300, 100);
+        MineField field = new MineField(config);
+        field.placeMines(new Random(7), 450);
+        field.reveal(450);
+        field.toggleFlag(field.getMinePositions()[0]);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            new PngBoardExporter(IMAGES, 5, pool).export(field, out);
+        } finally {
+            pool.shutdown();
+        }
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(300 * 5, image.getWidth());
+        assertEquals(3 * 5, image.getHeight());
+
+        // every cell is drawn with the image of its visible state
+        BufferedImage reference = ImageIO.read(new ByteArrayInputStream(exportSingleCells()));
+        for (int index = 0; index < config.getCells(); index++) {
+            int imageIndex = field.getImageIndex(index);
+            int x = index % 300 * 5;
+            int y = index / 300 * 5;
+            for (int dy = 0; dy < 5; dy++)
+                for (int dx = 0; dx < 5; dx++)
+                    assertEquals(reference.getRGB(imageIndex * 5 + dx, dy), image.getRGB(x + dx, y + dy));
+        }
+    }
+
+    /**
+     * Exports a row of 13 cells showing every image in order.
+     *
+     * @return the PNG image
+     * @throws IOException if the images cannot be read
+     */
+    private static byte[] exportSingleCells() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new PngBoardExporter(IMAGES, 5, ForkJoinPool.commonPool()).export(1, 13, index -> index, out);
+        return out.toByteArray();
+    }
+
+    @Test
+    void boundedMemoryTest() throws IOException {
+        // a 10^7 cell board of varied images, streamed as thumbnails of 1 pixel per cell into a counting stream
+        int rows = 2500;
+        int columns = 4000;
+        AtomicInteger renderedRows = new AtomicInteger();
+        IntUnaryOperator imageIndex = index -> {
+            if (index % columns == 0)
+                renderedRows.accumulateAndGet(index / columns + 1, Math::max);
+            return (index * 0x9E3779B1 >>> 20) % 13;
+        };
+
+        long[] written = new long[1];
+        int[] largestWrite = new int[1];
+        int[] rowsAtFirstChunk = new int[1];
+        OutputStream counter = new OutputStream() {
+            @Override
+            public void write(int b) {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                written[0] += len;
+                largestWrite[0] = Math.max(largestWrite[0], len);
+                if (rowsAtFirstChunk[0] == 0 && written[0] > PngBoardExporter.CHUNK_SIZE)
+                    rowsAtFirstChunk[0] = renderedRows.get();
+            }
+        };
+        new PngBoardExporter(IMAGES, 1, ForkJoinPool.commonPool()).export(rows, columns, imageIndex, counter);
+
+        // the image reaches the stream in chunks while the rows are rendered, instead of being buffered whole
+        assertTrue(written[0] > 10 * PngBoardExporter.CHUNK_SIZE);
+        assertTrue(largestWrite[0] <= PngBoardExporter.CHUNK_SIZE + 12, "write of " + largestWrite[0] + " bytes");
+        assertTrue(rowsAtFirstChunk[0] > 0 && rowsAtFirstChunk[0] < rows / 10,
+                "first chunk after " + rowsAtFirstChunk[0] + " rows");
+    }
+
+    @Test
+    void invalidSizeTest() throws IOException {
+        PngBoardExporter exporter = new PngBoardExporter(IMAGES, 25, ForkJoinPool.commonPool());
+        assertThrows(IllegalArgumentException.class,
+                () -> exporter.export(1, Integer.MAX_VALUE / 10, index -> 0, new ByteArrayOutputStream()));
+        assertThrows(IOException.class, () -> new PngBoardExporter(new File("missing"), 25, ForkJoinPool.commonPool()));
+    }
+}
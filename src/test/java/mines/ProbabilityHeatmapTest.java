@@ -0,0 +1,131 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProbabilityHeatmapTest {
+
+    private static final byte C = Zobrist.COVERED;
+
+    private static final byte M = Zobrist.MARKED;
+
+    /**
+     * Sends a whole visible state to a heatmap, as a new game whose cells all changed, and computes it.
+     *
+     * @param heatmap the heatmap
+     * @param cells   the index of the image displayed by every cell
+     * @return the probabilities
+     */
+    private static float[] compute(ProbabilityHeatmap heatmap, byte[] cells) {
+        heatmap.reset();
+        for (int i = 0; i < cells.length; i++)
+            if (cells[i] != C)
+                heatmap.cellChanged(i, cells[i]);
+        return heatmap.compute();
+    }
+
+    @Test
+    void singleNumberTest() {
+        // a 1 in the middle of a covered 3x3 board spreads its mine over its 8 corners
+        BoardConfig config = new BoardConfig(3, 3, 1);
+        ProbabilityHeatmap heatmap = new ProbabilityHeatmap(config, () -> { });
+        float[] probabilities = compute(heatmap, new byte[]{
+                C, C, C,
+                C, 1, C,
+                C, C, C});
+
+        assertTrue(probabilities[4] < 0);
+        for (int i = 0; i < 9; i++) {
+            if (i != 4)
+                assertEquals(1 / 8f, probabilities[i], 1e-6);
+        }
+    }
+
+    @Test
+    void componentTest() {
+        // the 1 on the left touches a single covered cell, which is mined,
+        // so the other corner of the 2 is mined too and the last covered cell is safe
+        BoardConfig config = new BoardConfig(2, 4, 2);
+        ProbabilityHeatmap heatmap = new ProbabilityHeatmap(config, () -> { });
+        float[] probabilities = compute(heatmap, new byte[]{
+                1, 2, 1, 0,
+                C, C, C, 0});
+        assertArrayEquals(new float[]{-1, -1, -1, -1, 1, 0, 1, -1}, probabilities, 1e-6f);
+
+        // a marked cell counts as a mine
+        heatmap.cellChanged(4, M);
+        probabilities = heatmap.compute();
+        assertEquals(0, probabilities[5], 1e-6);
+        assertEquals(1, probabilities[6], 1e-6);
+    }
+
+    @Test
+    void interiorDensityTest() {
+        BoardConfig config = new BoardConfig(4, 4, 3);
+        ProbabilityHeatmap heatmap = new ProbabilityHeatmap(config, () -> { });
+        byte[] cells = new byte[16];
+        Arrays.fill(cells, C);
+        cells[0] = 1;
+        float[] probabilities = compute(heatmap, cells);
+
+        // one mine is expected among the 3 corners of the 1, two among the 12 other cells
+        assertEquals(1 / 3f, probabilities[1], 1e-6);
+        assertEquals(2 / 12f, probabilities[15], 1e-6);
+    }
+
+    @Test
+    void incrementalTest() {
+        // two separate components on a wide board, at both ends of a revealed row
+        BoardConfig config = new BoardConfig(2, 12, 4);
+        ProbabilityHeatmap heatmap = new ProbabilityHeatmap(config, () -> { });
+        byte[] cells = {
+                1, 1, 0, 0, 0, 0, 0, 0, 0, 0, 1, 1,
+                C, C, C, 0, 0, 0, 0, 0, 0, C, C, C};
+        compute(heatmap, cells);
+        assertEquals(2, heatmap.getComputedComponents());
+
+        // marking a cell on the right only recomputes the right component
+        heatmap.cellChanged(23, M);
+        float[] probabilities = heatmap.compute();
+        assertEquals(3, heatmap.getComputedComponents());
+        assertEquals(0.5, probabilities[12], 1e-6);
+        assertEquals(0, probabilities[22], 1e-6);
+        assertEquals(0.5, probabilities[13], 1e-6);
+
+        // covering the cell again gives the component its probabilities back
+        heatmap.cellChanged(23, C);
+        probabilities = heatmap.compute();
+        assertEquals(4, heatmap.getComputedComponents());
+        assertEquals(0.5, probabilities[23], 1e-6);
+
+        // a change without effect computes nothing
+        heatmap.cellChanged(0, 1);
+        heatmap.compute();
+        assertEquals(4, heatmap.getComputedComponents());
+
+        // a new game forgets the frontier
+        heatmap.reset();
+        probabilities = heatmap.compute();
+        assertEquals(4 / 24f, probabilities[0], 1e-6);
+        assertEquals(4 / 24f, probabilities[23], 1e-6);
+    }
+
+    @Test
+    void submitTest() throws InterruptedException {
+        CountDownLatch computed = new CountDownLatch(1);
+        ProbabilityHeatmap heatmap = new ProbabilityHeatmap(new BoardConfig(3, 3, 1), computed::countDown);
+
+        // the probabilities of the empty board are readable before any computation
+        assertEquals(1 / 9f, heatmap.getProbabilities()[0], 1e-6);
+
+        heatmap.cellChanged(4, 1);
+        heatmap.commit();
+        assertTrue(computed.await(10, TimeUnit.SECONDS));
+        assertEquals(1 / 8f, heatmap.getProbabilities()[0], 1e-6);
+    }
+}
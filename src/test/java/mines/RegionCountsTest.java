@@ -0,0 +1,115 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegionCountsTest {
+
+    /**
+     * Counts the cells of a rectangle with an image, by scanning it.
+     *
+     * @param images     the image of every cell, as in {@link Zobrist}
+     * @param columns    the number of columns of the board
+     * @param fromRow    the first row of the rectangle
+     * @param fromColumn the first column of the rectangle
+     * @param toRow      the row after the last one of the rectangle
+     * @param toColumn   the column after the last one of the rectangle
+     * @param low        the lowest image counted
+     * @param high       the highest image counted
+     * @return the number of cells
+     */
+    private static int scan(int[] images, int columns, int fromRow, int fromColumn, int toRow, int toColumn,
+                            int low, int high) {
+        int count = 0;
+        for (int row = fromRow; row < toRow; row++)
+            for (int column = fromColumn; column < toColumn; column++) {
+                int image = images[row * columns + column];
+                if (image >= low && image <= high)
+                    count++;
+            }
+        return count;
+    }
+
+    @Test
+    void randomTest() {
+        BoardConfig config = new BoardConfig(23, 37, 100);
+        Random random = new Random(5);
+        RegionCounts counts = new RegionCounts(config);
+        boolean[] mined = new boolean[config.getCells()];
+        int[] positions = MineField.sampleMines(random, config.getMines(), new boolean[config.getCells()], 0);
+        for (int position : positions)
+            mined[position] = true;
+        counts.reset(positions);
+
+        int[] images = new int[config.getCells()];
+        Arrays.fill(images, Zobrist.COVERED);
+        for (int move = 0; move < 2_000; move++) {
+            int index = random.nextInt(images.length);
+            int image = random.nextInt(Zobrist.WRONG_MARK + 1);
+            counts.cellChanged(index, images[index], image);
+            images[index] = image;
+
+            int fromRow = random.nextInt(config.getRows() + 1);
+            int toRow = fromRow + random.nextInt(config.getRows() - fromRow + 1);
+            int fromColumn = random.nextInt(config.getColumns() + 1);
+            int toColumn = fromColumn + random.nextInt(config.getColumns() - fromColumn + 1);
+            int mines = 0;
+            for (int row = fromRow; row < toRow; row++)
+                for (int column = fromColumn; column < toColumn; column++)
+                    if (mined[row * config.getColumns() + column])
+                        mines++;
+            assertEquals(mines, counts.countMines(fromRow, fromColumn, toRow, toColumn));
+            assertEquals(scan(images, config.getColumns(), fromRow, fromColumn, toRow, toColumn,
+                    Zobrist.MARKED, Zobrist.WRONG_MARK), counts.countFlags(fromRow, fromColumn, toRow, toColumn));
+            assertEquals(scan(images, config.getColumns(), fromRow, fromColumn, toRow, toColumn, 0, Zobrist.MINE),
+                    counts.countRevealed(fromRow, fromColumn, toRow, toColumn));
+            assertEquals(scan(images, config.getColumns(), fromRow, fromColumn, toRow, toColumn,
+                    Zobrist.COVERED, Zobrist.COVERED), counts.countCovered(fromRow, fromColumn, toRow, toColumn));
+        }
+
+        // a new game covers all the cells
+        counts.reset(new int[0]);
+        assertEquals(0, counts.countMines(0, 0, config.getRows(), config.getColumns()));
+        assertEquals(config.getCells(), counts.countCovered(0, 0, config.getRows(), config.getColumns()));
+    }
+
+    @Test
+    void boardTest() {
+        Board board = new Board(new JLabel());
+        RegionCounts counts = board.getRegionCounts();
+        assertEquals(0, counts.countMines(0, 0, Board.ROWS, Board.COLS));
+        assertEquals(Board.ROWS * Board.COLS, counts.countCovered(0, 0, Board.ROWS, Board.COLS));
+
+        board.getMouseAdapter().cellLeftClicked(0);
+        List<ICell> cells = board.getBoardCells();
+        int covered = 0;
+        while (cells.get(covered).getCellState() != CellState.UNCHECKED)
+            covered++;
+        board.getMouseAdapter().cellRightClicked(covered);
+
+        assertEquals(Board.MINES, counts.countMines(0, 0, Board.ROWS, Board.COLS));
+        assertEquals(board.getCheckedCells(), counts.countRevealed(0, 0, Board.ROWS, Board.COLS));
+        assertEquals(1, counts.countFlags(0, 0, Board.ROWS, Board.COLS));
+        int mines = 0;
+        int revealed = 0;
+        for (int row = 2; row < 9; row++)
+            for (int column = 3; column < 12; column++) {
+                ICell cell = cells.get(row * Board.COLS + column);
+                mines += cell.isMined() ? 1 : 0;
+                revealed += cell.getCellState() == CellState.CHECKED ? 1 : 0;
+            }
+        assertEquals(mines, counts.countMines(2, 3, 9, 12));
+        assertEquals(revealed, counts.countRevealed(2, 3, 9, 12));
+
+        board.resetBoard();
+        assertEquals(0, counts.countMines(0, 0, Board.ROWS, Board.COLS));
+        assertEquals(0, counts.countFlags(0, 0, Board.ROWS, Board.COLS));
+        assertEquals(0, counts.countRevealed(0, 0, Board.ROWS, Board.COLS));
+    }
+}
@@ -0,0 +1,111 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionRegistryTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void spillAndRehydrateTest() {
+        BoardConfig config = BoardConfig.INTERMEDIATE;
+        int sessions = 200;
+        SessionRegistry registry = new SessionRegistry(directory, 16, TimeUnit.HOURS.toNanos(1), 4);
+
+        // the same games are played on fields kept in memory
+        MineField[] expected = new MineField[sessions];
+        long[] ids = new long[sessions];
+        for (int i = 0; i < sessions; i++) {
+            ids[i] = registry.create(config, i, 0);
+            expected[i] = new MineField(config);
+            expected[i].placeMines(new Random(i), 0);
+        }
+        assertTrue(registry.getResidentCount() <= 16);
+        assertTrue(registry.getSpills() >= sessions - 16);
+
+        Random random = new Random(42);
+        for (int move = 0; move < 2_000; move++) {
+            int session = random.nextInt(sessions);
+            int cell = random.nextInt(config.getCells());
+            int action = random.nextInt(3) == 0 ? Action.flag(cell) : Action.reveal(cell);
+            assertEquals(expected[session].apply(action), registry.play(ids[session], action));
+            assertTrue(registry.isResident(ids[session]));
+            assertTrue(registry.getResidentCount() <= 16);
+        }
+
+        for (int i = 0; i < sessions; i++) {
+            MineField field = expected[i];
+            registry.query(ids[i], actual -> {
+                assertFieldEquals(field, actual);
+                return null;
+            });
+        }
+        assertTrue(registry.getRehydrations() > 0);
+        assertEquals(registry.getRehydrations(), registry.getRehydrationLatency().getCount());
+        assertTrue(registry.getRehydrationLatency().getPercentile(99) > 0);
+    }
+
+    /**
+     * Checks that two fields have the same mines and the same visible state.
+     */
+    private static void assertFieldEquals(MineField expected, MineField actual) {
+        assertEquals(expected.getConfig(), actual.getConfig());
+        assertArrayEquals(expected.getMinePositions(), actual.getMinePositions());
+        for (int i = 0; i < expected.getCellCount(); i++)
+            assertEquals(expected.getImageIndex(i), actual.getImageIndex(i));
+        assertEquals(expected.isWon(), actual.isWon());
+        assertEquals(expected.getView().getRevealedCells(), actual.getView().getRevealedCells());
+        assertEquals(expected.getView().getFlaggedCells(), actual.getView().getFlaggedCells());
+        assertEquals(expected.getHash(), actual.getHash());
+    }
+
+    @Test
+    void idleEvictionTest() throws Exception {
+        SessionRegistry registry = new SessionRegistry(directory, 100, 1, 1);
+        long first = registry.create(BoardConfig.BEGINNER, 1, 40);
+        registry.play(first, Action.reveal(40));
+        Thread.sleep(1);
+
+        // the idle session is evicted when the shard is used
+        long second = registry.create(BoardConfig.BEGINNER, 2, 40);
+        assertFalse(registry.isResident(first));
+        assertTrue(Files.exists(registry.pathOf(first)));
+        Thread.sleep(1);
+        registry.evictIdle();
+        assertEquals(0, registry.getResidentCount());
+
+        assertEquals(0, registry.play(first, Action.reveal(40)));
+        assertEquals(Boolean.TRUE, registry.query(first, field -> field.getState(40) == MineField.REVEALED));
+
+        assertTrue(registry.remove(second));
+        assertFalse(registry.remove(second));
+        assertThrows(NoSuchElementException.class, () -> registry.play(second, Action.reveal(0)));
+    }
+
+    @Test
+    void restartTest() {
+        long id;
+        try (SessionRegistry registry = new SessionRegistry(directory, 10, TimeUnit.HOURS.toNanos(1), 2)) {
+            id = registry.create(BoardConfig.EXPERT, 7, 0);
+            registry.play(id, Action.reveal(0));
+            registry.play(id, Action.flag(479));
+        }
+
+        // the sessions survive a restart, and the new ones do not reuse their identifiers
+        SessionRegistry registry = new SessionRegistry(directory, 10, TimeUnit.HOURS.toNanos(1), 2);
+        assertEquals(0, registry.getResidentCount());
+        assertEquals(Boolean.TRUE, registry.query(id, field -> field.getState(479) == MineField.FLAGGED));
+        assertTrue(registry.create(BoardConfig.EXPERT, 8, 0) > id);
+        assertThrows(IllegalArgumentException.class, () -> new SessionRegistry(directory, 1, 1, 2));
+    }
+}
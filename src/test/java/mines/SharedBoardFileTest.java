@@ -0,0 +1,100 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.swing.*;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharedBoardFileTest {
+
+    /**
+     * The number of mines left published by the first move of the consistency test.
+     */
+    private static final int MOVE_BASE = 1000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void boardTest() {
+        Path path = directory.resolve("board.bin");
+        Board board = new Board(new JLabel());
+        board.shareTo(path);
+        SharedBoardViewer viewer = new SharedBoardViewer(path);
+        byte[] images = new byte[viewer.getCellCount()];
+
+        long sequence = viewer.read(images);
+        assertEquals(Board.ROWS, viewer.getRows());
+        assertEquals(Board.COLS, viewer.getColumns());
+        assertEquals(Board.MINES, viewer.getMinesLeft());
+        for (byte image : images)
+            assertEquals(Zobrist.COVERED, image);
+
+        board.getMouseAdapter().cellLeftClicked(0);
+        board.getMouseAdapter().cellRightClicked(Board.ROWS * Board.COLS - 1);
+        long next = viewer.awaitChange(sequence, TimeUnit.SECONDS.toNanos(1));
+        assertNotEquals(sequence, next);
+        assertEquals(0, next & 1);
+        viewer.read(images);
+        assertEquals(Board.MINES - 1, viewer.getMinesLeft());
+        assertEquals(SpectatorStream.IN_GAME, viewer.getStatus());
+        for (int i = 0; i < images.length; i++) {
+            ICell cell = board.getBoardCells().get(i);
+            int expected = cell.getCellState() == CellState.CHECKED ? cell.getCellContent()
+                    : cell.getCellState() == CellState.MARKED ? Zobrist.MARKED : Zobrist.COVERED;
+            assertEquals(expected, images[i], "cell " + i);
+        }
+
+        // a new game covers all the cells
+        board.resetBoard();
+        viewer.read(images);
+        for (byte image : images)
+            assertEquals(Zobrist.COVERED, image);
+        board.stopSharing();
+
+        // nothing changes without a move
+        long last = viewer.getSequence();
+        assertEquals(last, viewer.awaitChange(last, TimeUnit.MILLISECONDS.toNanos(5)));
+    }
+
+    @Test
+    void consistencyTest() throws InterruptedException {
+        BoardConfig config = BoardConfig.EXPERT;
+        Path path = directory.resolve("board.bin");
+        SharedBoardFile file = new SharedBoardFile(path, config);
+        SharedBoardViewer viewer = new SharedBoardViewer(path);
+        AtomicBoolean done = new AtomicBoolean();
+
+        // every move changes all the cells and numbers itself in the mines left, so a torn read would be seen
+        Thread writer = new Thread(() -> {
+            for (int move = 0; move < 20_000; move++) {
+                for (int i = 0; i < config.getCells(); i++)
+                    file.cellChanged(i, move % 9);
+                file.publish(MOVE_BASE + move, SpectatorStream.IN_GAME);
+            }
+            done.set(true);
+        });
+        writer.start();
+
+        byte[] images = new byte[config.getCells()];
+        int reads = 0;
+        long previous = -1;
+        while (!done.get() || reads == 0) {
+            long sequence = viewer.read(images);
+            assertTrue(sequence >= previous);
+            previous = sequence;
+            for (byte image : images)
+                assertEquals(images[0], image);
+            if (viewer.getMinesLeft() >= MOVE_BASE)
+                assertEquals((viewer.getMinesLeft() - MOVE_BASE) % 9, images[0]);
+            reads++;
+        }
+        writer.join();
+        file.close();
+    }
+}
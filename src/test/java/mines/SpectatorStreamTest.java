@@ -0,0 +1,167 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpectatorStreamTest {
+
+    /**
+     * Checks that a decoder displays the same images as the given ones.
+     */
+    private static void assertImages(byte[] images, SpectatorDecoder decoder) {
+        for (int i = 0; i < images.length; i++)
+            assertEquals(images[i], decoder.getImageIndex(i), "cell " + i);
+    }
+
+    @Test
+    void roundTripTest() {
+        BoardConfig config = new BoardConfig(30, 40, 200);
+        SpectatorStream stream = new SpectatorStream(config);
+        SpectatorDecoder first = new SpectatorDecoder();
+        SpectatorDecoder second = new SpectatorDecoder();
+        stream.subscribe(first, 200, SpectatorStream.IN_GAME);
+        assertEquals(config, first.getConfig());
+
+        byte[] images = new byte[config.getCells()];
+        Arrays.fill(images, (byte) Zobrist.COVERED);
+        Random random = new Random(7);
+        for (int move = 0; move < 200; move++) {
+            // reveal runs, flag toggles and arbitrary changes, some cells changed twice
+            int start = random.nextInt(images.length);
+            for (int i = start; i < Math.min(images.length, start + random.nextInt(20)); i++)
+                changeCell(stream, images, i, (byte) random.nextInt(Zobrist.MINE + 1));
+            int flag = random.nextInt(images.length);
+            if (images[flag] == Zobrist.COVERED || images[flag] == Zobrist.MARKED)
+                changeCell(stream, images, flag, images[flag] == Zobrist.COVERED ? (byte) Zobrist.MARKED : (byte) Zobrist.COVERED);
+            changeCell(stream, images, random.nextInt(images.length), (byte) random.nextInt(Zobrist.WRONG_MARK + 1));
+            stream.publishDelta(200 - move % 50, SpectatorStream.IN_GAME);
+
+            // a spectator joining in the middle of the game gets a snapshot
+            if (move == 100)
+                stream.subscribe(second, 200 - move % 50, SpectatorStream.IN_GAME);
+        }
+        stream.publishDelta(3, SpectatorStream.LOST);
+
+        assertImages(images, first);
+        assertImages(images, second);
+        assertEquals(3, first.getMinesLeft());
+        assertEquals(SpectatorStream.LOST, second.getStatus());
+
+        // nothing is sent when nothing changed
+        long messages = first.getMessages();
+        stream.publishDelta(3, SpectatorStream.LOST);
+        assertEquals(messages, first.getMessages());
+
+        // a new game covers all the cells again
+        stream.reset();
+        Arrays.fill(images, (byte) Zobrist.COVERED);
+        stream.publishSnapshot(200, SpectatorStream.IN_GAME);
+        assertImages(images, first);
+        assertEquals(SpectatorStream.IN_GAME, first.getStatus());
+    }
+
+    /**
+     * Changes the image of a cell on both the stream and the expected images.
+     */
+    private static void changeCell(SpectatorStream stream, byte[] images, int index, byte imageIndex) {
+        images[index] = imageIndex;
+        stream.cellChanged(index, imageIndex);
+    }
+
+    @Test
+    void sharedViewTest() {
+        SpectatorStream stream = new SpectatorStream(new BoardConfig(100, 100, 2000));
+        List<ByteBuffer> received = new ArrayList<>();
+        List<Integer> sizes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            stream.subscribe(message -> {
+                received.add(message);
+                sizes.add(message.remaining());
+                // a subscriber reading the message does not disturb the others
+                message.get(new byte[message.remaining()]);
+            }, 2000, SpectatorStream.IN_GAME);
+        }
+        assertEquals(3, stream.getSubscriberCount());
+        received.clear();
+        sizes.clear();
+
+        // a flood fill opening a block of cells is sent as runs: a gap, a length and half a byte per cell
+        for (int row = 10; row < 30; row++)
+            for (int column = 10; column < 30; column++)
+                stream.cellChanged(row * 100 + column, 1);
+        stream.publishDelta(2000, SpectatorStream.IN_GAME);
+
+        assertEquals(3, received.size());
+        assertSame(received.get(0), received.get(1));
+        assertSame(received.get(1), received.get(2));
+        assertTrue(received.get(0).isReadOnly());
+        assertEquals(sizes.get(0), sizes.get(2));
+        assertTrue(sizes.get(0) <= 20 * (2 + 1 + 10) + 20, "flood fill delta of " + sizes.get(0) + " bytes");
+
+        // a single flag costs a few bytes
+        sizes.clear();
+        stream.cellChanged(0, Zobrist.MARKED);
+        stream.publishDelta(1999, SpectatorStream.IN_GAME);
+        assertTrue(sizes.get(0) <= 20, "flag delta of " + sizes.get(0) + " bytes");
+
+        SpectatorDecoder decoder = new SpectatorDecoder();
+        stream.subscribe(decoder, 1999, SpectatorStream.IN_GAME);
+        assertEquals(4, stream.getSubscriberCount());
+        assertEquals(Zobrist.MARKED, decoder.getImageIndex(0));
+        stream.unsubscribe(decoder);
+        assertEquals(3, stream.getSubscriberCount());
+    }
+
+    @Test
+    void subscriptionChangesTest() {
+        BoardConfig config = new BoardConfig(10, 10, 10);
+        SpectatorStream stream = new SpectatorStream(config);
+        SpectatorDecoder first = new SpectatorDecoder();
+        stream.subscribe(first, 10, SpectatorStream.IN_GAME);
+
+        // the changes not sent yet reach the existing spectators when another one joins
+        stream.cellChanged(5, 3);
+        SpectatorDecoder second = new SpectatorDecoder();
+        stream.subscribe(second, 10, SpectatorStream.IN_GAME);
+        assertEquals(3, first.getImageIndex(5));
+        assertEquals(3, second.getImageIndex(5));
+
+        // a spectator can leave while it receives a message
+        int[] received = new int[1];
+        SpectatorStream.Subscriber leaving = new SpectatorStream.Subscriber() {
+            @Override
+            public void onMessage(ByteBuffer message) {
+                if (++received[0] == 2)
+                    stream.unsubscribe(this);
+            }
+        };
+        stream.subscribe(leaving, 10, SpectatorStream.IN_GAME);
+        stream.cellChanged(6, 4);
+        stream.publishDelta(10, SpectatorStream.IN_GAME);
+        stream.cellChanged(7, 5);
+        stream.publishDelta(10, SpectatorStream.IN_GAME);
+        assertEquals(2, received[0]);
+        assertEquals(2, stream.getSubscriberCount());
+        assertEquals(5, first.getImageIndex(7));
+        assertEquals(5, second.getImageIndex(7));
+    }
+
+    @Test
+    void varintTest() {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        int[] values = {0, 1, 127, 128, 16_383, 16_384, Integer.MAX_VALUE};
+        for (int value : values)
+            SpectatorStream.putVarint(buffer, value);
+        buffer.flip();
+        for (int value : values)
+            assertEquals(value, SpectatorStream.getVarint(buffer));
+        assertFalse(buffer.hasRemaining());
+    }
+}
@@ -0,0 +1,61 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TileCacheTest {
+
+    /**
+     * Creates images of one color each, standing for the cell images.
+     */
+    private static Image[] createSources() {
+        Image[] sources = new Image[13];
+        for (int i = 0; i < sources.length; i++) {
+            BufferedImage image = new BufferedImage(Cell.WIDTH, Cell.HEIGHT, BufferedImage.TYPE_INT_RGB);
+            for (int y = 0; y < Cell.HEIGHT; y++)
+                for (int x = 0; x < Cell.WIDTH; x++)
+                    image.setRGB(x, y, i * 0x101010);
+            sources[i] = image;
+        }
+        return sources;
+    }
+
+    @Test
+    void getTilesTest() {
+        TileCache cache = new TileCache(createSources(), 2);
+        Image[] tiles = cache.getTiles(40);
+        assertEquals(13, tiles.length);
+        assertEquals(40, tiles[0].getWidth(null));
+        assertEquals(40, tiles[12].getHeight(null));
+        assertEquals(0xFF000000 | 5 * 0x101010, ((BufferedImage) tiles[5]).getRGB(20, 20));
+
+        // the tiles of a size are rendered once
+        assertSame(tiles, cache.getTiles(40));
+        assertEquals(1, cache.getRenders());
+
+        // the least recently used size is dropped
+        cache.getTiles(10);
+        cache.getTiles(40);
+        cache.getTiles(64);
+        assertEquals(2, cache.getLevelCount());
+        assertSame(tiles, cache.getTiles(40));
+        assertEquals(3, cache.getRenders());
+        cache.getTiles(10);
+        assertEquals(4, cache.getRenders());
+
+        assertThrows(IllegalArgumentException.class, () -> new TileCache(createSources(), 0));
+    }
+
+    @Test
+    void missingImageTest() {
+        Image[] sources = createSources();
+        sources[Zobrist.MARKED] = null;
+        Image tile = new TileCache(sources, 1).getTiles(8)[Zobrist.MARKED];
+        assertEquals(TileCache.getFlatColor(Zobrist.MARKED), new Color(((BufferedImage) tile).getRGB(4, 4)));
+    }
+}
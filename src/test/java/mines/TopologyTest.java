@@ -0,0 +1,110 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopologyTest {
+
+    @Test
+    void squareTest() {
+        Adjacency adjacency = Topology.SQUARE.getAdjacency(3, 4);
+        assertEquals(12, adjacency.getCellCount());
+        assertEquals(3, adjacency.getDegree(0));
+        assertEquals(5, adjacency.getDegree(1));
+        assertEquals(8, adjacency.getDegree(5));
+        int[] neighbours = new int[MineField.MAX_CORNERS];
+        assertEquals(8, adjacency.getNeighbours(5, neighbours));
+        assertArrayEquals(new int[]{0, 1, 2, 4, 6, 8, 9, 10}, neighbours);
+        assertTrue(adjacency.isAdjacent(0, 5));
+        assertFalse(adjacency.isAdjacent(0, 2));
+
+        // the table is compiled once per size
+        assertSame(adjacency, Topology.SQUARE.getAdjacency(3, 4));
+        assertNotSame(adjacency, Topology.SQUARE.getAdjacency(4, 3));
+        assertSame(Topology.SQUARE.getAdjacency(3, 4), new MineField(new BoardConfig(3, 4, 2)).getView().getAdjacency());
+    }
+
+    @Test
+    void builtInTopologiesTest() {
+        Adjacency torus = Topology.TORUS.getAdjacency(5, 6);
+        Adjacency hex = Topology.HEX.getAdjacency(5, 6);
+        Adjacency knight = Topology.KNIGHT.getAdjacency(5, 6);
+        for (int index = 0; index < 30; index++) {
+            assertEquals(8, torus.getDegree(index));
+            for (int other = 0; other < 30; other++) {
+                // the neighbourhoods are symmetric
+                assertEquals(torus.isAdjacent(index, other), torus.isAdjacent(other, index));
+                assertEquals(hex.isAdjacent(index, other), hex.isAdjacent(other, index));
+                assertEquals(knight.isAdjacent(index, other), knight.isAdjacent(other, index));
+            }
+        }
+        assertTrue(torus.isAdjacent(0, 29));
+        assertEquals(6, hex.getMaxDegree());
+        assertEquals(6, hex.getDegree(7));
+        assertEquals(2, knight.getDegree(0));
+        assertTrue(knight.isAdjacent(0, 8));
+
+        // a torus too small for eight distinct neighbours keeps each neighbour once
+        assertEquals(3, Topology.TORUS.getAdjacency(2, 2).getDegree(0));
+
+        for (int id = 0; id < 4; id++) {
+            assertEquals(id, Topology.forId(id).getId());
+            assertSame(Topology.forId(id), Topology.forName(Topology.forId(id).getName()));
+        }
+        assertThrows(IllegalArgumentException.class, () -> Topology.forName("cube"));
+    }
+
+    @Test
+    void customTopologyTest() {
+        Topology cross = Topology.ofMoves("cross", false, new int[][]{{-1, 0}, {1, 0}, {0, -1}, {0, 1}});
+        assertEquals(-1, cross.getId());
+        assertEquals(4, cross.getAdjacency(3, 3).getDegree(4));
+
+        Topology tooWide = Topology.ofMoves("wide", false, new int[][]{
+                {0, 1}, {0, 2}, {0, 3}, {0, 4}, {0, 5}, {0, 6}, {0, 7}, {0, 8}, {0, 9}});
+        assertThrows(IllegalArgumentException.class, () -> tooWide.getAdjacency(1, 10));
+
+        // a cell must be a neighbour of its neighbours, or the numbers would not count the mines around it
+        Topology oneWay = Topology.ofMoves("one way", false, new int[][]{{0, 1}});
+        assertThrows(IllegalArgumentException.class, () -> oneWay.getAdjacency(3, 3));
+        assertThrows(IllegalArgumentException.class, () -> new MineField(new BoardConfig(3, 3, 1), oneWay));
+        Topology bothWays = Topology.ofMoves("both ways", true, new int[][]{{0, 1}, {0, -1}});
+        assertEquals(2, bothWays.getAdjacency(3, 3).getDegree(0));
+
+        MineField field = new MineField(new BoardConfig(3, 3, 1), cross);
+        assertThrows(IllegalStateException.class, () -> field.writeTo(ByteBuffer.allocate(64)));
+    }
+
+    @Test
+    void playTest() {
+        // the engine and the solver follow the table of the topology
+        for (Topology topology : new Topology[]{Topology.SQUARE, Topology.TORUS, Topology.HEX, Topology.KNIGHT}) {
+            BoardConfig config = new BoardConfig(12, 12, 12);
+            Adjacency adjacency = topology.getAdjacency(12, 12);
+            Random random = new Random(11);
+            for (int game = 0; game < 20; game++) {
+                MineField field = new MineField(config, topology);
+                field.placeMines(random, 70);
+                int[] neighbours = new int[MineField.MAX_CORNERS];
+                int startCount = adjacency.getNeighbours(70, neighbours);
+                for (int i = 0; i < startCount; i++)
+                    assertFalse(field.isMined(neighbours[i]));
+                for (int index = 0; index < config.getCells(); index++) {
+                    int mined = 0;
+                    int count = adjacency.getNeighbours(index, neighbours);
+                    for (int i = 0; i < count; i++)
+                        mined += field.isMined(neighbours[i]) ? 1 : 0;
+                    assertEquals(mined, field.getCount(index), topology + " cell " + index);
+                }
+
+                // the solver never loses, whatever the topology
+                new DeductionSolver().solve(field, 70);
+                assertFalse(field.isLost(), topology.getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package mines;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TournamentRunnerTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+
+    private final TournamentRunner runner = new TournamentRunner(pool, 16);
+
+    @AfterEach
+    void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    void loadStrategiesTest() {
+        List<String> names = TournamentRunner.loadStrategies().stream()
+                .map(ServiceLoader.Provider::get)
+                .map(Strategy::getName)
+                .collect(Collectors.toList());
+        assertTrue(names.contains("DeductionStrategy"));
+        assertTrue(names.contains("RandomStrategy"));
+    }
+
+    @Test
+    void tournamentTest() {
+        List<Supplier<Strategy>> strategies = Arrays.asList(DeductionStrategy::new, RandomStrategy::new);
+        List<TournamentResult> results = runner.run(BoardConfig.BEGINNER, strategies, 5, 300);
+
+        assertEquals(2, results.size());
+        TournamentResult deduction = results.get(0);
+        TournamentResult random = results.get(1);
+        assertEquals("DeductionStrategy", deduction.getName());
+        assertEquals(300, deduction.getEstimate().getGames());
+        assertEquals(300, random.getEstimate().getGames());
+        assertTrue(deduction.getEstimate().getWinRate() > random.getEstimate().getWinRate());
+
+        // one decision is timed for every move after the first click
+        assertEquals(deduction.getEstimate().getMoves() - 300, deduction.getLatencies().getCount(), 300);
+        assertTrue(deduction.getLatencies().getPercentile(50) <= deduction.getLatencies().getPercentile(99));
+        assertTrue(deduction.getMovesPerSecond() > 0);
+    }
+
+    @Test
+    void identicalBoardsTest() {
+        // the same seed gives the same boards, so a deterministic strategy plays the same games
+        List<Supplier<Strategy>> strategies = Arrays.asList(DeductionStrategy::new, DeductionStrategy::new);
+        List<TournamentResult> results = runner.run(BoardConfig.INTERMEDIATE, strategies, 11, 200);
+
+        assertEquals(results.get(0).getEstimate().getWins(), results.get(1).getEstimate().getWins());
+        assertEquals(results.get(0).getEstimate().getMoves(), results.get(1).getEstimate().getMoves());
+    }
+}
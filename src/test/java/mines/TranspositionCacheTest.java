@@ -0,0 +1,66 @@
+package mines;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranspositionCacheTest {
+
+    @Test
+    void getPutTest() {
+        TranspositionCache<String> cache = new TranspositionCache<>(100);
+        assertEquals(128, cache.getCapacity());
+
+        assertNull(cache.get(42));
+        cache.put(42, "position");
+        assertEquals("position", cache.get(42));
+
+        // a hash sharing the slot of a stored hash does not hit, and replaces it when stored
+        long sameSlot = 42 + 128;
+        assertNull(cache.get(sameSlot));
+        cache.put(sameSlot, "other position");
+        assertNull(cache.get(42));
+        assertEquals("other position", cache.get(sameSlot));
+
+        assertEquals(2, cache.getHits());
+        assertEquals(3, cache.getMisses());
+        assertEquals(1, cache.getEvictions());
+        assertEquals(0.4, cache.getHitRate(), 1e-9);
+
+        assertThrows(IllegalArgumentException.class, () -> new TranspositionCache<>(0));
+    }
+
+    @Test
+    void solverCacheTest() {
+        MineLayout layout = new MineLayout(new BoardConfig(3, 4, 2), 3, new int[]{0, 11});
+        TranspositionCache<int[]> cache = new TranspositionCache<>(1024);
+
+        MineField field = new MineField(layout.getConfig());
+        field.setLayout(layout);
+        field.reveal(3);
+        DeductionSolver solver = new DeductionSolver(cache);
+        int count = solver.deduce(field.getView());
+        assertTrue(count > 0);
+        assertEquals(1, cache.getMisses());
+
+        // another solver reaching the same position reuses the stored actions
+        MineField other = new MineField(layout.getConfig());
+        other.setLayout(layout);
+        other.reveal(3);
+        DeductionSolver otherSolver = new DeductionSolver(cache);
+        assertEquals(count, otherSolver.deduce(other.getView()));
+        assertEquals(1, cache.getHits());
+        for (int i = 0; i < count; i++)
+            assertEquals(solver.getDecision(i), otherSolver.getDecision(i));
+
+        // a cached solver plays the same games as an uncached one
+        assertTrue(new DeductionSolver(cache).solve(newField(layout), layout.getStartIndex()));
+        assertTrue(new DeductionSolver().solve(newField(layout), layout.getStartIndex()));
+    }
+
+    private static MineField newField(MineLayout layout) {
+        MineField field = new MineField(layout.getConfig());
+        field.setLayout(layout);
+        return field;
+    }
+}
@@ -0,0 +1,73 @@
+package mines;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WinRateEstimatorTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+
+    private final WinRateEstimator estimator = new WinRateEstimator(pool, 50);
+
+    @AfterEach
+    void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    void deductionBeatsRandomTest() {
+        WinRateEstimate deduction = estimator.estimate(BoardConfig.BEGINNER, DeductionStrategy::new, 1,
+                0, 1000, estimate -> { });
+        WinRateEstimate random = estimator.estimate(BoardConfig.BEGINNER, RandomStrategy::new, 1,
+                0, 1000, estimate -> { });
+
+        assertEquals(1000, deduction.getGames());
+        assertEquals(1000, random.getGames());
+        assertTrue(deduction.getWinRate() > 0.5);
+        assertTrue(deduction.getWinRate() > random.getWinRate());
+        assertTrue(deduction.getMeanMoves() > 1);
+    }
+
+    @Test
+    void earlyStopTest() {
+        List<WinRateEstimate> progress = new ArrayList<>();
+        // a round plays 400 games, which are not enough for this precision
+        WinRateEstimate estimate = estimator.estimate(BoardConfig.BEGINNER, DeductionStrategy::new, 2,
+                0.02, 100_000, progress::add);
+
+        // the run stops once the interval is narrow enough, long before the maximum number of games
+        assertTrue(estimate.getHalfWidth() <= 0.02);
+        assertTrue(estimate.getGames() < 100_000);
+        assertSame(estimate, progress.get(progress.size() - 1));
+
+        // the interval narrows as the run converges
+        assertTrue(progress.size() > 1, "rounds: " + progress.size());
+        assertTrue(progress.get(0).getHalfWidth() > 0.02);
+        assertTrue(progress.get(0).getHalfWidth() > estimate.getHalfWidth());
+        assertTrue(estimate.getLower() <= estimate.getWinRate() && estimate.getWinRate() <= estimate.getUpper());
+    }
+
+    @Test
+    void reproducibleTest() {
+        WinRateEstimate first = estimator.estimate(BoardConfig.INTERMEDIATE, DeductionStrategy::new, 3,
+                0, 400, estimate -> { });
+        WinRateEstimate second = estimator.estimate(BoardConfig.INTERMEDIATE, DeductionStrategy::new, 3,
+                0, 400, estimate -> { });
+
+        assertEquals(first.getWins(), second.getWins());
+        assertEquals(first.getMoves(), second.getMoves());
+    }
+
+    @Test
+    void tooManyMinesTest() {
+        BoardConfig config = new BoardConfig(3, 3, 5);
+        assertThrows(IllegalArgumentException.class,
+                () -> estimator.estimate(config, RandomStrategy::new, 1, 0.1, 10, estimate -> { }));
+    }
+}